@@ -0,0 +1,35 @@
+package com.unstampedpages;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * Boots the application against an in-memory H2 database for benchmarks, without the gRPC server,
+ * Flyway or the request limits. Settings are passed as arguments so that they win over
+ * application.properties.
+ */
+public final class BenchmarkContexts {
+
+    private BenchmarkContexts() {
+    }
+
+    public static ConfigurableApplicationContext start(String database, WebApplicationType webApplicationType) {
+        return new SpringApplicationBuilder(UnstampedpagesApplication.class)
+                .web(webApplicationType)
+                .logStartupInfo(false)
+                .run("--spring.datasource.url=jdbc:h2:mem:" + database
+                                + ";DB_CLOSE_DELAY=-1;INIT=CREATE SCHEMA IF NOT EXISTS UNSTAMPEDPAGES",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.flyway.enabled=false",
+                        "--grpc.server.enabled=false",
+                        "--server.port=0",
+                        "--users.rate-limit.enabled=false",
+                        "--users.admission.enabled=false",
+                        "--users.idempotency.enabled=false",
+                        "--users.warmup.enabled=false");
+    }
+}
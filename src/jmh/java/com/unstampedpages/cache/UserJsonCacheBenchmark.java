@@ -0,0 +1,39 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.UserDTO;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding a user with Jackson against serving it from {@link UserJsonCache}. Run with
+ * {@code -PjmhProfilers=gc} for bytes allocated per operation ({@code gc.alloc.rate.norm}).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserJsonCacheBenchmark {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final UserJsonCache cache = new UserJsonCache(jsonMapper, 1_000);
+    private final UserDTO user = new UserDTO(42L, "John", "Doe", 30, "john@example.com");
+
+    @Setup
+    public void setUp() {
+        cache.toJson(user);
+    }
+
+    @Benchmark
+    public byte[] writeValueAsBytes() {
+        return jsonMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] cacheHit() {
+        return cache.toJson(user);
+    }
+}
@@ -0,0 +1,64 @@
+package com.unstampedpages.controller;
+
+import com.unstampedpages.BenchmarkContexts;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserService;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+/**
+ * The request path through {@code DispatcherServlet}, {@link UserController}, {@link UserService}
+ * and H2, as seen by MockMvc (no servlet filters or network).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserControllerBenchmark {
+
+    private static final int USERS = 100;
+
+    private ConfigurableApplicationContext context;
+    private MockMvc mockMvc;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("controller", WebApplicationType.SERVLET);
+        mockMvc = MockMvcBuilders.webAppContextSetup((WebApplicationContext) context).build();
+        UserService userService = context.getBean(UserService.class);
+        for (int i = 0; i < USERS; i++) {
+            UserDTO created = userService.createUser("First" + i, "Last" + i, 18 + i % 60, "user" + i + "@example.com");
+            if (userId == null) {
+                userId = created.userId();
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public MvcResult getUser() throws Exception {
+        return mockMvc.perform(get("/users/{id}", userId).accept(MediaType.APPLICATION_JSON)).andReturn();
+    }
+
+    @Benchmark
+    public MvcResult getAllUsers() throws Exception {
+        return mockMvc.perform(get("/users").accept(MediaType.APPLICATION_JSON)).andReturn();
+    }
+}
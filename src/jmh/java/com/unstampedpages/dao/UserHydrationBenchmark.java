@@ -0,0 +1,57 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.BenchmarkContexts;
+import com.unstampedpages.model.User;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Loading {@link User} entities through {@link UserDAO} from H2. Each call runs in a new
+ * persistence context, so every row is hydrated again.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserHydrationBenchmark {
+
+    @Param({"100", "1000"})
+    public int users;
+
+    private ConfigurableApplicationContext context;
+    private UserDAO userDAO;
+    private Long userId;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContexts.start("hydration", WebApplicationType.NONE);
+        userDAO = context.getBean(UserDAO.class);
+        List<User> saved = userDAO.saveAll(IntStream.range(0, users)
+                .mapToObj(i -> new User(null, "First" + i, "Last" + i, 18 + i % 60, "user" + i + "@example.com"))
+                .toList());
+        userId = saved.get(users / 2).getUserId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public Optional<User> findById() {
+        return userDAO.findById(userId);
+    }
+
+    @Benchmark
+    public List<User> findAll() {
+        return userDAO.findAll();
+    }
+}
@@ -0,0 +1,73 @@
+package com.unstampedpages.dto;
+
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.JavaType;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+/**
+ * Jackson encoding and decoding of a single {@link UserDTO} and of lists of several sizes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserJsonBenchmark {
+
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private UserDTO user;
+    private byte[] userJson;
+
+    @State(Scope.Benchmark)
+    public static class UserList {
+
+        @Param({"10", "100", "1000"})
+        public int size;
+
+        private List<UserDTO> users;
+        private byte[] json;
+        private JavaType type;
+
+        @Setup
+        public void setUp(UserJsonBenchmark benchmark) {
+            users = IntStream.range(0, size).mapToObj(UserJsonBenchmark::user).toList();
+            json = benchmark.jsonMapper.writeValueAsBytes(users);
+            type = benchmark.jsonMapper.getTypeFactory().constructCollectionType(List.class, UserDTO.class);
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        user = user(1);
+        userJson = jsonMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeUser() {
+        return jsonMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public UserDTO deserializeUser() {
+        return jsonMapper.readValue(userJson, UserDTO.class);
+    }
+
+    @Benchmark
+    public byte[] serializeList(UserList list) {
+        return jsonMapper.writeValueAsBytes(list.users);
+    }
+
+    @Benchmark
+    public List<UserDTO> deserializeList(UserList list) {
+        return jsonMapper.readValue(list.json, list.type);
+    }
+
+    private static UserDTO user(int i) {
+        return new UserDTO((long) i, "First" + i, "Last" + i, 18 + i % 60, "user" + i + "@example.com");
+    }
+}
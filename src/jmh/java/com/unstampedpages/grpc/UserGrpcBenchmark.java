@@ -0,0 +1,105 @@
+package com.unstampedpages.grpc;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.grpc.v1.GetManyUsersRequest;
+import com.unstampedpages.grpc.v1.GetUserRequest;
+import com.unstampedpages.grpc.v1.ListUsersRequest;
+import com.unstampedpages.grpc.v1.UserMessage;
+import com.unstampedpages.grpc.v1.UserServiceGrpc;
+import com.unstampedpages.service.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * In-process client round trips through the gRPC API: a single lookup, a batch of 100 and a
+ * 10k-user stream. The {@link UserService} behind it is a mock, so what is measured is the
+ * transport and protobuf encoding, plus the mock's own cost per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserGrpcBenchmark {
+
+    private static final int BATCH_SIZE = 100;
+    private static final int STREAMED_USERS = 10_000;
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+    private final GetUserRequest getUser = GetUserRequest.newBuilder().setUserId(42L).build();
+    private final GetManyUsersRequest getManyUsers = GetManyUsersRequest.newBuilder()
+            .addAllUserIds(LongStream.rangeClosed(1, BATCH_SIZE).boxed().toList())
+            .build();
+
+    @Setup
+    public void setUp() throws IOException {
+        UserService userService = mock(UserService.class);
+        when(userService.getUser(anyLong())).thenAnswer(invocation -> Optional.of(user(invocation.<Long>getArgument(0))));
+        when(userService.getUsers(anyCollection())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            return ids.stream().map(UserGrpcBenchmark::user).toList();
+        });
+        when(userService.searchUsers(any(), any(), anyInt())).thenAnswer(invocation -> {
+            String cursor = invocation.getArgument(1);
+            long after = cursor == null ? 0 : Long.parseLong(cursor);
+            long last = Math.min(STREAMED_USERS, after + invocation.<Integer>getArgument(2));
+            List<UserDTO> page = LongStream.rangeClosed(after + 1, last).mapToObj(UserGrpcBenchmark::user).toList();
+            return new UserSearchResult(page, last < STREAMED_USERS ? Long.toString(last) : null);
+        });
+
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(new UserGrpcService(userService))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @TearDown
+    public void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Benchmark
+    public UserMessage getUser() {
+        return stub.getUser(getUser);
+    }
+
+    @Benchmark
+    public int getManyUsers() {
+        return stub.getManyUsers(getManyUsers).getUsersCount();
+    }
+
+    @Benchmark
+    public void listUsers(Blackhole blackhole) {
+        Iterator<UserMessage> users = stub.listUsers(ListUsersRequest.getDefaultInstance());
+        while (users.hasNext()) {
+            blackhole.consume(users.next());
+        }
+    }
+
+    private static UserDTO user(long id) {
+        return new UserDTO(id, "First" + id, "Last" + id, (int) (id % 80) + 18, "user" + id + "@example.com");
+    }
+}
@@ -0,0 +1,93 @@
+package com.unstampedpages.http;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.grpc.UserProtoMapper;
+import com.unstampedpages.grpc.v1.UserList;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.LongStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Encode time of a 10k-user {@code GET /users} page per media type, with the payload size before
+ * and after gzip reported as the {@code bytes} and {@code gzipBytes} secondary results.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserEncodingBenchmark {
+
+    private static final int PAGE_SIZE = 10_000;
+
+    @Param({"application/json", "application/cbor", "application/x-jackson-smile", "application/x-protobuf"})
+    public String mediaType;
+
+    private final List<UserDTO> page = LongStream.rangeClosed(1, PAGE_SIZE)
+            .mapToObj(id -> new UserDTO(id, "First" + id, "Last" + id, (int) (id % 80) + 18, "user" + id + "@example.com"))
+            .toList();
+    private Function<List<UserDTO>, byte[]> encoder;
+    private int bytes;
+    private int gzipBytes;
+
+    /**
+     * Set rather than counted, so each iteration reports the size of one page.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class PayloadSize {
+
+        public long bytes;
+        public long gzipBytes;
+
+        @Setup(Level.Iteration)
+        public void setUp(UserEncodingBenchmark benchmark) {
+            bytes = benchmark.bytes;
+            gzipBytes = benchmark.gzipBytes;
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        encoder = switch (mediaType) {
+            case "application/json" -> JsonMapper.builder().build()::writeValueAsBytes;
+            case "application/cbor" -> CBORMapper.builder().build()::writeValueAsBytes;
+            case "application/x-jackson-smile" -> SmileMapper.builder().build()::writeValueAsBytes;
+            case "application/x-protobuf" -> users -> {
+                UserList.Builder list = UserList.newBuilder();
+                users.forEach(user -> list.addUsers(UserProtoMapper.toMessage(user)));
+                return list.build().toByteArray();
+            };
+            default -> throw new IllegalArgumentException(mediaType);
+        };
+        byte[] encoded = encoder.apply(page);
+        bytes = encoded.length;
+        gzipBytes = gzip(encoded).length;
+    }
+
+    @Benchmark
+    public byte[] encodePage(PayloadSize size) {
+        return encoder.apply(page);
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,34 @@
+package com.unstampedpages.metrics;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Hot-path cost of timing one call, including both {@code System.nanoTime()} reads; must stay well
+ * under a microsecond. {@code contended} runs the same on four threads sharing one timer.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LatencyTimerBenchmark {
+
+    private final LatencyTimer timer = new LatencyTimer(LatencyMetrics.HTTP_STATUSES, Duration.ofMinutes(1));
+
+    @Benchmark
+    public void record() {
+        long start = System.nanoTime();
+        timer.record(System.nanoTime() - start, 200);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void contended() {
+        long start = System.nanoTime();
+        timer.record(System.nanoTime() - start, 200);
+    }
+}
@@ -0,0 +1,28 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class UserMappingBenchmark {
+
+    private User user;
+
+    @Setup
+    public void setUp() {
+        user = new User(1L, "John", "Doe", 30, "john@example.com");
+    }
+
+    @Benchmark
+    public UserDTO toDTO() {
+        return UserService.toDTO(user);
+    }
+}
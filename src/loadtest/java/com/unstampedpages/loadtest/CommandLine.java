@@ -0,0 +1,46 @@
+package com.unstampedpages.loadtest;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * {@code --name=value} arguments of the load-test tools.
+ */
+final class CommandLine {
+
+    private final Map<String, String> options = new HashMap<>();
+
+    CommandLine(String[] args) {
+        for (String arg : args) {
+            int equals = arg.indexOf('=');
+            if (!arg.startsWith("--") || equals < 0) {
+                throw new IllegalArgumentException("Expected --name=value but got " + arg);
+            }
+            options.put(arg.substring(2, equals), arg.substring(equals + 1));
+        }
+    }
+
+    String get(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    String get(String name) {
+        return options.get(name);
+    }
+
+    int getInt(String name, int defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Integer.parseInt(value.replace("_", ""));
+    }
+
+    long getLong(String name, long defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Long.parseLong(value.replace("_", ""));
+    }
+
+    Duration getDuration(String name, Duration defaultValue) {
+        String value = options.get(name);
+        return value == null ? defaultValue : Duration.parse(value);
+    }
+}
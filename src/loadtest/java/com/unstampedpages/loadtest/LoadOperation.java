@@ -0,0 +1,99 @@
+package com.unstampedpages.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+/**
+ * The {@code UserController} operations the load driver can issue. Names and prefixes are drawn
+ * from {@link SyntheticUsers}, so searches hit generated data with a realistic skew.
+ */
+enum LoadOperation {
+
+    GET_BY_ID("get-by-id") {
+        @Override
+        HttpRequest.Builder request(Target target, RandomGenerator random) {
+            return GET(target, "/users/" + target.userIds().get(random.nextInt(target.userIds().size())));
+        }
+    },
+    SEARCH("search") {
+        @Override
+        HttpRequest.Builder request(Target target, RandomGenerator random) {
+            return GET(target, "/users/search?limit=50&lastNamePrefix=" + prefix(SyntheticUsers.LAST_NAMES, 2, random));
+        }
+    },
+    SUGGEST("suggest") {
+        @Override
+        HttpRequest.Builder request(Target target, RandomGenerator random) {
+            return GET(target, "/users/suggest?limit=10&q=" + prefix(SyntheticUsers.FIRST_NAMES, 3, random).toLowerCase(Locale.ROOT));
+        }
+    },
+    STATS("stats") {
+        @Override
+        HttpRequest.Builder request(Target target, RandomGenerator random) {
+            return GET(target, "/users/stats?topDomains=10");
+        }
+    },
+    LIST("list") {
+        @Override
+        HttpRequest.Builder request(Target target, RandomGenerator random) {
+            return GET(target, "/users");
+        }
+    },
+    CREATE("create") {
+        @Override
+        HttpRequest.Builder request(Target target, RandomGenerator random) {
+            String firstName = SyntheticUsers.FIRST_NAMES.get(random.nextInt(SyntheticUsers.FIRST_NAMES.size()));
+            String lastName = SyntheticUsers.LAST_NAMES.get(random.nextInt(SyntheticUsers.LAST_NAMES.size()));
+            String email = "load." + Long.toString(target.nextSequence(), 36) + "@example.com";
+            String body = "{\"firstName\":\"" + firstName + "\",\"lastName\":\"" + lastName + "\",\"age\":"
+                    + (18 + random.nextInt(60)) + ",\"email\":\"" + email + "\"}";
+            return HttpRequest.newBuilder(target.baseUri().resolve("/users"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(body));
+        }
+    };
+
+    /**
+     * The application under load and the user ids sampled from it.
+     */
+    record Target(URI baseUri, List<Long> userIds, AtomicLong sequence) {
+
+        long nextSequence() {
+            return sequence.getAndIncrement();
+        }
+    }
+
+    private final String key;
+
+    LoadOperation(String key) {
+        this.key = key;
+    }
+
+    String key() {
+        return key;
+    }
+
+    abstract HttpRequest.Builder request(Target target, RandomGenerator random);
+
+    static LoadOperation fromKey(String key) {
+        for (LoadOperation operation : values()) {
+            if (operation.key.equals(key)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation " + key);
+    }
+
+    private static HttpRequest.Builder GET(Target target, String path) {
+        return HttpRequest.newBuilder(target.baseUri().resolve(path)).header("Accept", "application/json").GET();
+    }
+
+    private static String prefix(List<String> names, int length, RandomGenerator random) {
+        String name = names.get(random.nextInt(names.size()));
+        return name.substring(0, Math.min(length, name.length()));
+    }
+}
@@ -0,0 +1,280 @@
+package com.unstampedpages.loadtest;
+
+import com.unstampedpages.UnstampedpagesApplication;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchResult;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Starts the packaged application in child JVMs, either to record a JDK AOT cache from a training
+ * run or to measure startup with and without it.
+ * <pre>
+ * ./gradlew -Paot aotCache
+ * ./gradlew -Paot startupBenchmark --args="--runs=10"
+ * </pre>
+ * {@code --mode=train} starts the application with {@code -XX:AOTCacheOutput}, drives every read and
+ * write of {@code UserController} over HTTP ({@code --training-requests}), and stops it; the JVM
+ * writes the cache on exit. {@code --mode=benchmark} starts the application {@code --runs} times per
+ * variant (plain JVM, Spring AOT, Spring AOT with the AOT cache, interleaved) and reports the time
+ * from process start until {@code /ops/ready} answers 200, and the latency of the first request
+ * after that.
+ * <p>
+ * The cache only applies to the same JDK, class path and jar as the training run, so both modes
+ * launch {@code --app}, the jar extracted from the boot jar. Spring AOT fixes conditional beans at
+ * build time, including Flyway, so the application runs against PostgreSQL as in production
+ * ({@code --url}, {@code --user}, {@code --password}); training creates users there, so point it
+ * at a scratch database. Application output goes to {@code --log-dir}.
+ */
+public final class StartupBenchmark {
+
+    private static final String DEFAULT_URL = "jdbc:postgresql://localhost:5432/postgres";
+    private static final String API_KEY_HEADER = "X-API-Key";
+    private static final int TRAINING_CLIENTS = 100;
+    private static final List<LoadOperation> TRAINING_READS =
+            List.of(LoadOperation.GET_BY_ID, LoadOperation.SEARCH, LoadOperation.SUGGEST, LoadOperation.STATS);
+
+    private final CommandLine options;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final HttpClient client = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(1))
+            .build();
+    private final Path app;
+    private final Path cache;
+    private final Path logDir;
+    private final Duration readyTimeout;
+
+    private StartupBenchmark(CommandLine options) {
+        this.options = options;
+        this.app = Path.of(required(options, "app"));
+        this.cache = Path.of(required(options, "cache"));
+        this.logDir = Path.of(options.get("log-dir", "build/aot/logs"));
+        this.readyTimeout = options.getDuration("ready-timeout", Duration.ofMinutes(2));
+    }
+
+    public static void main(String[] args) throws Exception {
+        StartupBenchmark benchmark = new StartupBenchmark(new CommandLine(args));
+        switch (benchmark.options.get("mode", "benchmark")) {
+            case "train" -> benchmark.train();
+            case "benchmark" -> benchmark.benchmark();
+            default -> throw new IllegalArgumentException("--mode must be train or benchmark");
+        }
+    }
+
+    private void train() throws Exception {
+        Files.deleteIfExists(cache);
+        Files.createDirectories(cache.toAbsolutePath().getParent());
+        Application application = start("training", List.of("-XX:AOTCacheOutput=" + cache, "-Dspring.aot.enabled=true"));
+        try {
+            System.out.printf("Training application ready after %.0f ms%n", application.readyMillis());
+            exercise(application.baseUri());
+        } finally {
+            application.stop();
+        }
+        if (!Files.exists(cache)) {
+            throw new IllegalStateException("The training run wrote no AOT cache; see " + application.log());
+        }
+        System.out.printf("Wrote %s (%,d KB)%n", cache, Files.size(cache) / 1024);
+    }
+
+    /**
+     * Creates users, then cycles through the reads; requests are spread over several API keys so that
+     * the rate limiter, which is part of the trained path, does not reject them.
+     */
+    private void exercise(URI baseUri) throws IOException, InterruptedException {
+        SplittableRandom random = new SplittableRandom(options.getLong("seed", 42));
+        LoadOperation.Target target = new LoadOperation.Target(baseUri, List.of(),
+                new AtomicLong(System.currentTimeMillis() * 1_000));
+        int creates = options.getInt("training-creates", 200);
+        for (int i = 0; i < creates; i++) {
+            send(LoadOperation.CREATE.request(target, random), i);
+        }
+        target = new LoadOperation.Target(baseUri, sampleUserIds(baseUri), target.sequence());
+        List<LoadOperation> reads = new ArrayList<>(TRAINING_READS);
+        if (target.userIds().isEmpty()) {
+            reads.remove(LoadOperation.GET_BY_ID);
+        }
+        int requests = options.getInt("training-requests", 5_000);
+        for (int i = 0; i < requests; i++) {
+            send(reads.get(i % reads.size()).request(target, random), i);
+        }
+        System.out.printf("Sent %,d creates and %,d reads%n", creates, requests);
+    }
+
+    private void send(HttpRequest.Builder request, int i) throws IOException, InterruptedException {
+        client.send(request.header(API_KEY_HEADER, "training-" + i % TRAINING_CLIENTS).build(),
+                HttpResponse.BodyHandlers.discarding());
+    }
+
+    private List<Long> sampleUserIds(URI baseUri) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(
+                HttpRequest.newBuilder(baseUri.resolve("/users/search?sort=id&limit=500")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            return List.of();
+        }
+        return jsonMapper.readValue(response.body(), UserSearchResult.class).users().stream()
+                .map(UserDTO::userId)
+                .toList();
+    }
+
+    private void benchmark() throws Exception {
+        Map<String, List<String>> variants = new LinkedHashMap<>();
+        variants.put("jit", List.of());
+        variants.put("spring-aot", List.of("-Dspring.aot.enabled=true"));
+        if (Files.exists(cache)) {
+            variants.put("spring-aot+cache", List.of("-Dspring.aot.enabled=true", "-XX:AOTCache=" + cache));
+        } else {
+            System.out.printf("No AOT cache at %s; run aotCache to include it%n", cache);
+        }
+        int runs = options.getInt("runs", 5);
+        Map<String, double[]> ready = new LinkedHashMap<>();
+        Map<String, double[]> firstRequest = new LinkedHashMap<>();
+        variants.keySet().forEach(name -> {
+            ready.put(name, new double[runs]);
+            firstRequest.put(name, new double[runs]);
+        });
+        for (int run = 0; run < runs; run++) {
+            for (Map.Entry<String, List<String>> variant : variants.entrySet()) {
+                Application application = start(variant.getKey() + "-" + run, variant.getValue());
+                try {
+                    ready.get(variant.getKey())[run] = application.readyMillis();
+                    firstRequest.get(variant.getKey())[run] = firstRequestMillis(application.baseUri());
+                } finally {
+                    application.stop();
+                }
+            }
+        }
+        System.out.printf("%-18s %6s %14s %14s %18s %18s%n",
+                "variant", "runs", "ready p50 ms", "ready min ms", "first req p50 ms", "first req min ms");
+        for (String name : variants.keySet()) {
+            double[] readyMillis = ready.get(name);
+            double[] firstMillis = firstRequest.get(name);
+            System.out.printf("%-18s %6d %14.0f %14.0f %18.1f %18.1f%n", name, runs,
+                    median(readyMillis), Arrays.stream(readyMillis).min().orElse(0),
+                    median(firstMillis), Arrays.stream(firstMillis).min().orElse(0));
+        }
+    }
+
+    private double firstRequestMillis(URI baseUri) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(baseUri.resolve("/users/search?sort=id&limit=10"))
+                .header("Accept", "application/json")
+                .GET()
+                .build();
+        long start = System.nanoTime();
+        HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+        double millis = (System.nanoTime() - start) / 1e6;
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("First request failed with " + response.statusCode());
+        }
+        return millis;
+    }
+
+    private Application start(String name, List<String> jvmArgs) throws IOException, InterruptedException {
+        int port = freePort();
+        List<String> command = new ArrayList<>();
+        command.add(ProcessHandle.current().info().command().orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString()));
+        command.addAll(jvmArgs);
+        command.addAll(List.of("-cp", app.toString(), UnstampedpagesApplication.class.getName(),
+                "--server.port=" + port,
+                "--grpc.server.port=0",
+                "--spring.jpa.properties.unstampedpages.id.node-id=" + options.getInt("node-id", 0),
+                "--spring.datasource.url=" + options.get("url", DEFAULT_URL),
+                "--spring.datasource.username=" + options.get("user", "postgres"),
+                "--spring.datasource.password=" + options.get("password", "postgres")));
+        Files.createDirectories(logDir);
+        Path log = logDir.resolve(name + ".log");
+        long start = System.nanoTime();
+        Process process = new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(log.toFile())
+                .start();
+        URI baseUri = URI.create("http://localhost:" + port);
+        try {
+            awaitReady(process, baseUri, log);
+        } catch (IOException | RuntimeException e) {
+            stop(process);
+            throw e;
+        }
+        return new Application(process, baseUri, log, (System.nanoTime() - start) / 1e6);
+    }
+
+    private void awaitReady(Process process, URI baseUri, Path log) throws IOException, InterruptedException {
+        HttpRequest probe = HttpRequest.newBuilder(baseUri.resolve("/ops/ready")).GET().build();
+        long deadline = System.nanoTime() + readyTimeout.toNanos();
+        while (System.nanoTime() < deadline) {
+            if (!process.isAlive()) {
+                throw new IllegalStateException("The application exited during startup; see " + log);
+            }
+            try {
+                if (client.send(probe, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (ConnectException e) {
+                // not listening yet
+            }
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        throw new IllegalStateException("The application was not ready within " + readyTimeout + "; see " + log);
+    }
+
+    /**
+     * SIGTERM, so that the application shuts down cleanly, which is when a training run writes its cache.
+     */
+    private static void stop(Process process) throws InterruptedException {
+        process.destroy();
+        if (!process.waitFor(5, TimeUnit.MINUTES)) {
+            process.destroyForcibly();
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double median(double[] values) {
+        double[] sorted = values.clone();
+        Arrays.sort(sorted);
+        int middle = sorted.length / 2;
+        return sorted.length % 2 == 1 ? sorted[middle] : (sorted[middle - 1] + sorted[middle]) / 2;
+    }
+
+    private static String required(CommandLine options, String name) {
+        String value = options.get(name);
+        if (value == null) {
+            throw new IllegalArgumentException("--" + name + " is required");
+        }
+        return value;
+    }
+
+    /**
+     * A child JVM running the application, ready after {@code readyMillis} from process start.
+     */
+    private record Application(Process process, URI baseUri, Path log, double readyMillis) {
+
+        void stop() throws InterruptedException {
+            StartupBenchmark.stop(process);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.unstampedpages.loadtest;
+
+import java.util.List;
+import java.util.Locale;
+import java.util.random.RandomGenerator;
+
+/**
+ * Realistic-looking users: names and email domains follow Zipf distributions, ages cluster around
+ * the mid thirties with a long tail, and emails are made unique by a sequence number.
+ */
+final class SyntheticUsers {
+
+    static final List<String> FIRST_NAMES = List.of(
+            "James", "Mary", "Michael", "Patricia", "Robert", "Jennifer", "John", "Linda", "David", "Elizabeth",
+            "William", "Barbara", "Richard", "Susan", "Joseph", "Jessica", "Thomas", "Karen", "Christopher", "Sarah",
+            "Charles", "Lisa", "Daniel", "Nancy", "Matthew", "Sandra", "Anthony", "Betty", "Mark", "Ashley",
+            "Donald", "Emily", "Steven", "Kimberly", "Andrew", "Margaret", "Paul", "Donna", "Joshua", "Michelle",
+            "Kenneth", "Carol", "Kevin", "Amanda", "Brian", "Melissa", "Timothy", "Deborah", "Ronald", "Stephanie",
+            "Jason", "Rebecca", "George", "Sharon", "Edward", "Laura", "Jeffrey", "Cynthia", "Ryan", "Dorothy");
+
+    static final List<String> LAST_NAMES = List.of(
+            "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez",
+            "Hernandez", "Lopez", "Gonzalez", "Wilson", "Anderson", "Thomas", "Taylor", "Moore", "Jackson", "Martin",
+            "Lee", "Perez", "Thompson", "White", "Harris", "Sanchez", "Clark", "Ramirez", "Lewis", "Robinson",
+            "Walker", "Young", "Allen", "King", "Wright", "Scott", "Torres", "Nguyen", "Hill", "Flores",
+            "Green", "Adams", "Nelson", "Baker", "Hall", "Rivera", "Campbell", "Mitchell", "Carter", "Roberts",
+            "Gomez", "Phillips", "Evans", "Turner", "Diaz", "Parker", "Cruz", "Edwards", "Collins", "Reyes",
+            "Stewart", "Morris", "Morales", "Murphy", "Cook", "Rogers", "Gutierrez", "Ortiz", "Morgan", "Cooper",
+            "Peterson", "Bailey", "Reed", "Kelly", "Howard", "Ramos", "Kim", "Cox", "Ward", "Richardson");
+
+    static final List<String> DOMAINS = List.of(
+            "gmail.com", "yahoo.com", "outlook.com", "hotmail.com", "icloud.com", "aol.com", "proton.me",
+            "gmx.com", "mail.com", "yandex.com", "zoho.com", "fastmail.com", "example.org", "example.net");
+
+    private static final int MIN_AGE = 18;
+    private static final int MAX_AGE = 90;
+
+    record Row(String firstName, String lastName, int age, String email) {
+    }
+
+    private final ZipfDistribution firstNames = new ZipfDistribution(FIRST_NAMES.size(), 1.0);
+    private final ZipfDistribution lastNames = new ZipfDistribution(LAST_NAMES.size(), 1.1);
+    private final ZipfDistribution domains = new ZipfDistribution(DOMAINS.size(), 1.4);
+
+    /**
+     * The user with the given sequence number; the number makes its email unique.
+     */
+    Row next(long sequence, RandomGenerator random) {
+        String firstName = FIRST_NAMES.get(firstNames.sample(random));
+        String lastName = LAST_NAMES.get(lastNames.sample(random));
+        String email = (firstName + "." + lastName).toLowerCase(Locale.ROOT) + "." + Long.toString(sequence, 36)
+                + "@" + DOMAINS.get(domains.sample(random));
+        return new Row(firstName, lastName, age(random), email);
+    }
+
+    private static int age(RandomGenerator random) {
+        double age = random.nextDouble() < 0.7 ? random.nextGaussian(34, 9) : MIN_AGE + random.nextDouble() * (MAX_AGE - MIN_AGE);
+        return (int) Math.max(MIN_AGE, Math.min(MAX_AGE, Math.round(age)));
+    }
+}
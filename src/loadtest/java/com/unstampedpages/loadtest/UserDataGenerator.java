@@ -0,0 +1,162 @@
+package com.unstampedpages.loadtest;
+
+import com.unstampedpages.id.SnowflakeIdGenerator;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bulk-loads synthetic users with JDBC batches on several connections.
+ * <pre>
+ * ./gradlew generateUsers --args="--users=5000000"
+ * ./gradlew generateUsers --args="--url=jdbc:postgresql://localhost:5432/postgres?reWriteBatchedInserts=true --user=postgres --password=secret --users=5000000"
+ * </pre>
+ * The default target is an H2 file database, whose schema is created here. PostgreSQL must already be
+ * migrated by Flyway (start the application once), and is analyzed after the load so that the
+ * planner and the estimated counts see the new rows. Ids are Snowflake ids from node
+ * {@code --node-id}, which should differ from every application instance. Use
+ * {@code --first-sequence} to append to an existing load without email collisions.
+ */
+public final class UserDataGenerator {
+
+    static final String DEFAULT_URL = "jdbc:h2:file:./build/loadtest/users;AUTO_SERVER=TRUE";
+
+    private final CommandLine options;
+    private final String url;
+    private final String user;
+    private final String password;
+    private final String table;
+    private final int batchSize;
+    private final SnowflakeIdGenerator ids;
+    private final SyntheticUsers syntheticUsers = new SyntheticUsers();
+    private final AtomicLong inserted = new AtomicLong();
+
+    private UserDataGenerator(CommandLine options) {
+        this.options = options;
+        this.url = options.get("url", DEFAULT_URL);
+        this.user = options.get("user", "sa");
+        this.password = options.get("password", "");
+        this.table = options.get("schema", "unstampedpages") + ".users";
+        this.batchSize = options.getInt("batch-size", 5_000);
+        this.ids = new SnowflakeIdGenerator(options.getInt("node-id", SnowflakeIdGenerator.MAX_NODE_ID));
+    }
+
+    public static void main(String[] args) throws Exception {
+        new UserDataGenerator(new CommandLine(args)).run();
+    }
+
+    private void run() throws Exception {
+        long users = options.getLong("users", 1_000_000);
+        int threads = options.getInt("threads", Runtime.getRuntime().availableProcessors());
+        long seed = options.getLong("seed", 42);
+        long firstSequence = options.getLong("first-sequence", 0);
+        if (isH2()) {
+            createH2Schema();
+        }
+        long start = System.nanoTime();
+        List<Future<?>> loads = new ArrayList<>();
+        try (ExecutorService pool = Executors.newFixedThreadPool(threads)) {
+            for (int t = 0; t < threads; t++) {
+                long from = firstSequence + users * t / threads;
+                long to = firstSequence + users * (t + 1) / threads;
+                SplittableRandom random = new SplittableRandom(seed + t);
+                loads.add(pool.submit(() -> {
+                    insert(from, to, random);
+                    return null;
+                }));
+            }
+            while (!loads.stream().allMatch(Future::isDone)) {
+                TimeUnit.SECONDS.sleep(5);
+                report(start);
+            }
+            for (Future<?> load : loads) {
+                load.get();
+            }
+        }
+        report(start);
+        if (!isH2()) {
+            try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+                statement.execute("analyze " + table);
+            }
+        }
+    }
+
+    private void insert(long from, long to, SplittableRandom random) throws SQLException {
+        try (Connection connection = connect();
+             PreparedStatement insert = connection.prepareStatement(
+                     "insert into " + table + " (user_id, first_name, last_name, age, email) values (?, ?, ?, ?, ?)")) {
+            connection.setAutoCommit(false);
+            int pending = 0;
+            for (long sequence = from; sequence < to; sequence++) {
+                SyntheticUsers.Row row = syntheticUsers.next(sequence, random);
+                insert.setLong(1, ids.nextId());
+                insert.setString(2, row.firstName());
+                insert.setString(3, row.lastName());
+                insert.setInt(4, row.age());
+                insert.setString(5, row.email());
+                insert.addBatch();
+                if (++pending == batchSize) {
+                    insert.executeBatch();
+                    connection.commit();
+                    inserted.addAndGet(pending);
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                insert.executeBatch();
+                connection.commit();
+                inserted.addAndGet(pending);
+            }
+        }
+    }
+
+    /**
+     * The tables and search indexes of the Flyway migrations, in H2 syntax, so that {@link UserLoadDriver}
+     * can start the application on this database.
+     */
+    private void createH2Schema() throws SQLException {
+        String schema = table.substring(0, table.indexOf('.'));
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("create schema if not exists " + schema);
+            statement.execute("create table if not exists " + table + " ("
+                    + "user_id bigint primary key, first_name varchar(255) not null, last_name varchar(255) not null, "
+                    + "age integer not null, email varchar(255) not null, deleted_at timestamp with time zone)");
+            // email is unique among live users: (email, null) pairs collide, tombstones do not
+            statement.execute("create unique nulls not distinct index if not exists users_email_live_key on "
+                    + table + " (email, deleted_at)");
+            statement.execute("create index if not exists idx_users_last_first_user_id on " + table + " (last_name, first_name, user_id)");
+            statement.execute("create index if not exists idx_users_age_user_id on " + table + " (age, user_id)");
+            statement.execute("create table if not exists " + schema + ".user_email_routes ("
+                    + "email varchar(255) primary key, user_id bigint not null, "
+                    + "claimed_at timestamp with time zone default current_timestamp not null)");
+            statement.execute("create table if not exists " + schema + ".idempotency_keys ("
+                    + "idempotency_key varchar(255) primary key, request_hash varchar(64) not null, status integer, "
+                    + "content_type varchar(255), body varbinary, expires_at timestamp with time zone not null)");
+        }
+    }
+
+    private void report(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        long rows = inserted.get();
+        System.out.printf("%,d users in %.1f s (%,.0f rows/s)%n", rows, seconds, rows / seconds);
+    }
+
+    private boolean isH2() {
+        return url.startsWith("jdbc:h2:");
+    }
+
+    private Connection connect() throws SQLException {
+        return DriverManager.getConnection(url, user, password);
+    }
+}
@@ -0,0 +1,311 @@
+package com.unstampedpages.loadtest;
+
+import com.unstampedpages.UnstampedpagesApplication;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchResult;
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a weighted mix of {@code /users} operations at a fixed arrival rate and reports
+ * throughput and latency percentiles per operation.
+ * <pre>
+ * ./gradlew loadTest --args="--rate=2000 --duration=PT2M --mix=get-by-id:80,search:10,suggest:8,create:2"
+ * ./gradlew loadTest --args="--base-url=http://localhost:8080 --rate=500"
+ * </pre>
+ * This is an open model: request {@code i} is due at {@code start + i / rate} whether or not earlier
+ * requests have finished, and its latency is measured from that due time. A closed loop that waits
+ * for each response before sending the next would slow down with the server and hide the queueing
+ * delay (coordinated omission). Requests beyond {@code --max-in-flight} are counted as dropped
+ * rather than queued in the driver.
+ * <p>
+ * Without {@code --base-url} the application is started in this JVM against the database filled by
+ * {@link UserDataGenerator}, with rate limiting off so that one client can drive it. Results from
+ * the {@code --warmup} period are discarded. With {@code --histogram-dir}, the full percentile
+ * distribution of each operation is written in HdrHistogram's {@code .hgrm} format.
+ */
+public final class UserLoadDriver {
+
+    private static final String DEFAULT_MIX = "get-by-id:70,search:15,suggest:10,stats:1,create:4";
+    private static final double MICROS_PER_MILLI = 1_000.0;
+
+    private final CommandLine options;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final Map<LoadOperation, OperationStats> stats = new EnumMap<>(LoadOperation.class);
+
+    /**
+     * Latencies are recorded in microseconds; the recorders resize to fit any value.
+     */
+    private static final class OperationStats {
+        private final Recorder latencies = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+        private final LongAdder dropped = new LongAdder();
+    }
+
+    private UserLoadDriver(CommandLine options) {
+        this.options = options;
+        this.requestTimeout = options.getDuration("request-timeout", Duration.ofSeconds(30));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(5))
+                .build();
+        for (LoadOperation operation : LoadOperation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new UserLoadDriver(new CommandLine(args)).run();
+    }
+
+    private void run() throws Exception {
+        String baseUrl = options.get("base-url");
+        ConfigurableApplicationContext application = null;
+        if (baseUrl == null) {
+            application = startApplication();
+            baseUrl = "http://localhost:" + application.getEnvironment().getProperty("local.server.port");
+        }
+        try {
+            URI baseUri = URI.create(baseUrl);
+            List<Long> userIds = sampleUserIds(baseUri, options.getInt("sample-ids", 10_000));
+            Mix mix = Mix.parse(options.get("mix", DEFAULT_MIX));
+            if (userIds.isEmpty() && mix.includes(LoadOperation.GET_BY_ID)) {
+                throw new IllegalStateException("No users found for get-by-id; run generateUsers first");
+            }
+            LoadOperation.Target target = new LoadOperation.Target(baseUri, userIds,
+                    new AtomicLong(System.currentTimeMillis() * 1_000));
+            Duration warmup = options.getDuration("warmup", Duration.ofSeconds(10));
+            Duration duration = options.getDuration("duration", Duration.ofSeconds(60));
+            drive(target, mix, options.getInt("rate", 500), warmup, duration);
+            report(duration);
+        } finally {
+            if (application != null) {
+                application.close();
+            }
+        }
+    }
+
+    private void drive(LoadOperation.Target target, Mix mix, int rate, Duration warmup, Duration duration) {
+        SplittableRandom random = new SplittableRandom(options.getLong("seed", 42));
+        int maxInFlight = options.getInt("max-in-flight", 10_000);
+        AtomicInteger inFlight = new AtomicInteger();
+        double periodNanos = 1e9 / rate;
+        long start = System.nanoTime();
+        long measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        System.out.printf("Driving %,d requests/s to %s: %s warm-up, then %s measured%n", rate, target.baseUri(), warmup, duration);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (long i = 0; ; i++) {
+                long intendedStart = start + (long) (i * periodNanos);
+                if (intendedStart - end >= 0) {
+                    break;
+                }
+                long wait = intendedStart - System.nanoTime();
+                if (wait > 0) {
+                    LockSupport.parkNanos(wait);
+                }
+                LoadOperation operation = mix.pick(random);
+                boolean measured = intendedStart - measureFrom >= 0;
+                if (inFlight.incrementAndGet() > maxInFlight) {
+                    inFlight.decrementAndGet();
+                    if (measured) {
+                        stats.get(operation).dropped.increment();
+                    }
+                    continue;
+                }
+                HttpRequest request = operation.request(target, random.split()).timeout(requestTimeout).build();
+                executor.execute(() -> {
+                    try {
+                        send(operation, request, intendedStart, measured);
+                    } finally {
+                        inFlight.decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    private void send(LoadOperation operation, HttpRequest request, long intendedStart, boolean measured) {
+        boolean failed;
+        try {
+            HttpResponse<Void> response = client.send(request, HttpResponse.BodyHandlers.discarding());
+            failed = response.statusCode() >= 400;
+        } catch (IOException e) {
+            failed = true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        if (measured) {
+            OperationStats operationStats = stats.get(operation);
+            operationStats.latencies.recordValue(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intendedStart));
+            if (failed) {
+                operationStats.errors.increment();
+            }
+        }
+    }
+
+    private void report(Duration duration) throws IOException {
+        String histogramDir = options.get("histogram-dir");
+        double seconds = duration.toNanos() / 1e9;
+        Histogram all = new Histogram(3);
+        long errors = 0;
+        long dropped = 0;
+        System.out.printf("%-10s %10s %10s %8s %8s %10s %10s %10s %10s %10s%n",
+                "operation", "requests", "req/s", "errors", "dropped", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<LoadOperation, OperationStats> entry : stats.entrySet()) {
+            OperationStats operationStats = entry.getValue();
+            Histogram histogram = operationStats.latencies.getIntervalHistogram();
+            if (histogram.getTotalCount() == 0 && operationStats.dropped.sum() == 0) {
+                continue;
+            }
+            all.add(histogram);
+            errors += operationStats.errors.sum();
+            dropped += operationStats.dropped.sum();
+            printRow(entry.getKey().key(), histogram, seconds, operationStats.errors.sum(), operationStats.dropped.sum());
+            if (histogramDir != null) {
+                writeDistribution(Path.of(histogramDir, entry.getKey().key() + ".hgrm"), histogram);
+            }
+        }
+        printRow("all", all, seconds, errors, dropped);
+        if (histogramDir != null) {
+            writeDistribution(Path.of(histogramDir, "all.hgrm"), all);
+        }
+    }
+
+    private static void printRow(String name, Histogram histogram, double seconds, long errors, long dropped) {
+        System.out.printf("%-10s %,10d %,10.0f %,8d %,8d %10.2f %10.2f %10.2f %10.2f %10.2f%n",
+                name, histogram.getTotalCount(), histogram.getTotalCount() / seconds, errors, dropped,
+                millis(histogram, 50), millis(histogram, 90), millis(histogram, 99), millis(histogram, 99.9),
+                histogram.getMaxValue() / MICROS_PER_MILLI);
+    }
+
+    private static double millis(Histogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI;
+    }
+
+    private static void writeDistribution(Path file, Histogram histogram) throws IOException {
+        Files.createDirectories(file.getParent());
+        try (PrintStream out = new PrintStream(Files.newOutputStream(file), false, StandardCharsets.UTF_8)) {
+            histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+        }
+    }
+
+    /**
+     * Pages through the search endpoint for ids to read, so that reads hit existing users.
+     */
+    private List<Long> sampleUserIds(URI baseUri, int limit) throws IOException, InterruptedException {
+        List<Long> ids = new ArrayList<>();
+        String cursor = null;
+        while (ids.size() < limit) {
+            String path = "/users/search?sort=id&limit=" + Math.min(500, limit - ids.size())
+                    + (cursor == null ? "" : "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+            HttpResponse<String> response = client.send(HttpRequest.newBuilder(baseUri.resolve(path)).GET().build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() != 200) {
+                throw new IllegalStateException("Sampling user ids failed with " + response.statusCode() + ": " + response.body());
+            }
+            UserSearchResult page = jsonMapper.readValue(response.body(), UserSearchResult.class);
+            for (UserDTO user : page.users()) {
+                ids.add(user.userId());
+            }
+            cursor = page.nextCursor();
+            if (cursor == null) {
+                break;
+            }
+        }
+        return ids;
+    }
+
+    private ConfigurableApplicationContext startApplication() {
+        String url = options.get("url", UserDataGenerator.DEFAULT_URL);
+        List<String> args = new ArrayList<>(List.of(
+                "--spring.datasource.url=" + url,
+                "--spring.datasource.username=" + options.get("user", "sa"),
+                "--spring.datasource.password=" + options.get("password", ""),
+                "--spring.jpa.hibernate.ddl-auto=none",
+                "--spring.jpa.properties.unstampedpages.id.node-id=" + options.getInt("node-id", 0),
+                "--grpc.server.enabled=false",
+                "--server.port=0",
+                "--users.rate-limit.enabled=false"));
+        if (url.startsWith("jdbc:h2:")) {
+            args.add("--spring.datasource.driver-class-name=org.h2.Driver");
+            args.add("--spring.jpa.database-platform=org.hibernate.dialect.H2Dialect");
+            args.add("--spring.flyway.enabled=false");
+        }
+        return new SpringApplicationBuilder(UnstampedpagesApplication.class)
+                .logStartupInfo(false)
+                .run(args.toArray(String[]::new));
+    }
+
+    /**
+     * Operations with their weights, for example {@code get-by-id:70,search:30}.
+     */
+    private record Mix(LoadOperation[] operations, int[] cumulativeWeights) {
+
+        static Mix parse(String spec) {
+            List<LoadOperation> operations = new ArrayList<>();
+            List<Integer> cumulative = new ArrayList<>();
+            int total = 0;
+            for (String part : spec.split(",")) {
+                String[] pair = part.trim().split(":");
+                if (pair.length != 2) {
+                    throw new IllegalArgumentException("Expected operation:weight but got " + part);
+                }
+                int weight = Integer.parseInt(pair[1]);
+                if (weight > 0) {
+                    total += weight;
+                    operations.add(LoadOperation.fromKey(pair[0]));
+                    cumulative.add(total);
+                }
+            }
+            if (total == 0) {
+                throw new IllegalArgumentException("The mix needs at least one operation with a positive weight");
+            }
+            return new Mix(operations.toArray(LoadOperation[]::new), cumulative.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        boolean includes(LoadOperation operation) {
+            return List.of(operations).contains(operation);
+        }
+
+        LoadOperation pick(SplittableRandom random) {
+            int ticket = random.nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+            for (int i = 0; i < cumulativeWeights.length; i++) {
+                if (ticket < cumulativeWeights[i]) {
+                    return operations[i];
+                }
+            }
+            throw new IllegalStateException();
+        }
+    }
+}
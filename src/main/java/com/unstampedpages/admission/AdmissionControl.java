@@ -0,0 +1,48 @@
+package com.unstampedpages.admission;
+
+import com.unstampedpages.dto.LimiterStatsDTO;
+
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+/**
+ * The read and write {@link AimdLimiter}s. Writes have their own limit so a flood of reads cannot
+ * starve them, and reads additionally back off whenever threads are waiting for a pooled connection.
+ */
+public class AdmissionControl {
+
+    private final AimdLimiter reads;
+    private final AimdLimiter writes;
+    private final BooleanSupplier poolSaturated;
+
+    public AdmissionControl(AdmissionProperties properties, BooleanSupplier poolSaturated) {
+        this.reads = limiter("read", properties.read(), properties);
+        this.writes = limiter("write", properties.write(), properties);
+        this.poolSaturated = poolSaturated;
+    }
+
+    private static AimdLimiter limiter(String name, AdmissionProperties.Limits limits, AdmissionProperties properties) {
+        return new AimdLimiter(name, limits.initial(), limits.min(), limits.max(),
+                properties.latencyTarget(), properties.backoffRatio());
+    }
+
+    public AimdLimiter reads() {
+        return reads;
+    }
+
+    public AimdLimiter writes() {
+        return writes;
+    }
+
+    public boolean isPoolSaturated() {
+        return poolSaturated.getAsBoolean();
+    }
+
+    public List<LimiterStatsDTO> snapshot() {
+        return List.of(stats(reads), stats(writes));
+    }
+
+    private static LimiterStatsDTO stats(AimdLimiter limiter) {
+        return new LimiterStatsDTO(limiter.name(), limiter.limit(), limiter.inFlight(), limiter.rejected());
+    }
+}
@@ -0,0 +1,63 @@
+package com.unstampedpages.admission;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Set;
+
+/**
+ * Sheds {@code /users} requests beyond the current {@link AimdLimiter} limit with 503 and
+ * {@code Retry-After}, and feeds each admitted request's latency and outcome back to its limiter.
+ * A request the client disconnected from is left out, since its latency is not the server's.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Set<String> READ_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final AdmissionControl admissionControl;
+    private final String retryAfterSeconds;
+
+    public AdmissionControlFilter(AdmissionControl admissionControl, Duration retryAfter) {
+        this.admissionControl = admissionControl;
+        this.retryAfterSeconds = Long.toString(Math.max(1, retryAfter.toSeconds()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean read = READ_METHODS.contains(request.getMethod());
+        AimdLimiter limiter = read ? admissionControl.reads() : admissionControl.writes();
+        if (!limiter.tryAcquire()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, retryAfterSeconds);
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Server is at capacity, retry later");
+            return;
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        boolean disconnected = false;
+        try {
+            chain.doFilter(request, response);
+            failed = response.getStatus() >= 500;
+        } catch (IOException | ServletException | RuntimeException e) {
+            disconnected = DisconnectedClientHelper.isClientDisconnectedException(e);
+            throw e;
+        } finally {
+            long end = System.nanoTime();
+            if (disconnected) {
+                limiter.onIgnore();
+            } else if (failed || (read && admissionControl.isPoolSaturated())) {
+                limiter.onDropped(start, end);
+            } else {
+                limiter.onSuccess(start, end);
+            }
+        }
+    }
+}
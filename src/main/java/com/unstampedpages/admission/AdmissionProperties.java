@@ -0,0 +1,26 @@
+package com.unstampedpages.admission;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.admission.*}: separate concurrency limits for reads and writes on {@code /users}.
+ */
+@ConfigurationProperties("users.admission")
+public record AdmissionProperties(@DefaultValue("true") boolean enabled,
+                                  Limits read,
+                                  Limits write,
+                                  @DefaultValue("PT0.25S") Duration latencyTarget,
+                                  @DefaultValue("0.9") double backoffRatio,
+                                  @DefaultValue("PT1S") Duration retryAfter) {
+
+    public AdmissionProperties {
+        read = read == null ? new Limits(50, 4, 200) : read;
+        write = write == null ? new Limits(20, 2, 100) : write;
+    }
+
+    public record Limits(int initial, int min, int max) {
+    }
+}
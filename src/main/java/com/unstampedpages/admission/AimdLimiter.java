@@ -0,0 +1,118 @@
+package com.unstampedpages.admission;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrency limit adjusted by additive-increase/multiplicative-decrease. Each request finishing
+ * within the latency target while the limiter is at least half used grows the limit by 1/limit
+ * (about +1 per limit's worth of requests); a slow or failed request multiplies it by the backoff
+ * ratio. Requests beyond the limit are rejected immediately instead of queueing for a connection.
+ * <p>
+ * The limit is cut at most once per round trip: only a request admitted after the last cut can
+ * cut it again, since the requests already in flight ran under the old limit and their slowness
+ * is the congestion that cut already answered.
+ */
+public final class AimdLimiter {
+
+    private final String name;
+    private final double minLimit;
+    private final double maxLimit;
+    private final long latencyTargetNanos;
+    private final double backoffRatio;
+    private final AtomicLong limitBits;
+    private final AtomicLong lastDecreaseNanos = new AtomicLong(Long.MIN_VALUE);
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final LongAdder rejected = new LongAdder();
+
+    public AimdLimiter(String name, int initialLimit, int minLimit, int maxLimit, Duration latencyTarget, double backoffRatio) {
+        if (minLimit < 1 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("Limits must satisfy 1 <= min <= initial <= max for " + name);
+        }
+        if (backoffRatio <= 0 || backoffRatio >= 1) {
+            throw new IllegalArgumentException("Backoff ratio must be between 0 and 1 for " + name);
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTargetNanos = latencyTarget.toNanos();
+        this.backoffRatio = backoffRatio;
+        this.limitBits = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    public boolean tryAcquire() {
+        int limit = limit();
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                rejected.increment();
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Releases the permit of a request admitted at {@code startNanos} and grows or shrinks the
+     * limit depending on its latency.
+     */
+    public void onSuccess(long startNanos, long endNanos) {
+        int used = inFlight.getAndDecrement();
+        if (endNanos - startNanos > latencyTargetNanos) {
+            decrease(startNanos, endNanos);
+        } else if (used * 2 >= limit()) {
+            limitBits.getAndUpdate(bits -> {
+                double limit = Double.longBitsToDouble(bits);
+                return Double.doubleToLongBits(Math.min(maxLimit, limit + 1.0 / limit));
+            });
+        }
+    }
+
+    /**
+     * Releases the permit of a request admitted at {@code startNanos} after a failure or a
+     * congestion signal, and shrinks the limit.
+     */
+    public void onDropped(long startNanos, long endNanos) {
+        inFlight.decrementAndGet();
+        decrease(startNanos, endNanos);
+    }
+
+    /**
+     * Releases a permit without adjusting the limit, for requests that say nothing about capacity,
+     * such as those the client abandoned.
+     */
+    public void onIgnore() {
+        inFlight.decrementAndGet();
+    }
+
+    private void decrease(long startNanos, long endNanos) {
+        long last = lastDecreaseNanos.get();
+        if (last != Long.MIN_VALUE && startNanos - last < 0) {
+            return;
+        }
+        if (lastDecreaseNanos.compareAndSet(last, endNanos)) {
+            limitBits.getAndUpdate(bits ->
+                    Double.doubleToLongBits(Math.max(minLimit, Double.longBitsToDouble(bits) * backoffRatio)));
+        }
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public int limit() {
+        return (int) Double.longBitsToDouble(limitBits.get());
+    }
+
+    public int inFlight() {
+        return inFlight.get();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+}
@@ -0,0 +1,65 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.id.Murmur3;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Approximate counts of long keys in {@code depth} rows of {@code width} counters. A key increments
+ * one counter per row and its estimate is the smallest of them: it never undercounts, and it
+ * overcounts by more than {@code e * total / width} only with probability {@code e^-depth}.
+ * Increments are lock-free.
+ */
+final class CountMinSketch {
+
+    private static final long ROW_SEED = 0x9e3779b97f4a7c15L;
+
+    private final AtomicLongArray counters;
+    private final int width;
+    private final int depth;
+
+    CountMinSketch(int width, int depth) {
+        if (width < 1 || depth < 1) {
+            throw new IllegalArgumentException("width and depth must be positive");
+        }
+        this.width = width == 1 ? 1 : Integer.highestOneBit(width - 1) << 1;
+        this.depth = depth;
+        this.counters = new AtomicLongArray(this.width * depth);
+    }
+
+    /**
+     * Counts one occurrence of {@code key} and returns its new estimate.
+     */
+    long increment(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.incrementAndGet(index(key, row)));
+        }
+        return estimate;
+    }
+
+    long estimate(long key) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(index(key, row)));
+        }
+        return estimate;
+    }
+
+    /**
+     * Halves every counter, so that old occurrences weigh less than recent ones.
+     */
+    void halve() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.getAndUpdate(i, count -> count >>> 1);
+        }
+    }
+
+    int width() {
+        return width;
+    }
+
+    private int index(long key, int row) {
+        return row * width + (int) (Murmur3.fmix64(key ^ (row + 1) * ROW_SEED) & (width - 1));
+    }
+}
@@ -0,0 +1,23 @@
+package com.unstampedpages.cache;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.hot-keys.*}: the {@code top-k} most read users with at least {@code min-hits}
+ * estimated reads are pinned in the {@link UserCache} and served from it while their copy is
+ * younger than {@code max-age}; they are re-read every {@code refresh-interval} as needed to stay
+ * younger. Read counts are halved every {@code decay-interval}.
+ */
+@ConfigurationProperties("users.hot-keys")
+public record HotKeyProperties(@DefaultValue("true") boolean enabled,
+                               @DefaultValue("100") int topK,
+                               @DefaultValue("100") long minHits,
+                               @DefaultValue("8192") int sketchWidth,
+                               @DefaultValue("4") int sketchDepth,
+                               @DefaultValue("PT1M") Duration decayInterval,
+                               @DefaultValue("PT10S") Duration maxAge,
+                               @DefaultValue("PT2S") Duration refreshInterval) {
+}
@@ -0,0 +1,131 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.HotKeyDTO;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The most read users, from the stream of reads by id: a {@link CountMinSketch} estimates how often
+ * each user was read, and a min-heap keeps the {@code top-k} users with the highest estimates. The
+ * counts are halved every {@code users.hot-keys.decay-interval}, so users no longer read drop out.
+ * <p>
+ * Only reads of users about to enter the top K take a lock; reads of users already in it, or with
+ * fewer reads than the least read user in it, do not.
+ */
+public class HotKeyTracker {
+
+    private record Candidate(long userId, long reads) {
+    }
+
+    private final CountMinSketch sketch;
+    private final int topK;
+    private final long minHits;
+    private final PriorityQueue<Candidate> heap = new PriorityQueue<>(Comparator.comparingLong(Candidate::reads));
+    private final Set<Long> members = ConcurrentHashMap.newKeySet();
+    private volatile long threshold;
+
+    public HotKeyTracker(HotKeyProperties properties) {
+        this(new CountMinSketch(properties.sketchWidth(), properties.sketchDepth()), properties.topK(),
+                properties.minHits());
+    }
+
+    HotKeyTracker(CountMinSketch sketch, int topK, long minHits) {
+        this.sketch = sketch;
+        this.topK = topK;
+        this.minHits = minHits;
+    }
+
+    public void record(long userId) {
+        long reads = sketch.increment(userId);
+        if (reads <= threshold || members.contains(userId)) {
+            return;
+        }
+        synchronized (heap) {
+            offer(userId, reads);
+        }
+    }
+
+    /**
+     * The top K users, most read first; those with at least {@code min-hits} estimated reads are pinned.
+     */
+    public List<HotKeyDTO> hotKeys() {
+        List<HotKeyDTO> hotKeys = new ArrayList<>(topK);
+        synchronized (heap) {
+            for (Candidate candidate : heap) {
+                long reads = sketch.estimate(candidate.userId());
+                hotKeys.add(new HotKeyDTO(candidate.userId(), reads, reads >= minHits));
+            }
+        }
+        hotKeys.sort(Comparator.comparingLong(HotKeyDTO::estimatedReads).reversed());
+        return hotKeys;
+    }
+
+    /**
+     * The users to pin: the top K with at least {@code min-hits} estimated reads.
+     */
+    public Set<Long> hotUserIds() {
+        Set<Long> userIds = new HashSet<>();
+        synchronized (heap) {
+            for (Candidate candidate : heap) {
+                if (sketch.estimate(candidate.userId()) >= minHits) {
+                    userIds.add(candidate.userId());
+                }
+            }
+        }
+        return userIds;
+    }
+
+    @Scheduled(fixedDelayString = "${users.hot-keys.decay-interval:PT1M}",
+            initialDelayString = "${users.hot-keys.decay-interval:PT1M}")
+    public void decay() {
+        synchronized (heap) {
+            sketch.halve();
+            List<Candidate> candidates = new ArrayList<>(heap);
+            heap.clear();
+            candidates.forEach(candidate -> heap.add(new Candidate(candidate.userId(), sketch.estimate(candidate.userId()))));
+            updateThreshold();
+        }
+    }
+
+    private void offer(long userId, long reads) {
+        if (topK <= 0 || members.contains(userId)) {
+            return;
+        }
+        if (heap.size() < topK) {
+            add(userId, reads);
+            return;
+        }
+        // The heap holds estimates from when users entered it; bring the least read up to date first
+        Candidate least = heap.peek();
+        long current;
+        while (least.reads() < (current = sketch.estimate(least.userId()))) {
+            heap.poll();
+            heap.add(new Candidate(least.userId(), current));
+            least = heap.peek();
+        }
+        if (reads > least.reads()) {
+            heap.poll();
+            members.remove(least.userId());
+            add(userId, reads);
+        } else {
+            updateThreshold();
+        }
+    }
+
+    private void add(long userId, long reads) {
+        heap.add(new Candidate(userId, reads));
+        members.add(userId);
+        updateThreshold();
+    }
+
+    private void updateThreshold() {
+        threshold = heap.size() < topK || heap.isEmpty() ? 0 : heap.peek().reads();
+    }
+}
@@ -0,0 +1,60 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Pins the hot users of {@link HotKeyTracker} in the {@link UserCache}, and re-reads each one whose
+ * copy would be older than {@code users.hot-keys.max-age} before the next run, so that reads of hot
+ * users never wait for the database.
+ */
+public class HotUserRefresher {
+
+    private static final Logger log = LoggerFactory.getLogger(HotUserRefresher.class);
+
+    private final HotKeyTracker tracker;
+    private final UserCache userCache;
+    private final UserService userService;
+    private final Duration maxAge;
+    private final Duration refreshAfter;
+
+    public HotUserRefresher(HotKeyTracker tracker, UserCache userCache, UserService userService,
+                            HotKeyProperties properties) {
+        this.tracker = tracker;
+        this.userCache = userCache;
+        this.userService = userService;
+        this.maxAge = properties.maxAge();
+        this.refreshAfter = properties.maxAge().minus(properties.refreshInterval());
+    }
+
+    @Scheduled(fixedDelayString = "${users.hot-keys.refresh-interval:PT2S}",
+            initialDelayString = "${users.hot-keys.refresh-interval:PT2S}")
+    public void refresh() {
+        Set<Long> hot = tracker.hotUserIds();
+        userCache.pin(hot, maxAge);
+        int refreshed = 0;
+        for (Long userId : hot) {
+            Optional<Duration> age = userCache.ageOf(userId);
+            if (age.isPresent() && age.get().compareTo(refreshAfter) < 0) {
+                continue;
+            }
+            try {
+                userService.refreshCachedUser(userId);
+                refreshed++;
+            } catch (DatabaseUnavailableException e) {
+                log.debug("Stopped refreshing hot users after {}: {}", refreshed, e.getMessage());
+                return;
+            }
+        }
+        if (refreshed > 0) {
+            log.debug("Refreshed {} of {} hot users", refreshed, hot.size());
+        }
+    }
+}
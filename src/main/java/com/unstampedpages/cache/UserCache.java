@@ -0,0 +1,149 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.service.UserRead;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Last known copy of recently read users, served while the database is unreachable. Entries are
+ * refreshed by every successful read and by {@link UserChangedEvent}, and are not served once older
+ * than {@code users.cache.max-stale}.
+ * <p>
+ * Pinned users, the hot set of {@link HotKeyTracker}, are evicted only when every entry is pinned,
+ * and are also served while the database is up, as long as their copy is younger than the max age
+ * they were pinned with.
+ */
+@Component
+public class UserCache {
+
+    private record Entry(UserDTO user, long storedAtNanos) {
+    }
+
+    private record Pins(Set<Long> userIds, long maxAgeNanos) {
+    }
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final int maxEntries;
+    private final long maxStaleNanos;
+    private final LongSupplier nanoTime;
+    private volatile Pins pins = new Pins(Set.of(), 0);
+
+    public UserCache(@Value("${users.cache.max-entries:100000}") int maxEntries,
+                     @Value("${users.cache.max-stale:PT1H}") Duration maxStale) {
+        this(maxEntries, maxStale, System::nanoTime);
+    }
+
+    UserCache(int maxEntries, Duration maxStale, LongSupplier nanoTime) {
+        this.maxEntries = maxEntries;
+        this.maxStaleNanos = maxStale.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public void put(UserDTO user) {
+        if (user.userId() == null || maxEntries <= 0) {
+            return;
+        }
+        if (entries.size() >= maxEntries && !entries.containsKey(user.userId())) {
+            evictOne();
+        }
+        entries.put(user.userId(), new Entry(user, nanoTime.getAsLong()));
+    }
+
+    /**
+     * The cached copy of the user and its age, unless there is none or it is too old to serve.
+     */
+    public Optional<UserRead> lookup(Long userId) {
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long age = nanoTime.getAsLong() - entry.storedAtNanos();
+        if (age > maxStaleNanos) {
+            entries.remove(userId, entry);
+            return Optional.empty();
+        }
+        return Optional.of(UserRead.stale(entry.user(), Duration.ofNanos(age)));
+    }
+
+    /**
+     * The cached copy of a pinned user and its age, unless it is older than the max age it was
+     * pinned with.
+     */
+    public Optional<UserRead> lookupPinned(Long userId) {
+        Pins current = pins;
+        if (current.userIds().isEmpty() || !current.userIds().contains(userId)) {
+            return Optional.empty();
+        }
+        Entry entry = entries.get(userId);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        long age = nanoTime.getAsLong() - entry.storedAtNanos();
+        if (age > current.maxAgeNanos()) {
+            return Optional.empty();
+        }
+        return Optional.of(UserRead.cached(entry.user(), Duration.ofNanos(age)));
+    }
+
+    /**
+     * The age of the cached copy of the user, if there is one.
+     */
+    public Optional<Duration> ageOf(Long userId) {
+        Entry entry = entries.get(userId);
+        return entry == null ? Optional.empty() : Optional.of(Duration.ofNanos(nanoTime.getAsLong() - entry.storedAtNanos()));
+    }
+
+    /**
+     * Replaces the pinned users.
+     */
+    public void pin(Set<Long> userIds, Duration maxAge) {
+        pins = new Pins(Set.copyOf(userIds), maxAge.toNanos());
+    }
+
+    public boolean isPinned(Long userId) {
+        return pins.userIds().contains(userId);
+    }
+
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.current() == null) {
+            evict(event.userId());
+        } else {
+            put(event.current());
+        }
+    }
+
+    private void evictOne() {
+        Set<Long> pinned = pins.userIds();
+        Long victim = null;
+        for (Long userId : entries.keySet()) {
+            if (!pinned.contains(userId)) {
+                victim = userId;
+                break;
+            }
+            if (victim == null) {
+                victim = userId;
+            }
+        }
+        if (victim != null) {
+            entries.remove(victim);
+        }
+    }
+}
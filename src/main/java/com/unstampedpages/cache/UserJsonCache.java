@@ -0,0 +1,118 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Encoded UTF-8 JSON of recently served users, keyed by user id. An entry is only reused for a
+ * DTO equal to the one it was encoded from, so the cached value acts as its own version; writes
+ * also evict eagerly through {@link UserChangedEvent}.
+ * <p>
+ * When full, an entry is evicted by CLOCK: a hand sweeps the entries in map order, giving those
+ * served since its last pass a second chance, so profiles read over and over stay cached.
+ * Users written as part of a list reuse cached entries but do not add new ones, so one scan of
+ * the table cannot flush them.
+ */
+@Component
+public class UserJsonCache {
+
+    private static final class Entry {
+        private final UserDTO user;
+        private final byte[] json;
+        private volatile boolean referenced;
+
+        private Entry(UserDTO user, byte[] json) {
+            this.user = user;
+            this.json = json;
+        }
+    }
+
+    private final ConcurrentHashMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    /**
+     * The clock hand; guarded by {@code this}, and started over once it has passed every entry.
+     */
+    private Iterator<Entry> hand = Collections.emptyIterator();
+    private final JsonMapper jsonMapper;
+    private final int maxEntries;
+
+    public UserJsonCache(JsonMapper jsonMapper, @Value("${users.json-cache.max-entries:100000}") int maxEntries) {
+        this.jsonMapper = jsonMapper;
+        this.maxEntries = maxEntries;
+    }
+
+    /**
+     * Returns the JSON encoding of {@code user}. The returned array is shared and must not be modified.
+     */
+    public byte[] toJson(UserDTO user) {
+        if (user.userId() == null || maxEntries <= 0) {
+            return jsonMapper.writeValueAsBytes(user);
+        }
+        Entry entry = entries.get(user.userId());
+        if (entry != null && entry.user.equals(user)) {
+            return hit(entry);
+        }
+        byte[] json = jsonMapper.writeValueAsBytes(user);
+        if (entry == null && entries.size() >= maxEntries) {
+            evictOne();
+        }
+        entries.put(user.userId(), new Entry(user, json));
+        return json;
+    }
+
+    /**
+     * Like {@link #toJson}, but a user that is not cached is encoded without being added.
+     */
+    public byte[] toJsonWithoutCaching(UserDTO user) {
+        Entry entry = user.userId() == null ? null : entries.get(user.userId());
+        return entry != null && entry.user.equals(user) ? hit(entry) : jsonMapper.writeValueAsBytes(user);
+    }
+
+    public void evict(Long userId) {
+        entries.remove(userId);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        evict(event.userId());
+    }
+
+    private static byte[] hit(Entry entry) {
+        if (!entry.referenced) {
+            entry.referenced = true;
+        }
+        return entry.json;
+    }
+
+    /**
+     * Two full turns of the hand at most: the first may only clear reference bits.
+     */
+    private synchronized void evictOne() {
+        for (long steps = 2L * entries.size() + 1; steps > 0; steps--) {
+            if (!hand.hasNext()) {
+                hand = entries.values().iterator();
+                if (!hand.hasNext()) {
+                    return;
+                }
+            }
+            Entry entry = hand.next();
+            if (entry.referenced) {
+                entry.referenced = false;
+            } else {
+                hand.remove();
+                return;
+            }
+        }
+    }
+}
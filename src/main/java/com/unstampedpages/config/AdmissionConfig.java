@@ -0,0 +1,66 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.admission.AdmissionControl;
+import com.unstampedpages.admission.AdmissionControlFilter;
+import com.unstampedpages.admission.AdmissionProperties;
+import com.unstampedpages.grpc.AdmissionControlInterceptor;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.util.function.BooleanSupplier;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(AdmissionProperties.class)
+@ConditionalOnProperty(name = "users.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionConfig {
+
+    static final int ADMISSION_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 20;
+
+    @Bean
+    public AdmissionControl admissionControl(AdmissionProperties properties, DataSource dataSource) {
+        return new AdmissionControl(properties, poolSaturation(dataSource));
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionControl admissionControl,
+                                                                                 AdmissionProperties properties) {
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(admissionControl, properties.retryAfter()));
+        registration.addUrlPatterns("/users", "/users/*");
+        registration.setOrder(ADMISSION_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public AdmissionControlInterceptor admissionControlInterceptor(AdmissionControl admissionControl,
+                                                                   AdmissionProperties properties) {
+        return new AdmissionControlInterceptor(admissionControl, properties.retryAfter());
+    }
+
+    /**
+     * True while threads wait for a Hikari connection; never true for other pools (or routing
+     * DataSources, which hide theirs).
+     */
+    private static BooleanSupplier poolSaturation(DataSource dataSource) {
+        try {
+            if (dataSource.isWrapperFor(HikariDataSource.class)) {
+                HikariDataSource hikari = dataSource.unwrap(HikariDataSource.class);
+                return () -> {
+                    HikariPoolMXBean pool = hikari.getHikariPoolMXBean();
+                    return pool != null && pool.getThreadsAwaitingConnection() > 0;
+                };
+            }
+        } catch (SQLException e) {
+            // fall through: no saturation signal
+        }
+        return () -> false;
+    }
+}
@@ -0,0 +1,17 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.resilience.CircuitBreakerProperties;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(CircuitBreakerProperties.class)
+public class CircuitBreakerConfig {
+
+    @Bean
+    public DatabaseCircuitBreaker databaseCircuitBreaker(CircuitBreakerProperties properties) {
+        return new DatabaseCircuitBreaker(properties.failureThreshold(), properties.openDuration());
+    }
+}
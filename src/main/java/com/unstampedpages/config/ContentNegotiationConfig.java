@@ -0,0 +1,45 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.cache.UserJsonCache;
+import com.unstampedpages.http.CachedUserJsonHttpMessageConverter;
+import com.unstampedpages.http.UserProtobufHttpMessageConverter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.JacksonCborHttpMessageConverter;
+import org.springframework.http.converter.smile.JacksonSmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.ContentNegotiationConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Binary encodings offered next to JSON; clients pick one with the {@code Accept} header.
+ * JSON stays the default for requests without one (or with {@code *}{@code /*}).
+ */
+@Configuration
+public class ContentNegotiationConfig implements WebMvcConfigurer {
+
+    @Override
+    public void configureContentNegotiation(ContentNegotiationConfigurer configurer) {
+        configurer.defaultContentType(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+
+    @Bean
+    public CachedUserJsonHttpMessageConverter cachedUserJsonHttpMessageConverter(UserJsonCache userJsonCache) {
+        return new CachedUserJsonHttpMessageConverter(userJsonCache);
+    }
+
+    @Bean
+    public JacksonCborHttpMessageConverter cborHttpMessageConverter() {
+        return new JacksonCborHttpMessageConverter();
+    }
+
+    @Bean
+    public JacksonSmileHttpMessageConverter smileHttpMessageConverter() {
+        return new JacksonSmileHttpMessageConverter();
+    }
+
+    @Bean
+    public UserProtobufHttpMessageConverter userProtobufHttpMessageConverter() {
+        return new UserProtobufHttpMessageConverter();
+    }
+}
@@ -0,0 +1,37 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.directory.DirectoryProperties;
+import com.unstampedpages.directory.UserDirectory;
+import com.unstampedpages.shard.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * The directory only sees this instance's writes between rebuilds, so it is refused alongside
+ * sharding or read replicas, which imply several writers or readers that it would serve stale.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(DirectoryProperties.class)
+@ConditionalOnProperty(name = "users.directory.enabled", havingValue = "true")
+public class DirectoryConfig {
+
+    @Bean
+    public UserDirectory userDirectory(UserDAO userDAO, UserShards shards, PlatformTransactionManager transactionManager,
+                                       DirectoryProperties properties,
+                                       @Value("${users.sharding.enabled:false}") boolean sharded,
+                                       @Value("${users.replicas.enabled:false}") boolean replicated) {
+        if (sharded || replicated) {
+            throw new IllegalStateException("users.directory.enabled is for a single instance on one database; "
+                    + "it cannot be combined with users.sharding.enabled or users.replicas.enabled");
+        }
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        return new UserDirectory(userDAO, shards, readOnly, properties.path());
+    }
+}
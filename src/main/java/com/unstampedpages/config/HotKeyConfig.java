@@ -0,0 +1,28 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.cache.HotKeyProperties;
+import com.unstampedpages.cache.HotKeyTracker;
+import com.unstampedpages.cache.HotUserRefresher;
+import com.unstampedpages.cache.UserCache;
+import com.unstampedpages.service.UserService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(HotKeyProperties.class)
+@ConditionalOnProperty(name = "users.hot-keys.enabled", havingValue = "true", matchIfMissing = true)
+public class HotKeyConfig {
+
+    @Bean
+    public HotKeyTracker hotKeyTracker(HotKeyProperties properties) {
+        return new HotKeyTracker(properties);
+    }
+
+    @Bean
+    public HotUserRefresher hotUserRefresher(HotKeyTracker hotKeyTracker, UserCache userCache, UserService userService,
+                                             HotKeyProperties properties) {
+        return new HotUserRefresher(hotKeyTracker, userCache, userService, properties);
+    }
+}
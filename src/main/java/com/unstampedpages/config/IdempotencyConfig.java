@@ -0,0 +1,43 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.dao.IdempotencyRecordDAO;
+import com.unstampedpages.idempotency.IdempotencyFilter;
+import com.unstampedpages.idempotency.IdempotencyProperties;
+import com.unstampedpages.idempotency.IdempotencyStore;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.shard.UserShards;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Runs between rate limiting and admission control: a replayed response needs no admission slot,
+ * while the first request takes one like any other. Retries waiting on a running request hold no
+ * slot either; {@code max-waiters} bounds how many threads they tie up instead.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(IdempotencyProperties.class)
+@ConditionalOnProperty(name = "users.idempotency.enabled", havingValue = "true", matchIfMissing = true)
+public class IdempotencyConfig {
+
+    static final int IDEMPOTENCY_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 15;
+
+    @Bean
+    public IdempotencyStore idempotencyStore(IdempotencyRecordDAO recordDAO, UserShards shards,
+                                             DatabaseCircuitBreaker breaker, IdempotencyProperties properties) {
+        return new IdempotencyStore(recordDAO, shards, breaker, properties);
+    }
+
+    @Bean
+    public FilterRegistrationBean<IdempotencyFilter> idempotencyFilter(IdempotencyStore store, IdempotencyProperties properties) {
+        FilterRegistrationBean<IdempotencyFilter> registration =
+                new FilterRegistrationBean<>(new IdempotencyFilter(store, properties.apiKeyHeader(),
+                        Math.toIntExact(properties.maxBodySize().toBytes())));
+        registration.addUrlPatterns("/users", "/users/*");
+        registration.setOrder(IDEMPOTENCY_FILTER_ORDER);
+        return registration;
+    }
+}
@@ -0,0 +1,68 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.metrics.HandlerLatencyInterceptor;
+import com.unstampedpages.metrics.HikariMetricsPostProcessor;
+import com.unstampedpages.metrics.LatencyMetrics;
+import com.unstampedpages.metrics.MetricsProperties;
+import com.unstampedpages.metrics.RepositoryLatencyPostProcessor;
+import com.unstampedpages.metrics.RequestTimingFilter;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(MetricsProperties.class)
+@ConditionalOnProperty(name = "users.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class MetricsConfig {
+
+    /**
+     * Outside the other /users filters, so that idempotency and SQL work is part of the request.
+     */
+    static final int REQUEST_TIMING_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 5;
+
+    @Bean
+    public LatencyMetrics latencyMetrics(MetricsProperties properties) {
+        return new LatencyMetrics(properties.window());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestTimingFilter> requestTimingFilter(LatencyMetrics latencyMetrics) {
+        FilterRegistrationBean<RequestTimingFilter> registration =
+                new FilterRegistrationBean<>(new RequestTimingFilter(latencyMetrics));
+        registration.addUrlPatterns("/users", "/users/*");
+        registration.setOrder(REQUEST_TIMING_FILTER_ORDER);
+        return registration;
+    }
+
+    @Bean
+    public WebMvcConfigurer handlerLatencyInterceptor(LatencyMetrics latencyMetrics) {
+        HandlerLatencyInterceptor interceptor = new HandlerLatencyInterceptor(latencyMetrics);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor).addPathPatterns("/users", "/users/**");
+            }
+        };
+    }
+
+    /**
+     * Static, and resolving the metrics lazily, so that post-processor registration does not
+     * initialize other beans early.
+     */
+    @Bean
+    public static RepositoryLatencyPostProcessor userDAOLatencyPostProcessor(ObjectProvider<LatencyMetrics> latencyMetrics) {
+        return new RepositoryLatencyPostProcessor(UserDAO.class, latencyMetrics);
+    }
+
+    @Bean
+    public static HikariMetricsPostProcessor hikariMetricsPostProcessor(ObjectProvider<LatencyMetrics> latencyMetrics) {
+        return new HikariMetricsPostProcessor(latencyMetrics);
+    }
+}
@@ -0,0 +1,26 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.purge.PurgeProperties;
+import com.unstampedpages.purge.UserPurger;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.shard.UserShards;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(PurgeProperties.class)
+@ConditionalOnProperty(name = "users.purge.enabled", havingValue = "true", matchIfMissing = true)
+public class PurgeConfig {
+
+    @Bean
+    public UserPurger userPurger(UserDAO userDAO, UserShards shards, TransactionOperations transactions,
+                                 DatabaseCircuitBreaker breaker, PurgeProperties properties, DataSource dataSource) {
+        return new UserPurger(userDAO, shards, transactions, breaker, properties, dataSource);
+    }
+}
@@ -0,0 +1,36 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.ratelimit.RateLimitFilter;
+import com.unstampedpages.ratelimit.RateLimitProperties;
+import com.unstampedpages.ratelimit.RateLimiter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Runs before admission control, so a client over its rate is turned away before it takes a slot.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(RateLimitProperties.class)
+@ConditionalOnProperty(name = "users.rate-limit.enabled", havingValue = "true", matchIfMissing = true)
+public class RateLimitConfig {
+
+    static final int RATE_LIMIT_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 10;
+
+    @Bean
+    public RateLimiter rateLimiter(RateLimitProperties properties) {
+        return new RateLimiter(properties.capacity(), properties.refillPerSecond());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RateLimitFilter> rateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        FilterRegistrationBean<RateLimitFilter> registration =
+                new FilterRegistrationBean<>(new RateLimitFilter(rateLimiter, properties));
+        registration.addUrlPatterns("/users", "/users/*");
+        registration.setOrder(RATE_LIMIT_FILTER_ORDER);
+        return registration;
+    }
+}
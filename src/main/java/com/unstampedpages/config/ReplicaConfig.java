@@ -0,0 +1,68 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.replica.ReadYourWritesFilter;
+import com.unstampedpages.replica.ReplicaLagMonitor;
+import com.unstampedpages.replica.ReplicaProperties;
+import com.unstampedpages.replica.ReplicaRoutingDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.boot.jdbc.autoconfigure.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Sends read-only transactions to {@code users.replicas.replicas}; everything else, and reads from
+ * a client that wrote within {@code users.replicas.read-your-writes-window}, uses the primary.
+ * Not combined with sharding, which routes connections by shard instead.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(ReplicaProperties.class)
+@ConditionalOnProperty(name = "users.replicas.enabled", havingValue = "true")
+public class ReplicaConfig {
+
+    public ReplicaConfig(@Value("${users.sharding.enabled:false}") boolean shardingEnabled) {
+        if (shardingEnabled) {
+            throw new IllegalStateException("users.replicas.enabled cannot be combined with users.sharding.enabled");
+        }
+    }
+
+    @Bean
+    public DataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(ReplicaProperties properties) {
+        List<DataSource> replicas = properties.replicas().stream()
+                .map(replica -> (DataSource) DataSourceBuilder.create()
+                        .url(replica.url())
+                        .username(replica.username())
+                        .password(replica.password())
+                        .build())
+                .toList();
+        return new ReplicaLagMonitor(replicas, properties.lagQuery(), properties.maxLag(), properties.lagCheckInterval());
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 ReplicaLagMonitor replicaLagMonitor) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primaryDataSource);
+        dataSource.setReadOnlyDataSource(
+                new ReplicaRoutingDataSource(primaryDataSource, replicaLagMonitor.dataSources(), replicaLagMonitor));
+        return dataSource;
+    }
+
+    @Bean
+    public ReadYourWritesFilter readYourWritesFilter(ReplicaProperties properties) {
+        return new ReadYourWritesFilter(properties.readYourWritesWindow());
+    }
+}
@@ -0,0 +1,85 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.dao.UserEmailRouteDAO;
+import com.unstampedpages.id.SnowflakeIdGenerator;
+import com.unstampedpages.id.SnowflakeIdentifierGenerator;
+import com.unstampedpages.shard.HashUserShards;
+import com.unstampedpages.shard.ShardRoutingDataSource;
+import com.unstampedpages.shard.ShardingProperties;
+import com.unstampedpages.shard.UserShards;
+import org.flywaydb.core.Flyway;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.flyway.autoconfigure.FlywayMigrationStrategy;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+@Configuration
+@EnableConfigurationProperties(ShardingProperties.class)
+public class ShardingConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "users.sharding.enabled", havingValue = "false", matchIfMissing = true)
+    public UserShards unshardedUsers() {
+        return UserShards.unsharded();
+    }
+
+    /**
+     * Replaces the auto-configured DataSource with one routing to {@code users.sharding.shards}.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnProperty(name = "users.sharding.enabled", havingValue = "true")
+    static class Sharded {
+
+        @Bean
+        public ShardRoutingDataSource shardRoutingDataSource(ShardingProperties properties) {
+            List<DataSource> shards = properties.shards().stream()
+                    .map(shard -> (DataSource) DataSourceBuilder.create()
+                            .url(shard.url())
+                            .username(shard.username())
+                            .password(shard.password())
+                            .build())
+                    .toList();
+            return new ShardRoutingDataSource(shards);
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+        }
+
+        @Bean
+        public HashUserShards hashUserShards(ShardingProperties properties, ShardRoutingDataSource shardRoutingDataSource,
+                                             PlatformTransactionManager transactionManager, UserEmailRouteDAO emailRouteDAO,
+                                             @Value("${spring.jpa.properties.unstampedpages.id.node-id:}") String nodeId) {
+            return new HashUserShards(shardRoutingDataSource.shards().size(), properties.virtualNodes(),
+                    SnowflakeIdGenerator.forNode(SnowflakeIdentifierGenerator.parseNodeId(nodeId)), transactionManager,
+                    emailRouteDAO);
+        }
+
+        /**
+         * Applies the migrations to every shard instead of only the primary DataSource.
+         */
+        @Bean
+        public FlywayMigrationStrategy shardedFlywayMigrationStrategy(ShardRoutingDataSource shardRoutingDataSource) {
+            return flyway -> {
+                for (DataSource shard : shardRoutingDataSource.shards()) {
+                    Flyway.configure()
+                            .configuration(flyway.getConfiguration())
+                            .dataSource(shard)
+                            .load()
+                            .migrate();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.sql.RequestStatementInspector;
+import com.unstampedpages.sql.SqlStatsFilter;
+import com.unstampedpages.sql.SqlStatsProperties;
+import com.unstampedpages.sql.StatementTimingPostProcessor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Runs before the idempotency filter, so that its key lookups count towards the request.
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(SqlStatsProperties.class)
+@ConditionalOnProperty(name = "users.sql-stats.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlStatsConfig {
+
+    static final int SQL_STATS_FILTER_ORDER = Ordered.HIGHEST_PRECEDENCE + 12;
+
+    @Bean
+    public static StatementTimingPostProcessor statementTimingPostProcessor(ObjectProvider<SqlStatsProperties> properties) {
+        return new StatementTimingPostProcessor(properties);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new RequestStatementInspector());
+    }
+
+    @Bean
+    public FilterRegistrationBean<SqlStatsFilter> sqlStatsFilter(SqlStatsProperties properties) {
+        FilterRegistrationBean<SqlStatsFilter> registration = new FilterRegistrationBean<>(
+                new SqlStatsFilter(properties.statementBudget(), properties.repeatedStatementThreshold()));
+        registration.addUrlPatterns("/users", "/users/*");
+        registration.setOrder(SQL_STATS_FILTER_ORDER);
+        return registration;
+    }
+}
@@ -0,0 +1,24 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.controller.UserController;
+import com.unstampedpages.warmup.UserWarmup;
+import com.unstampedpages.warmup.WarmupProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(WarmupProperties.class)
+@ConditionalOnProperty(name = "users.warmup.enabled", havingValue = "true", matchIfMissing = true)
+public class WarmupConfig {
+
+    @Bean
+    public UserWarmup userWarmup(DataSource dataSource, UserController userController, JsonMapper jsonMapper,
+                                 WarmupProperties properties) {
+        return new UserWarmup(dataSource, userController, jsonMapper, properties);
+    }
+}
@@ -0,0 +1,31 @@
+package com.unstampedpages.controller;
+
+import com.unstampedpages.metrics.LatencyMetrics;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Prometheus scrape endpoint.
+ */
+@RestController
+public class MetricsController {
+
+    static final MediaType PROMETHEUS_TEXT = MediaType.parseMediaType("text/plain;version=0.0.4;charset=utf-8");
+
+    private final ObjectProvider<LatencyMetrics> latencyMetrics;
+
+    public MetricsController(ObjectProvider<LatencyMetrics> latencyMetrics) {
+        this.latencyMetrics = latencyMetrics;
+    }
+
+    @GetMapping("/metrics")
+    public ResponseEntity<String> getMetrics() {
+        LatencyMetrics metrics = latencyMetrics.getIfAvailable();
+        return metrics == null
+                ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok().contentType(PROMETHEUS_TEXT).body(metrics.scrape());
+    }
+}
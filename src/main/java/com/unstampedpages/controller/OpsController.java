@@ -0,0 +1,71 @@
+package com.unstampedpages.controller;
+
+import com.unstampedpages.admission.AdmissionControl;
+import com.unstampedpages.cache.HotKeyTracker;
+import com.unstampedpages.dto.CircuitBreakerStatsDTO;
+import com.unstampedpages.dto.HotKeyDTO;
+import com.unstampedpages.dto.LimiterStatsDTO;
+import com.unstampedpages.dto.ReadinessDTO;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * Operational counters for the {@code /users} API, and the readiness probe.
+ */
+@RestController
+@RequestMapping("/ops")
+public class OpsController {
+
+    private final ObjectProvider<AdmissionControl> admissionControl;
+    private final DatabaseCircuitBreaker databaseCircuitBreaker;
+    private final ApplicationAvailability applicationAvailability;
+    private final ObjectProvider<HotKeyTracker> hotKeyTracker;
+
+    public OpsController(ObjectProvider<AdmissionControl> admissionControl, DatabaseCircuitBreaker databaseCircuitBreaker,
+                         ApplicationAvailability applicationAvailability, ObjectProvider<HotKeyTracker> hotKeyTracker) {
+        this.admissionControl = admissionControl;
+        this.databaseCircuitBreaker = databaseCircuitBreaker;
+        this.applicationAvailability = applicationAvailability;
+        this.hotKeyTracker = hotKeyTracker;
+    }
+
+    /**
+     * 503 until startup, including warm-up, has finished.
+     */
+    @GetMapping("/ready")
+    public ResponseEntity<ReadinessDTO> getReadiness() {
+        ReadinessState state = applicationAvailability.getReadinessState();
+        HttpStatus status = state == ReadinessState.ACCEPTING_TRAFFIC ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE;
+        return ResponseEntity.status(status).body(new ReadinessDTO(state.name()));
+    }
+
+    @GetMapping("/admission")
+    public ResponseEntity<List<LimiterStatsDTO>> getAdmission() {
+        AdmissionControl control = admissionControl.getIfAvailable();
+        return control == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(control.snapshot());
+    }
+
+    /**
+     * The most read users by id, most read first, with their estimated reads.
+     */
+    @GetMapping("/hot-keys")
+    public ResponseEntity<List<HotKeyDTO>> getHotKeys() {
+        HotKeyTracker tracker = hotKeyTracker.getIfAvailable();
+        return tracker == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(tracker.hotKeys());
+    }
+
+    @GetMapping("/circuit-breaker")
+    public CircuitBreakerStatsDTO getCircuitBreaker() {
+        return new CircuitBreakerStatsDTO(databaseCircuitBreaker.state().name(),
+                databaseCircuitBreaker.consecutiveFailures(), databaseCircuitBreaker.rejected());
+    }
+}
@@ -1,20 +1,51 @@
 package com.unstampedpages.controller;
 
+import com.unstampedpages.dto.CountMode;
 import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.dto.UserStatsDTO;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.search.UserSuggestIndex;
+import com.unstampedpages.service.UserCountService;
+import com.unstampedpages.service.UserRead;
 import com.unstampedpages.service.UserService;
+import com.unstampedpages.stats.UserStatistics;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
+    private static final int MAX_SEARCH_LIMIT = 500;
+    private static final int MAX_SUGGEST_LIMIT = 50;
+    private static final int MAX_TOP_DOMAINS = 1000;
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    static final String WARNING_HEADER = "Warning";
+    static final String STALE_WARNING = "110 - \"Response is Stale\"";
+
     private final UserService userService;
+    private final UserCountService userCountService;
+    private final UserSuggestIndex userSuggestIndex;
+    private final UserStatistics userStatistics;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService, UserCountService userCountService,
+                          UserSuggestIndex userSuggestIndex, UserStatistics userStatistics) {
         this.userService = userService;
+        this.userCountService = userCountService;
+        this.userSuggestIndex = userSuggestIndex;
+        this.userStatistics = userStatistics;
     }
 
     @PostMapping
@@ -24,14 +55,80 @@ public class UserController {
 
     @GetMapping("/{id}")
     public ResponseEntity<UserDTO> getUser(@PathVariable Long id) {
-        return userService.getUser(id)
+        return userService.readUser(id)
+                .map(UserController::toResponse)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(value = "/{id}", params = "fields")
+    public ResponseEntity<Map<String, Object>> getUserFields(@PathVariable Long id, @RequestParam String fields) {
+        return userService.getUserFields(id, parseFields(fields))
+                .map(UserController::withStringUserId)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
 
     @GetMapping
-    public List<UserDTO> getAllUsers() {
-        return userService.getAllUsers();
+    public ResponseEntity<List<UserDTO>> getAllUsers(@RequestParam(required = false) String count) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (count != null) {
+            response.header(TOTAL_COUNT_HEADER, String.valueOf(userCountService.countUsers(parseCountMode(count))));
+        }
+        return response.body(userService.getAllUsers());
+    }
+
+    @GetMapping(params = {"email", "!fields"})
+    public ResponseEntity<UserDTO> getUserByEmail(@RequestParam String email) {
+        return userService.getUserByEmail(email)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+
+    @GetMapping(params = "fields")
+    public List<Map<String, Object>> getAllUserFields(@RequestParam String fields) {
+        return userService.getAllUserFields(parseFields(fields)).stream()
+                .map(UserController::withStringUserId)
+                .toList();
+    }
+
+    @GetMapping("/search")
+    public ResponseEntity<UserSearchResult> searchUsers(@RequestParam(required = false) String lastNamePrefix,
+                                                        @RequestParam(required = false) Integer minAge,
+                                                        @RequestParam(required = false) Integer maxAge,
+                                                        @RequestParam(defaultValue = "name") String sort,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "50") int limit,
+                                                        @RequestParam(required = false) String count) {
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+        try {
+            UserSearchCriteria criteria = new UserSearchCriteria(lastNamePrefix, minAge, maxAge, UserSearchSort.fromParameter(sort));
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (count != null) {
+                long total = userCountService.countUsers(criteria, CountMode.fromParameter(count));
+                response.header(TOTAL_COUNT_HEADER, String.valueOf(total));
+            }
+            return response.body(userService.searchUsers(criteria, cursor, limit));
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/suggest")
+    public List<UserDTO> suggestUsers(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        if (limit < 1 || limit > MAX_SUGGEST_LIMIT) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be between 1 and " + MAX_SUGGEST_LIMIT);
+        }
+        return userSuggestIndex.suggest(q, limit);
+    }
+
+    @GetMapping("/stats")
+    public UserStatsDTO getStats(@RequestParam(defaultValue = "20") int topDomains) {
+        if (topDomains < 0 || topDomains > MAX_TOP_DOMAINS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "topDomains must be between 0 and " + MAX_TOP_DOMAINS);
+        }
+        return userStatistics.snapshot(topDomains);
     }
 
     @PutMapping("/{id}")
@@ -48,4 +145,65 @@ public class UserController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    @ExceptionHandler(DatabaseUnavailableException.class)
+    public ResponseEntity<Void> databaseUnavailable(DatabaseUnavailableException e) {
+        long retryAfterSeconds = Math.max(1, (e.retryAfter().toMillis() + 999) / 1000);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                .build();
+    }
+
+    /**
+     * Unique constraints, i.e. an email already in use; often a retried create that did succeed.
+     */
+    @ExceptionHandler(DataIntegrityViolationException.class)
+    public ResponseEntity<Void> conflict(DataIntegrityViolationException e) {
+        return ResponseEntity.status(HttpStatus.CONFLICT).build();
+    }
+
+    /**
+     * A read served from the cache carries the copy's {@code Age}; a stale one, the last copy seen
+     * before the database became unreachable, carries a {@code Warning} too.
+     */
+    private static ResponseEntity<UserDTO> toResponse(UserRead read) {
+        if (read.age() == null) {
+            return ResponseEntity.ok(read.user());
+        }
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.AGE, String.valueOf(read.age().toSeconds()));
+        if (read.isStale()) {
+            response.header(WARNING_HEADER, STALE_WARNING);
+        }
+        return response.body(read.user());
+    }
+
+    private static CountMode parseCountMode(String count) {
+        try {
+            return CountMode.fromParameter(count);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Projections carry {@code userId} as a string too, like {@link UserDTO}.
+     */
+    private static Map<String, Object> withStringUserId(Map<String, Object> fields) {
+        Object userId = fields.get(UserField.USER_ID.propertyName());
+        if (userId == null) {
+            return fields;
+        }
+        Map<String, Object> converted = new LinkedHashMap<>(fields);
+        converted.put(UserField.USER_ID.propertyName(), userId.toString());
+        return converted;
+    }
+
+    private static List<UserField> parseFields(String fields) {
+        try {
+            return UserField.parseList(fields);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
 }
@@ -0,0 +1,13 @@
+package com.unstampedpages.dao;
+
+/**
+ * Row of the aggregate used to seed and reconcile user statistics.
+ */
+public interface AgeDomainCount {
+
+    Integer getAge();
+
+    String getDomain();
+
+    Long getUsers();
+}
@@ -0,0 +1,45 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.model.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyRecordDAO extends JpaRepository<IdempotencyRecord, String> {
+
+    /**
+     * Claims {@code key} with a pending row; fails with a
+     * {@link org.springframework.dao.DataIntegrityViolationException} if any node already holds it.
+     */
+    @Transactional
+    @Modifying
+    @Query("insert into IdempotencyRecord (key, requestHash, expiresAt) values (:key, :requestHash, :expiresAt)")
+    int insertPending(@Param("key") String key, @Param("requestHash") String requestHash, @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("update IdempotencyRecord r "
+            + "set r.status = :status, r.contentType = :contentType, r.body = :body, r.expiresAt = :expiresAt "
+            + "where r.key = :key")
+    int complete(@Param("key") String key, @Param("status") int status, @Param("contentType") String contentType,
+                 @Param("body") byte[] body, @Param("expiresAt") Instant expiresAt);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.status is null")
+    int deletePending(@Param("key") String key);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.key = :key and r.expiresAt <= :now")
+    int deleteIfExpired(@Param("key") String key, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("delete from IdempotencyRecord r where r.expiresAt <= :now")
+    int deleteExpired(@Param("now") Instant now);
+}
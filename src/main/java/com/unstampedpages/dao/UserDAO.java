@@ -1,9 +1,54 @@
 package com.unstampedpages.dao;
 
+import com.unstampedpages.dto.UserDTO;
 import com.unstampedpages.model.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Repository
-public interface UserDAO extends JpaRepository<User, Long> {
+public interface UserDAO extends JpaRepository<User, Long>, JpaSpecificationExecutor<User>, UserDAOCustom {
+
+    /**
+     * Streams every user as a DTO projection ordered by id. The rows are never managed entities,
+     * so the persistence context does not grow with the table. Must be consumed inside a
+     * transaction and closed by the caller.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"))
+    @Query("select new com.unstampedpages.dto.UserDTO(u.userId, u.firstName, u.lastName, u.age, u.email) "
+            + "from User u order by u.userId")
+    Stream<UserDTO> streamAll();
+
+    Optional<User> findByEmail(String email);
+
+    @Query("select u.age as age, lower(substring(u.email, locate('@', u.email) + 1)) as domain, count(u) as users "
+            + "from User u group by u.age, lower(substring(u.email, locate('@', u.email) + 1))")
+    List<AgeDomainCount> countByAgeAndDomain();
+
+    /**
+     * Ids of up to {@code limit} users deleted before {@code deletedBefore}, in id order after
+     * {@code afterUserId}. Native, since queries on the entity never see deleted users.
+     */
+    @Query(value = "select user_id from {h-schema}users where deleted_at < :deletedBefore and user_id > :afterUserId "
+            + "order by user_id limit :limit", nativeQuery = true)
+    List<Long> findDeletedIds(@Param("deletedBefore") Instant deletedBefore, @Param("afterUserId") long afterUserId,
+                              @Param("limit") int limit);
+
+    /**
+     * Removes the rows of these users, if they are deleted.
+     */
+    @Modifying
+    @Query(value = "delete from {h-schema}users where user_id in (:userIds) and deleted_at is not null", nativeQuery = true)
+    int purgeDeleted(@Param("userIds") List<Long> userIds);
 }
@@ -0,0 +1,34 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.dto.UserSearchCriteria;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+
+public interface UserDAOCustom {
+
+    /**
+     * Selects only the given columns of one user, keyed by field name in the requested order.
+     */
+    Optional<Map<String, Object>> findFieldsById(Long id, List<UserField> fields);
+
+    /**
+     * Selects only the given columns of every user, ordered by id.
+     */
+    List<Map<String, Object>> findAllFields(List<UserField> fields);
+
+    /**
+     * Live users, estimated as the row count of the users table from {@code pg_class.reltuples} less
+     * the entries of the index on deleted users not purged yet. Both figures are as of the last vacuum
+     * or analyze. Empty when the database is not PostgreSQL or the table has not been analyzed yet.
+     */
+    OptionalLong estimateTotalCount();
+
+    /**
+     * Planner row estimate for the filters in {@code criteria}. Empty when the database is not PostgreSQL.
+     */
+    OptionalLong estimateCount(UserSearchCriteria criteria);
+}
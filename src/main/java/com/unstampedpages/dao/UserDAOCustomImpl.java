@@ -0,0 +1,152 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.model.User;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+@Transactional(readOnly = true)
+public class UserDAOCustomImpl implements UserDAOCustom {
+
+    private static final String DEFAULT_SCHEMA_PROPERTY = "hibernate.default_schema";
+    private static final Pattern PLAN_ROWS = Pattern.compile("rows=(\\d+)");
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private volatile Boolean postgreSQL;
+
+    @Override
+    public Optional<Map<String, Object>> findFieldsById(Long id, List<UserField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, fields))
+                .where(cb.equal(user.get("userId"), id));
+        return entityManager.createQuery(query).getResultStream()
+                .findFirst()
+                .map(tuple -> toMap(tuple, fields));
+    }
+
+    @Override
+    public List<Map<String, Object>> findAllFields(List<UserField> fields) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<User> user = query.from(User.class);
+        query.multiselect(selections(user, fields))
+                .orderBy(cb.asc(user.get("userId")));
+        return entityManager.createQuery(query).getResultList().stream()
+                .map(tuple -> toMap(tuple, fields))
+                .toList();
+    }
+
+    private static List<Selection<?>> selections(Root<User> user, List<UserField> fields) {
+        return fields.stream()
+                .<Selection<?>>map(field -> user.get(field.propertyName()).alias(field.propertyName()))
+                .toList();
+    }
+
+    private static Map<String, Object> toMap(Tuple tuple, List<UserField> fields) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        for (UserField field : fields) {
+            values.put(field.propertyName(), tuple.get(field.propertyName()));
+        }
+        return values;
+    }
+
+    @Override
+    public OptionalLong estimateTotalCount() {
+        if (!isPostgreSQL()) {
+            return OptionalLong.empty();
+        }
+        String schema = defaultSchema();
+        // the partial index on tombstones has one entry per deleted user, so its reltuples (kept up to
+        // date by the same vacuum and analyze runs) estimates the rows to leave out
+        String sql = "select cast(c.reltuples as bigint), cast(coalesce(d.reltuples, 0) as bigint) from pg_class c "
+                + "join pg_namespace n on n.oid = c.relnamespace "
+                + "left join pg_class d on d.relnamespace = c.relnamespace and d.relname = 'idx_users_deleted_user_id' "
+                + "where c.relname = 'users' and n.nspname = " + (schema == null ? "current_schema()" : "?1");
+        Query query = entityManager.createNativeQuery(sql);
+        if (schema != null) {
+            query.setParameter(1, schema);
+        }
+        List<?> rows = query.getResultList();
+        if (rows.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        long reltuples = ((Number) row[0]).longValue();
+        long deleted = Math.max(0, ((Number) row[1]).longValue());
+        return reltuples < 0 ? OptionalLong.empty() : OptionalLong.of(Math.max(0, reltuples - deleted));
+    }
+
+    @Override
+    public OptionalLong estimateCount(UserSearchCriteria criteria) {
+        if (!isPostgreSQL()) {
+            return OptionalLong.empty();
+        }
+        String schema = defaultSchema();
+        StringBuilder sql = new StringBuilder("explain select 1 from ")
+                .append(schema == null ? "" : schema + ".")
+                .append("users u where u.deleted_at is null");
+        List<Object> parameters = new ArrayList<>();
+        if (criteria.lastNamePrefix() != null && !criteria.lastNamePrefix().isEmpty()) {
+            parameters.add(UserSpecifications.escapeLike(criteria.lastNamePrefix()) + "%");
+            sql.append(" and u.last_name like ?").append(parameters.size()).append(" escape '\\'");
+        }
+        if (criteria.minAge() != null) {
+            parameters.add(criteria.minAge());
+            sql.append(" and u.age >= ?").append(parameters.size());
+        }
+        if (criteria.maxAge() != null) {
+            parameters.add(criteria.maxAge());
+            sql.append(" and u.age <= ?").append(parameters.size());
+        }
+        Query query = entityManager.createNativeQuery(sql.toString());
+        for (int i = 0; i < parameters.size(); i++) {
+            query.setParameter(i + 1, parameters.get(i));
+        }
+        List<?> plan = query.getResultList();
+        if (plan.isEmpty()) {
+            return OptionalLong.empty();
+        }
+        Matcher rows = PLAN_ROWS.matcher(String.valueOf(plan.get(0)));
+        return rows.find() ? OptionalLong.of(Long.parseLong(rows.group(1))) : OptionalLong.empty();
+    }
+
+    private boolean isPostgreSQL() {
+        Boolean detected = postgreSQL;
+        if (detected == null) {
+            detected = entityManager.getEntityManagerFactory()
+                    .unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices()
+                    .getDialect() instanceof PostgreSQLDialect;
+            postgreSQL = detected;
+        }
+        return detected;
+    }
+
+    private String defaultSchema() {
+        Object schema = entityManager.getEntityManagerFactory().getProperties().get(DEFAULT_SCHEMA_PROPERTY);
+        return schema == null || schema.toString().isBlank() ? null : schema.toString();
+    }
+}
@@ -0,0 +1,30 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.model.UserEmailRoute;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface UserEmailRouteDAO extends JpaRepository<UserEmailRoute, String> {
+
+    /**
+     * Plain INSERT rather than {@code save}, which would merge over an existing route.
+     */
+    @Modifying
+    @Query("insert into UserEmailRoute (email, userId) values (:email, :userId)")
+    int insert(@Param("email") String email, @Param("userId") Long userId);
+
+    /**
+     * Hands the route of {@code email} from {@code previousUserId} to {@code userId}, if it still
+     * points at {@code previousUserId} and was claimed before {@code claimedBefore}. Returns the
+     * number of routes changed.
+     */
+    @Modifying
+    @Query(value = "update {h-schema}user_email_routes set user_id = :userId, claimed_at = current_timestamp "
+            + "where email = :email and user_id = :previousUserId and claimed_at < :claimedBefore", nativeQuery = true)
+    int reassign(@Param("email") String email, @Param("previousUserId") Long previousUserId,
+                 @Param("userId") Long userId, @Param("claimedBefore") Instant claimedBefore);
+}
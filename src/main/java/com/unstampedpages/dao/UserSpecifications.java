@@ -0,0 +1,60 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.model.User;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public final class UserSpecifications {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    private UserSpecifications() {
+    }
+
+    /**
+     * Combines the filters present in {@code criteria}; the sort is ignored.
+     */
+    public static Specification<User> matching(UserSearchCriteria criteria) {
+        List<Specification<User>> specifications = new ArrayList<>();
+        if (criteria.lastNamePrefix() != null && !criteria.lastNamePrefix().isEmpty()) {
+            specifications.add(lastNameStartsWith(criteria.lastNamePrefix()));
+        }
+        if (criteria.minAge() != null) {
+            specifications.add(ageAtLeast(criteria.minAge()));
+        }
+        if (criteria.maxAge() != null) {
+            specifications.add(ageAtMost(criteria.maxAge()));
+        }
+        return Specification.allOf(specifications);
+    }
+
+    /**
+     * Case-sensitive prefix match, written as {@code LIKE 'prefix%'} so PostgreSQL can use the
+     * {@code text_pattern_ops} index on last_name.
+     */
+    public static Specification<User> lastNameStartsWith(String prefix) {
+        return (user, query, cb) -> cb.like(user.get("lastName"), escapeLike(prefix) + "%", LIKE_ESCAPE);
+    }
+
+    public static Specification<User> ageAtLeast(int minAge) {
+        return (user, query, cb) -> cb.greaterThanOrEqualTo(user.get("age"), minAge);
+    }
+
+    public static Specification<User> ageAtMost(int maxAge) {
+        return (user, query, cb) -> cb.lessThanOrEqualTo(user.get("age"), maxAge);
+    }
+
+    static String escapeLike(String value) {
+        StringBuilder escaped = new StringBuilder(value.length() + 4);
+        for (char c : value.toCharArray()) {
+            if (c == '%' || c == '_' || c == LIKE_ESCAPE) {
+                escaped.append(LIKE_ESCAPE);
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+}
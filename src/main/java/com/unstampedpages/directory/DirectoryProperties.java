@@ -0,0 +1,17 @@
+package com.unstampedpages.directory;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * {@code users.directory.*}: the snapshot and change log live in {@code path}; the snapshot is
+ * rebuilt from the database every {@code rebuild-interval}.
+ */
+@ConfigurationProperties("users.directory")
+public record DirectoryProperties(@DefaultValue("false") boolean enabled,
+                                  @DefaultValue("data/user-directory") Path path,
+                                  @DefaultValue("PT1H") Duration rebuildInterval) {
+}
@@ -0,0 +1,304 @@
+package com.unstampedpages.directory;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.shard.UserShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Serves users by id and by email from a memory-mapped {@link UserDirectorySnapshot} instead of the
+ * database. The snapshot is built from a streaming {@code UserDAO} query and reopened in
+ * milliseconds after a restart; writes made through this instance's {@code UserService} since the
+ * snapshot are appended to a log and kept in a small overlay, and the log is replayed on restart.
+ * A rebuild from the database, every {@code users.directory.rebuild-interval}, folds the log into a
+ * new snapshot and picks up writes made by other instances.
+ * <p>
+ * A miss is not proof that the user does not exist (it may have been created elsewhere), so callers
+ * fall back to the database on null.
+ * <p>
+ * Single instance only: a user changed or deleted through another instance is served as it was until
+ * the next rebuild, so {@code DirectoryConfig} refuses to start it with sharding or replicas. Changes
+ * are logged from committed {@link UserChangedEvent}s only, so a rolled-back write never reaches the log.
+ */
+public class UserDirectory {
+
+    private static final Logger log = LoggerFactory.getLogger(UserDirectory.class);
+
+    static final String SNAPSHOT_FILE = "users.snapshot";
+    static final String LOG_FILE = "users.log";
+
+    private static final byte ABSENT = 0;
+    private static final byte PRESENT = 1;
+    private static final UserDTO REMOVED = new UserDTO(null, null, null, 0, null);
+
+    /**
+     * A snapshot and the changes logged since it was built: users by id ({@link #REMOVED} for deletes)
+     * and the ids of their current emails.
+     */
+    private record State(UserDirectorySnapshot snapshot, Map<Long, UserDTO> changes, Map<String, Long> emails) {
+
+        State(UserDirectorySnapshot snapshot) {
+            this(snapshot, new ConcurrentHashMap<>(), new ConcurrentHashMap<>());
+        }
+
+        void apply(Long userId, UserDTO previous, UserDTO current) {
+            if (previous != null) {
+                emails.remove(previous.email(), userId);
+            }
+            if (current == null) {
+                changes.put(userId, REMOVED);
+            } else {
+                changes.put(userId, current);
+                emails.put(current.email(), userId);
+            }
+        }
+    }
+
+    private final UserDAO userDAO;
+    private final UserShards shards;
+    private final TransactionOperations readOnlyTransactions;
+    private final Path snapshotPath;
+    private final Path logPath;
+    private final Object logLock = new Object();
+    private volatile State state;
+    private FileChannel logChannel;
+
+    public UserDirectory(UserDAO userDAO, UserShards shards, TransactionOperations readOnlyTransactions, Path directory) {
+        this.userDAO = userDAO;
+        this.shards = shards;
+        this.readOnlyTransactions = readOnlyTransactions;
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.logPath = directory.resolve(LOG_FILE);
+    }
+
+    /**
+     * Opens the existing snapshot and replays the log, or builds the snapshot when there is none or
+     * it cannot be read. Runs before the application reports ready.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() throws IOException {
+        if (Files.exists(snapshotPath)) {
+            try {
+                open();
+                log.info("Opened user directory with {} users and {} logged changes",
+                        state.snapshot().count(), state.changes().size());
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.warn("Could not open the user directory at {}, rebuilding it", snapshotPath, e);
+            }
+        }
+        rebuild();
+    }
+
+    /**
+     * Builds a new snapshot from the database. Changes logged while it is built are carried over into
+     * the new log, since the streaming query may or may not have seen them; until the new snapshot
+     * is in place, reads are served from the old one.
+     */
+    @Scheduled(fixedDelayString = "${users.directory.rebuild-interval:PT1H}",
+            initialDelayString = "${users.directory.rebuild-interval:PT1H}")
+    public synchronized void rebuild() throws IOException {
+        long mark;
+        synchronized (logLock) {
+            openLog();
+            mark = logChannel.size();
+        }
+        long start = System.nanoTime();
+        UserDirectorySnapshot.write(snapshotPath.resolveSibling(SNAPSHOT_FILE + ".next"), this::streamUsers);
+        synchronized (logLock) {
+            Path nextLog = logPath.resolveSibling(LOG_FILE + ".next");
+            try (FileChannel next = FileChannel.open(nextLog, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING)) {
+                logChannel.transferTo(mark, logChannel.size() - mark, next);
+                next.force(false);
+            }
+            // A crash between the two moves replays the whole old log over the new snapshot, which
+            // ends in the same state: the log holds every change since the older snapshot, in order.
+            Files.move(snapshotPath.resolveSibling(SNAPSHOT_FILE + ".next"), snapshotPath,
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            Files.move(nextLog, logPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            logChannel.close();
+            logChannel = null;
+            open();
+        }
+        log.info("Built user directory with {} users in {} ms", state.snapshot().count(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * The user with this id, or null when the directory does not know it.
+     */
+    public UserDTO find(long userId) {
+        State current = state;
+        if (current == null) {
+            return null;
+        }
+        if (!current.changes().isEmpty()) {
+            UserDTO changed = current.changes().get(userId);
+            if (changed != null) {
+                return changed == REMOVED ? null : changed;
+            }
+        }
+        return current.snapshot().find(userId);
+    }
+
+    /**
+     * The user with this email, or null when the directory does not know it.
+     */
+    public UserDTO findByEmail(String email) {
+        State current = state;
+        if (current == null) {
+            return null;
+        }
+        if (!current.changes().isEmpty()) {
+            Long userId = current.emails().get(email);
+            if (userId != null) {
+                UserDTO changed = current.changes().get(userId);
+                return changed != REMOVED && changed != null && email.equals(changed.email()) ? changed : null;
+            }
+        }
+        UserDTO user = current.snapshot().findByEmail(email);
+        if (user != null && !current.changes().isEmpty() && current.changes().containsKey(user.userId())) {
+            return null;
+        }
+        return user;
+    }
+
+    public boolean isLoaded() {
+        return state != null;
+    }
+
+    /**
+     * The database write has already happened, so a failure to log is reported, not thrown.
+     */
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        byte[] record = encode(event);
+        synchronized (logLock) {
+            try {
+                openLog();
+                ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length).putInt(record.length).put(record).flip();
+                while (buffer.hasRemaining()) {
+                    logChannel.write(buffer);
+                }
+            } catch (IOException e) {
+                log.warn("Could not log the change of user {} to {}; it is lost on restart until the next rebuild",
+                        event.userId(), logPath, e);
+            }
+            State current = state;
+            if (current != null) {
+                current.apply(event.userId(), event.previous(), event.current());
+            }
+        }
+    }
+
+    private void streamUsers(Consumer<UserDTO> consumer) {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            shards.onShard(shard, () -> readOnlyTransactions.execute(status -> {
+                try (Stream<UserDTO> users = userDAO.streamAll()) {
+                    users.forEach(consumer);
+                }
+                return null;
+            }));
+        }
+    }
+
+    /**
+     * Maps the snapshot and replays the log over it; a record cut short by a crash is truncated.
+     */
+    private void open() throws IOException {
+        State opened = new State(UserDirectorySnapshot.open(snapshotPath));
+        if (Files.exists(logPath)) {
+            byte[] logged = Files.readAllBytes(logPath);
+            ByteBuffer records = ByteBuffer.wrap(logged);
+            while (records.remaining() >= Integer.BYTES) {
+                int length = records.getInt(records.position());
+                if (length < 0 || records.remaining() - Integer.BYTES < length) {
+                    break;
+                }
+                records.position(records.position() + Integer.BYTES);
+                replay(opened, new DataInputStream(new ByteArrayInputStream(logged, records.position(), length)));
+                records.position(records.position() + length);
+            }
+            if (records.hasRemaining()) {
+                log.warn("Truncating {} bytes of an incomplete record from {}", records.remaining(), logPath);
+                try (FileChannel channel = FileChannel.open(logPath, StandardOpenOption.WRITE)) {
+                    channel.truncate(records.position());
+                }
+            }
+        }
+        state = opened;
+    }
+
+    private void openLog() throws IOException {
+        if (logChannel == null) {
+            Files.createDirectories(logPath.toAbsolutePath().getParent());
+            logChannel = FileChannel.open(logPath, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.APPEND);
+        }
+    }
+
+    private static byte[] encode(UserChangedEvent event) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeLong(event.userId());
+            writeUser(out, event.previous());
+            writeUser(out, event.current());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeUser(DataOutputStream out, UserDTO user) throws IOException {
+        if (user == null) {
+            out.writeByte(ABSENT);
+            return;
+        }
+        out.writeByte(PRESENT);
+        out.writeInt(user.age());
+        out.writeUTF(user.firstName());
+        out.writeUTF(user.lastName());
+        out.writeUTF(user.email());
+    }
+
+    private static void replay(State state, DataInputStream in) throws IOException {
+        long userId = in.readLong();
+        UserDTO previous = readUser(in, userId);
+        UserDTO current = readUser(in, userId);
+        state.apply(userId, previous, current);
+    }
+
+    private static UserDTO readUser(DataInputStream in, long userId) throws IOException {
+        if (in.readByte() == ABSENT) {
+            return null;
+        }
+        int age = in.readInt();
+        String firstName = in.readUTF();
+        String lastName = in.readUTF();
+        return new UserDTO(userId, firstName, lastName, age, in.readUTF());
+    }
+}
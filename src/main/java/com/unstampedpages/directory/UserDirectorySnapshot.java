@@ -0,0 +1,280 @@
+package com.unstampedpages.directory;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.id.Murmur3;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * An immutable, memory-mapped file of users. Layout, big-endian:
+ * <pre>
+ * header     magic, version, user count, slot count, data length
+ * id table   slots of (user id, record offset + 1), open addressing with linear probing
+ * email table slots of (email hash, record offset + 1), likewise
+ * data       records of (age, UTF-8 lengths of the three names) and the names, each NUL-terminated
+ * </pre>
+ * A slot whose offset is 0 is empty; at most half of the slots are used. Lookups read the mapped
+ * file directly and allocate only the returned {@link UserDTO} and its strings. Users whose names
+ * contain NUL or are longer than {@value #MAX_STRING_BYTES} bytes are left out, and so are read
+ * from the database.
+ */
+final class UserDirectorySnapshot {
+
+    static final int MAX_STRING_BYTES = 0xFFFF;
+
+    private static final int MAGIC = 0x55444952;
+    private static final int VERSION = 1;
+    private static final long HEADER_BYTES = 40;
+    private static final long SLOT_BYTES = 16;
+    private static final long RECORD_HEADER_BYTES = 12;
+    private static final long ENTRY_BYTES = 24;
+
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfShort SHORT = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final MemorySegment file;
+    private final long count;
+    private final long mask;
+    private final long emailTable;
+    private final long data;
+
+    private UserDirectorySnapshot(MemorySegment file) {
+        if (file.byteSize() < HEADER_BYTES || file.get(INT, 0) != MAGIC || file.get(INT, 4) != VERSION) {
+            throw new IllegalStateException("Not a user directory snapshot");
+        }
+        this.file = file;
+        this.count = file.get(LONG, 8);
+        long slots = file.get(LONG, 16);
+        this.mask = slots - 1;
+        this.emailTable = HEADER_BYTES + slots * SLOT_BYTES;
+        this.data = emailTable + slots * SLOT_BYTES;
+        if (Long.bitCount(slots) != 1 || data + file.get(LONG, 24) != file.byteSize()) {
+            throw new IllegalStateException("Truncated user directory snapshot");
+        }
+    }
+
+    /**
+     * Maps {@code path} read-only. The mapping is released when the snapshot is no longer reachable,
+     * so readers never see it closed under them.
+     */
+    static UserDirectorySnapshot open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new UserDirectorySnapshot(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto()));
+        }
+    }
+
+    /**
+     * Writes the users passed to {@code source}'s consumer into a new snapshot at {@code path},
+     * replacing it atomically. Heap use does not grow with the number of users: records and index
+     * entries are spooled to temporary files, and the tables are filled once the count is known.
+     */
+    static void write(Path path, Consumer<Consumer<UserDTO>> source) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path records = Files.createTempFile(directory, "records", ".tmp");
+        Path entries = Files.createTempFile(directory, "entries", ".tmp");
+        Path snapshot = Files.createTempFile(directory, "snapshot", ".tmp");
+        try {
+            long users;
+            try (Spool spool = new Spool(records, entries)) {
+                source.accept(spool);
+                users = spool.finish();
+            }
+            long slots = Math.max(2, Long.highestOneBit(Math.max(1, users) * 2 - 1) << 1);
+            long dataLength = Files.size(records);
+            long tables = HEADER_BYTES + 2 * slots * SLOT_BYTES;
+            try (Arena arena = Arena.ofConfined();
+                 FileChannel out = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.WRITE);
+                 FileChannel recordsIn = FileChannel.open(records, StandardOpenOption.READ);
+                 FileChannel entriesIn = FileChannel.open(entries, StandardOpenOption.READ)) {
+                MemorySegment target = out.map(FileChannel.MapMode.READ_WRITE, 0, tables + dataLength, arena);
+                target.set(INT, 0, MAGIC);
+                target.set(INT, 4, VERSION);
+                target.set(LONG, 8, users);
+                target.set(LONG, 16, slots);
+                target.set(LONG, 24, dataLength);
+                MemorySegment entryData = entriesIn.map(FileChannel.MapMode.READ_ONLY, 0, entriesIn.size(), arena);
+                for (long entry = 0; entry < users; entry++) {
+                    long base = entry * ENTRY_BYTES;
+                    long offset = entryData.get(LONG, base + 8) + 1;
+                    insert(target, HEADER_BYTES, slots, Murmur3.fmix64(entryData.get(LONG, base)), entryData.get(LONG, base), offset);
+                    long emailHash = entryData.get(LONG, base + 16);
+                    insert(target, HEADER_BYTES + slots * SLOT_BYTES, slots, Murmur3.fmix64(emailHash), emailHash, offset);
+                }
+                MemorySegment.copy(recordsIn.map(FileChannel.MapMode.READ_ONLY, 0, dataLength, arena), 0,
+                        target, tables, dataLength);
+                target.force();
+            }
+            Files.move(snapshot, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(records);
+            Files.deleteIfExists(entries);
+            Files.deleteIfExists(snapshot);
+        }
+    }
+
+    long count() {
+        return count;
+    }
+
+    /**
+     * The user with this id, or null when the snapshot does not have it.
+     */
+    UserDTO find(long userId) {
+        for (long slot = Murmur3.fmix64(userId) & mask; ; slot = (slot + 1) & mask) {
+            long base = HEADER_BYTES + slot * SLOT_BYTES;
+            long offset = file.get(LONG, base + 8);
+            if (offset == 0) {
+                return null;
+            }
+            if (file.get(LONG, base) == userId) {
+                return read(userId, data + offset - 1);
+            }
+        }
+    }
+
+    /**
+     * The user with this email, or null when the snapshot does not have it.
+     */
+    UserDTO findByEmail(String email) {
+        long hash = emailHash(email);
+        for (long slot = Murmur3.fmix64(hash) & mask; ; slot = (slot + 1) & mask) {
+            long base = emailTable + slot * SLOT_BYTES;
+            long offset = file.get(LONG, base + 8);
+            if (offset == 0) {
+                return null;
+            }
+            if (file.get(LONG, base) == hash) {
+                UserDTO user = read(null, data + offset - 1);
+                if (email.equals(user.email())) {
+                    return user;
+                }
+            }
+        }
+    }
+
+    /**
+     * FNV-1a over the UTF-16 code units, so that lookups hash the query without encoding it.
+     */
+    static long emailHash(String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash = (hash ^ email.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+
+    private UserDTO read(Long userId, long record) {
+        int age = file.get(INT, record);
+        long firstName = record + RECORD_HEADER_BYTES;
+        long lastName = firstName + Short.toUnsignedInt(file.get(SHORT, record + 4)) + 1;
+        long email = lastName + Short.toUnsignedInt(file.get(SHORT, record + 6)) + 1;
+        long id = userId != null ? userId : file.get(LONG, record - 8);
+        return new UserDTO(id, file.getString(firstName), file.getString(lastName), age, file.getString(email));
+    }
+
+    /**
+     * Appends records to one file and (id, record offset, email hash) entries to another. Records are
+     * preceded by their user id, so that email lookups can return it.
+     */
+    private static final class Spool implements Consumer<UserDTO>, Closeable {
+
+        private final DataOutputStream records;
+        private final DataOutputStream entries;
+        private long users;
+        private long position;
+        private IOException failure;
+
+        Spool(Path records, Path entries) throws IOException {
+            this.records = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(records), 1 << 16));
+            this.entries = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(entries), 1 << 16));
+        }
+
+        @Override
+        public void accept(UserDTO user) {
+            byte[] firstName = encode(user.firstName());
+            byte[] lastName = encode(user.lastName());
+            byte[] email = encode(user.email());
+            if (failure != null || firstName == null || lastName == null || email == null) {
+                return;
+            }
+            try {
+                records.writeLong(user.userId());
+                long offset = position + 8;
+                records.writeInt(user.age());
+                records.writeShort(firstName.length);
+                records.writeShort(lastName.length);
+                records.writeShort(email.length);
+                records.writeShort(0);
+                writeTerminated(records, firstName);
+                writeTerminated(records, lastName);
+                writeTerminated(records, email);
+                position = offset + RECORD_HEADER_BYTES + firstName.length + lastName.length + email.length + 3;
+                entries.writeLong(user.userId());
+                entries.writeLong(offset);
+                entries.writeLong(emailHash(user.email()));
+                users++;
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        /**
+         * The number of users written.
+         */
+        long finish() throws IOException {
+            records.flush();
+            entries.flush();
+            if (failure != null) {
+                throw failure;
+            }
+            return users;
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (records; entries) {
+                // closes both, even when the first fails
+            }
+        }
+    }
+
+    private static byte[] encode(String value) {
+        if (value == null || value.indexOf('\0') >= 0) {
+            return null;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        return bytes.length > MAX_STRING_BYTES ? null : bytes;
+    }
+
+    private static void writeTerminated(DataOutputStream out, byte[] value) throws IOException {
+        out.write(value);
+        out.write(0);
+    }
+
+    private static void insert(MemorySegment target, long table, long slots, long hash, long key, long offset) {
+        for (long slot = hash & (slots - 1); ; slot = (slot + 1) & (slots - 1)) {
+            long base = table + slot * SLOT_BYTES;
+            if (target.get(LONG, base + 8) == 0) {
+                target.set(LONG, base, key);
+                target.set(LONG, base + 8, offset);
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.unstampedpages.dto;
+
+public record CircuitBreakerStatsDTO(String state, int consecutiveFailures, long rejected) {
+}
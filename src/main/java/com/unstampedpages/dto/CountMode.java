@@ -0,0 +1,20 @@
+package com.unstampedpages.dto;
+
+/**
+ * How {@code X-Total-Count} is computed: an exact {@code count(*)} or a PostgreSQL planner estimate.
+ * Estimates come from the statistics of the last vacuum or analyze, so they lag recent inserts and
+ * deletions (including deleted users not purged yet) until the next one.
+ */
+public enum CountMode {
+    EXACT,
+    ESTIMATED;
+
+    public static CountMode fromParameter(String value) {
+        for (CountMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException("Unknown count mode '" + value + "', expected exact or estimated");
+    }
+}
@@ -0,0 +1,9 @@
+package com.unstampedpages.dto;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * {@code userId} is a JSON string, as in {@link UserDTO}.
+ */
+public record HotKeyDTO(@JsonFormat(shape = JsonFormat.Shape.STRING) Long userId, long estimatedReads, boolean pinned) {
+}
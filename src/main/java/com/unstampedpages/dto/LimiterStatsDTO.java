@@ -0,0 +1,4 @@
+package com.unstampedpages.dto;
+
+public record LimiterStatsDTO(String name, int limit, int inFlight, long rejected) {
+}
@@ -0,0 +1,4 @@
+package com.unstampedpages.dto;
+
+public record ReadinessDTO(String state) {
+}
@@ -1,4 +1,10 @@
 package com.unstampedpages.dto;
 
-public record UserDTO(Long userId, String firstName, String lastName, int age, String email) {
+import com.fasterxml.jackson.annotation.JsonFormat;
+
+/**
+ * {@code userId} is written as a JSON string: Snowflake ids exceed 2^53, above which JavaScript
+ * numbers lose precision.
+ */
+public record UserDTO(@JsonFormat(shape = JsonFormat.Shape.STRING) Long userId, String firstName, String lastName, int age, String email) {
 }
@@ -0,0 +1,56 @@
+package com.unstampedpages.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fields of {@link UserDTO} that can be requested with {@code ?fields=}. Names match the
+ * {@code User} entity attributes so they can be projected directly in queries.
+ */
+public enum UserField {
+    USER_ID("userId"),
+    FIRST_NAME("firstName"),
+    LAST_NAME("lastName"),
+    AGE("age"),
+    EMAIL("email");
+
+    private final String propertyName;
+
+    UserField(String propertyName) {
+        this.propertyName = propertyName;
+    }
+
+    public String propertyName() {
+        return propertyName;
+    }
+
+    public static UserField fromPropertyName(String name) {
+        for (UserField field : values()) {
+            if (field.propertyName.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown user field '" + name + "'");
+    }
+
+    /**
+     * Parses a comma-separated field list, keeping the requested order and dropping duplicates.
+     */
+    public static List<UserField> parseList(String fields) {
+        List<UserField> parsed = new ArrayList<>();
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            UserField field = fromPropertyName(trimmed);
+            if (!parsed.contains(field)) {
+                parsed.add(field);
+            }
+        }
+        if (parsed.isEmpty()) {
+            throw new IllegalArgumentException("At least one field must be requested");
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,4 @@
+package com.unstampedpages.dto;
+
+public record UserSearchCriteria(String lastNamePrefix, Integer minAge, Integer maxAge, UserSearchSort sort) {
+}
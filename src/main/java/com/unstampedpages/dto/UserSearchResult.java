@@ -0,0 +1,9 @@
+package com.unstampedpages.dto;
+
+import java.util.List;
+
+/**
+ * One page of search results; {@code nextCursor} is null on the last page.
+ */
+public record UserSearchResult(List<UserDTO> users, String nextCursor) {
+}
@@ -0,0 +1,47 @@
+package com.unstampedpages.dto;
+
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Orderings offered by {@code GET /users/search}. Each ends with {@code userId} so the keyset
+ * used for cursor pagination is unique.
+ */
+public enum UserSearchSort {
+    NAME("name", List.of("lastName", "firstName", "userId"),
+            Comparator.comparing(UserDTO::lastName).thenComparing(UserDTO::firstName).thenComparing(UserDTO::userId)),
+    AGE("age", List.of("age", "userId"),
+            Comparator.comparingInt(UserDTO::age).thenComparing(UserDTO::userId)),
+    ID("id", List.of("userId"),
+            Comparator.comparing(UserDTO::userId));
+
+    private final String parameterValue;
+    private final List<String> properties;
+    private final Comparator<UserDTO> comparator;
+
+    UserSearchSort(String parameterValue, List<String> properties, Comparator<UserDTO> comparator) {
+        this.parameterValue = parameterValue;
+        this.properties = properties;
+        this.comparator = comparator;
+    }
+
+    public List<String> properties() {
+        return properties;
+    }
+
+    /**
+     * The same ordering applied in memory, used to merge pages from several shards.
+     */
+    public Comparator<UserDTO> comparator() {
+        return comparator;
+    }
+
+    public static UserSearchSort fromParameter(String value) {
+        for (UserSearchSort sort : values()) {
+            if (sort.parameterValue.equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        throw new IllegalArgumentException("Unknown sort '" + value + "'");
+    }
+}
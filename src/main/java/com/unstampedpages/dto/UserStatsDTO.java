@@ -0,0 +1,6 @@
+package com.unstampedpages.dto;
+
+import java.util.Map;
+
+public record UserStatsDTO(long total, Map<String, Long> ageHistogram, Map<String, Long> emailDomains) {
+}
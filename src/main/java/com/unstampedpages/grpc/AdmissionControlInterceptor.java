@@ -0,0 +1,122 @@
+package com.unstampedpages.grpc;
+
+import com.unstampedpages.admission.AdmissionControl;
+import com.unstampedpages.admission.AimdLimiter;
+import com.unstampedpages.grpc.v1.UserServiceGrpc;
+import io.grpc.ForwardingServerCall;
+import io.grpc.ForwardingServerCallListener;
+import io.grpc.Metadata;
+import io.grpc.MethodDescriptor;
+import io.grpc.ServerCall;
+import io.grpc.ServerCallHandler;
+import io.grpc.ServerInterceptor;
+import io.grpc.Status;
+
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * The gRPC counterpart of {@code AdmissionControlFilter}: calls beyond the current limit are closed
+ * with {@code UNAVAILABLE} and a {@code grpc-retry-pushback-ms} trailer, and each admitted call's
+ * latency and outcome are fed back to the same read or write limiter the REST API uses. Calls the
+ * client cancelled are left out, and so are streaming calls that succeed, since how long a stream
+ * runs depends on its size and on the client reading it.
+ */
+public class AdmissionControlInterceptor implements ServerInterceptor {
+
+    static final Metadata.Key<String> RETRY_PUSHBACK = Metadata.Key.of("grpc-retry-pushback-ms", Metadata.ASCII_STRING_MARSHALLER);
+
+    private static final Set<String> WRITE_METHODS = Set.of(
+            UserServiceGrpc.getCreateUserMethod().getFullMethodName(),
+            UserServiceGrpc.getUpdateUserMethod().getFullMethodName(),
+            UserServiceGrpc.getDeleteUserMethod().getFullMethodName());
+
+    private static final Set<Status.Code> SERVER_ERRORS = EnumSet.of(Status.Code.UNKNOWN, Status.Code.INTERNAL,
+            Status.Code.UNAVAILABLE, Status.Code.DEADLINE_EXCEEDED, Status.Code.DATA_LOSS);
+
+    private final AdmissionControl admissionControl;
+    private final String retryAfterMillis;
+
+    public AdmissionControlInterceptor(AdmissionControl admissionControl, Duration retryAfter) {
+        this.admissionControl = admissionControl;
+        this.retryAfterMillis = Long.toString(Math.max(1, retryAfter.toMillis()));
+    }
+
+    @Override
+    public <ReqT, RespT> ServerCall.Listener<ReqT> interceptCall(ServerCall<ReqT, RespT> call, Metadata headers,
+                                                                 ServerCallHandler<ReqT, RespT> next) {
+        MethodDescriptor<ReqT, RespT> method = call.getMethodDescriptor();
+        boolean read = !WRITE_METHODS.contains(method.getFullMethodName());
+        AimdLimiter limiter = read ? admissionControl.reads() : admissionControl.writes();
+        if (!limiter.tryAcquire()) {
+            Metadata trailers = new Metadata();
+            trailers.put(RETRY_PUSHBACK, retryAfterMillis);
+            call.close(Status.UNAVAILABLE.withDescription("Server is at capacity, retry later"), trailers);
+            return new ServerCall.Listener<>() {
+            };
+        }
+        Permit permit = new Permit(limiter, read, method.getType() != MethodDescriptor.MethodType.UNARY);
+        ServerCall<ReqT, RespT> tracked = new ForwardingServerCall.SimpleForwardingServerCall<>(call) {
+            @Override
+            public void close(Status status, Metadata trailers) {
+                permit.release(status);
+                super.close(status, trailers);
+            }
+        };
+        ServerCall.Listener<ReqT> listener;
+        try {
+            listener = next.startCall(tracked, headers);
+        } catch (RuntimeException e) {
+            permit.release(Status.INTERNAL);
+            throw e;
+        }
+        return new ForwardingServerCallListener.SimpleForwardingServerCallListener<>(listener) {
+            @Override
+            public void onCancel() {
+                permit.ignore();
+                super.onCancel();
+            }
+        };
+    }
+
+    /**
+     * One admitted call's permit, released exactly once: by close or by cancellation, whichever
+     * comes first.
+     */
+    private final class Permit {
+
+        private final AimdLimiter limiter;
+        private final boolean read;
+        private final boolean streaming;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(AimdLimiter limiter, boolean read, boolean streaming) {
+            this.limiter = limiter;
+            this.read = read;
+            this.streaming = streaming;
+        }
+
+        private void release(Status status) {
+            if (!released.compareAndSet(false, true)) {
+                return;
+            }
+            long end = System.nanoTime();
+            if (SERVER_ERRORS.contains(status.getCode()) || (read && admissionControl.isPoolSaturated())) {
+                limiter.onDropped(start, end);
+            } else if (streaming) {
+                limiter.onIgnore();
+            } else {
+                limiter.onSuccess(start, end);
+            }
+        }
+
+        private void ignore() {
+            if (released.compareAndSet(false, true)) {
+                limiter.onIgnore();
+            }
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.unstampedpages.grpc;
+
+import io.grpc.Server;
+import io.grpc.ServerBuilder;
+import io.grpc.ServerInterceptor;
+import io.grpc.ServerInterceptors;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the gRPC API inside the application process, on its own port next to the REST API. Every
+ * {@link ServerInterceptor} bean, such as admission control, applies to it.
+ */
+@Component
+@ConditionalOnProperty(name = "grpc.server.enabled", havingValue = "true", matchIfMissing = true)
+public class GrpcServerLifecycle implements SmartLifecycle {
+
+    private final Server server;
+    private volatile boolean running;
+
+    public GrpcServerLifecycle(UserGrpcService userGrpcService, ObjectProvider<ServerInterceptor> interceptors,
+                               @Value("${grpc.server.port:9090}") int port) {
+        this.server = ServerBuilder.forPort(port)
+                .addService(ServerInterceptors.intercept(userGrpcService, interceptors.orderedStream().toList()))
+                .build();
+    }
+
+    @Override
+    public void start() {
+        try {
+            server.start();
+            running = true;
+        } catch (IOException e) {
+            throw new IllegalStateException("Failed to start gRPC server", e);
+        }
+    }
+
+    @Override
+    public void stop() {
+        server.shutdown();
+        try {
+            if (!server.awaitTermination(5, TimeUnit.SECONDS)) {
+                server.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            server.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        running = false;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    public int getPort() {
+        return server.getPort();
+    }
+}
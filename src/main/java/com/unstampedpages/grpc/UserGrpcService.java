@@ -0,0 +1,180 @@
+package com.unstampedpages.grpc;
+
+import com.google.protobuf.Empty;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.grpc.v1.CreateUserRequest;
+import com.unstampedpages.grpc.v1.DeleteUserRequest;
+import com.unstampedpages.grpc.v1.GetManyUsersRequest;
+import com.unstampedpages.grpc.v1.GetManyUsersResponse;
+import com.unstampedpages.grpc.v1.GetUserRequest;
+import com.unstampedpages.grpc.v1.ListUsersRequest;
+import com.unstampedpages.grpc.v1.UpdateUserRequest;
+import com.unstampedpages.grpc.v1.UserMessage;
+import com.unstampedpages.grpc.v1.UserServiceGrpc;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.service.UserService;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.stub.ServerCallStreamObserver;
+import io.grpc.stub.StreamObserver;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+
+@Component
+public class UserGrpcService extends UserServiceGrpc.UserServiceImplBase {
+
+    static final int LIST_PAGE_SIZE = 500;
+    private static final UserSearchCriteria ALL_USERS = new UserSearchCriteria(null, null, null, UserSearchSort.ID);
+
+    private final UserService userService;
+
+    public UserGrpcService(UserService userService) {
+        this.userService = userService;
+    }
+
+    @Override
+    public void getUser(GetUserRequest request, StreamObserver<UserMessage> responseObserver) {
+        handle(responseObserver, () -> respond(userService.getUser(request.getUserId()), request.getUserId(), responseObserver));
+    }
+
+    @Override
+    public void getManyUsers(GetManyUsersRequest request, StreamObserver<GetManyUsersResponse> responseObserver) {
+        handle(responseObserver, () -> {
+            List<UserDTO> users = userService.getUsers(request.getUserIdsList());
+            GetManyUsersResponse.Builder response = GetManyUsersResponse.newBuilder();
+            users.forEach(user -> response.addUsers(UserProtoMapper.toMessage(user)));
+            responseObserver.onNext(response.build());
+            responseObserver.onCompleted();
+        });
+    }
+
+    @Override
+    public void createUser(CreateUserRequest request, StreamObserver<UserMessage> responseObserver) {
+        handle(responseObserver, () -> {
+            UserDTO created = userService.createUser(request.getFirstName(), request.getLastName(), request.getAge(), request.getEmail());
+            responseObserver.onNext(UserProtoMapper.toMessage(created));
+            responseObserver.onCompleted();
+        });
+    }
+
+    @Override
+    public void updateUser(UpdateUserRequest request, StreamObserver<UserMessage> responseObserver) {
+        handle(responseObserver, () -> {
+            Optional<UserDTO> updated = userService.updateUser(request.getUserId(), request.getFirstName(),
+                    request.getLastName(), request.getAge(), request.getEmail());
+            respond(updated, request.getUserId(), responseObserver);
+        });
+    }
+
+    @Override
+    public void deleteUser(DeleteUserRequest request, StreamObserver<Empty> responseObserver) {
+        handle(responseObserver, () -> {
+            if (userService.deleteUser(request.getUserId())) {
+                responseObserver.onNext(Empty.getDefaultInstance());
+                responseObserver.onCompleted();
+            } else {
+                responseObserver.onError(notFound(request.getUserId()));
+            }
+        });
+    }
+
+    /**
+     * Streams every user in id order, a keyset page at a time, each page its own short read. Pages
+     * are fetched and sent only while the transport is ready, so a slow client holds back the
+     * stream instead of buffering the table in memory, and no transaction stays open meanwhile.
+     */
+    @Override
+    public void listUsers(ListUsersRequest request, StreamObserver<UserMessage> responseObserver) {
+        ServerCallStreamObserver<UserMessage> observer = (ServerCallStreamObserver<UserMessage>) responseObserver;
+        ListUsersCall call = new ListUsersCall(observer);
+        observer.setOnCancelHandler(call::cancel);
+        observer.setOnReadyHandler(call);
+    }
+
+    private void respond(Optional<UserDTO> user, long userId, StreamObserver<UserMessage> responseObserver) {
+        if (user.isPresent()) {
+            responseObserver.onNext(UserProtoMapper.toMessage(user.get()));
+            responseObserver.onCompleted();
+        } else {
+            responseObserver.onError(notFound(userId));
+        }
+    }
+
+    private RuntimeException notFound(long userId) {
+        return Status.NOT_FOUND.withDescription("User " + userId + " not found").asRuntimeException();
+    }
+
+    /**
+     * Runs a call, failing it with the status that matches the HTTP API's response to the same
+     * error rather than the UNKNOWN an escaping exception would produce.
+     */
+    private static void handle(StreamObserver<?> responseObserver, Runnable call) {
+        try {
+            call.run();
+        } catch (RuntimeException e) {
+            responseObserver.onError(toStatus(e));
+        }
+    }
+
+    private static StatusRuntimeException toStatus(RuntimeException e) {
+        return switch (e) {
+            case StatusRuntimeException status -> status;
+            case DataIntegrityViolationException conflict ->
+                    Status.ALREADY_EXISTS.withDescription("Email is already in use").withCause(conflict).asRuntimeException();
+            case DatabaseUnavailableException unavailable ->
+                    Status.UNAVAILABLE.withDescription(unavailable.getMessage()).withCause(unavailable).asRuntimeException();
+            default -> Status.fromThrowable(e).asRuntimeException();
+        };
+    }
+
+    /**
+     * The state of one {@code listUsers} stream. gRPC runs its ready and cancel handlers one at a
+     * time, so the fields need no synchronisation.
+     */
+    private final class ListUsersCall implements Runnable {
+
+        private final ServerCallStreamObserver<UserMessage> observer;
+        private Iterator<UserDTO> page = Collections.emptyIterator();
+        private String cursor;
+        private boolean lastPage;
+        private boolean done;
+
+        ListUsersCall(ServerCallStreamObserver<UserMessage> observer) {
+            this.observer = observer;
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (!done && observer.isReady()) {
+                    if (page.hasNext()) {
+                        observer.onNext(UserProtoMapper.toMessage(page.next()));
+                    } else if (lastPage) {
+                        done = true;
+                        observer.onCompleted();
+                    } else {
+                        UserSearchResult result = userService.searchUsers(ALL_USERS, cursor, LIST_PAGE_SIZE);
+                        page = result.users().iterator();
+                        cursor = result.nextCursor();
+                        lastPage = cursor == null;
+                    }
+                }
+            } catch (RuntimeException e) {
+                done = true;
+                observer.onError(toStatus(e));
+            }
+        }
+
+        void cancel() {
+            done = true;
+        }
+    }
+}
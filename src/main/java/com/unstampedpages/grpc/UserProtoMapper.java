@@ -0,0 +1,33 @@
+package com.unstampedpages.grpc;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.grpc.v1.UserMessage;
+
+public final class UserProtoMapper {
+
+    private UserProtoMapper() {
+    }
+
+    public static UserMessage toMessage(UserDTO user) {
+        UserMessage.Builder builder = UserMessage.newBuilder()
+                .setAge(user.age());
+        if (user.userId() != null) {
+            builder.setUserId(user.userId());
+        }
+        if (user.firstName() != null) {
+            builder.setFirstName(user.firstName());
+        }
+        if (user.lastName() != null) {
+            builder.setLastName(user.lastName());
+        }
+        if (user.email() != null) {
+            builder.setEmail(user.email());
+        }
+        return builder.build();
+    }
+
+    public static UserDTO toDTO(UserMessage message) {
+        Long userId = message.getUserId() == 0 ? null : message.getUserId();
+        return new UserDTO(userId, message.getFirstName(), message.getLastName(), message.getAge(), message.getEmail());
+    }
+}
@@ -0,0 +1,20 @@
+package com.unstampedpages.http;
+
+import com.unstampedpages.dto.UserDTO;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.List;
+
+final class UserBodyTypes {
+
+    private UserBodyTypes() {
+    }
+
+    static boolean isUserList(Type type) {
+        return type instanceof ParameterizedType parameterized
+                && parameterized.getRawType() instanceof Class<?> raw
+                && List.class.isAssignableFrom(raw)
+                && parameterized.getActualTypeArguments()[0] == UserDTO.class;
+    }
+}
@@ -0,0 +1,68 @@
+package com.unstampedpages.http;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.grpc.UserProtoMapper;
+import com.unstampedpages.grpc.v1.UserList;
+import com.unstampedpages.grpc.v1.UserMessage;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads and writes {@link UserDTO} and {@code List<UserDTO>} as the protobuf messages
+ * defined for the gRPC API.
+ */
+public class UserProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final MediaType APPLICATION_PROTOBUF = new MediaType("application", "x-protobuf");
+
+    public UserProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return UserDTO.class == clazz;
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return UserDTO.class == type && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return (UserDTO.class == clazz || UserBodyTypes.isUserList(type)) && canWrite(mediaType);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return readInternal(UserDTO.class, inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        return UserProtoMapper.toDTO(UserMessage.parseFrom(inputMessage.getBody()));
+    }
+
+    @Override
+    protected void writeInternal(Object body, Type type, HttpOutputMessage outputMessage) throws IOException {
+        if (body instanceof UserDTO user) {
+            UserProtoMapper.toMessage(user).writeTo(outputMessage.getBody());
+        } else if (body instanceof List<?> users) {
+            UserList.Builder list = UserList.newBuilder();
+            for (Object user : users) {
+                list.addUsers(UserProtoMapper.toMessage((UserDTO) user));
+            }
+            list.build().writeTo(outputMessage.getBody());
+        } else {
+            throw new HttpMessageNotWritableException("Cannot write " + body.getClass().getName() + " as protobuf");
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.unstampedpages.id;
+
+/**
+ * The 64-bit finalizer of MurmurHash3, for open-addressing tables and sketches indexed by the low
+ * bits of a key. Snowflake ids end in a per-millisecond sequence that is mostly zero, and FNV-1a
+ * hashes of similar strings differ little in their low bits, so both are mixed first.
+ */
+public final class Murmur3 {
+
+    private Murmur3() {
+    }
+
+    public static long fmix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        return key ^ (key >>> 33);
+    }
+}
@@ -0,0 +1,19 @@
+package com.unstampedpages.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * Marks an id attribute as assigned by {@link SnowflakeIdentifierGenerator} before the INSERT.
+ */
+@IdGeneratorType(SnowflakeIdentifierGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface SnowflakeId {
+}
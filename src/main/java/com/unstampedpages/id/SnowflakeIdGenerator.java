@@ -0,0 +1,68 @@
+package com.unstampedpages.id;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered 64-bit ids: 41 bits of milliseconds since {@link #EPOCH}, 10 bits of node id and a
+ * 12-bit per-millisecond sequence. Ids are strictly increasing per generator without locking: the
+ * packed (timestamp, sequence) state only moves forward by CAS, so a sequence overflow or a clock
+ * stepping backwards borrows the next millisecond instead of blocking or repeating an id.
+ */
+public final class SnowflakeIdGenerator {
+
+    public static final Instant EPOCH = Instant.parse("2025-01-01T00:00:00Z");
+
+    static final int NODE_BITS = 10;
+    static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final ConcurrentHashMap<Integer, SnowflakeIdGenerator> NODES = new ConcurrentHashMap<>();
+
+    private final long node;
+    private final Clock clock;
+    private final long epochMillis = EPOCH.toEpochMilli();
+    private final AtomicLong state = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, Clock.systemUTC());
+    }
+
+    SnowflakeIdGenerator(int nodeId, Clock clock) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Node id must be between 0 and " + MAX_NODE_ID + ", got " + nodeId);
+        }
+        this.node = nodeId;
+        this.clock = clock;
+    }
+
+    /**
+     * The process-wide generator for {@code nodeId}. Everything that mints ids for one node must
+     * share it, as two generators with the same node id can hand out the same id.
+     */
+    public static SnowflakeIdGenerator forNode(int nodeId) {
+        return NODES.computeIfAbsent(nodeId, SnowflakeIdGenerator::new);
+    }
+
+    public long nextId() {
+        long floor = (clock.millis() - epochMillis) << SEQUENCE_BITS;
+        long next = state.updateAndGet(current -> Math.max(floor, current + 1));
+        long timestamp = next >>> SEQUENCE_BITS;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+    }
+
+    public static Instant timestampOf(long id) {
+        return EPOCH.plusMillis(id >>> (NODE_BITS + SEQUENCE_BITS));
+    }
+
+    public static int nodeOf(long id) {
+        return (int) ((id >>> SEQUENCE_BITS) & MAX_NODE_ID);
+    }
+
+    public static int sequenceOf(long id) {
+        return (int) (id & SEQUENCE_MASK);
+    }
+}
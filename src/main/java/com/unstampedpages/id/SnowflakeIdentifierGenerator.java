@@ -0,0 +1,56 @@
+package com.unstampedpages.id;
+
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.generator.EventType;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.IdentifierGenerator;
+
+import java.lang.reflect.Member;
+
+/**
+ * Hibernate side of {@link SnowflakeId}. Because the id is known before the INSERT, Hibernate can
+ * batch inserts instead of executing each one to read back an identity value. The node id comes
+ * from the {@value #NODE_ID_SETTING} Hibernate setting and must be unique per running instance;
+ * startup fails when it is not set, rather than have instances share a default and mint the same ids.
+ * An id assigned by the application (sharded deployments pick the shard from it) is kept.
+ */
+public class SnowflakeIdentifierGenerator implements IdentifierGenerator {
+
+    public static final String NODE_ID_SETTING = "unstampedpages.id.node-id";
+
+    private final SnowflakeIdGenerator generator;
+
+    public SnowflakeIdentifierGenerator(SnowflakeId config, Member member, GeneratorCreationContext context) {
+        ConfigurationService configuration = context.getServiceRegistry().requireService(ConfigurationService.class);
+        this.generator = SnowflakeIdGenerator.forNode(parseNodeId(configuration.getSettings().get(NODE_ID_SETTING)));
+    }
+
+    /**
+     * The node id from a {@value #NODE_ID_SETTING} value; {@link IllegalStateException} when it is
+     * missing or blank.
+     */
+    public static int parseNodeId(Object setting) {
+        String value = setting == null ? "" : setting.toString().trim();
+        if (value.isEmpty()) {
+            throw new IllegalStateException(NODE_ID_SETTING + " (USERS_NODE_ID) must be set to a node id between 0 and "
+                    + SnowflakeIdGenerator.MAX_NODE_ID + " that no other running instance uses");
+        }
+        return Integer.parseInt(value);
+    }
+
+    @Override
+    public boolean allowAssignedIdentifiers() {
+        return true;
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object owner, Object currentValue, EventType eventType) {
+        return currentValue != null ? currentValue : generate(session, owner);
+    }
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return generator.nextId();
+    }
+}
@@ -0,0 +1,29 @@
+package com.unstampedpages.idempotency;
+
+/**
+ * Outcome of {@link IdempotencyStore#claim}.
+ */
+public sealed interface IdempotencyClaim {
+
+    /**
+     * The caller holds the key and must either {@link IdempotencyStore#complete complete} or
+     * {@link IdempotencyStore#release release} it.
+     */
+    record Acquired() implements IdempotencyClaim {
+    }
+
+    record Completed(StoredResponse response) implements IdempotencyClaim {
+    }
+
+    /**
+     * The key was first used for a different request.
+     */
+    record Mismatch() implements IdempotencyClaim {
+    }
+
+    /**
+     * Another request with the key did not finish within the wait timeout.
+     */
+    record InProgress() implements IdempotencyClaim {
+    }
+}
@@ -0,0 +1,229 @@
+package com.unstampedpages.idempotency;
+
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Makes {@code POST} and {@code PUT} requests carrying an {@code Idempotency-Key} header safe to
+ * retry: the first response is recorded in the {@link IdempotencyStore} and replayed, with
+ * {@code Idempotent-Replayed: true}, for later requests from the same client with the same key.
+ * Reusing a key for a different method, path or body is rejected with 422. Server errors are not
+ * recorded, so the request can be retried. The body is read into memory to be hashed, at most
+ * {@code maxBodySize} bytes of it; larger requests are rejected with 413.
+ * <p>
+ * Keys are scoped to the client (API key, else IP address), so that two clients picking the same
+ * key neither see each other's responses nor block each other. The store is keyed by a hash of
+ * client and key, which also keeps API keys out of the table.
+ */
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyStore store;
+    private final String apiKeyHeader;
+    private final int maxBodySize;
+
+    public IdempotencyFilter(IdempotencyStore store, String apiKeyHeader, int maxBodySize) {
+        this.store = store;
+        this.apiKeyHeader = apiKeyHeader;
+        this.maxBodySize = maxBodySize;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String method = request.getMethod();
+        return request.getHeader(IDEMPOTENCY_KEY_HEADER) == null || !("POST".equals(method) || "PUT".equals(method));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String key = request.getHeader(IDEMPOTENCY_KEY_HEADER);
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            response.sendError(HttpStatus.BAD_REQUEST.value(),
+                    IDEMPOTENCY_KEY_HEADER + " must be between 1 and " + MAX_KEY_LENGTH + " characters");
+            return;
+        }
+        byte[] body = readBody(request);
+        if (body == null) {
+            response.sendError(HttpStatus.CONTENT_TOO_LARGE.value(),
+                    "Requests with an " + IDEMPOTENCY_KEY_HEADER + " are limited to " + maxBodySize + " bytes");
+            return;
+        }
+        String scopedKey = scopedKey(request, key);
+        IdempotencyClaim claim;
+        try {
+            claim = store.claim(scopedKey, requestHash(request, body));
+        } catch (DatabaseUnavailableException e) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, e.retryAfter().toSeconds())));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Database unavailable");
+            return;
+        }
+        switch (claim) {
+            case IdempotencyClaim.Acquired acquired -> execute(scopedKey, new BufferedBodyRequest(request, body), response, chain);
+            case IdempotencyClaim.Completed completed -> replay(completed.response(), response);
+            case IdempotencyClaim.Mismatch mismatch -> response.sendError(HttpStatus.UNPROCESSABLE_ENTITY.value(),
+                    IDEMPOTENCY_KEY_HEADER + " was already used for a different request");
+            case IdempotencyClaim.InProgress inProgress -> {
+                response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+                response.sendError(HttpStatus.CONFLICT.value(), "A request with this " + IDEMPOTENCY_KEY_HEADER + " is in progress");
+            }
+        }
+    }
+
+    private void execute(String key, HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        ContentCachingResponseWrapper recorded = new ContentCachingResponseWrapper(response);
+        boolean completed = false;
+        try {
+            chain.doFilter(request, recorded);
+            if (recorded.getStatus() < HttpStatus.INTERNAL_SERVER_ERROR.value()) {
+                store.complete(key, new StoredResponse(recorded.getStatus(), recorded.getContentType(),
+                        recorded.getContentAsByteArray()));
+                completed = true;
+            }
+        } finally {
+            if (!completed) {
+                store.release(key);
+            }
+            recorded.copyBodyToResponse();
+        }
+    }
+
+    private static void replay(StoredResponse stored, HttpServletResponse response) throws IOException {
+        response.setStatus(stored.status());
+        response.setHeader(REPLAYED_HEADER, "true");
+        if (stored.contentType() != null) {
+            response.setContentType(stored.contentType());
+        }
+        if (stored.body() != null && stored.body().length > 0) {
+            response.setContentLength(stored.body().length);
+            response.getOutputStream().write(stored.body());
+        }
+    }
+
+    /**
+     * Reads the body, or returns null once it is known to be over the limit; a declared length is
+     * checked up front, and a chunked body is read at most one byte past it.
+     */
+    private byte[] readBody(HttpServletRequest request) throws IOException {
+        if (request.getContentLengthLong() > maxBodySize) {
+            return null;
+        }
+        byte[] body = request.getInputStream().readNBytes(maxBodySize + 1);
+        return body.length > maxBodySize ? null : body;
+    }
+
+    private String scopedKey(HttpServletRequest request, String key) {
+        String apiKey = request.getHeader(apiKeyHeader);
+        String client = apiKey != null && !apiKey.isBlank() ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+        return HexFormat.of().formatHex(sha256().digest((client + '\n' + key).getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static String requestHash(HttpServletRequest request, byte[] body) {
+        MessageDigest digest = sha256();
+        digest.update((request.getMethod() + ' ' + request.getRequestURI() + '\n').getBytes(StandardCharsets.UTF_8));
+        return HexFormat.of().formatHex(digest.digest(body));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Serves the body read up front for hashing to the rest of the chain.
+     */
+    private static final class BufferedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        BufferedBodyRequest(HttpServletRequest request, byte[] body) {
+            super(request);
+            this.body = body;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                /**
+                 * The whole body is already in memory, so it is all available at once.
+                 */
+                @Override
+                public void setReadListener(ReadListener listener) {
+                    try {
+                        if (!isFinished()) {
+                            listener.onDataAvailable();
+                        }
+                        listener.onAllDataRead();
+                    } catch (IOException e) {
+                        listener.onError(e);
+                    }
+                }
+
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        @Override
+        public int getContentLength() {
+            return body.length;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return body.length;
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package com.unstampedpages.idempotency;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * {@code users.idempotency.*}: responses are replayed for {@code ttl}; up to {@code max-entries}
+ * of them are also kept in memory. A retry of a request still running waits up to
+ * {@code wait-timeout} for its result, with at most {@code max-waiters} retries waiting at once on
+ * a node, and a node that claimed a key but never answered loses it after {@code lock-timeout}.
+ * Keys are scoped to the client, identified like the rate limiter does, by the
+ * {@code api-key-header} or else the IP address. Bodies are held in memory to be hashed, so
+ * requests with a key and a body over {@code max-body-size} are rejected with 413.
+ */
+@ConfigurationProperties("users.idempotency")
+public record IdempotencyProperties(@DefaultValue("true") boolean enabled,
+                                    @DefaultValue("PT24H") Duration ttl,
+                                    @DefaultValue("10000") int maxEntries,
+                                    @DefaultValue("PT30S") Duration waitTimeout,
+                                    @DefaultValue("PT2M") Duration lockTimeout,
+                                    @DefaultValue("PT0.1S") Duration pollInterval,
+                                    @DefaultValue("PT10M") Duration purgeInterval,
+                                    @DefaultValue("64") int maxWaiters,
+                                    @DefaultValue("X-API-Key") String apiKeyHeader,
+                                    @DefaultValue("64KB") DataSize maxBodySize) {
+}
@@ -0,0 +1,256 @@
+package com.unstampedpages.idempotency;
+
+import com.unstampedpages.dao.IdempotencyRecordDAO;
+import com.unstampedpages.model.IdempotencyRecord;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.shard.UserShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Records the response to the first request made with each idempotency key. The
+ * {@code idempotency_keys} table is the source of truth across nodes: a pending row claims the key,
+ * and a completed row holds the response. Recent keys are also kept in memory, where a retry of a
+ * request still running on this node waits on its result instead of polling the table. Only
+ * {@code max-waiters} retries wait at a time; the rest are told at once that the request is in
+ * progress, so a burst of retries cannot pin down every request thread.
+ */
+public class IdempotencyStore {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    /**
+     * Keys live on the directory shard, next to the email routes.
+     */
+    private static final int KEY_SHARD = 0;
+
+    private static final IdempotencyClaim ACQUIRED = new IdempotencyClaim.Acquired();
+    private static final IdempotencyClaim MISMATCH = new IdempotencyClaim.Mismatch();
+    private static final IdempotencyClaim IN_PROGRESS = new IdempotencyClaim.InProgress();
+
+    /**
+     * {@code result} completes with the response, or with null if the request failed and the key
+     * was released. {@code expiresAt} is null while the request is running.
+     */
+    private record Entry(String requestHash, CompletableFuture<StoredResponse> result, Instant expiresAt) {
+    }
+
+    private final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private final Semaphore waiters;
+    private final IdempotencyRecordDAO recordDAO;
+    private final UserShards shards;
+    private final DatabaseCircuitBreaker breaker;
+    private final IdempotencyProperties properties;
+    private final Clock clock;
+
+    public IdempotencyStore(IdempotencyRecordDAO recordDAO, UserShards shards, DatabaseCircuitBreaker breaker,
+                            IdempotencyProperties properties) {
+        this(recordDAO, shards, breaker, properties, Clock.systemUTC());
+    }
+
+    IdempotencyStore(IdempotencyRecordDAO recordDAO, UserShards shards, DatabaseCircuitBreaker breaker,
+                     IdempotencyProperties properties, Clock clock) {
+        this.recordDAO = recordDAO;
+        this.shards = shards;
+        this.breaker = breaker;
+        this.properties = properties;
+        this.clock = clock;
+        this.waiters = new Semaphore(properties.maxWaiters());
+    }
+
+    /**
+     * Claims {@code key} for a request with the given hash, or reports what became of the request
+     * that claimed it first, waiting up to the wait timeout for it to finish.
+     */
+    public IdempotencyClaim claim(String key, String requestHash) {
+        long deadline = System.nanoTime() + properties.waitTimeout().toNanos();
+        while (true) {
+            Entry running = new Entry(requestHash, new CompletableFuture<>(), null);
+            Entry existing = entries.putIfAbsent(key, running);
+            if (existing == null) {
+                return claimShared(key, running, deadline);
+            }
+            if (existing.expiresAt() != null && !existing.expiresAt().isAfter(clock.instant())) {
+                entries.remove(key, existing);
+                continue;
+            }
+            if (!existing.requestHash().equals(requestHash)) {
+                return MISMATCH;
+            }
+            boolean waiting = !existing.result().isDone();
+            if (waiting && !waiters.tryAcquire()) {
+                return IN_PROGRESS;
+            }
+            try {
+                StoredResponse response = existing.result().get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (response != null) {
+                    return new IdempotencyClaim.Completed(response);
+                }
+                // The first request failed and released the key: try to take it over
+            } catch (TimeoutException e) {
+                return IN_PROGRESS;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return IN_PROGRESS;
+            } catch (ExecutionException e) {
+                throw new IllegalStateException(e.getCause());
+            } finally {
+                if (waiting) {
+                    waiters.release();
+                }
+            }
+        }
+    }
+
+    public void complete(String key, StoredResponse response) {
+        Instant expiresAt = clock.instant().plus(properties.ttl());
+        onKeyShard(() -> recordDAO.complete(key, response.status(), response.contentType(), response.body(), expiresAt));
+        Entry entry = entries.get(key);
+        if (entry != null) {
+            remember(key, entry, response, expiresAt);
+        }
+    }
+
+    /**
+     * Gives up the key after a failed request, so that a retry runs it again.
+     */
+    public void release(String key) {
+        try {
+            onKeyShard(() -> recordDAO.deletePending(key));
+        } catch (RuntimeException e) {
+            log.warn("Could not release idempotency key {}; other nodes wait for the lock timeout", key, e);
+        }
+        Entry entry = entries.get(key);
+        if (entry != null && entries.remove(key, entry)) {
+            entry.result().complete(null);
+        }
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    @Scheduled(fixedDelayString = "${users.idempotency.purge-interval:PT10M}",
+            initialDelayString = "${users.idempotency.purge-interval:PT10M}")
+    public void purgeExpired() {
+        Instant now = clock.instant();
+        entries.values().removeIf(entry -> entry.expiresAt() != null && !entry.expiresAt().isAfter(now));
+        try {
+            onKeyShard(() -> recordDAO.deleteExpired(now));
+        } catch (DatabaseUnavailableException e) {
+            log.debug("Skipped purging expired idempotency keys", e);
+        }
+    }
+
+    private IdempotencyClaim claimShared(String key, Entry running, long deadline) {
+        IdempotencyClaim claim;
+        try {
+            claim = claimRecord(key, running.requestHash(), deadline);
+        } catch (RuntimeException e) {
+            abandon(key, running);
+            throw e;
+        }
+        if (claim instanceof IdempotencyClaim.Completed completed) {
+            remember(key, running, completed.response(), clock.instant().plus(properties.ttl()));
+        } else if (claim != ACQUIRED) {
+            abandon(key, running);
+        }
+        return claim;
+    }
+
+    private IdempotencyClaim claimRecord(String key, String requestHash, long deadline) {
+        boolean waiting = false;
+        try {
+            while (true) {
+                Instant now = clock.instant();
+                if (tryInsertPending(key, requestHash, now.plus(properties.lockTimeout()))) {
+                    return ACQUIRED;
+                }
+                Optional<IdempotencyRecord> found = onKeyShard(() -> recordDAO.findById(key));
+                if (found.isEmpty()) {
+                    continue;
+                }
+                IdempotencyRecord record = found.get();
+                if (!record.getExpiresAt().isAfter(now)) {
+                    onKeyShard(() -> recordDAO.deleteIfExpired(key, now));
+                    continue;
+                }
+                if (!record.getRequestHash().equals(requestHash)) {
+                    return MISMATCH;
+                }
+                if (record.getStatus() != null) {
+                    return new IdempotencyClaim.Completed(new StoredResponse(record.getStatus(), record.getContentType(), record.getBody()));
+                }
+                if (System.nanoTime() - deadline >= 0) {
+                    return IN_PROGRESS;
+                }
+                if (!waiting && !(waiting = waiters.tryAcquire())) {
+                    return IN_PROGRESS;
+                }
+                try {
+                    Thread.sleep(properties.pollInterval());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return IN_PROGRESS;
+                }
+            }
+        } finally {
+            if (waiting) {
+                waiters.release();
+            }
+        }
+    }
+
+    private boolean tryInsertPending(String key, String requestHash, Instant expiresAt) {
+        try {
+            onKeyShard(() -> recordDAO.insertPending(key, requestHash, expiresAt));
+            return true;
+        } catch (DataIntegrityViolationException e) {
+            return false;
+        }
+    }
+
+    private void remember(String key, Entry entry, StoredResponse response, Instant expiresAt) {
+        entry.result().complete(response);
+        if (entries.replace(key, entry, new Entry(entry.requestHash(), entry.result(), expiresAt))
+                && entries.size() > properties.maxEntries()) {
+            evictOneCompleted();
+        }
+    }
+
+    private void abandon(String key, Entry entry) {
+        entries.remove(key, entry);
+        entry.result().complete(null);
+    }
+
+    private void evictOneCompleted() {
+        Iterator<Map.Entry<String, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next().getValue().expiresAt() != null) {
+                iterator.remove();
+                return;
+            }
+        }
+    }
+
+    private <T> T onKeyShard(Supplier<T> work) {
+        return breaker.call(() -> shards.onShard(KEY_SHARD, work));
+    }
+}
@@ -0,0 +1,7 @@
+package com.unstampedpages.idempotency;
+
+/**
+ * The response recorded for an idempotency key. {@code body} is shared and must not be modified.
+ */
+public record StoredResponse(int status, String contentType, byte[] body) {
+}
@@ -0,0 +1,15 @@
+package com.unstampedpages.metrics;
+
+/**
+ * Current occupancy of one connection pool.
+ */
+public interface ConnectionPoolStats {
+
+    int active();
+
+    int idle();
+
+    int pending();
+
+    int max();
+}
@@ -0,0 +1,46 @@
+package com.unstampedpages.metrics;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Times each controller handler from dispatch to the written response, by handler method name and
+ * status. A handler that throws an exception nobody resolved counts as a 500.
+ */
+public class HandlerLatencyInterceptor implements HandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = HandlerLatencyInterceptor.class.getName() + ".start";
+
+    private final LatencyMetrics metrics;
+    private final ConcurrentHashMap<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+    public HandlerLatencyInterceptor(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (handler instanceof HandlerMethod) {
+            request.setAttribute(START_ATTRIBUTE, System.nanoTime());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (!(handler instanceof HandlerMethod handlerMethod) || !(request.getAttribute(START_ATTRIBUTE) instanceof Long start)) {
+            return;
+        }
+        int status = response.getStatus();
+        if (ex != null && status < 400) {
+            status = 500;
+        }
+        timers.computeIfAbsent(handlerMethod.getMethod(), method -> metrics.handler(method.getName()))
+                .record(System.nanoTime() - start, Math.clamp(status, 0, LatencyMetrics.HTTP_STATUSES - 1));
+    }
+}
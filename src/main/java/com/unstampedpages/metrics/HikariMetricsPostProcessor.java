@@ -0,0 +1,27 @@
+package com.unstampedpages.metrics;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+/**
+ * Installs {@link HikariPoolMetrics} on Hikari DataSource beans before their pool starts, unless
+ * they already report to another metrics system.
+ */
+public class HikariMetricsPostProcessor implements BeanPostProcessor {
+
+    private final ObjectProvider<LatencyMetrics> metrics;
+
+    public HikariMetricsPostProcessor(ObjectProvider<LatencyMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof HikariDataSource hikari && hikari.getMetricsTrackerFactory() == null
+                && hikari.getMetricRegistry() == null) {
+            hikari.setMetricsTrackerFactory(new HikariPoolMetrics(metrics));
+        }
+        return bean;
+    }
+}
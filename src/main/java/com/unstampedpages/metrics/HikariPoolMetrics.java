@@ -0,0 +1,52 @@
+package com.unstampedpages.metrics;
+
+import com.zaxxer.hikari.metrics.IMetricsTracker;
+import com.zaxxer.hikari.metrics.MetricsTrackerFactory;
+import com.zaxxer.hikari.metrics.PoolStats;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * Feeds the occupancy and connection acquire times of Hikari pools into {@link LatencyMetrics}.
+ * Hikari creates the tracker when the pool starts, which is when the metrics are resolved.
+ */
+public class HikariPoolMetrics implements MetricsTrackerFactory {
+
+    private final ObjectProvider<LatencyMetrics> metrics;
+
+    public HikariPoolMetrics(ObjectProvider<LatencyMetrics> metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public IMetricsTracker create(String poolName, PoolStats poolStats) {
+        LatencyMetrics latencyMetrics = metrics.getObject();
+        latencyMetrics.pool(poolName, new ConnectionPoolStats() {
+            @Override
+            public int active() {
+                return poolStats.getActiveConnections();
+            }
+
+            @Override
+            public int idle() {
+                return poolStats.getIdleConnections();
+            }
+
+            @Override
+            public int pending() {
+                return poolStats.getPendingThreads();
+            }
+
+            @Override
+            public int max() {
+                return poolStats.getMaxConnections();
+            }
+        });
+        LatencyTimer acquire = latencyMetrics.poolAcquire(poolName);
+        return new IMetricsTracker() {
+            @Override
+            public void recordConnectionAcquiredNanos(long elapsedAcquiredNanos) {
+                acquire.record(elapsedAcquiredNanos, 0);
+            }
+        };
+    }
+}
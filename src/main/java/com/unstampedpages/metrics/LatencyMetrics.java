@@ -0,0 +1,137 @@
+package com.unstampedpages.metrics;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Latency timers of the {@code /users} handlers, the {@code UserDAO} methods and the
+ * {@link RequestPhase}s of requests, plus connection pool gauges and acquire times, rendered in the
+ * Prometheus text exposition format by {@link #scrape()}.
+ */
+public class LatencyMetrics {
+
+    /**
+     * HTTP status codes index the outcomes of handler timers.
+     */
+    public static final int HTTP_STATUSES = 600;
+    public static final int DAO_SUCCESS = 0;
+    public static final int DAO_ERROR = 1;
+
+    private static final String[] DAO_OUTCOMES = {"success", "error"};
+
+    private final ConcurrentHashMap<String, LatencyTimer> handlers = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyTimer> daoMethods = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyTimer> phases = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyTimer> poolAcquires = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, ConnectionPoolStats> pools = new ConcurrentHashMap<>();
+    private final Duration window;
+
+    public LatencyMetrics(Duration window) {
+        this.window = window;
+    }
+
+    public LatencyTimer handler(String name) {
+        return handlers.computeIfAbsent(name, n -> new LatencyTimer(HTTP_STATUSES, window));
+    }
+
+    public LatencyTimer daoMethod(String name) {
+        return daoMethods.computeIfAbsent(name, n -> new LatencyTimer(DAO_OUTCOMES.length, window));
+    }
+
+    public LatencyTimer phase(RequestPhase phase) {
+        return phases.computeIfAbsent(phase.key(), n -> new LatencyTimer(1, window));
+    }
+
+    public LatencyTimer poolAcquire(String pool) {
+        return poolAcquires.computeIfAbsent(pool, n -> new LatencyTimer(1, window));
+    }
+
+    public void pool(String name, ConnectionPoolStats stats) {
+        pools.put(name, stats);
+    }
+
+    public String scrape() {
+        StringBuilder out = new StringBuilder(4096);
+        write(out, "users_http_request_duration_seconds", "users_http_requests_total",
+                "Latency of /users handlers", "Responses of /users handlers by status",
+                "handler", "status", handlers, Integer::toString);
+        write(out, "users_dao_call_duration_seconds", "users_dao_calls_total",
+                "Latency of UserDAO calls", "UserDAO calls by outcome",
+                "method", "outcome", daoMethods, outcome -> DAO_OUTCOMES[outcome]);
+        write(out, "users_request_phase_duration_seconds", null, "Time per request spent in each phase", null,
+                "phase", null, phases, null);
+        write(out, "users_db_pool_acquire_seconds", null, "Time to acquire a pooled database connection", null,
+                "pool", null, poolAcquires, null);
+        writePools(out);
+        return out.toString();
+    }
+
+    /**
+     * Without a {@code counter} name, only the summary is written.
+     */
+    private static void write(StringBuilder out, String summary, String counter, String summaryHelp, String counterHelp,
+                              String label, String outcomeLabel, Map<String, LatencyTimer> timers,
+                              IntFunction<String> outcomeName) {
+        Map<String, LatencyTimer.Snapshot> snapshots = new TreeMap<>();
+        timers.forEach((name, timer) -> snapshots.put(name, timer.snapshot()));
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        out.append("# HELP ").append(summary).append(' ').append(summaryHelp).append('\n');
+        out.append("# TYPE ").append(summary).append(" summary\n");
+        snapshots.forEach((name, snapshot) -> {
+            for (int i = 0; i < LatencyTimer.QUANTILES.length; i++) {
+                out.append(summary).append('{').append(label).append("=\"").append(name)
+                        .append("\",quantile=\"").append(LatencyTimer.QUANTILES[i]).append("\"} ")
+                        .append(snapshot.quantileSeconds()[i]).append('\n');
+            }
+            out.append(summary).append("_count{").append(label).append("=\"").append(name).append("\"} ")
+                    .append(snapshot.count()).append('\n');
+            out.append(summary).append("_sum{").append(label).append("=\"").append(name).append("\"} ")
+                    .append(snapshot.sumSeconds()).append('\n');
+        });
+        if (counter == null) {
+            return;
+        }
+        out.append("# HELP ").append(counter).append(' ').append(counterHelp).append('\n');
+        out.append("# TYPE ").append(counter).append(" counter\n");
+        snapshots.forEach((name, snapshot) -> {
+            long[] outcomes = snapshot.outcomeCounts();
+            for (int outcome = 0; outcome < outcomes.length; outcome++) {
+                if (outcomes[outcome] > 0) {
+                    out.append(counter).append('{').append(label).append("=\"").append(name).append("\",")
+                            .append(outcomeLabel).append("=\"").append(outcomeName.apply(outcome)).append("\"} ")
+                            .append(outcomes[outcome]).append('\n');
+                }
+            }
+        });
+    }
+
+    private void writePools(StringBuilder out) {
+        Map<String, ConnectionPoolStats> sorted = new TreeMap<>(pools);
+        if (sorted.isEmpty()) {
+            return;
+        }
+        out.append("# HELP users_db_pool_connections Connections of the database pool by state\n");
+        out.append("# TYPE users_db_pool_connections gauge\n");
+        sorted.forEach((name, stats) -> {
+            writePoolGauge(out, "users_db_pool_connections", name, "active", stats.active());
+            writePoolGauge(out, "users_db_pool_connections", name, "idle", stats.idle());
+            writePoolGauge(out, "users_db_pool_connections", name, "max", stats.max());
+        });
+        out.append("# HELP users_db_pool_pending_threads Threads waiting for a database connection\n");
+        out.append("# TYPE users_db_pool_pending_threads gauge\n");
+        sorted.forEach((name, stats) -> writePoolGauge(out, "users_db_pool_pending_threads", name, null, stats.pending()));
+    }
+
+    private static void writePoolGauge(StringBuilder out, String gauge, String pool, String state, int value) {
+        out.append(gauge).append("{pool=\"").append(pool).append('"');
+        if (state != null) {
+            out.append(",state=\"").append(state).append('"');
+        }
+        out.append("} ").append(value).append('\n');
+    }
+}
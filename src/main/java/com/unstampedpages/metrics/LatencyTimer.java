@@ -0,0 +1,99 @@
+package com.unstampedpages.metrics;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Latencies and outcome counts of one operation. {@link #record} is wait-free: the latency goes into
+ * an HdrHistogram {@link Recorder} and the outcome into a {@link LongAdder}. Scrapes drain the
+ * recorder into a window made of the current and the previous period, so quantiles reflect recent
+ * traffic rather than the whole uptime.
+ * <p>
+ * Latencies are kept in microseconds with two significant digits (1% error), which keeps a
+ * histogram reaching minutes at a few kilobytes.
+ */
+public final class LatencyTimer {
+
+    static final int SIGNIFICANT_DIGITS = 2;
+    static final double[] QUANTILES = {0.5, 0.9, 0.99, 0.999};
+
+    private final Recorder recorder = new Recorder(SIGNIFICANT_DIGITS);
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicReferenceArray<LongAdder> outcomes;
+    private final long windowNanos;
+    private final LongSupplier nanoClock;
+
+    // Guarded by this; only touched by scrapes
+    private Histogram interval;
+    private Histogram current = new Histogram(SIGNIFICANT_DIGITS);
+    private Histogram previous = new Histogram(SIGNIFICANT_DIGITS);
+    private long currentSince;
+    private long count;
+
+    /**
+     * Counts of the outcomes of a scrape are indexed like {@code outcomes} of {@link #record}.
+     */
+    public record Snapshot(long count, double sumSeconds, double[] quantileSeconds, long[] outcomeCounts) {
+    }
+
+    LatencyTimer(int outcomes, Duration window) {
+        this(outcomes, window, System::nanoTime);
+    }
+
+    LatencyTimer(int outcomes, Duration window, LongSupplier nanoClock) {
+        this.outcomes = new AtomicReferenceArray<>(outcomes);
+        this.windowNanos = window.toNanos();
+        this.nanoClock = nanoClock;
+        this.currentSince = nanoClock.getAsLong();
+    }
+
+    /**
+     * @param outcome between 0 and the number of outcomes this timer was created with, exclusive
+     */
+    public void record(long nanos, int outcome) {
+        recorder.recordValue(Math.max(0, nanos) / 1_000);
+        totalNanos.add(nanos);
+        LongAdder counter = outcomes.get(outcome);
+        if (counter == null) {
+            outcomes.compareAndSet(outcome, null, new LongAdder());
+            counter = outcomes.get(outcome);
+        }
+        counter.increment();
+    }
+
+    public synchronized Snapshot snapshot() {
+        long now = nanoClock.getAsLong();
+        long age = now - currentSince;
+        if (age >= windowNanos) {
+            Histogram expired = previous;
+            previous = current;
+            current = expired;
+            current.reset();
+            if (age >= 2 * windowNanos) {
+                previous.reset();
+            }
+            currentSince = now;
+        }
+        interval = recorder.getIntervalHistogram(interval);
+        current.add(interval);
+        count += interval.getTotalCount();
+
+        Histogram window = previous.copy();
+        window.add(current);
+        double[] quantiles = new double[QUANTILES.length];
+        for (int i = 0; i < QUANTILES.length; i++) {
+            quantiles[i] = window.getValueAtPercentile(QUANTILES[i] * 100) / 1e6;
+        }
+        long[] outcomeCounts = new long[outcomes.length()];
+        for (int i = 0; i < outcomeCounts.length; i++) {
+            LongAdder counter = outcomes.get(i);
+            outcomeCounts[i] = counter == null ? 0 : counter.sum();
+        }
+        return new Snapshot(count, totalNanos.sum() / 1e9, quantiles, outcomeCounts);
+    }
+}
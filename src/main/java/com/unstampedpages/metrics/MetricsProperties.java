@@ -0,0 +1,15 @@
+package com.unstampedpages.metrics;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.metrics.*}: latency quantiles on {@code /metrics} cover the last one to two
+ * {@code window}s; counts and sums cover the whole uptime.
+ */
+@ConfigurationProperties("users.metrics")
+public record MetricsProperties(@DefaultValue("true") boolean enabled,
+                                @DefaultValue("PT1M") Duration window) {
+}
@@ -0,0 +1,70 @@
+package com.unstampedpages.metrics;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Adds a timing advice to the Spring Data proxy of one repository interface. It hooks into the
+ * repository factory rather than wrapping the finished bean, so beans that merely implement the
+ * interface (test mocks) are left alone.
+ */
+public class RepositoryLatencyPostProcessor implements BeanPostProcessor {
+
+    private final Class<?> repositoryInterface;
+    private final ObjectProvider<LatencyMetrics> metrics;
+
+    public RepositoryLatencyPostProcessor(Class<?> repositoryInterface, ObjectProvider<LatencyMetrics> metrics) {
+        this.repositoryInterface = repositoryInterface;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean
+                && factoryBean.getObjectType() == repositoryInterface) {
+            factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                    (proxyFactory, information) -> proxyFactory.addAdvice(new TimingAdvice(metrics))));
+        }
+        return bean;
+    }
+
+    /**
+     * Times the call itself; a returned {@code Stream} is timed until it is returned, not consumed.
+     * What the call did not spend waiting for a connection or executing SQL counts as hydration.
+     */
+    private static final class TimingAdvice implements MethodInterceptor {
+
+        private final ObjectProvider<LatencyMetrics> metrics;
+        private final ConcurrentHashMap<Method, LatencyTimer> timers = new ConcurrentHashMap<>();
+
+        TimingAdvice(ObjectProvider<LatencyMetrics> metrics) {
+            this.metrics = metrics;
+        }
+
+        @Override
+        public Object invoke(MethodInvocation invocation) throws Throwable {
+            RequestTimings timings = RequestTimings.current();
+            long databaseBefore = timings == null ? 0 : timings.databaseNanos();
+            long start = System.nanoTime();
+            int outcome = LatencyMetrics.DAO_ERROR;
+            try {
+                Object result = invocation.proceed();
+                outcome = LatencyMetrics.DAO_SUCCESS;
+                return result;
+            } finally {
+                long elapsed = System.nanoTime() - start;
+                timers.computeIfAbsent(invocation.getMethod(), method -> metrics.getObject().daoMethod(method.getName()))
+                        .record(elapsed, outcome);
+                if (timings != null) {
+                    timings.add(RequestPhase.HYDRATION, elapsed - (timings.databaseNanos() - databaseBefore));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.unstampedpages.metrics;
+
+/**
+ * Where the time of a request goes, as named in {@code Server-Timing} and on {@code /metrics}.
+ */
+public enum RequestPhase {
+    /** Waiting for a pooled connection. */
+    POOL("pool"),
+    /** Executing SQL statements. */
+    QUERY("db"),
+    /** Inside {@code UserDAO} but not in SQL: reading rows and building entities. */
+    HYDRATION("hydrate"),
+    /** Entities to DTOs, including merging shard results. */
+    MAPPING("map"),
+    /** Writing the response body; only known after the headers went out. */
+    SERIALIZATION("serialize");
+
+    private final String key;
+
+    RequestPhase(String key) {
+        this.key = key;
+    }
+
+    public String key() {
+        return key;
+    }
+}
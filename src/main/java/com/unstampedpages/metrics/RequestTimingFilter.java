@@ -0,0 +1,53 @@
+package com.unstampedpages.metrics;
+
+import com.unstampedpages.sql.RequestSqlStats;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Collects {@link RequestTimings} for each request and reports them in a {@code Server-Timing}
+ * header: {@link ServerTimingAdvice} sets it before a body is written, and this filter for
+ * responses without one. Afterwards every phase the request went through, serialization included,
+ * is recorded into the per-phase histograms.
+ */
+public class RequestTimingFilter extends OncePerRequestFilter {
+
+    public static final String SERVER_TIMING_HEADER = "Server-Timing";
+
+    private final LatencyMetrics metrics;
+
+    public RequestTimingFilter(LatencyMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestTimings timings = RequestTimings.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestTimings.end();
+            timings.serializationFinished();
+            if (!response.isCommitted() && !response.containsHeader(SERVER_TIMING_HEADER)) {
+                response.addHeader(SERVER_TIMING_HEADER, timings.serverTiming(null));
+            }
+            for (RequestPhase phase : RequestPhase.values()) {
+                long nanos = timings.nanos(phase);
+                if (nanos > 0) {
+                    metrics.phase(phase).record(nanos, 0);
+                }
+            }
+        }
+    }
+
+    static String serverTiming(RequestTimings timings) {
+        RequestSqlStats sql = RequestSqlStats.current();
+        return timings.serverTiming(sql == null ? null : sql.description());
+    }
+}
@@ -0,0 +1,109 @@
+package com.unstampedpages.metrics;
+
+import java.util.Locale;
+import java.util.function.Supplier;
+
+/**
+ * Time spent per {@link RequestPhase} by the current request, bound to the request thread by
+ * {@link RequestTimingFilter}. Recording outside a request, or on another thread, is a no-op.
+ */
+public final class RequestTimings {
+
+    private static final ThreadLocal<RequestTimings> CURRENT = new ThreadLocal<>();
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[PHASES.length];
+    private long serializationStartNanos;
+    private boolean serializing;
+
+    static RequestTimings begin() {
+        RequestTimings timings = new RequestTimings();
+        CURRENT.set(timings);
+        return timings;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Null outside a request.
+     */
+    public static RequestTimings current() {
+        return CURRENT.get();
+    }
+
+    public static void record(RequestPhase phase, long elapsedNanos) {
+        RequestTimings timings = CURRENT.get();
+        if (timings != null) {
+            timings.add(phase, elapsedNanos);
+        }
+    }
+
+    public static <T> T time(RequestPhase phase, Supplier<T> work) {
+        RequestTimings timings = CURRENT.get();
+        if (timings == null) {
+            return work.get();
+        }
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            timings.add(phase, System.nanoTime() - start);
+        }
+    }
+
+    public void add(RequestPhase phase, long elapsedNanos) {
+        nanos[phase.ordinal()] += Math.max(0, elapsedNanos);
+    }
+
+    public long nanos(RequestPhase phase) {
+        return nanos[phase.ordinal()];
+    }
+
+    /**
+     * Pool wait plus SQL execution so far.
+     */
+    public long databaseNanos() {
+        return nanos[RequestPhase.POOL.ordinal()] + nanos[RequestPhase.QUERY.ordinal()];
+    }
+
+    void serializationStarted() {
+        serializationStartNanos = System.nanoTime();
+        serializing = true;
+    }
+
+    void serializationFinished() {
+        if (serializing) {
+            add(RequestPhase.SERIALIZATION, System.nanoTime() - serializationStartNanos);
+            serializing = false;
+        }
+    }
+
+    /**
+     * {@code Server-Timing} metrics for the phases so far plus the total, for example
+     * {@code pool;dur=0.02, db;dur=1.50;desc="3 statements, 20 rows", map;dur=0.10, total;dur=2.31}.
+     */
+    String serverTiming(String queryDescription) {
+        StringBuilder header = new StringBuilder(128);
+        for (RequestPhase phase : PHASES) {
+            long phaseNanos = nanos[phase.ordinal()];
+            if (phaseNanos > 0) {
+                appendMetric(header, phase.key(), phaseNanos);
+                if (phase == RequestPhase.QUERY && queryDescription != null) {
+                    header.append(";desc=\"").append(queryDescription).append('"');
+                }
+            }
+        }
+        appendMetric(header, "total", System.nanoTime() - startNanos);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long elapsedNanos) {
+        if (!header.isEmpty()) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.2f", elapsedNanos / 1e6));
+    }
+}
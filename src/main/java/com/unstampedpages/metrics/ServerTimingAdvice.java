@@ -0,0 +1,36 @@
+package com.unstampedpages.metrics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the request's timings so far as a {@code Server-Timing} header just before a response body
+ * is written, while headers can still be set, and starts timing serialization.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "users.metrics.enabled", havingValue = "true", matchIfMissing = true)
+public class ServerTimingAdvice implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        RequestTimings timings = RequestTimings.current();
+        if (timings != null) {
+            response.getHeaders().set(RequestTimingFilter.SERVER_TIMING_HEADER, RequestTimingFilter.serverTiming(timings));
+            timings.serializationStarted();
+        }
+        return body;
+    }
+}
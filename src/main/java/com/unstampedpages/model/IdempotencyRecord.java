@@ -0,0 +1,69 @@
+package com.unstampedpages.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * The recorded response to a request sent with an {@code Idempotency-Key}, shared by all nodes.
+ * {@code status} is null while the first request is still being processed.
+ */
+@Entity
+@Table(name = "idempotency_keys")
+public class IdempotencyRecord {
+
+    @Id
+    @Column(name = "idempotency_key")
+    private String key;
+
+    @Column(name = "request_hash", nullable = false)
+    private String requestHash;
+
+    @Column(name = "status")
+    private Integer status;
+
+    @Column(name = "content_type")
+    private String contentType;
+
+    @Column(name = "body")
+    private byte[] body;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public IdempotencyRecord() {
+    }
+
+    public IdempotencyRecord(String key, String requestHash, Integer status, String contentType, byte[] body, Instant expiresAt) {
+        this.key = key;
+        this.requestHash = requestHash;
+        this.status = status;
+        this.contentType = contentType;
+        this.body = body;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getRequestHash() {
+        return requestHash;
+    }
+
+    public Integer getStatus() {
+        return status;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
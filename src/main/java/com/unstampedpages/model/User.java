@@ -1,13 +1,29 @@
 package com.unstampedpages.model;
 
+import com.unstampedpages.id.SnowflakeId;
 import jakarta.persistence.*;
-
+import org.hibernate.annotations.SQLDelete;
+import org.hibernate.annotations.SQLRestriction;
+import org.springframework.data.domain.Persistable;
+
+import java.time.Instant;
+
+/**
+ * Deleting a user only sets {@code deleted_at}; every query on the entity skips such tombstones,
+ * and {@code UserPurger} removes them in the background.
+ * <p>
+ * Ids are often assigned before the first save (sharded deployments pick the shard from them), so
+ * whether a user is new is tracked here rather than inferred from a null id: otherwise
+ * {@code save} would merge, and merge reads the row before every insert.
+ */
 @Entity
 @Table(name = "users")
-public class User {
+@SQLDelete(sql = "update {h-schema}users set deleted_at = current_timestamp where user_id = ?")
+@SQLRestriction("deleted_at is null")
+public class User implements Persistable<Long> {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @SnowflakeId
     @Column(name = "user_id")
     private Long userId;
 
@@ -20,9 +36,17 @@ public class User {
     @Column(nullable = false)
     private int age;
 
+    // In PostgreSQL unique among live users only (V7); schemas generated from the entity, as in
+    // tests, keep it unique across tombstones too
     @Column(nullable = false, unique = true)
     private String email;
 
+    @Column(name = "deleted_at")
+    private Instant deletedAt;
+
+    @Transient
+    private boolean isNew = true;
+
     public User() {
     }
 
@@ -38,6 +62,22 @@ public class User {
         return userId;
     }
 
+    @Override
+    public Long getId() {
+        return userId;
+    }
+
+    @Override
+    public boolean isNew() {
+        return isNew;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        isNew = false;
+    }
+
     public String getFirstName() {
         return firstName;
     }
@@ -69,4 +109,8 @@ public class User {
     public void setEmail(String email) {
         this.email = email;
     }
+
+    public Instant getDeletedAt() {
+        return deletedAt;
+    }
 }
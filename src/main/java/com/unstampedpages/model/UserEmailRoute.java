@@ -0,0 +1,35 @@
+package com.unstampedpages.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Email to user id mapping kept on the directory shard when users are sharded, so an email can be
+ * resolved to its shard and stays unique across shards.
+ */
+@Entity
+@Table(name = "user_email_routes")
+public class UserEmailRoute {
+
+    @Id
+    @Column(name = "email")
+    private String email;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    public UserEmailRoute() {
+    }
+
+    public UserEmailRoute(String email, Long userId) {
+        this.email = email;
+        this.userId = userId;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public Long getUserId() {
+        return userId;
+    }
+}
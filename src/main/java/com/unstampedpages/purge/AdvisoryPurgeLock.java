@@ -0,0 +1,80 @@
+package com.unstampedpages.purge;
+
+import org.springframework.dao.DataAccessResourceFailureException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * A PostgreSQL session-level advisory lock, held on a connection of its own for the whole run so
+ * that it outlives the short batch transactions. On other databases (H2 in tests) there is a single
+ * process and the lock is always granted.
+ */
+final class AdvisoryPurgeLock implements PurgeLock {
+
+    /** "users.purge" folded into a key; advisory locks share one key space per database. */
+    private static final long KEY = "users.purge".hashCode();
+
+    private final DataSource dataSource;
+
+    AdvisoryPurgeLock(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public Lease tryAcquire() {
+        Connection connection;
+        try {
+            connection = dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new DataAccessResourceFailureException("Could not take the purge lock", e);
+        }
+        try {
+            if (!"PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())) {
+                return () -> closeQuietly(connection);
+            }
+            if (!call(connection, "select pg_try_advisory_lock(?)")) {
+                connection.close();
+                return null;
+            }
+            return () -> release(connection);
+        } catch (SQLException e) {
+            closeQuietly(connection);
+            throw new DataAccessResourceFailureException("Could not take the purge lock", e);
+        }
+    }
+
+    private static void release(Connection connection) {
+        try {
+            call(connection, "select pg_advisory_unlock(?)");
+            connection.close();
+        } catch (SQLException e) {
+            // a pooled connection must not go back still holding the lock
+            try {
+                connection.abort(Runnable::run);
+            } catch (SQLException ignored) {
+            }
+            closeQuietly(connection);
+            throw new DataAccessResourceFailureException("Could not release the purge lock", e);
+        }
+    }
+
+    private static boolean call(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setLong(1, KEY);
+            try (ResultSet result = statement.executeQuery()) {
+                return result.next() && result.getBoolean(1);
+            }
+        }
+    }
+
+    private static void closeQuietly(Connection connection) {
+        try {
+            connection.close();
+        } catch (SQLException ignored) {
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.unstampedpages.purge;
+
+/**
+ * Keeps instances from purging the same shard at once, which would multiply the purge rate and have
+ * them contend for the same rows.
+ */
+interface PurgeLock {
+
+    /**
+     * Takes the lock on the shard currently selected, or returns {@code null} when another instance
+     * holds it.
+     */
+    Lease tryAcquire();
+
+    interface Lease extends AutoCloseable {
+
+        @Override
+        void close();
+    }
+}
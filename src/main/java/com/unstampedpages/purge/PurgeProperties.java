@@ -0,0 +1,18 @@
+package com.unstampedpages.purge;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.purge.*}: every {@code interval}, users deleted more than {@code retention} ago are
+ * removed in batches of {@code batch-size}, at most {@code rows-per-second} per shard.
+ */
+@ConfigurationProperties("users.purge")
+public record PurgeProperties(@DefaultValue("true") boolean enabled,
+                              @DefaultValue("PT1H") Duration retention,
+                              @DefaultValue("500") int batchSize,
+                              @DefaultValue("2000") int rowsPerSecond,
+                              @DefaultValue("PT5M") Duration interval) {
+}
@@ -0,0 +1,147 @@
+package com.unstampedpages.purge;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.shard.UserShards;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.transaction.support.TransactionOperations;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Removes the rows of deleted users in the background. Each batch is a short transaction deleting
+ * up to {@code batch-size} tombstones in id order, from the last id of the previous batch on, and
+ * batches are spaced to stay under {@code rows-per-second}, so that the purge after a mass deletion
+ * holds few locks at a time and leaves the pool to foreground requests. Nothing is purged while the
+ * database circuit breaker is not closed, and a run stops at the first failure.
+ * <p>
+ * Runs go on a thread of their own, since a large purge sleeps for minutes and would otherwise hold
+ * up the other scheduled tasks, and a run is skipped while the previous one is still going. Each
+ * shard is purged under a {@link PurgeLock}, so with several instances only one purges a shard at a
+ * time and {@code rows-per-second} stays the rate of the whole deployment.
+ */
+public class UserPurger implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(UserPurger.class);
+
+    private final UserDAO userDAO;
+    private final UserShards shards;
+    private final TransactionOperations transactions;
+    private final DatabaseCircuitBreaker breaker;
+    private final PurgeProperties properties;
+    private final PurgeLock lock;
+    private final Clock clock;
+    private final ExecutorService executor =
+            Executors.newSingleThreadExecutor(Thread.ofVirtual().name("user-purger").factory());
+    private final AtomicBoolean running = new AtomicBoolean();
+
+    public UserPurger(UserDAO userDAO, UserShards shards, TransactionOperations transactions,
+                      DatabaseCircuitBreaker breaker, PurgeProperties properties, DataSource dataSource) {
+        this(userDAO, shards, transactions, breaker, properties, new AdvisoryPurgeLock(dataSource), Clock.systemUTC());
+    }
+
+    UserPurger(UserDAO userDAO, UserShards shards, TransactionOperations transactions,
+               DatabaseCircuitBreaker breaker, PurgeProperties properties, PurgeLock lock, Clock clock) {
+        this.userDAO = userDAO;
+        this.shards = shards;
+        this.transactions = transactions;
+        this.breaker = breaker;
+        this.properties = properties;
+        this.lock = lock;
+        this.clock = clock;
+    }
+
+    @Scheduled(fixedDelayString = "${users.purge.interval:PT5M}", initialDelayString = "${users.purge.interval:PT5M}")
+    public void purge() {
+        if (!running.compareAndSet(false, true)) {
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                run();
+            } finally {
+                running.set(false);
+            }
+        });
+    }
+
+    /**
+     * Purges users deleted more than {@code retention} ago on every shard, and returns how many.
+     */
+    long run() {
+        Instant deletedBefore = clock.instant().minus(properties.retention());
+        long purged = 0;
+        try {
+            for (int shard = 0; shard < shards.count() && isDatabaseUp(); shard++) {
+                purged += purgeShard(shard, deletedBefore);
+            }
+        } catch (DataAccessException e) {
+            log.warn("Stopped purging deleted users after {}", purged, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (purged > 0) {
+            log.info("Purged {} users deleted before {}", purged, deletedBefore);
+        }
+        return purged;
+    }
+
+    private long purgeShard(int shard, Instant deletedBefore) throws InterruptedException {
+        try (PurgeLock.Lease lease = shards.onShard(shard, lock::tryAcquire)) {
+            if (lease == null) {
+                log.debug("Shard {} is being purged by another instance", shard);
+                return 0;
+            }
+            return purgeBatches(shard, deletedBefore);
+        }
+    }
+
+    private long purgeBatches(int shard, Instant deletedBefore) throws InterruptedException {
+        long nanosPerRow = TimeUnit.SECONDS.toNanos(1) / Math.max(1, properties.rowsPerSecond());
+        long afterUserId = Long.MIN_VALUE;
+        long purged = 0;
+        while (isDatabaseUp()) {
+            long start = System.nanoTime();
+            List<Long> userIds = purgeBatch(shard, deletedBefore, afterUserId);
+            purged += userIds.size();
+            if (userIds.size() < properties.batchSize()) {
+                break;
+            }
+            afterUserId = userIds.getLast();
+            long pause = userIds.size() * nanosPerRow - (System.nanoTime() - start);
+            if (pause > 0) {
+                TimeUnit.NANOSECONDS.sleep(pause);
+            }
+        }
+        return purged;
+    }
+
+    private List<Long> purgeBatch(int shard, Instant deletedBefore, long afterUserId) {
+        return shards.onShard(shard, () -> transactions.execute(status -> {
+            List<Long> userIds = userDAO.findDeletedIds(deletedBefore, afterUserId, properties.batchSize());
+            if (!userIds.isEmpty()) {
+                userDAO.purgeDeleted(userIds);
+            }
+            return userIds;
+        }));
+    }
+
+    private boolean isDatabaseUp() {
+        return breaker.state() == DatabaseCircuitBreaker.State.CLOSED;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
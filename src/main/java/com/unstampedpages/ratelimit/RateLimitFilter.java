@@ -0,0 +1,71 @@
+package com.unstampedpages.ratelimit;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies the per-client {@link RateLimiter} to {@code /users} and reports the bucket in
+ * {@code RateLimit-Limit}, {@code RateLimit-Remaining} and {@code RateLimit-Reset} (seconds until
+ * full) on every response. Rejected requests get 429 with {@code Retry-After} as well.
+ * <p>
+ * The client is a configured API key, else the remote address, which is the caller's rather than
+ * the load balancer's once {@code server.forward-headers-strategy} applies the forwarded headers.
+ */
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final String LIMIT_HEADER = "RateLimit-Limit";
+    static final String REMAINING_HEADER = "RateLimit-Remaining";
+    static final String RESET_HEADER = "RateLimit-Reset";
+
+    private final RateLimiter rateLimiter;
+    private final RateLimitProperties properties;
+    private final int[] costs;
+    private final String limit;
+
+    public RateLimitFilter(RateLimiter rateLimiter, RateLimitProperties properties) {
+        this.rateLimiter = rateLimiter;
+        this.properties = properties;
+        this.costs = new int[RateLimitRoute.values().length];
+        for (RateLimitRoute route : RateLimitRoute.values()) {
+            int cost = properties.costOf(route);
+            if (cost < 1 || cost > rateLimiter.capacity()) {
+                throw new IllegalArgumentException("Cost of " + route.key() + " must be between 1 and the capacity");
+            }
+            costs[route.ordinal()] = cost;
+        }
+        this.limit = Integer.toString(rateLimiter.capacity());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RateLimitRoute route = RateLimitRoute.of(request.getMethod(), request.getRequestURI());
+        RateLimiter.Decision decision = rateLimiter.tryTake(clientOf(request), costs[route.ordinal()], System.nanoTime());
+        response.setHeader(LIMIT_HEADER, limit);
+        response.setHeader(REMAINING_HEADER, Long.toString(decision.remaining()));
+        response.setHeader(RESET_HEADER, Long.toString(ceilSeconds(decision.resetNanos())));
+        if (!decision.allowed()) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(ceilSeconds(decision.retryAfterNanos())));
+            response.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), "Rate limit exceeded");
+            return;
+        }
+        chain.doFilter(request, response);
+    }
+
+    private String clientOf(HttpServletRequest request) {
+        String apiKey = request.getHeader(properties.apiKeyHeader());
+        return apiKey != null && properties.apiKeys().contains(apiKey) ? "key:" + apiKey : "ip:" + request.getRemoteAddr();
+    }
+
+    private static long ceilSeconds(long nanos) {
+        return (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1);
+    }
+}
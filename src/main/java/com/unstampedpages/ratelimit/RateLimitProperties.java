@@ -0,0 +1,28 @@
+package com.unstampedpages.ratelimit;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * {@code users.rate-limit.*}: every client (API key, else IP address) gets a bucket of
+ * {@code capacity} tokens refilled at {@code refill-per-second}; each request takes its route's cost.
+ * Only the keys listed in {@code api-keys} get buckets of their own; any other key is limited by
+ * the caller's IP address, so made-up keys neither escape the limit nor add buckets.
+ */
+@ConfigurationProperties("users.rate-limit")
+public record RateLimitProperties(@DefaultValue("true") boolean enabled,
+                                  @DefaultValue("100") int capacity,
+                                  @DefaultValue("50") double refillPerSecond,
+                                  @DefaultValue("X-API-Key") String apiKeyHeader,
+                                  @DefaultValue("PT1M") Duration evictionInterval,
+                                  @DefaultValue Map<String, Integer> costs,
+                                  @DefaultValue Set<String> apiKeys) {
+
+    public int costOf(RateLimitRoute route) {
+        return costs.getOrDefault(route.key(), route.defaultCost());
+    }
+}
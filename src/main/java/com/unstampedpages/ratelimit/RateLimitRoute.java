@@ -0,0 +1,47 @@
+package com.unstampedpages.ratelimit;
+
+/**
+ * Cost classes of {@code /users} requests; the cost is the number of tokens a request takes from
+ * its client's bucket, configurable as {@code users.rate-limit.costs.<key>}.
+ */
+public enum RateLimitRoute {
+    LIST("list", 10),
+    SEARCH("search", 5),
+    SUGGEST("suggest", 1),
+    STATS("stats", 2),
+    BY_ID("by-id", 1),
+    WRITE("write", 2);
+
+    private final String key;
+    private final int defaultCost;
+
+    RateLimitRoute(String key, int defaultCost) {
+        this.key = key;
+        this.defaultCost = defaultCost;
+    }
+
+    public String key() {
+        return key;
+    }
+
+    public int defaultCost() {
+        return defaultCost;
+    }
+
+    /**
+     * Classifies a request by method and its path below {@code /users}.
+     */
+    public static RateLimitRoute of(String method, String path) {
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            return WRITE;
+        }
+        String rest = path.startsWith("/users") ? path.substring("/users".length()) : path;
+        return switch (rest) {
+            case "", "/" -> LIST;
+            case "/search" -> SEARCH;
+            case "/suggest" -> SUGGEST;
+            case "/stats" -> STATS;
+            default -> BY_ID;
+        };
+    }
+}
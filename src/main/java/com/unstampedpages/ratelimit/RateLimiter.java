@@ -0,0 +1,94 @@
+package com.unstampedpages.ratelimit;
+
+import org.springframework.scheduling.annotation.Scheduled;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-client token buckets. Each bucket is stored in its GCRA form, a single "theoretical arrival
+ * time" updated by CAS: a bucket with {@code c} tokens missing has its arrival time
+ * {@code c * nanosPerToken} in the future. That makes a take lock-free and allocation-free, and a
+ * bucket whose arrival time has passed is full, so idle buckets can be dropped without changing
+ * any client's limit. Eviction retires a bucket by CAS-ing its arrival time to {@link #EVICTED}, so
+ * a take racing it either lands first and keeps the bucket, or sees it retired and starts over on
+ * the client's new bucket; no take is applied to a bucket that is no longer in the map.
+ */
+public class RateLimiter {
+
+    /**
+     * Outcome of a take. {@code resetNanos} is the time until the bucket is full, and
+     * {@code retryAfterNanos} the time until a rejected request would be allowed (0 when allowed).
+     */
+    public record Decision(boolean allowed, long remaining, long resetNanos, long retryAfterNanos) {
+    }
+
+    private static final long EVICTED = Long.MIN_VALUE;
+
+    private final int capacity;
+    private final long nanosPerToken;
+    private final long burstNanos;
+    private final ConcurrentHashMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+
+    public RateLimiter(int capacity, double refillPerSecond) {
+        if (capacity < 1 || refillPerSecond <= 0) {
+            throw new IllegalArgumentException("Capacity and refill rate must be positive");
+        }
+        this.capacity = capacity;
+        this.nanosPerToken = Math.max(1, (long) (1_000_000_000L / refillPerSecond));
+        this.burstNanos = capacity * nanosPerToken;
+    }
+
+    public Decision tryTake(String client, int cost, long nowNanos) {
+        AtomicLong bucket = bucketOf(client, nowNanos);
+        long costNanos = cost * nanosPerToken;
+        while (true) {
+            long arrival = bucket.get();
+            if (arrival == EVICTED) {
+                buckets.remove(client, bucket);
+                bucket = bucketOf(client, nowNanos);
+                continue;
+            }
+            long base = Math.max(arrival, nowNanos);
+            long next = base + costNanos;
+            if (next - nowNanos > burstNanos) {
+                return new Decision(false, (burstNanos - (base - nowNanos)) / nanosPerToken, base - nowNanos,
+                        next - nowNanos - burstNanos);
+            }
+            if (bucket.compareAndSet(arrival, next)) {
+                return new Decision(true, (burstNanos - (next - nowNanos)) / nanosPerToken, next - nowNanos, 0);
+            }
+        }
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    public int size() {
+        return buckets.size();
+    }
+
+    @Scheduled(fixedDelayString = "${users.rate-limit.eviction-interval:PT1M}",
+            initialDelayString = "${users.rate-limit.eviction-interval:PT1M}")
+    public void evictIdle() {
+        evictIdle(System.nanoTime());
+    }
+
+    /**
+     * Drops buckets that have refilled completely; a new bucket for the same client starts full too.
+     */
+    void evictIdle(long nowNanos) {
+        for (String client : buckets.keySet()) {
+            buckets.computeIfPresent(client, (key, bucket) -> {
+                long arrival = bucket.get();
+                return arrival == EVICTED || (arrival - nowNanos <= 0 && bucket.compareAndSet(arrival, EVICTED)) ? null : bucket;
+            });
+        }
+    }
+
+    private AtomicLong bucketOf(String client, long nowNanos) {
+        AtomicLong bucket = buckets.get(client);
+        return bucket != null ? bucket : buckets.computeIfAbsent(client, key -> new AtomicLong(nowNanos));
+    }
+}
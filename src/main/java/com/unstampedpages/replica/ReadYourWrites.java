@@ -0,0 +1,24 @@
+package com.unstampedpages.replica;
+
+/**
+ * Marks the current request as needing primary reads because its client wrote recently.
+ */
+public final class ReadYourWrites {
+
+    private static final ThreadLocal<Boolean> PRIMARY_REQUIRED = new ThreadLocal<>();
+
+    private ReadYourWrites() {
+    }
+
+    public static boolean isPrimaryRequired() {
+        return Boolean.TRUE.equals(PRIMARY_REQUIRED.get());
+    }
+
+    static void requirePrimary() {
+        PRIMARY_REQUIRED.set(Boolean.TRUE);
+    }
+
+    static void clear() {
+        PRIMARY_REQUIRED.remove();
+    }
+}
@@ -0,0 +1,93 @@
+package com.unstampedpages.replica;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+/**
+ * Last measured replication lag per replica. A replica is usable while its lag is within
+ * {@code maxLag}; it starts unusable until the first check, and a failed check marks it unusable,
+ * so reads fall back to the primary rather than risk stale or failing replicas. A lag sample older
+ * than {@value #STALE_CHECKS} check intervals no longer counts either, so a replica does not stay
+ * usable on an old measurement while the checks are held up.
+ */
+public class ReplicaLagMonitor {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+    private static final long UNKNOWN = Long.MAX_VALUE;
+    private static final int STALE_CHECKS = 3;
+
+    private final List<DataSource> dataSources;
+    private final List<JdbcTemplate> replicas;
+    private final String lagQuery;
+    private final long maxLagNanos;
+    private final long maxSampleAgeNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicLongArray lagNanos;
+    private final AtomicLongArray sampledAtNanos;
+
+    public ReplicaLagMonitor(List<DataSource> replicas, String lagQuery, Duration maxLag, Duration checkInterval) {
+        this(replicas, lagQuery, maxLag, checkInterval, System::nanoTime);
+    }
+
+    ReplicaLagMonitor(List<DataSource> replicas, String lagQuery, Duration maxLag, Duration checkInterval,
+                      LongSupplier nanoTime) {
+        this.dataSources = List.copyOf(replicas);
+        this.replicas = new ArrayList<>(replicas.size());
+        for (DataSource replica : replicas) {
+            this.replicas.add(new JdbcTemplate(replica));
+        }
+        this.lagQuery = lagQuery;
+        this.maxLagNanos = maxLag.toNanos();
+        this.maxSampleAgeNanos = checkInterval.toNanos() * STALE_CHECKS;
+        this.nanoTime = nanoTime;
+        this.lagNanos = new AtomicLongArray(replicas.size());
+        this.sampledAtNanos = new AtomicLongArray(replicas.size());
+        for (int i = 0; i < replicas.size(); i++) {
+            lagNanos.set(i, UNKNOWN);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${users.replicas.lag-check-interval:PT1S}",
+            initialDelayString = "${users.replicas.lag-check-interval:PT1S}")
+    public void check() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try {
+                Number seconds = replicas.get(i).queryForObject(lagQuery, Number.class);
+                recordLag(i, seconds == null ? Duration.ZERO : Duration.ofNanos((long) (seconds.doubleValue() * 1_000_000_000L)));
+            } catch (RuntimeException e) {
+                log.warn("Replica {} lag check failed, routing its reads to the primary", i, e);
+                lagNanos.set(i, UNKNOWN);
+            }
+        }
+    }
+
+    void recordLag(int replica, Duration lag) {
+        sampledAtNanos.set(replica, nanoTime.getAsLong());
+        lagNanos.set(replica, lag.toNanos());
+    }
+
+    public List<DataSource> dataSources() {
+        return dataSources;
+    }
+
+    public int replicaCount() {
+        return lagNanos.length();
+    }
+
+    public boolean isUsable(int replica) {
+        return lagNanos.get(replica) <= maxLagNanos
+                && nanoTime.getAsLong() - sampledAtNanos.get(replica) <= maxSampleAgeNanos;
+    }
+}
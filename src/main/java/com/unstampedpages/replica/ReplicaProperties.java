@@ -0,0 +1,26 @@
+package com.unstampedpages.replica;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * {@code users.replicas.*}: read replicas of the {@code spring.datasource} primary. The lag query
+ * must return the replica's replay lag in seconds (or null when it is caught up).
+ */
+@ConfigurationProperties("users.replicas")
+public record ReplicaProperties(boolean enabled,
+                                @DefaultValue List<Replica> replicas,
+                                @DefaultValue("PT5S") Duration maxLag,
+                                @DefaultValue("PT1S") Duration lagCheckInterval,
+                                @DefaultValue("PT5S") Duration readYourWritesWindow,
+                                @DefaultValue(DEFAULT_LAG_QUERY) String lagQuery) {
+
+    static final String DEFAULT_LAG_QUERY = "select case when pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() then 0 "
+            + "else extract(epoch from now() - pg_last_xact_replay_timestamp()) end";
+
+    public record Replica(String url, String username, String password) {
+    }
+}
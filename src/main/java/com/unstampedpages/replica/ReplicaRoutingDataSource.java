@@ -0,0 +1,53 @@
+package com.unstampedpages.replica;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource for read-only transactions: round-robin over the replicas the {@link ReplicaLagMonitor}
+ * considers usable, or the primary when none is, or when the request needs {@link ReadYourWrites}.
+ * Installed as the read-only variant of a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}, which picks it for
+ * connections marked read-only before their first statement.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger next = new AtomicInteger();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            targets.put(i, replicas.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (ReadYourWrites.isPrimaryRequired()) {
+            return PRIMARY;
+        }
+        int replicas = lagMonitor.replicaCount();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(replicas, 1));
+        for (int i = 0; i < replicas; i++) {
+            int replica = (start + i) % replicas;
+            if (lagMonitor.isUsable(replica)) {
+                return replica;
+            }
+        }
+        return PRIMARY;
+    }
+}
@@ -0,0 +1,15 @@
+package com.unstampedpages.resilience;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.circuit-breaker.*}: the breaker opens after {@code failure-threshold} consecutive
+ * connection failures and lets a single probe through once {@code open-duration} has passed.
+ */
+@ConfigurationProperties("users.circuit-breaker")
+public record CircuitBreakerProperties(@DefaultValue("5") int failureThreshold,
+                                       @DefaultValue("PT10S") Duration openDuration) {
+}
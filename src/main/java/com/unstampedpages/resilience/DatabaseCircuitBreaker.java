@@ -0,0 +1,188 @@
+package com.unstampedpages.resilience;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLException;
+import java.sql.SQLNonTransientConnectionException;
+import java.sql.SQLRecoverableException;
+import java.sql.SQLTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Circuit breaker for database calls. Consecutive connection failures open it, after which calls
+ * fail immediately with {@link DatabaseUnavailableException} instead of waiting out connection
+ * timeouts. Once the open duration has passed a single call is let through as a probe: its success
+ * closes the breaker, its failure opens it again. Errors the database itself reported (constraint
+ * violations and the like) count as successes, since the database answered; {@link Error}s count
+ * as failures.
+ * <p>
+ * Calls must not be nested: a half-open breaker admits only the outer call.
+ */
+public final class DatabaseCircuitBreaker {
+
+    private static final Logger log = LoggerFactory.getLogger(DatabaseCircuitBreaker.class);
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private record Status(State state, int failures, long openedAtNanos) {
+    }
+
+    private static final Status CLOSED = new Status(State.CLOSED, 0, 0);
+
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoTime;
+    private final AtomicReference<Status> status = new AtomicReference<>(CLOSED);
+    private final LongAdder rejected = new LongAdder();
+
+    public DatabaseCircuitBreaker(int failureThreshold, Duration openDuration) {
+        this(failureThreshold, openDuration, System::nanoTime);
+    }
+
+    DatabaseCircuitBreaker(int failureThreshold, Duration openDuration, LongSupplier nanoTime) {
+        if (failureThreshold < 1) {
+            throw new IllegalArgumentException("Failure threshold must be at least 1");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    public <T> T call(Supplier<T> work) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            throw new DatabaseUnavailableException("Database circuit breaker is open", retryAfter(), null);
+        }
+        T result;
+        try {
+            result = work.get();
+        } catch (RuntimeException e) {
+            if (!isDatabaseFailure(e)) {
+                onSuccess();
+                throw e;
+            }
+            onFailure();
+            throw e instanceof DatabaseUnavailableException unavailable
+                    ? unavailable
+                    : new DatabaseUnavailableException("Database is unavailable", retryAfter(), e);
+        } catch (Throwable e) {
+            // Errors say nothing either way, but a half-open breaker must leave that state
+            onFailure();
+            throw e;
+        }
+        onSuccess();
+        return result;
+    }
+
+    public State state() {
+        return status.get().state();
+    }
+
+    public int consecutiveFailures() {
+        return status.get().failures();
+    }
+
+    public long rejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * How long until the breaker lets a probe through; the full open duration unless it is open.
+     */
+    public Duration retryAfter() {
+        Status current = status.get();
+        if (current.state() != State.OPEN) {
+            return Duration.ofNanos(openNanos);
+        }
+        return Duration.ofNanos(Math.max(0, openNanos - (nanoTime.getAsLong() - current.openedAtNanos())));
+    }
+
+    /**
+     * Whether {@code e} means the database could not be reached, as opposed to an error it reported.
+     */
+    public static boolean isDatabaseFailure(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof DatabaseUnavailableException
+                    || cause instanceof DataAccessResourceFailureException
+                    || cause instanceof CannotCreateTransactionException
+                    || cause instanceof QueryTimeoutException
+                    || cause instanceof SQLTransientConnectionException
+                    || cause instanceof SQLNonTransientConnectionException
+                    || cause instanceof SQLRecoverableException) {
+                return true;
+            }
+            if (cause instanceof SQLException sql && sql.getSQLState() != null && sql.getSQLState().startsWith("08")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            Status current = status.get();
+            switch (current.state()) {
+                case CLOSED -> {
+                    return true;
+                }
+                case HALF_OPEN -> {
+                    return false;
+                }
+                case OPEN -> {
+                    if (nanoTime.getAsLong() - current.openedAtNanos() < openNanos) {
+                        return false;
+                    }
+                    if (status.compareAndSet(current, new Status(State.HALF_OPEN, current.failures(), current.openedAtNanos()))) {
+                        return true;
+                    }
+                }
+            }
+        }
+    }
+
+    private void onSuccess() {
+        while (true) {
+            Status current = status.get();
+            // A call admitted before the breaker opened says nothing about the database now
+            if (current == CLOSED || current.state() == State.OPEN) {
+                return;
+            }
+            if (status.compareAndSet(current, CLOSED)) {
+                if (current.state() == State.HALF_OPEN) {
+                    log.info("Database circuit breaker closed after a successful probe");
+                }
+                return;
+            }
+        }
+    }
+
+    private void onFailure() {
+        long now = nanoTime.getAsLong();
+        while (true) {
+            Status current = status.get();
+            Status next = switch (current.state()) {
+                case CLOSED -> current.failures() + 1 >= failureThreshold
+                        ? new Status(State.OPEN, current.failures() + 1, now)
+                        : new Status(State.CLOSED, current.failures() + 1, 0);
+                case HALF_OPEN -> new Status(State.OPEN, current.failures() + 1, now);
+                case OPEN -> current;
+            };
+            if (next == current || status.compareAndSet(current, next)) {
+                if (next.state() == State.OPEN && current.state() != State.OPEN) {
+                    log.warn("Database circuit breaker opened after {} consecutive failures", next.failures());
+                }
+                return;
+            }
+        }
+    }
+}
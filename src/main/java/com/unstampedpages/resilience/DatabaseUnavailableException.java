@@ -0,0 +1,20 @@
+package com.unstampedpages.resilience;
+
+import java.time.Duration;
+
+/**
+ * The database could not be reached, or the circuit breaker is open and the call was not attempted.
+ */
+public class DatabaseUnavailableException extends RuntimeException {
+
+    private final Duration retryAfter;
+
+    public DatabaseUnavailableException(String message, Duration retryAfter, Throwable cause) {
+        super(message, cause);
+        this.retryAfter = retryAfter;
+    }
+
+    public Duration retryAfter() {
+        return retryAfter;
+    }
+}
@@ -0,0 +1,201 @@
+package com.unstampedpages.search;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.service.UserService;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * In-process autocomplete over first name, last name and email. Every user contributes one
+ * normalized term per field to a sorted concurrent map, so a lookup is a range scan starting at
+ * the typed prefix and never touches the database. Terms map to user ids, and each user is held
+ * once, in a map by id. Kept current from this instance's {@link UserChangedEvent}s, and rebuilt
+ * from a streaming query once the application is ready and every {@code users.suggest.rebuild-interval},
+ * which brings in the changes made through other instances.
+ * <p>
+ * Changes to one user are applied one at a time, under that user's entry in the id map, so an
+ * update racing another cannot leave the terms of both behind. A rebuild fills a fresh index and
+ * swaps it in; users changed while it ran are copied over from the live index first, since the
+ * rows streamed for them may predate the change.
+ */
+@Component
+public class UserSuggestIndex {
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+    private static final char TERM_SEPARATOR = '\u0000';
+
+    private static final class Index {
+        private final ConcurrentSkipListMap<String, Long> terms = new ConcurrentSkipListMap<>();
+        private final ConcurrentHashMap<Long, UserDTO> users = new ConcurrentHashMap<>();
+
+        private void put(Long userId, UserDTO user) {
+            users.compute(userId, (id, previous) -> replace(previous, user));
+        }
+
+        /**
+         * Swaps the terms of {@code previous} for those of {@code current}; called under the
+         * user's entry in {@link #users}.
+         */
+        private UserDTO replace(UserDTO previous, UserDTO current) {
+            if (previous != null) {
+                for (String term : termsOf(previous)) {
+                    terms.remove(term);
+                }
+            }
+            if (current != null) {
+                for (String term : termsOf(current)) {
+                    terms.put(term, current.userId());
+                }
+            }
+            return current;
+        }
+    }
+
+    private final AtomicReference<Index> index = new AtomicReference<>(new Index());
+    /**
+     * Ids of users changed since the running rebuild started, or null when no rebuild is running.
+     */
+    private volatile Set<Long> changedDuringRebuild;
+    /**
+     * Shared by changes, exclusive for the swap, so no change is applied halfway across it.
+     */
+    private final ReadWriteLock swap = new ReentrantReadWriteLock();
+    private final UserService userService;
+
+    public UserSuggestIndex(UserService userService) {
+        this.userService = userService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${users.suggest.rebuild-interval:PT5M}",
+            initialDelayString = "${users.suggest.rebuild-interval:PT5M}")
+    public synchronized void rebuild() {
+        Set<Long> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+        try {
+            Index rebuilt = new Index();
+            userService.streamAllUsers(user -> rebuilt.put(user.userId(), user));
+            swap.writeLock().lock();
+            try {
+                Index live = index.get();
+                for (Long userId : changed) {
+                    rebuilt.put(userId, live.users.get(userId));
+                }
+                index.set(rebuilt);
+            } finally {
+                swap.writeLock().unlock();
+            }
+        } finally {
+            changedDuringRebuild = null;
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        if (event.current() == null) {
+            remove(event.userId());
+        } else {
+            index(event.current());
+        }
+    }
+
+    public void index(UserDTO user) {
+        apply(user.userId(), user);
+    }
+
+    public void remove(Long userId) {
+        apply(userId, null);
+    }
+
+    /**
+     * Returns up to {@code limit} distinct users with a first name, last name or email starting
+     * with {@code query}, ignoring case and accents, in term order.
+     */
+    public List<UserDTO> suggest(String query, int limit) {
+        String prefix = normalize(query);
+        if (prefix.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        Index current = index.get();
+        ConcurrentNavigableMap<String, Long> matches = current.terms.subMap(prefix, true, prefix + Character.MAX_VALUE, false);
+        Map<Long, UserDTO> distinct = new LinkedHashMap<>();
+        for (Long userId : matches.values()) {
+            UserDTO user = current.users.get(userId);
+            if (user != null) {
+                distinct.putIfAbsent(userId, user);
+                if (distinct.size() == limit) {
+                    break;
+                }
+            }
+        }
+        return new ArrayList<>(distinct.values());
+    }
+
+    public int size() {
+        return index.get().users.size();
+    }
+
+    int termCount() {
+        return index.get().terms.size();
+    }
+
+    public void clear() {
+        swap.writeLock().lock();
+        try {
+            index.set(new Index());
+        } finally {
+            swap.writeLock().unlock();
+        }
+    }
+
+    private void apply(Long userId, UserDTO user) {
+        swap.readLock().lock();
+        try {
+            Set<Long> changed = changedDuringRebuild;
+            if (changed != null) {
+                changed.add(userId);
+            }
+            index.get().put(userId, user);
+        } finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    private static List<String> termsOf(UserDTO user) {
+        List<String> userTerms = new ArrayList<>(3);
+        for (String value : new String[] {user.firstName(), user.lastName(), user.email()}) {
+            String normalized = normalize(value);
+            if (!normalized.isEmpty()) {
+                userTerms.add(normalized + TERM_SEPARATOR + user.userId());
+            }
+        }
+        return userTerms;
+    }
+
+    static String normalize(String value) {
+        if (value == null) {
+            return "";
+        }
+        String decomposed = Normalizer.normalize(value.strip(), Normalizer.Form.NFD);
+        return COMBINING_MARKS.matcher(decomposed).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+}
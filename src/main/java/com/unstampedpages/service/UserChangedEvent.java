@@ -0,0 +1,11 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dto.UserDTO;
+
+/**
+ * Published by {@link UserService} after a user is created, updated or deleted, once the change is
+ * committed.
+ * {@code previous} is null for creates and {@code current} is null for deletes.
+ */
+public record UserChangedEvent(Long userId, UserDTO previous, UserDTO current) {
+}
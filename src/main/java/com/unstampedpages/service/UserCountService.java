@@ -0,0 +1,102 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dao.UserSpecifications;
+import com.unstampedpages.dto.CountMode;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.shard.UserShards;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Totals for paginated listings. {@link CountMode#ESTIMATED} answers from PostgreSQL planner
+ * statistics and caches the answer for {@code users.count.estimate-ttl}, falling back to an exact
+ * count when no estimate is available (other databases, never-analyzed tables). Sharded counts
+ * are the sum over all shards.
+ */
+@Service
+public class UserCountService {
+
+    static final int MAX_CACHED_ESTIMATES = 1024;
+
+    private static final UserSearchCriteria ALL_USERS = new UserSearchCriteria(null, null, null, null);
+
+    private record CachedCount(long count, long expiresAtNanos) {
+    }
+
+    private final UserDAO userDAO;
+    private final UserShards shards;
+    private final long estimateTtlNanos;
+    private final ConcurrentHashMap<UserSearchCriteria, CachedCount> estimates = new ConcurrentHashMap<>();
+
+    public UserCountService(UserDAO userDAO, UserShards shards,
+                            @Value("${users.count.estimate-ttl:PT5S}") Duration estimateTtl) {
+        this.userDAO = userDAO;
+        this.shards = shards;
+        this.estimateTtlNanos = estimateTtl.toNanos();
+    }
+
+    @Transactional(readOnly = true)
+    public long countUsers(CountMode mode) {
+        if (mode == CountMode.EXACT) {
+            return sum(shard -> userDAO.count());
+        }
+        return estimate(ALL_USERS, () -> sumEstimates(shard -> userDAO.estimateTotalCount()), () -> sum(shard -> userDAO.count()));
+    }
+
+    @Transactional(readOnly = true)
+    public long countUsers(UserSearchCriteria criteria, CountMode mode) {
+        if (mode == CountMode.EXACT) {
+            return sum(shard -> userDAO.count(UserSpecifications.matching(criteria)));
+        }
+        String prefix = criteria.lastNamePrefix() == null || criteria.lastNamePrefix().isEmpty() ? null : criteria.lastNamePrefix();
+        UserSearchCriteria filters = new UserSearchCriteria(prefix, criteria.minAge(), criteria.maxAge(), null);
+        if (filters.equals(ALL_USERS)) {
+            return countUsers(mode);
+        }
+        return estimate(filters, () -> sumEstimates(shard -> userDAO.estimateCount(filters)),
+                () -> sum(shard -> userDAO.count(UserSpecifications.matching(filters))));
+    }
+
+    private long sum(IntFunction<Long> count) {
+        return shards.onEveryShard(count).stream().mapToLong(Long::longValue).sum();
+    }
+
+    /**
+     * Empty unless every shard has an estimate.
+     */
+    private OptionalLong sumEstimates(IntFunction<OptionalLong> estimator) {
+        List<OptionalLong> estimates = shards.onEveryShard(estimator);
+        long total = 0;
+        for (OptionalLong estimate : estimates) {
+            if (estimate.isEmpty()) {
+                return OptionalLong.empty();
+            }
+            total += estimate.getAsLong();
+        }
+        return OptionalLong.of(total);
+    }
+
+    private long estimate(UserSearchCriteria key, Supplier<OptionalLong> estimator, LongSupplier exact) {
+        long now = System.nanoTime();
+        CachedCount cached = estimates.get(key);
+        if (cached != null && now - cached.expiresAtNanos() < 0) {
+            return cached.count();
+        }
+        long count = estimator.get().orElseGet(exact);
+        if (estimates.size() >= MAX_CACHED_ESTIMATES) {
+            estimates.clear();
+        }
+        estimates.put(key, new CachedCount(count, now + estimateTtlNanos));
+        return count;
+    }
+}
@@ -0,0 +1,32 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dto.UserDTO;
+
+import java.time.Duration;
+
+/**
+ * A user as returned by {@link UserService#readUser}. {@code age} is null when the user was read
+ * from the database, and otherwise how old the cached copy served in its place is; {@code stale}
+ * marks a copy served only because the database is unreachable.
+ */
+public record UserRead(UserDTO user, Duration age, boolean stale) {
+
+    public static UserRead fresh(UserDTO user) {
+        return new UserRead(user, null, false);
+    }
+
+    /**
+     * A cached copy served by choice, such as a pinned hot user, young enough to pass for fresh.
+     */
+    public static UserRead cached(UserDTO user, Duration age) {
+        return new UserRead(user, age, false);
+    }
+
+    public static UserRead stale(UserDTO user, Duration age) {
+        return new UserRead(user, age, true);
+    }
+
+    public boolean isStale() {
+        return stale;
+    }
+}
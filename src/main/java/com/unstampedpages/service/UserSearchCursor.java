@@ -0,0 +1,71 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchSort;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Opaque, URL-safe encoding of the keyset of the last row of a search page. The cursor carries
+ * the sort it was issued for, since a keyset is only meaningful for that ordering.
+ */
+final class UserSearchCursor {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private UserSearchCursor() {
+    }
+
+    static String encode(UserSearchSort sort, KeysetScrollPosition position) {
+        StringJoiner cursor = new StringJoiner(".");
+        cursor.add(sort.name());
+        for (String property : sort.properties()) {
+            Object value = position.getKeys().get(property);
+            cursor.add(ENCODER.encodeToString(String.valueOf(value).getBytes(StandardCharsets.UTF_8)));
+        }
+        return cursor.toString();
+    }
+
+    static String encode(UserSearchSort sort, UserDTO last) {
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (String property : sort.properties()) {
+            keys.put(property, switch (property) {
+                case "userId" -> last.userId();
+                case "firstName" -> last.firstName();
+                case "lastName" -> last.lastName();
+                case "age" -> last.age();
+                default -> throw new IllegalArgumentException("Unknown sort property '" + property + "'");
+            });
+        }
+        return encode(sort, ScrollPosition.forward(keys));
+    }
+
+    static ScrollPosition decode(String cursor, UserSearchSort sort) {
+        String[] parts = cursor.split("\\.", -1);
+        if (parts.length != sort.properties().size() + 1 || !sort.name().equals(parts[0])) {
+            throw new IllegalArgumentException("Cursor does not belong to sort '" + sort.name().toLowerCase() + "'");
+        }
+        Map<String, Object> keys = new LinkedHashMap<>();
+        for (int i = 0; i < sort.properties().size(); i++) {
+            String property = sort.properties().get(i);
+            String value = new String(DECODER.decode(parts[i + 1]), StandardCharsets.UTF_8);
+            keys.put(property, typed(property, value));
+        }
+        return ScrollPosition.forward(keys);
+    }
+
+    private static Object typed(String property, String value) {
+        return switch (property) {
+            case "userId" -> Long.valueOf(value);
+            case "age" -> Integer.valueOf(value);
+            default -> value;
+        };
+    }
+}
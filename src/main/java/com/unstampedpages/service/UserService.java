@@ -1,53 +1,310 @@
 package com.unstampedpages.service;
 
+import com.unstampedpages.cache.HotKeyTracker;
+import com.unstampedpages.cache.UserCache;
 import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dao.UserSpecifications;
+import com.unstampedpages.directory.UserDirectory;
 import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.metrics.RequestPhase;
+import com.unstampedpages.metrics.RequestTimings;
 import com.unstampedpages.model.User;
+import com.unstampedpages.replica.ReadYourWrites;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.shard.UserShards;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.util.Collection;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Database calls go through a {@link DatabaseCircuitBreaker}, outside of any transaction so that an
+ * open breaker fails them before a connection is requested. Reads by id fall back to the
+ * {@link UserCache} while the database is unreachable; everything else fails fast with
+ * {@link DatabaseUnavailableException}. With {@code users.directory.enabled}, reads by id and by
+ * email are answered from the {@link UserDirectory} when it has the user. Reads by id are counted
+ * by the {@link HotKeyTracker}, and hot users pinned in the cache are served from it.
+ * <p>
+ * {@link UserChangedEvent}s are published once the write has committed, so the caches and indexes
+ * listening to them never apply a change that is rolled back.
+ */
 @Service
 public class UserService {
+    private static final Comparator<UserDTO> BY_ID = Comparator.comparing(UserDTO::userId);
+
     private final UserDAO userDAO;
+    private final ApplicationEventPublisher eventPublisher;
+    private final UserShards shards;
+    private final DatabaseCircuitBreaker breaker;
+    private final UserCache userCache;
+    private final TransactionOperations transactions;
+    private final UserDirectory directory;
+    private final HotKeyTracker hotKeys;
 
-    public UserService(UserDAO userDAO) {
+    public UserService(UserDAO userDAO, ApplicationEventPublisher eventPublisher, UserShards shards,
+                       DatabaseCircuitBreaker breaker, UserCache userCache, TransactionOperations transactions,
+                       Optional<UserDirectory> directory, Optional<HotKeyTracker> hotKeys) {
         this.userDAO = userDAO;
+        this.eventPublisher = eventPublisher;
+        this.shards = shards;
+        this.breaker = breaker;
+        this.userCache = userCache;
+        this.transactions = transactions;
+        this.directory = directory.orElse(null);
+        this.hotKeys = hotKeys.orElse(null);
     }
 
     public UserDTO createUser(String firstName, String lastName, int age, String email) {
-        User user = new User(null, firstName, lastName, age, email);
-        return toDTO(userDAO.save(user));
+        UserDTO created = breaker.call(() -> {
+            Long id = shards.newUserId();
+            claimEmail(email, id);
+            try {
+                User user = new User(id, firstName, lastName, age, email);
+                return toDTO(shards.onShardOf(id, () -> userDAO.save(user)));
+            } catch (RuntimeException e) {
+                shards.releaseEmail(email);
+                throw e;
+            }
+        });
+        eventPublisher.publishEvent(new UserChangedEvent(created.userId(), null, created));
+        return created;
     }
 
     public Optional<UserDTO> getUser(Long id) {
-        return userDAO.findById(id).map(this::toDTO);
+        return readUser(id).map(UserRead::user);
+    }
+
+    /**
+     * Reads a user from the database, or, while it is unreachable, the cached copy marked stale.
+     * Without a cached copy the {@link DatabaseUnavailableException} propagates. A pinned hot user
+     * is served from the cache with its age, except to a client that wrote recently, which could
+     * otherwise read back the copy from before its own write.
+     */
+    public Optional<UserRead> readUser(Long id) {
+        if (hotKeys != null) {
+            hotKeys.record(id);
+            if (!ReadYourWrites.isPrimaryRequired()) {
+                Optional<UserRead> pinned = userCache.lookupPinned(id);
+                if (pinned.isPresent()) {
+                    return pinned;
+                }
+            }
+        }
+        UserDTO indexed = directory == null ? null : directory.find(id);
+        if (indexed != null) {
+            return Optional.of(UserRead.fresh(indexed));
+        }
+        Optional<UserDTO> user;
+        try {
+            user = breaker.call(() -> shards.onShardOf(id, () -> userDAO.findById(id).map(UserService::toDTO)));
+        } catch (DatabaseUnavailableException e) {
+            return Optional.of(userCache.lookup(id).orElseThrow(() -> e));
+        }
+        user.ifPresentOrElse(userCache::put, () -> userCache.evict(id));
+        return user.map(UserRead::fresh);
     }
 
+    /**
+     * Re-reads a user into the cache, without counting it as a read.
+     */
+    public void refreshCachedUser(Long id) {
+        breaker.call(() -> shards.onShardOf(id, () -> userDAO.findById(id).map(UserService::toDTO)))
+                .ifPresentOrElse(userCache::put, () -> userCache.evict(id));
+    }
+
+    public Optional<UserDTO> getUserByEmail(String email) {
+        UserDTO indexed = directory == null ? null : directory.findByEmail(email);
+        if (indexed != null) {
+            return Optional.of(indexed);
+        }
+        if (shards.isSharded()) {
+            // a route left behind by an unfinished write may point at a user without this email
+            return breaker.call(() -> shards.userIdForEmail(email)).flatMap(this::getUser)
+                    .filter(user -> email.equals(user.email()));
+        }
+        return breaker.call(() -> userDAO.findByEmail(email).map(UserService::toDTO));
+    }
+
+    /**
+     * All users ordered by id; when sharded, the shards are read in parallel and merged.
+     */
     public List<UserDTO> getAllUsers() {
-        return userDAO.findAll().stream().map(this::toDTO).toList();
+        List<List<User>> users = breaker.call(() -> shards.onEveryShard(shard -> userDAO.findAll()));
+        return RequestTimings.time(RequestPhase.MAPPING, () -> users.stream()
+                .flatMap(List::stream)
+                .map(UserService::toDTO)
+                .sorted(BY_ID)
+                .toList());
+    }
+
+    public Optional<Map<String, Object>> getUserFields(Long id, List<UserField> fields) {
+        return breaker.call(() -> shards.onShardOf(id, () -> userDAO.findFieldsById(id, fields)));
     }
 
+    /**
+     * Ordered by id within each shard; shards are concatenated, since {@code userId} may not be selected.
+     */
+    public List<Map<String, Object>> getAllUserFields(List<UserField> fields) {
+        return breaker.call(() -> shards.onEveryShard(shard -> userDAO.findAllFields(fields))).stream()
+                .flatMap(List::stream)
+                .toList();
+    }
+
+    /**
+     * Returns one keyset-paginated page of users matching {@code criteria}. Pass the previous
+     * page's {@code nextCursor} to continue; an invalid cursor raises {@link IllegalArgumentException}.
+     * When sharded, every shard returns its next {@code limit} rows after the cursor and the pages
+     * are merged, which yields the same global order as long as the shards collate like Java strings
+     * (the "C" collation).
+     */
+    public UserSearchResult searchUsers(UserSearchCriteria criteria, String cursor, int limit) {
+        ScrollPosition position = cursor == null ? ScrollPosition.keyset() : UserSearchCursor.decode(cursor, criteria.sort());
+        Sort sort = Sort.by(criteria.sort().properties().toArray(String[]::new));
+        List<Window<User>> windows = breaker.call(() -> shards.onEveryShard(shard -> userDAO.findBy(
+                UserSpecifications.matching(criteria), query -> query.sortBy(sort).limit(limit).scroll(position))));
+        if (windows.size() > 1) {
+            return RequestTimings.time(RequestPhase.MAPPING, () -> mergeSearchPages(criteria.sort(), windows, limit));
+        }
+        Window<User> window = windows.get(0);
+        List<UserDTO> users = RequestTimings.time(RequestPhase.MAPPING,
+                () -> window.getContent().stream().map(UserService::toDTO).toList());
+        String nextCursor = window.hasNext() && !window.isEmpty()
+                ? UserSearchCursor.encode(criteria.sort(), (KeysetScrollPosition) window.positionAt(window.size() - 1))
+                : null;
+        return new UserSearchResult(users, nextCursor);
+    }
+
+    public List<UserDTO> getUsers(Collection<Long> ids) {
+        Map<Integer, List<Long>> idsByShard = ids.stream().collect(Collectors.groupingBy(shards::shardOf));
+        List<List<User>> users = breaker.call(() -> shards.onEveryShard(shard -> {
+            List<Long> shardIds = idsByShard.get(shard);
+            return shardIds == null ? List.<User>of() : userDAO.findAllById(shardIds);
+        }));
+        return RequestTimings.time(RequestPhase.MAPPING,
+                () -> users.stream().flatMap(List::stream).map(UserService::toDTO).toList());
+    }
+
+    @Transactional(readOnly = true)
+    public void streamAllUsers(Consumer<UserDTO> consumer) {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            shards.onShard(shard, () -> {
+                try (Stream<UserDTO> users = userDAO.streamAll()) {
+                    users.forEach(consumer);
+                }
+                return null;
+            });
+        }
+    }
+
+    /**
+     * A new email is claimed before the user is written and handed back if the write or its commit
+     * fails; the old one is only released once the change has committed.
+     */
     public Optional<UserDTO> updateUser(Long id, String firstName, String lastName, int age, String email) {
-        return userDAO.findById(id).map(user -> {
-            user.setFirstName(firstName);
-            user.setLastName(lastName);
-            user.setAge(age);
-            user.setEmail(email);
-            return toDTO(userDAO.save(user));
+        Optional<UserChangedEvent> changed = breaker.call(() -> {
+            AtomicBoolean claimed = new AtomicBoolean();
+            Optional<UserChangedEvent> event;
+            try {
+                event = transactions.execute(status -> shards.onShardOf(id, () -> userDAO.findById(id).map(user -> {
+                    UserDTO previous = toDTO(user);
+                    if (!Objects.equals(previous.email(), email)) {
+                        claimEmail(email, id);
+                        claimed.set(true);
+                    }
+                    user.setFirstName(firstName);
+                    user.setLastName(lastName);
+                    user.setAge(age);
+                    user.setEmail(email);
+                    return new UserChangedEvent(id, previous, toDTO(userDAO.save(user)));
+                })));
+            } catch (RuntimeException e) {
+                if (claimed.get()) {
+                    shards.releaseEmail(email);
+                }
+                throw e;
+            }
+            if (claimed.get()) {
+                event.ifPresent(committed -> shards.releaseEmail(committed.previous().email()));
+            }
+            return event;
         });
+        changed.ifPresent(eventPublisher::publishEvent);
+        return changed.map(UserChangedEvent::current);
     }
 
+    /**
+     * Soft-deletes the user: the row stays, hidden from every query, until {@code UserPurger} removes it.
+     */
     public boolean deleteUser(Long id) {
-        if (userDAO.existsById(id)) {
-            userDAO.deleteById(id);
-            return true;
+        Optional<UserChangedEvent> deleted = breaker.call(() -> {
+            Optional<UserChangedEvent> event = transactions.execute(status -> shards.onShardOf(id, () -> userDAO.findById(id).map(user -> {
+                UserDTO previous = toDTO(user);
+                userDAO.delete(user);
+                return new UserChangedEvent(id, previous, null);
+            })));
+            event.ifPresent(committed -> shards.releaseEmail(committed.previous().email()));
+            return event;
+        });
+        deleted.ifPresent(eventPublisher::publishEvent);
+        return deleted.isPresent();
+    }
+
+    /**
+     * Claims {@code email} in the routing table, taking over a route whose user no longer has that
+     * email: the leftover of a write that did not commit, or of a release that was lost.
+     */
+    private void claimEmail(String email, Long id) {
+        try {
+            shards.claimEmail(email, id);
+        } catch (DataIntegrityViolationException e) {
+            Long holder = shards.userIdForEmail(email).orElse(null);
+            if (holder == null) {
+                shards.claimEmail(email, id);
+                return;
+            }
+            boolean held = shards.onShardOf(holder, () -> userDAO.findById(holder))
+                    .filter(user -> email.equals(user.getEmail()))
+                    .isPresent();
+            if (held || !shards.reclaimEmail(email, holder, id)) {
+                throw e;
+            }
         }
-        return false;
     }
 
-    private UserDTO toDTO(User user) {
+    private UserSearchResult mergeSearchPages(UserSearchSort sort, List<Window<User>> windows, int limit) {
+        List<UserDTO> merged = windows.stream()
+                .flatMap(window -> window.getContent().stream())
+                .map(UserService::toDTO)
+                .sorted(sort.comparator())
+                .toList();
+        boolean hasNext = merged.size() > limit || windows.stream().anyMatch(Window::hasNext);
+        List<UserDTO> users = merged.subList(0, Math.min(limit, merged.size()));
+        String nextCursor = hasNext && !users.isEmpty() ? UserSearchCursor.encode(sort, users.getLast()) : null;
+        return new UserSearchResult(users, nextCursor);
+    }
+
+    static UserDTO toDTO(User user) {
         return new UserDTO(user.getUserId(), user.getFirstName(), user.getLastName(), user.getAge(), user.getEmail());
     }
 }
@@ -0,0 +1,50 @@
+package com.unstampedpages.shard;
+
+import java.util.Arrays;
+
+/**
+ * Consistent hash of user ids onto shards. Each shard owns {@code virtualNodes} points on a 64-bit
+ * ring and a key belongs to the first point at or after its hash, so adding a shard only moves
+ * about 1/(n+1) of the keys. Points are kept in sorted arrays and looked up by binary search.
+ */
+final class ConsistentHashRing {
+
+    private final long[] points;
+    private final int[] owners;
+
+    ConsistentHashRing(int shards, int virtualNodes) {
+        if (shards < 1 || virtualNodes < 1) {
+            throw new IllegalArgumentException("Need at least one shard and one virtual node");
+        }
+        long[][] ring = new long[shards * virtualNodes][];
+        for (int shard = 0; shard < shards; shard++) {
+            for (int node = 0; node < virtualNodes; node++) {
+                ring[shard * virtualNodes + node] = new long[]{mix(((long) shard << 32) | node), shard};
+            }
+        }
+        Arrays.sort(ring, (a, b) -> Long.compare(a[0], b[0]));
+        points = new long[ring.length];
+        owners = new int[ring.length];
+        for (int i = 0; i < ring.length; i++) {
+            points[i] = ring[i][0];
+            owners[i] = (int) ring[i][1];
+        }
+    }
+
+    int shardFor(long key) {
+        int index = Arrays.binarySearch(points, mix(key));
+        if (index < 0) {
+            index = -index - 1;
+        }
+        return owners[index == points.length ? 0 : index];
+    }
+
+    /**
+     * SplitMix64 finalizer: a bijective mix, so distinct ring points never collide.
+     */
+    static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,134 @@
+package com.unstampedpages.shard;
+
+import com.unstampedpages.dao.UserEmailRouteDAO;
+import com.unstampedpages.id.SnowflakeIdGenerator;
+import com.unstampedpages.model.UserEmailRoute;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Users spread over several databases by a {@link ConsistentHashRing} of the user id. Work for a
+ * shard runs in its own transaction with the shard selected in {@link ShardContext}; an enclosing
+ * transaction is suspended, since its connection may belong to another shard. Scatter-gather runs
+ * one virtual thread per shard.
+ */
+public class HashUserShards implements UserShards, AutoCloseable {
+
+    static final int DIRECTORY_SHARD = 0;
+
+    /** How long a route is left to the write that claimed it before it may be reclaimed. */
+    static final Duration RECLAIM_AFTER = Duration.ofMinutes(5);
+
+    private final int count;
+    private final ConsistentHashRing ring;
+    private final SnowflakeIdGenerator idGenerator;
+    private final TransactionTemplate transactions;
+    private final UserEmailRouteDAO emailRouteDAO;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    public HashUserShards(int count, int virtualNodes, SnowflakeIdGenerator idGenerator,
+                          PlatformTransactionManager transactionManager, UserEmailRouteDAO emailRouteDAO) {
+        this.count = count;
+        this.ring = new ConsistentHashRing(count, virtualNodes);
+        this.idGenerator = idGenerator;
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.emailRouteDAO = emailRouteDAO;
+    }
+
+    @Override
+    public boolean isSharded() {
+        return true;
+    }
+
+    @Override
+    public int count() {
+        return count;
+    }
+
+    @Override
+    public Long newUserId() {
+        return idGenerator.nextId();
+    }
+
+    @Override
+    public int shardOf(Long userId) {
+        return ring.shardFor(userId);
+    }
+
+    @Override
+    public <T> T onShard(int shard, Supplier<T> work) {
+        return ShardContext.callOn(shard, () -> transactions.execute(status -> work.get()));
+    }
+
+    @Override
+    public <T> List<T> onEveryShard(IntFunction<T> work) {
+        List<Future<T>> futures = new ArrayList<>(count);
+        for (int shard = 0; shard < count; shard++) {
+            int target = shard;
+            futures.add(executor.submit(() -> onShard(target, () -> work.apply(target))));
+        }
+        List<T> results = new ArrayList<>(count);
+        try {
+            for (Future<T> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Interrupted while querying shards", e);
+        } catch (ExecutionException e) {
+            futures.forEach(future -> future.cancel(true));
+            if (e.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException("Shard query failed", e.getCause());
+        }
+        return results;
+    }
+
+    @Override
+    public void claimEmail(String email, Long userId) {
+        onShard(DIRECTORY_SHARD, () -> emailRouteDAO.insert(email, userId));
+    }
+
+    @Override
+    public void releaseEmail(String email) {
+        onShard(DIRECTORY_SHARD, () -> {
+            emailRouteDAO.deleteById(email);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean reclaimEmail(String email, Long previousUserId, Long userId) {
+        Instant claimedBefore = Instant.now().minus(RECLAIM_AFTER);
+        return onShard(DIRECTORY_SHARD, () -> emailRouteDAO.reassign(email, previousUserId, userId, claimedBefore) == 1);
+    }
+
+    @Override
+    public Optional<Long> userIdForEmail(String email) {
+        return onShard(DIRECTORY_SHARD, () -> emailRouteDAO.findById(email).map(UserEmailRoute::getUserId));
+    }
+
+    @Override
+    public void close() {
+        executor.close();
+    }
+}
@@ -0,0 +1,32 @@
+package com.unstampedpages.shard;
+
+import java.util.function.Supplier;
+
+/**
+ * Shard selected for JDBC connections opened by the current thread; read by {@link ShardRoutingDataSource}.
+ */
+final class ShardContext {
+
+    private static final ThreadLocal<Integer> CURRENT = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    static Integer current() {
+        return CURRENT.get();
+    }
+
+    static <T> T callOn(int shard, Supplier<T> work) {
+        Integer previous = CURRENT.get();
+        CURRENT.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                CURRENT.remove();
+            } else {
+                CURRENT.set(previous);
+            }
+        }
+    }
+}
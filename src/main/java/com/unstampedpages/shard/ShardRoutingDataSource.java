@@ -0,0 +1,43 @@
+package com.unstampedpages.shard;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import javax.sql.DataSource;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hands out connections to the shard in {@link ShardContext}, or to shard 0 when none is selected
+ * (schema validation, Flyway, the email routing table). Wrapped in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so a transaction only
+ * picks its shard at the first statement.
+ */
+public class ShardRoutingDataSource extends AbstractRoutingDataSource {
+
+    private final List<DataSource> shards;
+
+    public ShardRoutingDataSource(List<DataSource> shards) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("At least one shard must be configured");
+        }
+        this.shards = List.copyOf(shards);
+        Map<Object, Object> targets = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            targets.put(i, shards.get(i));
+        }
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(shards.get(0));
+        setLenientFallback(false);
+        afterPropertiesSet();
+    }
+
+    public List<DataSource> shards() {
+        return shards;
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return ShardContext.current();
+    }
+}
@@ -0,0 +1,19 @@
+package com.unstampedpages.shard;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.util.List;
+
+/**
+ * {@code users.sharding.*}: the shard databases, in ring order. Shard 0 also holds the email
+ * routing table. Changing the list re-hashes users, so existing rows must be moved.
+ */
+@ConfigurationProperties("users.sharding")
+public record ShardingProperties(boolean enabled,
+                                 @DefaultValue("128") int virtualNodes,
+                                 @DefaultValue List<Shard> shards) {
+
+    public record Shard(String url, String username, String password) {
+    }
+}
@@ -0,0 +1,115 @@
+package com.unstampedpages.shard;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * Where user rows live. {@link com.unstampedpages.service.UserService} runs single-key work on the shard owning the id and
+ * list/search work on every shard. The {@link #unsharded()} instance runs everything inline
+ * against the one database; {@link HashUserShards} is used when {@code users.sharding.enabled}.
+ */
+public interface UserShards {
+
+    boolean isSharded();
+
+    int count();
+
+    /**
+     * Id for a new user, or {@code null} to let Hibernate assign one. Sharded deployments need the
+     * id up front to pick the shard.
+     */
+    Long newUserId();
+
+    int shardOf(Long userId);
+
+    <T> T onShard(int shard, Supplier<T> work);
+
+    default <T> T onShardOf(Long userId, Supplier<T> work) {
+        return onShard(shardOf(userId), work);
+    }
+
+    /**
+     * Runs {@code work} on every shard, in parallel when sharded, and returns the results in shard order.
+     */
+    <T> List<T> onEveryShard(IntFunction<T> work);
+
+    /**
+     * Reserves {@code email} for {@code userId} in the email routing table, failing with a
+     * {@link org.springframework.dao.DataIntegrityViolationException} if another user holds it.
+     */
+    void claimEmail(String email, Long userId);
+
+    void releaseEmail(String email);
+
+    /**
+     * Takes the route of {@code email} over from {@code previousUserId}, which the caller found no
+     * longer holds that email: a route left behind by a write that did not commit, or whose release
+     * was lost. Routes claimed too recently are left alone, since their write may still be in
+     * flight. Returns whether the route now points at {@code userId}.
+     */
+    boolean reclaimEmail(String email, Long previousUserId, Long userId);
+
+    Optional<Long> userIdForEmail(String email);
+
+    static UserShards unsharded() {
+        return Unsharded.INSTANCE;
+    }
+
+    final class Unsharded implements UserShards {
+
+        private static final Unsharded INSTANCE = new Unsharded();
+
+        private Unsharded() {
+        }
+
+        @Override
+        public boolean isSharded() {
+            return false;
+        }
+
+        @Override
+        public int count() {
+            return 1;
+        }
+
+        @Override
+        public Long newUserId() {
+            return null;
+        }
+
+        @Override
+        public int shardOf(Long userId) {
+            return 0;
+        }
+
+        @Override
+        public <T> T onShard(int shard, Supplier<T> work) {
+            return work.get();
+        }
+
+        @Override
+        public <T> List<T> onEveryShard(IntFunction<T> work) {
+            return List.of(work.apply(0));
+        }
+
+        @Override
+        public void claimEmail(String email, Long userId) {
+        }
+
+        @Override
+        public void releaseEmail(String email) {
+        }
+
+        @Override
+        public boolean reclaimEmail(String email, Long previousUserId, Long userId) {
+            return false;
+        }
+
+        @Override
+        public Optional<Long> userIdForEmail(String email) {
+            return Optional.empty();
+        }
+    }
+}
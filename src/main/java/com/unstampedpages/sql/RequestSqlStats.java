@@ -0,0 +1,81 @@
+package com.unstampedpages.sql;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * SQL executed on behalf of the current request: statements, rows and database time measured by
+ * {@link StatementTimingDataSource}, and the statements Hibernate prepared, by SQL text, seen by
+ * {@link RequestStatementInspector}. Bound to the request thread by {@link SqlStatsFilter}; work
+ * handed to other threads (such as sharded fan-out queries) is not attributed.
+ */
+public final class RequestSqlStats {
+
+    private static final ThreadLocal<RequestSqlStats> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Integer> prepared = new HashMap<>();
+    private int statements;
+    private long rows;
+    private long databaseNanos;
+
+    static RequestSqlStats begin() {
+        RequestSqlStats stats = new RequestSqlStats();
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    static void end() {
+        CURRENT.remove();
+    }
+
+    /**
+     * Null outside a request.
+     */
+    public static RequestSqlStats current() {
+        return CURRENT.get();
+    }
+
+    void executed(long nanos, long rowCount) {
+        statements++;
+        databaseNanos += nanos;
+        rows += Math.max(0, rowCount);
+    }
+
+    void fetched() {
+        rows++;
+    }
+
+    void prepared(String sql) {
+        prepared.merge(sql, 1, Integer::sum);
+    }
+
+    public int statements() {
+        return statements;
+    }
+
+    public long rows() {
+        return rows;
+    }
+
+    public long databaseNanos() {
+        return databaseNanos;
+    }
+
+    /**
+     * The statement Hibernate prepared most often, if it was prepared at least {@code threshold}
+     * times.
+     */
+    public Optional<Map.Entry<String, Integer>> mostRepeated(int threshold) {
+        return prepared.entrySet().stream()
+                .filter(entry -> entry.getValue() >= threshold)
+                .max(Map.Entry.comparingByValue());
+    }
+
+    /**
+     * For the {@code Server-Timing} header, for example {@code 3 statements, 20 rows}.
+     */
+    public String description() {
+        return statements + " statements, " + rows + " rows";
+    }
+}
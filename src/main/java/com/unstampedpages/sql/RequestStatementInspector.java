@@ -0,0 +1,20 @@
+package com.unstampedpages.sql;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the statements Hibernate prepares for the current request by SQL text, which is how an
+ * N+1 pattern shows up: one query per row of an earlier result. Registered through
+ * {@code hibernate.session_factory.statement_inspector}; leaves the SQL unchanged.
+ */
+public class RequestStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        RequestSqlStats stats = RequestSqlStats.current();
+        if (stats != null) {
+            stats.prepared(sql);
+        }
+        return sql;
+    }
+}
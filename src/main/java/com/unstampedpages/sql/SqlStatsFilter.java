@@ -0,0 +1,53 @@
+package com.unstampedpages.sql;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Collects {@link RequestSqlStats} for each request; they appear in the {@code Server-Timing}
+ * header next to the request's phase timings. Requests over the statement budget, or repeating one
+ * statement, are logged as warnings.
+ */
+public class SqlStatsFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(SqlStatsFilter.class);
+
+    private final int statementBudget;
+    private final int repeatedStatementThreshold;
+
+    public SqlStatsFilter(int statementBudget, int repeatedStatementThreshold) {
+        this.statementBudget = statementBudget;
+        this.repeatedStatementThreshold = repeatedStatementThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        RequestSqlStats stats = RequestSqlStats.begin();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            RequestSqlStats.end();
+            report(request, stats);
+        }
+    }
+
+    private void report(HttpServletRequest request, RequestSqlStats stats) {
+        if (stats.statements() > statementBudget) {
+            log.warn("{} {} ran {} SQL statements, over the budget of {} ({} rows, {} ms)", request.getMethod(),
+                    request.getRequestURI(), stats.statements(), statementBudget, stats.rows(), stats.databaseNanos() / 1_000_000);
+        }
+        Optional<Map.Entry<String, Integer>> repeated = stats.mostRepeated(repeatedStatementThreshold);
+        repeated.ifPresent(entry -> log.warn("{} {} prepared the same statement {} times, a possible N+1: {}",
+                request.getMethod(), request.getRequestURI(), entry.getValue(), entry.getKey()));
+    }
+}
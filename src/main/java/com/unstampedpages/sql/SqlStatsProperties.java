@@ -0,0 +1,18 @@
+package com.unstampedpages.sql;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.sql-stats.*}: statements slower than {@code slow-query-threshold} are logged; a
+ * request running more than {@code statement-budget} statements, or the same statement
+ * {@code repeated-statement-threshold} times (an N+1 pattern), is logged as a warning.
+ */
+@ConfigurationProperties("users.sql-stats")
+public record SqlStatsProperties(@DefaultValue("true") boolean enabled,
+                                 @DefaultValue("PT0.2S") Duration slowQueryThreshold,
+                                 @DefaultValue("20") int statementBudget,
+                                 @DefaultValue("5") int repeatedStatementThreshold) {
+}
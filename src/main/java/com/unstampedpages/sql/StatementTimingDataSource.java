@@ -0,0 +1,190 @@
+package com.unstampedpages.sql;
+
+import com.unstampedpages.metrics.RequestPhase;
+import com.unstampedpages.metrics.RequestTimings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+/**
+ * Times every statement executed on connections of the target DataSource and adds it, with its
+ * affected or fetched rows, to the current {@link RequestSqlStats}. Statements slower than the
+ * threshold are logged, without their bind parameters. Connection acquisition and execution time
+ * also go to the request's {@link RequestTimings}.
+ */
+public class StatementTimingDataSource extends DelegatingDataSource {
+
+    private static final Logger log = LoggerFactory.getLogger(StatementTimingDataSource.class);
+
+    private final long slowQueryNanos;
+
+    public StatementTimingDataSource(DataSource target, Duration slowQueryThreshold) {
+        super(target);
+        this.slowQueryNanos = slowQueryThreshold.toNanos();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection();
+        RequestTimings.record(RequestPhase.POOL, System.nanoTime() - start);
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        Connection connection = obtainTargetDataSource().getConnection(username, password);
+        RequestTimings.record(RequestPhase.POOL, System.nanoTime() - start);
+        return wrap(Connection.class, new ConnectionHandler(connection));
+    }
+
+    private static <T> T wrap(Class<T> type, InvocationHandler handler) {
+        return type.cast(Proxy.newProxyInstance(StatementTimingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * Proxies forward everything to their target, except identity, which must stay the proxy's for
+     * connection holders and pools that compare connections.
+     */
+    private abstract static class ForwardingHandler implements InvocationHandler {
+
+        final Object target;
+
+        ForwardingHandler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            return switch (method.getName()) {
+                case "equals" -> proxy == args[0];
+                case "hashCode" -> System.identityHashCode(proxy);
+                default -> handle(proxy, method, args);
+            };
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+    }
+
+    private final class ConnectionHandler extends ForwardingHandler {
+
+        ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementTimingDataSource.invoke(target, method, args);
+            return switch (method.getName()) {
+                case "createStatement" -> wrap(Statement.class, new StatementHandler(result, (Connection) proxy, null));
+                case "prepareStatement" -> wrap(PreparedStatement.class, new StatementHandler(result, (Connection) proxy, (String) args[0]));
+                case "prepareCall" -> wrap(CallableStatement.class, new StatementHandler(result, (Connection) proxy, (String) args[0]));
+                default -> result;
+            };
+        }
+    }
+
+    private final class StatementHandler extends ForwardingHandler {
+
+        private final Connection connection;
+        private final String sql;
+
+        StatementHandler(Object target, Connection connection, String sql) {
+            super(target);
+            this.connection = connection;
+            this.sql = sql;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if (!name.startsWith("execute")) {
+                Object result = StatementTimingDataSource.invoke(target, method, args);
+                return "getResultSet".equals(name) && result != null ? countingRows((ResultSet) result) : result;
+            }
+            long start = System.nanoTime();
+            Object result = StatementTimingDataSource.invoke(target, method, args);
+            long nanos = System.nanoTime() - start;
+            RequestTimings.record(RequestPhase.QUERY, nanos);
+            RequestSqlStats stats = RequestSqlStats.current();
+            if (stats != null) {
+                stats.executed(nanos, affectedRows(result));
+            }
+            if (nanos >= slowQueryNanos) {
+                String statementSql = sql != null ? sql : args != null && args.length > 0 && args[0] instanceof String text ? text : "batch";
+                log.warn("Slow SQL ({} ms): {}", nanos / 1_000_000, statementSql);
+            }
+            return result instanceof ResultSet resultSet ? countingRows(resultSet) : result;
+        }
+
+        private static long affectedRows(Object result) {
+            return switch (result) {
+                case Integer count -> count;
+                case Long count -> count;
+                case int[] counts -> {
+                    long sum = 0;
+                    for (int count : counts) {
+                        sum += Math.max(0, count);
+                    }
+                    yield sum;
+                }
+                case long[] counts -> {
+                    long sum = 0;
+                    for (long count : counts) {
+                        sum += Math.max(0, count);
+                    }
+                    yield sum;
+                }
+                case null, default -> 0;
+            };
+        }
+
+        private ResultSet countingRows(ResultSet resultSet) {
+            return wrap(ResultSet.class, new ResultSetHandler(resultSet));
+        }
+    }
+
+    private static final class ResultSetHandler extends ForwardingHandler {
+
+        ResultSetHandler(ResultSet target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            Object result = StatementTimingDataSource.invoke(target, method, args);
+            if (Boolean.TRUE.equals(result) && "next".equals(method.getName())) {
+                RequestSqlStats stats = RequestSqlStats.current();
+                if (stats != null) {
+                    stats.fetched();
+                }
+            }
+            return result;
+        }
+    }
+}
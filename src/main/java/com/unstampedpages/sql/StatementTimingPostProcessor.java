@@ -0,0 +1,30 @@
+package com.unstampedpages.sql;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+
+/**
+ * Wraps the application's {@code dataSource} bean, whichever configuration defined it (plain,
+ * sharded or with replicas), in a {@link StatementTimingDataSource}.
+ */
+public class StatementTimingPostProcessor implements BeanPostProcessor {
+
+    private static final String DATA_SOURCE_BEAN = "dataSource";
+
+    private final ObjectProvider<SqlStatsProperties> properties;
+
+    public StatementTimingPostProcessor(ObjectProvider<SqlStatsProperties> properties) {
+        this.properties = properties;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (DATA_SOURCE_BEAN.equals(beanName) && bean instanceof DataSource dataSource
+                && !(bean instanceof StatementTimingDataSource)) {
+            return new StatementTimingDataSource(dataSource, properties.getObject().slowQueryThreshold());
+        }
+        return bean;
+    }
+}
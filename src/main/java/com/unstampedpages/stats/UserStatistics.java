@@ -0,0 +1,159 @@
+package com.unstampedpages.stats;
+
+import com.unstampedpages.dao.AgeDomainCount;
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserStatsDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.shard.UserShards;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * User count, age histogram and email-domain counts maintained incrementally from
+ * {@link UserChangedEvent}s with striped {@link LongAdder}s. Seeded by one aggregate query at
+ * startup and periodically rebuilt from the database, which corrects drift. Events that arrive
+ * while a rebuild runs are also recorded apart and replayed onto the rebuilt counters before they
+ * replace the live ones; an event committed just before the aggregate query starts is then
+ * counted twice until the next rebuild, rather than a whole rebuild's worth of events being lost.
+ */
+@Component
+public class UserStatistics {
+
+    static final int BUCKET_WIDTH = 10;
+    static final int BUCKETS = 11;
+
+    private static final class Counters {
+        private final LongAdder total = new LongAdder();
+        private final LongAdder[] ages = new LongAdder[BUCKETS];
+        private final ConcurrentHashMap<String, LongAdder> domains = new ConcurrentHashMap<>();
+
+        private Counters() {
+            for (int i = 0; i < BUCKETS; i++) {
+                ages[i] = new LongAdder();
+            }
+        }
+
+        private void add(int age, String domain, long delta) {
+            total.add(delta);
+            ages[bucketOf(age)].add(delta);
+            domains.computeIfAbsent(domain, key -> new LongAdder()).add(delta);
+        }
+
+        private void addAll(Counters other) {
+            total.add(other.total.sum());
+            for (int i = 0; i < BUCKETS; i++) {
+                ages[i].add(other.ages[i].sum());
+            }
+            other.domains.forEach((domain, count) -> domains.computeIfAbsent(domain, key -> new LongAdder()).add(count.sum()));
+        }
+    }
+
+    private final AtomicReference<Counters> counters = new AtomicReference<>(new Counters());
+    /**
+     * Deltas of the events applied while a rebuild runs, or null between rebuilds.
+     */
+    private final AtomicReference<Counters> pending = new AtomicReference<>();
+    /**
+     * Shared by event handlers, exclusive for the swap, so no event is applied halfway across it.
+     */
+    private final ReadWriteLock swap = new ReentrantReadWriteLock();
+    private final UserDAO userDAO;
+    private final UserShards shards;
+
+    public UserStatistics(UserDAO userDAO, UserShards shards) {
+        this.userDAO = userDAO;
+        this.shards = shards;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${users.stats.reconcile-interval:PT15M}",
+            initialDelayString = "${users.stats.reconcile-interval:PT15M}")
+    public synchronized void reconcile() {
+        Counters changedMeanwhile = new Counters();
+        pending.set(changedMeanwhile);
+        try {
+            Counters rebuilt = new Counters();
+            for (List<AgeDomainCount> rows : shards.onEveryShard(shard -> userDAO.countByAgeAndDomain())) {
+                for (AgeDomainCount row : rows) {
+                    rebuilt.add(row.getAge(), row.getDomain(), row.getUsers());
+                }
+            }
+            swap.writeLock().lock();
+            try {
+                rebuilt.addAll(changedMeanwhile);
+                counters.set(rebuilt);
+            } finally {
+                swap.writeLock().unlock();
+            }
+        } finally {
+            pending.set(null);
+        }
+    }
+
+    @EventListener
+    public void onUserChanged(UserChangedEvent event) {
+        swap.readLock().lock();
+        try {
+            apply(counters.get(), event);
+            Counters changedMeanwhile = pending.get();
+            if (changedMeanwhile != null) {
+                apply(changedMeanwhile, event);
+            }
+        } finally {
+            swap.readLock().unlock();
+        }
+    }
+
+    public UserStatsDTO snapshot(int topDomains) {
+        Counters current = counters.get();
+        Map<String, Long> ageHistogram = new LinkedHashMap<>();
+        for (int i = 0; i < BUCKETS; i++) {
+            ageHistogram.put(bucketLabel(i), current.ages[i].sum());
+        }
+        Map<String, Long> emailDomains = new LinkedHashMap<>();
+        current.domains.entrySet().stream()
+                .map(entry -> Map.entry(entry.getKey(), entry.getValue().sum()))
+                .filter(entry -> entry.getValue() > 0)
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.<String, Long>comparingByKey()))
+                .limit(topDomains)
+                .forEach(entry -> emailDomains.put(entry.getKey(), entry.getValue()));
+        return new UserStatsDTO(current.total.sum(), ageHistogram, emailDomains);
+    }
+
+    private static void apply(Counters target, UserChangedEvent event) {
+        if (event.previous() != null) {
+            target.add(event.previous().age(), domainOf(event.previous()), -1);
+        }
+        if (event.current() != null) {
+            target.add(event.current().age(), domainOf(event.current()), 1);
+        }
+    }
+
+    static int bucketOf(int age) {
+        return Math.min(Math.max(age, 0) / BUCKET_WIDTH, BUCKETS - 1);
+    }
+
+    static String bucketLabel(int bucket) {
+        int lower = bucket * BUCKET_WIDTH;
+        return bucket == BUCKETS - 1 ? lower + "+" : lower + "-" + (lower + BUCKET_WIDTH - 1);
+    }
+
+    private static String domainOf(UserDTO user) {
+        String email = user.email() == null ? "" : user.email();
+        return email.substring(email.indexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,177 @@
+package com.unstampedpages.warmup;
+
+import com.unstampedpages.controller.UserController;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchResult;
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.LongSupplier;
+
+/**
+ * Warms the application up before it reports ready. It fills the connection pool, then calls the
+ * {@code /users} read handlers (and through them the {@code UserDAO} queries) and serializes their
+ * responses, in rounds, until a round is no longer noticeably faster than the one before: the JIT
+ * and Hibernate's query plan cache have settled.
+ * <p>
+ * It runs while {@link ApplicationReadyEvent} is published, and Spring Boot only moves readiness to
+ * {@code ACCEPTING_TRAFFIC} after that, so {@code /ops/ready} answers 503 until warm-up is done. A
+ * failure ends warm-up early; it does not keep the application unready.
+ */
+public class UserWarmup {
+
+    private static final Logger log = LoggerFactory.getLogger(UserWarmup.class);
+
+    static final int MIN_ROUNDS = 3;
+    static final int SAMPLE_SIZE = 100;
+    private static final int SEARCH_LIMIT = 50;
+    private static final int SUGGEST_LIMIT = 10;
+    private static final int TOP_DOMAINS = 20;
+    private static final int AGE_SPAN = 5;
+    private static final String[] SORTS = {"name", "age", "id"};
+    private static final UserDTO MISSING_USER = new UserDTO(0L, "Warm", "Up", 30, "warm-up@example.invalid");
+
+    /**
+     * {@code converged} is false when warm-up ran out of iterations or time, or failed.
+     */
+    public record Result(int connections, int iterations, int rounds, boolean converged, Duration took) {
+    }
+
+    private final DataSource dataSource;
+    private final UserController userController;
+    private final JsonMapper jsonMapper;
+    private final WarmupProperties properties;
+    private final LongSupplier nanoClock;
+    private volatile Result result;
+
+    public UserWarmup(DataSource dataSource, UserController userController, JsonMapper jsonMapper,
+                      WarmupProperties properties) {
+        this(dataSource, userController, jsonMapper, properties, System::nanoTime);
+    }
+
+    UserWarmup(DataSource dataSource, UserController userController, JsonMapper jsonMapper,
+               WarmupProperties properties, LongSupplier nanoClock) {
+        this.dataSource = dataSource;
+        this.userController = userController;
+        this.jsonMapper = jsonMapper;
+        this.properties = properties;
+        this.nanoClock = nanoClock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        Result warmedUp = run();
+        log.info("Warm-up took {} ms: {} pooled connections, {} iterations in {} rounds, {}",
+                warmedUp.took().toMillis(), warmedUp.connections(), warmedUp.iterations(), warmedUp.rounds(),
+                warmedUp.converged() ? "converged" : "not converged");
+    }
+
+    /**
+     * The outcome of the last warm-up; null before it ran.
+     */
+    public Result result() {
+        return result;
+    }
+
+    Result run() {
+        long start = nanoClock.getAsLong();
+        long deadline = start + properties.timeout().toNanos();
+        int connections = fillPool();
+        int iterations = 0;
+        int rounds = 0;
+        boolean converged = false;
+        try {
+            List<UserDTO> sample = sampleUsers();
+            long previousRound = 0;
+            while (!converged && iterations < properties.maxIterations() && nanoClock.getAsLong() < deadline) {
+                int roundEnd = Math.min(iterations + properties.roundSize(), properties.maxIterations());
+                long roundStart = nanoClock.getAsLong();
+                for (; iterations < roundEnd; iterations++) {
+                    exercise(iterations, sample);
+                }
+                long round = nanoClock.getAsLong() - roundStart;
+                rounds++;
+                converged = rounds >= MIN_ROUNDS && previousRound - round < properties.convergence() * previousRound;
+                previousRound = round;
+            }
+        } catch (RuntimeException e) {
+            log.warn("Warm-up stopped after {} iterations", iterations, e);
+        }
+        result = new Result(connections, iterations, rounds, converged, Duration.ofNanos(nanoClock.getAsLong() - start));
+        return result;
+    }
+
+    /**
+     * Borrows as many connections as the pool may hold at once, so that all are open before the first
+     * request. Without a Hikari pool (routing DataSources hide theirs) a single connection is opened.
+     */
+    private int fillPool() {
+        List<Connection> connections = new ArrayList<>();
+        try {
+            int size = poolSize();
+            while (connections.size() < size) {
+                Connection connection = dataSource.getConnection();
+                connections.add(connection);
+                connection.isValid(1);
+            }
+        } catch (SQLException e) {
+            log.warn("Warm-up opened only {} connections", connections.size(), e);
+        } finally {
+            for (Connection connection : connections) {
+                try {
+                    connection.close();
+                } catch (SQLException e) {
+                    log.debug("Closing a warm-up connection failed", e);
+                }
+            }
+        }
+        return connections.size();
+    }
+
+    private int poolSize() throws SQLException {
+        if (dataSource.isWrapperFor(HikariDataSource.class)) {
+            return dataSource.unwrap(HikariDataSource.class).getMaximumPoolSize();
+        }
+        return 1;
+    }
+
+    private List<UserDTO> sampleUsers() {
+        UserSearchResult page = userController.searchUsers(null, null, null, "id", null, SAMPLE_SIZE, null).getBody();
+        return page == null || page.users().isEmpty() ? List.of(MISSING_USER) : page.users();
+    }
+
+    /**
+     * One of each read a client makes, cycling through the search orderings and sampled users.
+     */
+    private void exercise(int iteration, List<UserDTO> sample) {
+        UserDTO user = sample.get(iteration % sample.size());
+        serialize(userController.getUser(user.userId()).getBody());
+        serialize(userController.getUserByEmail(user.email()).getBody());
+        String prefix = user.lastName().isEmpty() ? "a" : user.lastName().substring(0, 1);
+        UserSearchResult page = switch (SORTS[iteration % SORTS.length]) {
+            case "name" -> userController.searchUsers(prefix, null, null, "name", null, SEARCH_LIMIT, "estimated").getBody();
+            case "age" -> userController.searchUsers(null, user.age() - AGE_SPAN, user.age() + AGE_SPAN, "age", null,
+                    SEARCH_LIMIT, "estimated").getBody();
+            default -> userController.searchUsers(null, null, null, "id", null, SEARCH_LIMIT, null).getBody();
+        };
+        serialize(page);
+        serialize(userController.suggestUsers(prefix, SUGGEST_LIMIT));
+        serialize(userController.getStats(TOP_DOMAINS));
+    }
+
+    private void serialize(Object body) {
+        if (body != null) {
+            jsonMapper.writeValueAsBytes(body);
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.unstampedpages.warmup;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.DefaultValue;
+
+import java.time.Duration;
+
+/**
+ * {@code users.warmup.*}: the read handlers are called in rounds of {@code round-size} iterations
+ * until a round is less than {@code convergence} (a fraction) faster than the previous one, or
+ * {@code max-iterations} or {@code timeout} is reached.
+ */
+@ConfigurationProperties("users.warmup")
+public record WarmupProperties(@DefaultValue("true") boolean enabled,
+                               @DefaultValue("25") int roundSize,
+                               @DefaultValue("1000") int maxIterations,
+                               @DefaultValue("0.1") double convergence,
+                               @DefaultValue("PT60S") Duration timeout) {
+}
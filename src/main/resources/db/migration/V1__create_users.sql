@@ -0,0 +1,7 @@
+create table users (
+    user_id    bigint generated by default as identity primary key,
+    first_name varchar(255) not null,
+    last_name  varchar(255) not null,
+    age        integer      not null,
+    email      varchar(255) not null unique
+);
@@ -0,0 +1,2 @@
+-- Index-only scans for the common ?fields=userId,email projection.
+create index if not exists idx_users_user_id_include_email on users (user_id) include (email);
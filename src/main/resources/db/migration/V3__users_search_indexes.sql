@@ -0,0 +1,6 @@
+-- GET /users/search: lastNamePrefix is matched with LIKE 'prefix%', which needs
+-- text_pattern_ops unless the database collation is C.
+create index if not exists idx_users_last_first_pattern on users (last_name text_pattern_ops, first_name text_pattern_ops);
+
+-- Age range filters and the age,userId keyset used by sort=age.
+create index if not exists idx_users_age_user_id on users (age, user_id);
@@ -0,0 +1,4 @@
+-- user_id is now assigned by the application (SnowflakeIdentifierGenerator) before the insert.
+-- Existing identity values are kept: Snowflake ids carry the milliseconds since 2025-01-01 in
+-- their top 41 bits, so every new id is above 2^50 and sorts after all rows created so far.
+alter table users alter column user_id drop identity if exists;
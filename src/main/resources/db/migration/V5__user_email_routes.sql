@@ -0,0 +1,5 @@
+-- Email to user id directory. Only written when users are sharded, on shard 0.
+create table user_email_routes (
+    email   varchar(255) primary key,
+    user_id bigint       not null
+);
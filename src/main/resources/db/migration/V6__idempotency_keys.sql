@@ -0,0 +1,12 @@
+-- Responses recorded for requests sent with an Idempotency-Key header. status is null while the
+-- first request is still running; expires_at then bounds how long its node may hold the key.
+create table idempotency_keys (
+    idempotency_key varchar(255)             primary key,
+    request_hash    varchar(64)              not null,
+    status          integer,
+    content_type    varchar(255),
+    body            bytea,
+    expires_at      timestamp with time zone not null
+);
+
+create index idempotency_keys_expires_at_idx on idempotency_keys (expires_at);
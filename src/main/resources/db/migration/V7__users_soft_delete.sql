@@ -0,0 +1,47 @@
+-- Soft delete: deleted users keep their row, with deleted_at set, until UserPurger removes it.
+-- Runs outside a transaction (see the .conf next to this file) so that the indexes are built
+-- concurrently instead of blocking writes to users. A failed concurrent build leaves an INVALID
+-- index behind; drop it before running the migration again.
+alter table users add column if not exists deleted_at timestamp with time zone;
+
+-- Email is unique among live users only, so an address can be reused before its tombstone is purged.
+-- The live-only index is in place before the table-wide constraint goes. That constraint is looked up
+-- rather than dropped by name, since databases created before V1 may have given it another name.
+create unique index concurrently if not exists users_email_live_key on users (email) where deleted_at is null;
+do $$
+declare
+    email_key name;
+begin
+    for email_key in
+        select c.conname
+        from pg_constraint c
+        join pg_attribute a on a.attrelid = c.conrelid and a.attname = 'email'
+        where c.conrelid = 'users'::regclass
+          and c.contype = 'u'
+          and c.conkey = array[a.attnum]
+    loop
+        execute format('alter table users drop constraint %I', email_key);
+    end loop;
+end
+$$;
+
+-- Every query on users filters on deleted_at is null; partial indexes keep tombstones out of them.
+-- Each one is built next to the index it replaces, which is then dropped; the rename only takes a
+-- SHARE UPDATE EXCLUSIVE lock on the index.
+create index concurrently if not exists idx_users_user_id_include_email_live on users (user_id) include (email)
+    where deleted_at is null;
+drop index concurrently if exists idx_users_user_id_include_email;
+alter index idx_users_user_id_include_email_live rename to idx_users_user_id_include_email;
+
+create index concurrently if not exists idx_users_last_first_pattern_live
+    on users (last_name text_pattern_ops, first_name text_pattern_ops) where deleted_at is null;
+drop index concurrently if exists idx_users_last_first_pattern;
+alter index idx_users_last_first_pattern_live rename to idx_users_last_first_pattern;
+
+create index concurrently if not exists idx_users_age_user_id_live on users (age, user_id) where deleted_at is null;
+drop index concurrently if exists idx_users_age_user_id;
+alter index idx_users_age_user_id_live rename to idx_users_age_user_id;
+
+-- Tombstones in id order, for the purger's keyset batches.
+create index concurrently if not exists idx_users_deleted_user_id on users (user_id) include (deleted_at)
+    where deleted_at is not null;
@@ -0,0 +1,6 @@
+-- GET /users/search?sort=name orders by last_name, first_name, user_id and continues from a cursor
+-- with a keyset comparison, both under the database collation, which the text_pattern_ops index
+-- (only good for LIKE 'prefix%') cannot serve. Built concurrently, outside a transaction (see the
+-- .conf next to this file).
+create index concurrently if not exists idx_users_last_first_user_id on users (last_name, first_name, user_id)
+    where deleted_at is null;
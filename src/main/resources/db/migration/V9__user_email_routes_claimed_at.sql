@@ -0,0 +1,4 @@
+-- When each route was claimed, so that a route left behind by a write that never committed can be
+-- told apart from one whose write is still in flight, and taken over (UserShards.reclaimEmail).
+-- A constant default is stored in the catalog, so existing rows are not rewritten.
+alter table user_email_routes add column if not exists claimed_at timestamp with time zone not null default now();
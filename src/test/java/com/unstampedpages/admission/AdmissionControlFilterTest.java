@@ -0,0 +1,105 @@
+package com.unstampedpages.admission;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdmissionControlFilterTest {
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    private AdmissionControl admissionControl;
+    private AdmissionControlFilter filter;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        AdmissionProperties properties = new AdmissionProperties(true,
+                new AdmissionProperties.Limits(1, 1, 4),
+                new AdmissionProperties.Limits(1, 1, 4),
+                Duration.ofSeconds(1), 0.5, Duration.ofSeconds(2));
+        admissionControl = new AdmissionControl(properties, () -> false);
+        filter = new AdmissionControlFilter(admissionControl, properties.retryAfter());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+    }
+
+    @Test
+    void doFilter_shouldShedReadsBeyondLimitWith503AndRetryAfter() throws Exception {
+        givenReadInProgress();
+        whenFiltering("GET", (request, response) -> fail("shed request must not reach the controller"));
+        assertEquals(503, response.getStatus());
+        assertEquals("2", response.getHeader("Retry-After"));
+        assertEquals(1, admissionControl.reads().rejected());
+    }
+
+    @Test
+    void doFilter_shouldAdmitWritesWhileReadsAreSaturated() throws Exception {
+        givenReadInProgress();
+        whenFiltering("POST", (request, response) -> ((MockHttpServletResponse) response).setStatus(200));
+        assertEquals(200, response.getStatus());
+        assertEquals(0, admissionControl.writes().rejected());
+    }
+
+    @Test
+    void doFilter_shouldShrinkLimitOnServerErrors() throws Exception {
+        admissionControl.writes().tryAcquire();
+        admissionControl.writes().onSuccess(0, 0);
+        int before = admissionControl.writes().limit();
+        whenFiltering("PUT", (request, response) -> ((MockHttpServletResponse) response).setStatus(500));
+        assertTrue(admissionControl.writes().limit() <= before);
+        assertEquals(0, admissionControl.writes().inFlight());
+    }
+
+    @Test
+    void doFilter_shouldNotAdjustLimitWhenClientDisconnects() {
+        int before = admissionControl.reads().limit();
+        assertThrows(IOException.class, () -> whenFiltering("GET", (request, response) -> {
+            throw new IOException("Broken pipe");
+        }));
+        assertEquals(before, admissionControl.reads().limit());
+        assertEquals(0, admissionControl.reads().inFlight());
+    }
+
+    private void givenReadInProgress() throws InterruptedException {
+        executor.submit(() -> {
+            filter.doFilter(request("GET"), new MockHttpServletResponse(), (request, response) -> {
+                entered.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            return null;
+        });
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+    }
+
+    private void whenFiltering(String method, FilterChain chain) throws Exception {
+        response = new MockHttpServletResponse();
+        filter.doFilter(request(method), response, chain);
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/users");
+    }
+}
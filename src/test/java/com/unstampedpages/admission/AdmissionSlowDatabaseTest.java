@@ -0,0 +1,98 @@
+package com.unstampedpages.admission;
+
+import com.unstampedpages.dao.UserDAO;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A database that takes 150 ms per query against a 50 ms latency target: the read limit must back
+ * off and the overflow must be shed with 503 instead of piling up.
+ */
+@SpringBootTest(properties = {
+        "users.admission.read.initial=4",
+        "users.admission.read.min=1",
+        "users.admission.read.max=8",
+        "users.admission.latency-target=PT0.05S"
+})
+@AutoConfigureMockMvc
+class AdmissionSlowDatabaseTest {
+
+    private static final int CLIENTS = 16;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserDAO slowUserDAO;
+
+    @Autowired
+    private AdmissionControl admissionControl;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        @Primary
+        public UserDAO slowUserDAO() {
+            return mock(UserDAO.class);
+        }
+    }
+
+    @Test
+    void slowDatabase_shouldShedExcessReadsAndLowerLimit() throws Exception {
+        when(slowUserDAO.findAll()).thenAnswer(invocation -> {
+            Thread.sleep(150);
+            return List.of();
+        });
+        List<MockHttpServletResponse> responses = whenClientsListUsersConcurrently();
+
+        List<MockHttpServletResponse> shed = responses.stream().filter(response -> response.getStatus() == 503).toList();
+        assertFalse(shed.isEmpty(), "some requests should be shed");
+        assertTrue(responses.stream().anyMatch(response -> response.getStatus() == 200), "some requests should be served");
+        shed.forEach(response -> assertNotNull(response.getHeader("Retry-After")));
+        assertTrue(admissionControl.reads().limit() < 4, "slow responses should lower the read limit");
+
+        mockMvc.perform(get("/ops/admission"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].name").value("read"))
+                .andExpect(jsonPath("$[0].rejected").value(shed.size()));
+    }
+
+    private List<MockHttpServletResponse> whenClientsListUsersConcurrently() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<MockHttpServletResponse>> futures = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                Callable<MockHttpServletResponse> client = () -> mockMvc.perform(get("/users")).andReturn().getResponse();
+                futures.add(executor.submit(client));
+            }
+            List<MockHttpServletResponse> responses = new ArrayList<>();
+            for (Future<MockHttpServletResponse> future : futures) {
+                responses.add(future.get());
+            }
+            return responses;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.unstampedpages.admission;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AimdLimiterTest {
+
+    private static final long FAST = Duration.ofMillis(10).toNanos();
+    private static final long SLOW = Duration.ofSeconds(1).toNanos();
+
+    private AimdLimiter limiter;
+    private long now;
+
+    @Test
+    void tryAcquire_shouldRejectBeyondLimitAndCountRejections() {
+        givenLimiter(2, 1, 10);
+        assertTrue(limiter.tryAcquire());
+        assertTrue(limiter.tryAcquire());
+        assertFalse(limiter.tryAcquire());
+        assertEquals(1, limiter.rejected());
+        assertEquals(2, limiter.inFlight());
+    }
+
+    @Test
+    void onSuccess_shouldGrowLimitAdditivelyWhenFastAndBusy() {
+        givenLimiter(4, 1, 10);
+        for (int i = 0; i < 4; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 4; i++) {
+            succeed(FAST);
+            limiter.tryAcquire();
+        }
+        assertEquals(4, limiter.limit(), "four fast requests add one in total, not yet a whole step");
+        for (int i = 0; i < 8; i++) {
+            succeed(FAST);
+            limiter.tryAcquire();
+        }
+        assertEquals(6, limiter.limit());
+    }
+
+    @Test
+    void onSuccess_shouldNotGrowLimitWhenMostlyIdle() {
+        givenLimiter(10, 1, 20);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            succeed(FAST);
+        }
+        assertEquals(10, limiter.limit());
+    }
+
+    @Test
+    void onSuccess_shouldShrinkLimitMultiplicativelyWhenSlow() {
+        givenLimiter(10, 1, 20);
+        limiter.tryAcquire();
+        succeed(SLOW);
+        assertEquals(9, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void onDropped_shouldNotShrinkBelowMinimum() {
+        givenLimiter(3, 2, 20);
+        for (int i = 0; i < 20; i++) {
+            limiter.tryAcquire();
+            drop();
+        }
+        assertEquals(2, limiter.limit());
+    }
+
+    @Test
+    void onSuccess_shouldNotGrowBeyondMaximum() {
+        givenLimiter(2, 1, 3);
+        for (int i = 0; i < 100; i++) {
+            limiter.tryAcquire();
+            limiter.tryAcquire();
+            succeed(FAST);
+            succeed(FAST);
+        }
+        assertEquals(3, limiter.limit());
+    }
+
+    @Test
+    void onSuccess_shouldShrinkOnceForSlowRequestsAdmittedBeforeTheCut() {
+        givenLimiter(10, 1, 20);
+        long admitted = now;
+        for (int i = 0; i < 5; i++) {
+            limiter.tryAcquire();
+        }
+        for (int i = 0; i < 5; i++) {
+            limiter.onSuccess(admitted, admitted + SLOW + i);
+        }
+        assertEquals(9, limiter.limit());
+        now = admitted + SLOW + 5;
+        limiter.tryAcquire();
+        succeed(SLOW);
+        assertEquals(8, limiter.limit());
+    }
+
+    @Test
+    void onIgnore_shouldReleaseWithoutAdjustingLimit() {
+        givenLimiter(10, 1, 20);
+        limiter.tryAcquire();
+        limiter.onIgnore();
+        assertEquals(10, limiter.limit());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    void constructor_shouldRejectInconsistentLimits() {
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter("bad", 1, 2, 3, Duration.ofMillis(1), 0.9));
+        assertThrows(IllegalArgumentException.class, () -> new AimdLimiter("bad", 2, 1, 3, Duration.ofMillis(1), 1.5));
+    }
+
+    private void givenLimiter(int initial, int min, int max) {
+        limiter = new AimdLimiter("test", initial, min, max, Duration.ofMillis(100), 0.9);
+    }
+
+    private void succeed(long latencyNanos) {
+        limiter.onSuccess(now, now + latencyNanos);
+        now += latencyNanos;
+    }
+
+    private void drop() {
+        limiter.onDropped(now, now + FAST);
+        now += FAST;
+    }
+}
@@ -0,0 +1,61 @@
+package com.unstampedpages.cache;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CountMinSketchTest {
+
+    @Test
+    void estimate_shouldNeverUndercount() {
+        CountMinSketch sketch = new CountMinSketch(64, 4);
+        long[] counts = new long[1_000];
+        SplittableRandom random = new SplittableRandom(42);
+        for (int i = 0; i < 20_000; i++) {
+            int key = random.nextInt(counts.length);
+            sketch.increment((long) key << 22);
+            counts[key]++;
+        }
+        for (int key = 0; key < counts.length; key++) {
+            assertTrue(sketch.estimate((long) key << 22) >= counts[key]);
+        }
+    }
+
+    @Test
+    void estimate_shouldBeCloseForHeavyHitters() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (int i = 0; i < 10_000; i++) {
+            sketch.increment(7L);
+            sketch.increment(i + 1_000L);
+        }
+        long estimate = sketch.estimate(7L);
+        assertTrue(estimate >= 10_000 && estimate < 10_100, "estimate " + estimate);
+    }
+
+    @Test
+    void increment_shouldReturnNewEstimate() {
+        CountMinSketch sketch = new CountMinSketch(16, 2);
+        assertEquals(1, sketch.increment(1L));
+        assertEquals(2, sketch.increment(1L));
+        assertEquals(2, sketch.estimate(1L));
+    }
+
+    @Test
+    void halve_shouldHalveEstimates() {
+        CountMinSketch sketch = new CountMinSketch(16, 2);
+        for (int i = 0; i < 10; i++) {
+            sketch.increment(1L);
+        }
+        sketch.halve();
+        assertEquals(5, sketch.estimate(1L));
+    }
+
+    @Test
+    void constructor_shouldRoundWidthUpToPowerOfTwo() {
+        assertEquals(1024, new CountMinSketch(1000, 1).width());
+        assertEquals(1, new CountMinSketch(1, 1).width());
+        assertThrows(IllegalArgumentException.class, () -> new CountMinSketch(0, 1));
+    }
+}
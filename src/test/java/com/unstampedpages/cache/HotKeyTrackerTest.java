@@ -0,0 +1,92 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.HotKeyDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HotKeyTrackerTest {
+
+    private HotKeyTracker tracker;
+    private List<HotKeyDTO> hotKeys;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new HotKeyTracker(new CountMinSketch(1024, 4), 3, 10);
+    }
+
+    @Test
+    void hotKeys_shouldReturnMostReadUsersFirst() {
+        givenReads(1L, 50);
+        givenReads(2L, 30);
+        givenReads(3L, 20);
+        givenReads(4L, 5);
+        whenListingHotKeys();
+        thenHotKeysAre(1L, 2L, 3L);
+    }
+
+    @Test
+    void hotKeys_shouldLetFrequentlyReadUserDisplaceLeastRead() {
+        givenReads(1L, 50);
+        givenReads(2L, 30);
+        givenReads(3L, 20);
+        givenReads(4L, 40);
+        whenListingHotKeys();
+        thenHotKeysAre(1L, 4L, 2L);
+    }
+
+    @Test
+    void hotKeys_shouldNotBeDisplacedByScanOfManyUsers() {
+        givenReads(1L, 50);
+        givenReads(2L, 30);
+        givenReads(3L, 20);
+        for (long userId = 100; userId < 10_100; userId++) {
+            tracker.record(userId);
+        }
+        whenListingHotKeys();
+        thenHotKeysAre(1L, 2L, 3L);
+    }
+
+    @Test
+    void hotUserIds_shouldOnlyIncludeUsersWithMinHits() {
+        givenReads(1L, 50);
+        givenReads(2L, 5);
+        assertEquals(Set.of(1L), tracker.hotUserIds());
+        whenListingHotKeys();
+        assertTrue(hotKeys.get(0).pinned());
+        assertFalse(hotKeys.get(1).pinned());
+    }
+
+    @Test
+    void decay_shouldHalveReadsSoThatUsersNoLongerReadCoolDown() {
+        givenReads(1L, 16);
+        tracker.decay();
+        assertEquals(Set.of(), tracker.hotUserIds());
+        whenListingHotKeys();
+        assertEquals(8, hotKeys.getFirst().estimatedReads());
+    }
+
+    @Test
+    void hotKeys_shouldBeEmptyWithoutReads() {
+        whenListingHotKeys();
+        assertTrue(hotKeys.isEmpty());
+    }
+
+    private void givenReads(long userId, int reads) {
+        for (int i = 0; i < reads; i++) {
+            tracker.record(userId);
+        }
+    }
+
+    private void whenListingHotKeys() {
+        hotKeys = tracker.hotKeys();
+    }
+
+    private void thenHotKeysAre(Long... userIds) {
+        assertEquals(List.of(userIds), hotKeys.stream().map(HotKeyDTO::userId).toList());
+    }
+}
@@ -0,0 +1,84 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class HotUserRefresherTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+    private static final HotKeyProperties PROPERTIES = new HotKeyProperties(true, 10, 5, 1024, 4,
+            Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(2));
+
+    @Mock
+    private UserService userService;
+
+    private long now;
+    private HotKeyTracker tracker;
+    private UserCache userCache;
+    private HotUserRefresher refresher;
+
+    @BeforeEach
+    void setUp() {
+        tracker = new HotKeyTracker(PROPERTIES);
+        userCache = new UserCache(100, Duration.ofHours(1), () -> now);
+        refresher = new HotUserRefresher(tracker, userCache, userService, PROPERTIES);
+    }
+
+    @Test
+    void refresh_shouldPinAndLoadHotUsers() {
+        givenReads(1L, 5);
+        givenReads(2L, 1);
+        refresher.refresh();
+        assertTrue(userCache.isPinned(1L));
+        assertFalse(userCache.isPinned(2L));
+        verify(userService).refreshCachedUser(1L);
+        verifyNoMoreInteractions(userService);
+    }
+
+    @Test
+    void refresh_shouldSkipCopiesThatStayYoungerThanMaxAgeUntilNextRun() {
+        givenReads(1L, 5);
+        userCache.put(JOHN);
+        now += Duration.ofSeconds(7).toNanos();
+        refresher.refresh();
+        verifyNoInteractions(userService);
+        assertEquals(JOHN, userCache.lookupPinned(1L).orElseThrow().user());
+    }
+
+    @Test
+    void refresh_shouldReloadCopiesThatWouldExpireBeforeNextRun() {
+        givenReads(1L, 5);
+        userCache.put(JOHN);
+        now += Duration.ofSeconds(8).toNanos();
+        refresher.refresh();
+        verify(userService).refreshCachedUser(1L);
+    }
+
+    @Test
+    void refresh_shouldStopWhileDatabaseIsUnavailable() {
+        givenReads(1L, 5);
+        givenReads(2L, 5);
+        doThrow(new DatabaseUnavailableException("Database circuit breaker is open", Duration.ofSeconds(1), null))
+                .when(userService).refreshCachedUser(any());
+        assertDoesNotThrow(refresher::refresh);
+        verify(userService, times(1)).refreshCachedUser(any());
+    }
+
+    private void givenReads(long userId, int reads) {
+        for (int i = 0; i < reads; i++) {
+            tracker.record(userId);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.service.UserRead;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserCacheTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+    private static final Duration MAX_STALE = Duration.ofMinutes(10);
+
+    private long now;
+    private UserCache cache;
+    private Optional<UserRead> result;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserCache(2, MAX_STALE, () -> now);
+    }
+
+    @Test
+    void lookup_shouldReturnCachedUserWithAge() {
+        cache.put(JOHN);
+        now += Duration.ofSeconds(42).toNanos();
+        whenLookingUp(1L);
+        thenStaleUserIsReturned(JOHN, Duration.ofSeconds(42));
+    }
+
+    @Test
+    void lookup_shouldNotServeEntriesOlderThanMaxStale() {
+        cache.put(JOHN);
+        now += MAX_STALE.toNanos() + 1;
+        whenLookingUp(1L);
+        assertTrue(result.isEmpty());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onUserChanged_shouldKeepLatestCopy() {
+        UserDTO renamed = new UserDTO(1L, "Johnny", "Doe", 30, "john@example.com");
+        cache.put(JOHN);
+        cache.onUserChanged(new UserChangedEvent(1L, JOHN, renamed));
+        whenLookingUp(1L);
+        thenStaleUserIsReturned(renamed, Duration.ZERO);
+    }
+
+    @Test
+    void onUserChanged_shouldEvictDeletedUser() {
+        cache.put(JOHN);
+        cache.onUserChanged(new UserChangedEvent(1L, JOHN, null));
+        whenLookingUp(1L);
+        assertTrue(result.isEmpty());
+    }
+
+    @Test
+    void put_shouldStayWithinMaxEntries() {
+        cache.put(JOHN);
+        cache.put(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com"));
+        cache.put(new UserDTO(3L, "Bob", "Wilson", 35, "bob@example.com"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void put_shouldEvictUnpinnedUsersFirst() {
+        UserDTO jane = new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com");
+        cache.pin(Set.of(1L, 2L), Duration.ofSeconds(10));
+        cache.put(JOHN);
+        cache.put(new UserDTO(3L, "Bob", "Wilson", 35, "bob@example.com"));
+        cache.put(jane);
+        assertTrue(cache.lookup(1L).isPresent());
+        assertTrue(cache.lookup(2L).isPresent());
+        assertTrue(cache.lookup(3L).isEmpty());
+    }
+
+    @Test
+    void lookupPinned_shouldServePinnedUsersYoungerThanMaxAge() {
+        cache.put(JOHN);
+        cache.pin(Set.of(1L), Duration.ofSeconds(10));
+        now += Duration.ofSeconds(10).toNanos();
+        UserRead pinned = cache.lookupPinned(1L).orElseThrow();
+        assertEquals(JOHN, pinned.user());
+        assertFalse(pinned.isStale());
+        assertEquals(Duration.ofSeconds(10), pinned.age());
+        now += 1;
+        assertTrue(cache.lookupPinned(1L).isEmpty());
+    }
+
+    @Test
+    void lookupPinned_shouldNotServeUnpinnedUsers() {
+        cache.put(JOHN);
+        assertTrue(cache.lookupPinned(1L).isEmpty());
+        cache.pin(Set.of(1L), Duration.ofSeconds(10));
+        cache.pin(Set.of(), Duration.ofSeconds(10));
+        assertTrue(cache.lookupPinned(1L).isEmpty());
+    }
+
+    private void whenLookingUp(Long userId) {
+        result = cache.lookup(userId);
+    }
+
+    private void thenStaleUserIsReturned(UserDTO expected, Duration age) {
+        UserRead read = result.orElseThrow();
+        assertEquals(expected, read.user());
+        assertTrue(read.isStale());
+        assertEquals(age, read.age());
+    }
+}
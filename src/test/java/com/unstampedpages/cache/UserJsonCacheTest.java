@@ -0,0 +1,128 @@
+package com.unstampedpages.cache;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserJsonCacheTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+
+    private UserJsonCache cache;
+    private byte[] first;
+    private byte[] second;
+
+    @BeforeEach
+    void setUp() {
+        cache = new UserJsonCache(JsonMapper.builder().build(), 2);
+    }
+
+    @Test
+    void toJson_shouldEncodeUserAsJson() {
+        whenEncoding(JOHN);
+        thenJsonMatchesJackson();
+    }
+
+    @Test
+    void toJson_shouldReuseBytesForEqualUser() {
+        whenEncodingTwice(JOHN, new UserDTO(1L, "John", "Doe", 30, "john@example.com"));
+        thenSameBytesAreReturned();
+    }
+
+    @Test
+    void toJson_shouldReencodeWhenUserChanged() {
+        whenEncodingTwice(JOHN, new UserDTO(1L, "Johnny", "Doe", 31, "john@example.com"));
+        thenNewBytesReflectTheChange();
+    }
+
+    @Test
+    void onUserChanged_shouldEvictEntry() {
+        whenEncoding(JOHN);
+        cache.onUserChanged(new UserChangedEvent(1L, JOHN, null));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void toJson_shouldStayWithinMaxEntries() {
+        whenEncoding(JOHN);
+        whenEncoding(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com"));
+        whenEncoding(new UserDTO(3L, "Bob", "Wilson", 35, "bob@example.com"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void toJson_shouldKeepEntryServedSinceLastSweep() {
+        whenEncodingTwice(JOHN, JOHN);
+        whenEncoding(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com"));
+        whenEncoding(new UserDTO(3L, "Bob", "Wilson", 35, "bob@example.com"));
+        first = second;
+        second = cache.toJson(JOHN);
+        thenSameBytesAreReturned();
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void toJsonWithoutCaching_shouldReuseButNotAddEntries() {
+        whenEncoding(JOHN);
+        second = cache.toJsonWithoutCaching(new UserDTO(1L, "John", "Doe", 30, "john@example.com"));
+        thenSameBytesAreReturned();
+        cache.toJsonWithoutCaching(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com"));
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void toJson_shouldAllocateLessOnHitThanEncoding() {
+        JsonMapper jsonMapper = JsonMapper.builder().build();
+        whenEncoding(JOHN);
+        long encoding = allocatedPerCall(() -> jsonMapper.writeValueAsBytes(JOHN));
+        long hit = allocatedPerCall(() -> cache.toJson(JOHN));
+        assertTrue(hit * 2 < encoding, "cache hit allocated " + hit + " B/op, encoding " + encoding + " B/op");
+    }
+
+    private void whenEncoding(UserDTO user) {
+        first = cache.toJson(user);
+    }
+
+    private void whenEncodingTwice(UserDTO user, UserDTO again) {
+        first = cache.toJson(user);
+        second = cache.toJson(again);
+    }
+
+    private void thenJsonMatchesJackson() {
+        assertEquals(JsonMapper.builder().build().writeValueAsString(JOHN), new String(first, StandardCharsets.UTF_8));
+    }
+
+    private void thenSameBytesAreReturned() {
+        assertSame(first, second);
+    }
+
+    /**
+     * Bytes allocated by this thread per call of {@code call}, after as many calls to warm it up.
+     */
+    private static long allocatedPerCall(Supplier<byte[]> call) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        int calls = 10_000;
+        for (int i = 0; i < calls; i++) {
+            call.get();
+        }
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < calls; i++) {
+            call.get();
+        }
+        return (threads.getThreadAllocatedBytes(threadId) - before) / calls;
+    }
+
+    private void thenNewBytesReflectTheChange() {
+        assertNotSame(first, second);
+        assertTrue(new String(second, StandardCharsets.UTF_8).contains("\"Johnny\""));
+    }
+}
@@ -0,0 +1,41 @@
+package com.unstampedpages.config;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.directory.DirectoryProperties;
+import com.unstampedpages.shard.UserShards;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class DirectoryConfigTest {
+
+    private static final DirectoryProperties PROPERTIES =
+            new DirectoryProperties(true, Path.of("build/user-directory"), Duration.ofHours(1));
+
+    private final DirectoryConfig directoryConfig = new DirectoryConfig();
+
+    @Test
+    void userDirectory_shouldRefuseShardedDeployments() {
+        assertThrows(IllegalStateException.class, () -> whenCreatingDirectory(true, false));
+    }
+
+    @Test
+    void userDirectory_shouldRefuseReadReplicas() {
+        assertThrows(IllegalStateException.class, () -> whenCreatingDirectory(false, true));
+    }
+
+    @Test
+    void userDirectory_shouldBeCreatedForSingleDatabase() {
+        assertNotNull(whenCreatingDirectory(false, false));
+    }
+
+    private Object whenCreatingDirectory(boolean sharded, boolean replicated) {
+        return directoryConfig.userDirectory(mock(UserDAO.class), UserShards.unsharded(),
+                mock(PlatformTransactionManager.class), PROPERTIES, sharded, replicated);
+    }
+}
@@ -0,0 +1,60 @@
+package com.unstampedpages.controller;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class MetricsControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String scrape;
+
+    @Test
+    void getMetrics_shouldExposeHandlerAndDaoLatencies() throws Exception {
+        givenUserWasCreatedAndReadAndMissed();
+        whenScraping();
+        assertTrue(scrape.contains("users_http_request_duration_seconds{handler=\"getUser\",quantile=\"0.999\"} "));
+        assertTrue(scrape.contains("users_http_requests_total{handler=\"createUser\",status=\"200\"} "));
+        assertTrue(scrape.contains("users_http_requests_total{handler=\"getUser\",status=\"404\"} "));
+        assertTrue(scrape.contains("users_dao_call_duration_seconds_count{method=\"findById\"} "));
+        assertTrue(scrape.contains("users_dao_calls_total{method=\"save\",outcome=\"success\"} "));
+    }
+
+    @Test
+    void getMetrics_shouldExposeConnectionPool() throws Exception {
+        whenScraping();
+        assertTrue(scrape.matches("(?s).*users_db_pool_connections\\{pool=\"[^\"]+\",state=\"max\"} 10\n.*"));
+        assertTrue(scrape.matches("(?s).*users_db_pool_pending_threads\\{pool=\"[^\"]+\"} 0\n.*"));
+        assertTrue(scrape.matches("(?s).*users_db_pool_acquire_seconds_count\\{pool=\"[^\"]+\"} [1-9].*"));
+    }
+
+    private void givenUserWasCreatedAndReadAndMissed() throws Exception {
+        String created = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Mette\",\"lastName\":\"Rics\",\"age\":41,\"email\":\"mette@example.com\"}"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+        long userId = Long.parseLong(JsonPath.read(created, "$.userId"));
+        mockMvc.perform(get("/users/{id}", userId)).andExpect(status().isOk());
+        mockMvc.perform(get("/users/{id}", Long.MAX_VALUE)).andExpect(status().isNotFound());
+    }
+
+    private void whenScraping() throws Exception {
+        scrape = mockMvc.perform(get("/metrics"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.TEXT_PLAIN))
+                .andReturn().getResponse().getContentAsString();
+    }
+}
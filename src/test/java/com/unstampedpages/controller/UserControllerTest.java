@@ -1,7 +1,12 @@
 package com.unstampedpages.controller;
 
 import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.grpc.v1.UserList;
+import com.unstampedpages.grpc.v1.UserMessage;
 import com.unstampedpages.model.User;
+import com.unstampedpages.search.UserSuggestIndex;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -10,14 +15,20 @@ import org.springframework.boot.test.context.TestConfiguration;
 import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.ResultActions;
 
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -33,6 +44,9 @@ class UserControllerTest {
     @Autowired
     private UserDAO mockUserDAO;
 
+    @Autowired
+    private UserSuggestIndex userSuggestIndex;
+
     private User user;
     private User savedUser;
     private ResultActions resultActions;
@@ -79,6 +93,120 @@ class UserControllerTest {
         thenNotFoundIsReturned();
     }
 
+    @Test
+    void getUser_shouldReturnProtobufWhenRequested() throws Exception {
+        givenUser();
+        whenGettingUserAs("application/x-protobuf");
+        thenUserIsReturnedAsProtobuf();
+    }
+
+    @Test
+    void getUser_shouldReturnSmileWhenRequested() throws Exception {
+        givenUser();
+        whenGettingUserAs("application/x-jackson-smile");
+        thenContentTypeIs("application/x-jackson-smile");
+    }
+
+    @Test
+    void getUser_shouldReturnOnlyRequestedFields() throws Exception {
+        givenUserFields();
+        whenGettingUserWithFields("userId,email");
+        thenOnlyRequestedFieldsAreReturned();
+    }
+
+    @Test
+    void getUser_shouldReturn400ForUnknownField() throws Exception {
+        whenGettingUserWithFields("userId,password");
+        thenBadRequestIsReturnedWithoutDAOAccess();
+    }
+
+    @Test
+    void getAllUsers_shouldReturnOnlyRequestedFields() throws Exception {
+        givenAllUserFields();
+        whenGettingAllUsersWithFields("email");
+        thenOnlyEmailsAreReturned();
+    }
+
+    @Test
+    void getAllUsers_shouldReturnExactTotalCountHeaderWhenRequested() throws Exception {
+        givenMultipleUsersExist();
+        givenExactUserCount(2L);
+        whenGettingAllUsersWithCount("exact");
+        thenTotalCountHeaderIs("2");
+    }
+
+    @Test
+    void getAllUsers_shouldOmitTotalCountHeaderByDefault() throws Exception {
+        givenMultipleUsersExist();
+        whenGettingAllUsers();
+        thenTotalCountHeaderIsAbsent();
+    }
+
+    @Test
+    void getAllUsers_shouldReturn400ForUnknownCountMode() throws Exception {
+        whenGettingAllUsersWithCount("roughly");
+        thenBadRequestIsReturnedWithoutDAOAccess();
+    }
+
+    @Test
+    void searchUsers_shouldReturnExactTotalCountHeaderWhenRequested() throws Exception {
+        givenSearchMatchesOneUser();
+        givenExactFilteredUserCount(1L);
+        whenSearchingUsers("?lastNamePrefix=Do&count=exact");
+        thenTotalCountHeaderIs("1");
+    }
+
+    @Test
+    void getUserByEmail_shouldReturnUserWhenExists() throws Exception {
+        givenUserWithEmail("john@example.com");
+        whenGettingUserByEmail("john@example.com");
+        thenUserIsRetrievedByEmail("john@example.com");
+    }
+
+    @Test
+    void getUserByEmail_shouldReturn404WhenNotExists() throws Exception {
+        whenGettingUserByEmail("nobody@example.com");
+        resultActions.andExpect(status().isNotFound());
+    }
+
+    @Test
+    void searchUsers_shouldReturnMatchingPage() throws Exception {
+        givenSearchMatchesOneUser();
+        whenSearchingUsers("?lastNamePrefix=Do&minAge=18&sort=age&limit=10");
+        thenSearchPageIsReturned();
+    }
+
+    @Test
+    void searchUsers_shouldReturn400ForUnknownSort() throws Exception {
+        whenSearchingUsers("?sort=email");
+        thenBadRequestIsReturnedWithoutDAOAccess();
+    }
+
+    @Test
+    void searchUsers_shouldReturn400ForLimitOutOfRange() throws Exception {
+        whenSearchingUsers("?limit=0");
+        thenBadRequestIsReturnedWithoutDAOAccess();
+    }
+
+    @Test
+    void suggestUsers_shouldReturnPrefixMatchesWithoutDAOAccess() throws Exception {
+        givenSuggestIndexContainsJohnAndJane();
+        whenSuggestingUsers("?q=jan");
+        thenOnlyJaneIsSuggested();
+    }
+
+    @Test
+    void suggestUsers_shouldReturn400ForLimitOutOfRange() throws Exception {
+        whenSuggestingUsers("?q=j&limit=500");
+        thenBadRequestIsReturnedWithoutDAOAccess();
+    }
+
+    @Test
+    void getStats_shouldReturnCountersWithoutDAOAccess() throws Exception {
+        whenGettingStats();
+        thenStatsAreReturnedWithoutDAOAccess();
+    }
+
     @Test
     void getUser_shouldInvokeDAOFindById() throws Exception {
         givenUserDoesNotExistWithId(42L);
@@ -100,6 +228,27 @@ class UserControllerTest {
         thenAllUsersAreReturned();
     }
 
+    @Test
+    void getAllUsers_shouldReturnCborWhenRequested() throws Exception {
+        givenMultipleUsersExist();
+        whenGettingAllUsersAs("application/cbor");
+        thenContentTypeIs("application/cbor");
+    }
+
+    @Test
+    void getAllUsers_shouldReturnProtobufWhenRequested() throws Exception {
+        givenMultipleUsersExist();
+        whenGettingAllUsersAs("application/x-protobuf");
+        thenAllUsersAreReturnedAsProtobuf();
+    }
+
+    @Test
+    void createUser_shouldAcceptProtobufBody() throws Exception {
+        givenUserWillBeSaved();
+        whenCreatingUserFromProtobuf();
+        thenCreatedUserIsReturned();
+    }
+
     @Test
     void getAllUsers_shouldInvokeDAOFindAll() throws Exception {
         givenNoUsersExist();
@@ -143,10 +292,10 @@ class UserControllerTest {
     }
 
     @Test
-    void deleteUser_shouldInvokeDAOExistsByIdThenDeleteById() throws Exception {
+    void deleteUser_shouldInvokeDAOFindByIdThenDelete() throws Exception {
         givenUserExistsForDeletion();
         whenDeletingUserForVerification();
-        thenDAOExistsByIdAndDeleteByIdWereCalledInOrder();
+        thenDAOFindByIdAndDeleteWereCalledInOrder();
     }
 
     private void givenUser() {
@@ -154,6 +303,44 @@ class UserControllerTest {
         when(mockUserDAO.findById(1L)).thenReturn(Optional.of(user));
     }
 
+    private void givenUserWithEmail(String email) {
+        user = new User(1L, "John", "Doe", 30, email);
+        when(mockUserDAO.findByEmail(email)).thenReturn(Optional.of(user));
+    }
+
+    private void givenUserFields() {
+        when(mockUserDAO.findFieldsById(1L, List.of(UserField.USER_ID, UserField.EMAIL)))
+                .thenReturn(Optional.of(Map.of("userId", 1L, "email", "john@example.com")));
+    }
+
+    private void givenAllUserFields() {
+        when(mockUserDAO.findAllFields(List.of(UserField.EMAIL))).thenReturn(List.of(
+                Map.of("email", "john@example.com"),
+                Map.of("email", "jane@example.com")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenSearchMatchesOneUser() {
+        user = new User(1L, "John", "Doe", 30, "john@example.com");
+        Window<User> window = Window.from(List.of(user), index -> ScrollPosition.keyset(), false);
+        when(mockUserDAO.findBy(any(Specification.class), any())).thenReturn(window);
+    }
+
+    private void givenExactUserCount(long count) {
+        when(mockUserDAO.count()).thenReturn(count);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenExactFilteredUserCount(long count) {
+        when(mockUserDAO.count(any(Specification.class))).thenReturn(count);
+    }
+
+    private void givenSuggestIndexContainsJohnAndJane() {
+        userSuggestIndex.clear();
+        userSuggestIndex.index(new UserDTO(1L, "John", "Doe", 30, "john@example.com"));
+        userSuggestIndex.index(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com"));
+    }
+
     private void givenUserWillBeSaved() {
         savedUser = new User(1L, "John", "Doe", 30, "john@example.com");
         when(mockUserDAO.save(any(User.class))).thenReturn(savedUser);
@@ -200,12 +387,13 @@ class UserControllerTest {
     }
 
     private void givenUserExistsForDeletion() {
-        when(mockUserDAO.existsById(1L)).thenReturn(true);
-        doNothing().when(mockUserDAO).deleteById(1L);
+        User existingUser = new User(1L, "John", "Doe", 30, "john@example.com");
+        when(mockUserDAO.findById(1L)).thenReturn(Optional.of(existingUser));
+        doNothing().when(mockUserDAO).delete(existingUser);
     }
 
     private void givenUserDoesNotExistForDeletion() {
-        when(mockUserDAO.existsById(999L)).thenReturn(false);
+        when(mockUserDAO.findById(999L)).thenReturn(Optional.empty());
     }
 
     private void whenCreatingUser() throws Exception {
@@ -240,6 +428,51 @@ class UserControllerTest {
         resultActions = mockMvc.perform(get("/users"));
     }
 
+    private void whenGettingUserByEmail(String email) throws Exception {
+        resultActions = mockMvc.perform(get("/users").param("email", email));
+    }
+
+    private void whenGettingAllUsersWithCount(String count) throws Exception {
+        resultActions = mockMvc.perform(get("/users").param("count", count));
+    }
+
+    private void whenGettingUserAs(String mediaType) throws Exception {
+        resultActions = mockMvc.perform(get("/users/1").accept(mediaType));
+    }
+
+    private void whenGettingUserWithFields(String fields) throws Exception {
+        resultActions = mockMvc.perform(get("/users/1").param("fields", fields));
+    }
+
+    private void whenGettingAllUsersWithFields(String fields) throws Exception {
+        resultActions = mockMvc.perform(get("/users").param("fields", fields));
+    }
+
+    private void whenSearchingUsers(String query) throws Exception {
+        resultActions = mockMvc.perform(get("/users/search" + query));
+    }
+
+    private void whenSuggestingUsers(String query) throws Exception {
+        resultActions = mockMvc.perform(get("/users/suggest" + query));
+    }
+
+    private void whenGettingStats() throws Exception {
+        resultActions = mockMvc.perform(get("/users/stats"));
+    }
+
+    private void whenGettingAllUsersAs(String mediaType) throws Exception {
+        resultActions = mockMvc.perform(get("/users").accept(mediaType));
+    }
+
+    private void whenCreatingUserFromProtobuf() throws Exception {
+        UserMessage message = UserMessage.newBuilder()
+                .setFirstName("John").setLastName("Doe").setAge(30).setEmail("john@example.com").build();
+        resultActions = mockMvc.perform(post("/users")
+                .contentType("application/x-protobuf")
+                .accept(MediaType.APPLICATION_JSON)
+                .content(message.toByteArray()));
+    }
+
     private void whenUpdatingUser() throws Exception {
         resultActions = mockMvc.perform(put("/users/1")
                 .contentType(MediaType.APPLICATION_JSON)
@@ -279,7 +512,7 @@ class UserControllerTest {
     private void thenCreatedUserIsReturned() throws Exception {
         resultActions
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.userId").value("1"))
                 .andExpect(jsonPath("$.firstName").value("John"))
                 .andExpect(jsonPath("$.lastName").value("Doe"))
                 .andExpect(jsonPath("$.age").value(30))
@@ -297,15 +530,119 @@ class UserControllerTest {
         ));
     }
 
+    private void thenUserIsRetrievedByEmail(String email) throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value("1"))
+                .andExpect(jsonPath("$.email").value(email));
+
+        verify(mockUserDAO).findByEmail(email);
+        verify(mockUserDAO, never()).findAll();
+    }
+
     private void thenCorrectUserRetrieved() throws Exception {
         resultActions
                 .andExpect(status().isOk())
-                .andExpect(jsonPath("$.userId").value(1))
+                .andExpect(jsonPath("$.userId").value("1"))
                 .andExpect(jsonPath("$.firstName").value("John"));
 
         verify(mockUserDAO, times(1)).findById(1L);
     }
 
+    private void thenOnlyRequestedFieldsAreReturned() throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.userId").value("1"))
+                .andExpect(jsonPath("$.email").value("john@example.com"))
+                .andExpect(jsonPath("$.firstName").doesNotExist());
+
+        verify(mockUserDAO).findFieldsById(1L, List.of(UserField.USER_ID, UserField.EMAIL));
+        verify(mockUserDAO, never()).findById(anyLong());
+    }
+
+    private void thenBadRequestIsReturnedWithoutDAOAccess() throws Exception {
+        resultActions.andExpect(status().isBadRequest());
+        verifyNoInteractions(mockUserDAO);
+    }
+
+    private void thenTotalCountHeaderIs(String count) throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", count));
+    }
+
+    private void thenTotalCountHeaderIsAbsent() throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Total-Count"));
+        verify(mockUserDAO, never()).count();
+    }
+
+    private void thenSearchPageIsReturned() throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0].lastName").value("Doe"))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    private void thenOnlyJaneIsSuggested() throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("Jane"));
+
+        verifyNoInteractions(mockUserDAO);
+    }
+
+    private void thenStatsAreReturnedWithoutDAOAccess() throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").isNumber())
+                .andExpect(jsonPath("$.ageHistogram.length()").value(11))
+                .andExpect(jsonPath("$.emailDomains").isMap());
+
+        verifyNoInteractions(mockUserDAO);
+    }
+
+    private void thenOnlyEmailsAreReturned() throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].email").value("john@example.com"))
+                .andExpect(jsonPath("$[0].firstName").doesNotExist());
+
+        verify(mockUserDAO, never()).findAll();
+    }
+
+    private void thenUserIsReturnedAsProtobuf() throws Exception {
+        byte[] body = resultActions
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+        UserMessage message = UserMessage.parseFrom(body);
+        assertEquals(1L, message.getUserId());
+        assertEquals("John", message.getFirstName());
+        assertEquals("john@example.com", message.getEmail());
+    }
+
+    private void thenAllUsersAreReturnedAsProtobuf() throws Exception {
+        byte[] body = resultActions
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-protobuf"))
+                .andReturn().getResponse().getContentAsByteArray();
+        UserList list = UserList.parseFrom(body);
+        assertEquals(2, list.getUsersCount());
+        assertEquals("John", list.getUsers(0).getFirstName());
+        assertEquals("Jane", list.getUsers(1).getFirstName());
+    }
+
+    private void thenContentTypeIs(String mediaType) throws Exception {
+        resultActions
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(mediaType));
+    }
+
     private void thenNotFoundIsReturned() throws Exception {
         resultActions.andExpect(status().isNotFound());
         verify(mockUserDAO, times(1)).findById(999L);
@@ -370,21 +707,21 @@ class UserControllerTest {
 
     private void thenNoContentIsReturned() throws Exception {
         resultActions.andExpect(status().isNoContent());
-        verify(mockUserDAO).existsById(1L);
-        verify(mockUserDAO).deleteById(1L);
+        verify(mockUserDAO).findById(1L);
+        verify(mockUserDAO).delete(any(User.class));
     }
 
     private void thenNotFoundIsReturnedAndDeleteNotCalled() throws Exception {
         resultActions.andExpect(status().isNotFound());
-        verify(mockUserDAO).existsById(999L);
-        verify(mockUserDAO, never()).deleteById(anyLong());
+        verify(mockUserDAO).findById(999L);
+        verify(mockUserDAO, never()).delete(any(User.class));
     }
 
-    private void thenDAOExistsByIdAndDeleteByIdWereCalledInOrder() throws Exception {
+    private void thenDAOFindByIdAndDeleteWereCalledInOrder() throws Exception {
         resultActions.andExpect(status().isNoContent());
         var inOrder = inOrder(mockUserDAO);
-        inOrder.verify(mockUserDAO).existsById(1L);
-        inOrder.verify(mockUserDAO).deleteById(1L);
+        inOrder.verify(mockUserDAO).findById(1L);
+        inOrder.verify(mockUserDAO).delete(any(User.class));
         verifyNoMoreInteractions(mockUserDAO);
     }
 }
@@ -1,5 +1,9 @@
 package com.unstampedpages.dao;
 
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.id.SnowflakeIdGenerator;
 import com.unstampedpages.model.User;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -7,9 +11,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.data.jpa.test.autoconfigure.DataJpaTest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
 
+import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,6 +37,11 @@ class UserDAOTest {
     private User savedUser;
     private Optional<User> foundUser;
     private List<User> users;
+    private List<UserDTO> streamedUsers;
+    private Optional<Map<String, Object>> foundFields;
+    private List<Map<String, Object>> allFields;
+    private Window<User> window;
+    private List<AgeDomainCount> ageDomainCounts;
     private boolean exists;
     private long count;
     private Long userId;
@@ -42,6 +58,23 @@ class UserDAOTest {
         thenUserIsPersistedWithGeneratedId();
     }
 
+    @Test
+    void save_shouldAssignSnowflakeIdsInCreationOrder() {
+        User first = userDAO.save(new User(null, "John", "Doe", 30, "john@example.com"));
+        User second = userDAO.save(new User(null, "Jane", "Smith", 25, "jane@example.com"));
+        assertTrue(second.getUserId() > first.getUserId());
+        assertEquals(0, SnowflakeIdGenerator.nodeOf(first.getUserId()));
+        assertTrue(SnowflakeIdGenerator.timestampOf(first.getUserId()).isAfter(SnowflakeIdGenerator.EPOCH));
+    }
+
+    @Test
+    void save_shouldPersistUserWithAssignedIdInsteadOfMerging() {
+        User assigned = new User(SnowflakeIdGenerator.forNode(1).nextId(), "John", "Doe", 30, "john@example.com");
+        // merge would copy the user into a new managed instance, after reading its row
+        assertSame(assigned, userDAO.save(assigned));
+        assertFalse(assigned.isNew());
+    }
+
     @Test
     void save_shouldUpdateExistingUser() {
         givenPersistedUser();
@@ -91,6 +124,69 @@ class UserDAOTest {
         thenUsersHaveCorrectData();
     }
 
+    @Test
+    void streamAll_shouldReturnDTOsOrderedById() {
+        givenThreePersistedUsers();
+        whenStreamingAllUsers();
+        thenStreamedUsersAreOrderedById();
+    }
+
+    @Test
+    void findFieldsById_shouldSelectOnlyRequestedFields() {
+        givenPersistedUser();
+        whenFindingFieldsById();
+        thenOnlyRequestedFieldsAreReturned();
+    }
+
+    @Test
+    void findFieldsById_shouldReturnEmptyWhenNotExists() {
+        givenNoUsers();
+        whenFindingFieldsOfNonExistentUser();
+        thenNoFieldsAreReturned();
+    }
+
+    @Test
+    void findAllFields_shouldReturnRequestedFieldsForEveryUser() {
+        givenThreePersistedUsers();
+        whenFindingAllFields();
+        thenRequestedFieldsAreReturnedForEveryUser();
+    }
+
+    @Test
+    void findBy_shouldMatchLastNamePrefix() {
+        givenThreePersistedUsers();
+        whenSearching(UserSpecifications.lastNameStartsWith("Sm"), Sort.by("lastName", "firstName", "userId"), 10);
+        thenSearchReturns("Jane");
+    }
+
+    @Test
+    void findBy_shouldTreatLikeWildcardsInPrefixLiterally() {
+        givenThreePersistedUsers();
+        whenSearching(UserSpecifications.lastNameStartsWith("%"), Sort.by("userId"), 10);
+        thenSearchReturns();
+    }
+
+    @Test
+    void findBy_shouldFilterAgeRangeInAgeOrder() {
+        givenThreePersistedUsers();
+        whenSearching(UserSpecifications.ageAtLeast(26).and(UserSpecifications.ageAtMost(40)), Sort.by("age", "userId"), 10);
+        thenSearchReturns("John", "Bob");
+    }
+
+    @Test
+    void findBy_shouldContinueFromKeysetPosition() {
+        givenThreePersistedUsers();
+        whenScrollingPastFirstPage();
+        thenSecondPageStartsAfterFirst();
+    }
+
+    @Test
+    void countByAgeAndDomain_shouldGroupByAgeAndLowerCasedDomain() {
+        givenUsersInTwoDomains();
+        whenCountingByAgeAndDomain();
+        thenCountsAreGroupedByAgeAndDomain();
+    }
+
     @Test
     void existsById_shouldReturnTrueWhenUserExists() {
         givenPersistedUser();
@@ -119,6 +215,29 @@ class UserDAOTest {
         thenUserIsRemoved();
     }
 
+    @Test
+    void delete_shouldKeepTombstoneHiddenFromQueries() {
+        givenPersistedUser();
+        whenDeletingUser();
+        thenTombstoneIsKeptButHidden();
+    }
+
+    @Test
+    void purgeDeleted_shouldRemoveTombstonesInIdOrder() {
+        givenThreePersistedUsers();
+        List<User> all = userDAO.findAll(Sort.by("userId"));
+        userDAO.deleteAll(all.subList(0, 2));
+        entityManager.flush();
+        entityManager.clear();
+        List<Long> deletedIds = userDAO.findDeletedIds(Instant.now().plusSeconds(60), Long.MIN_VALUE, 10);
+        assertEquals(List.of(all.get(0).getUserId(), all.get(1).getUserId()), deletedIds);
+        assertEquals(List.of(all.get(1).getUserId()),
+                userDAO.findDeletedIds(Instant.now().plusSeconds(60), all.get(0).getUserId(), 10));
+        assertEquals(List.of(), userDAO.findDeletedIds(Instant.now().minusSeconds(60), Long.MIN_VALUE, 10));
+        assertEquals(2, userDAO.purgeDeleted(List.of(all.get(0).getUserId(), all.get(1).getUserId(), all.get(2).getUserId())));
+        assertEquals(1, countRows());
+    }
+
     @Test
     void count_shouldReturnZeroWhenNoUsers() {
         givenNoUsers();
@@ -126,6 +245,13 @@ class UserDAOTest {
         thenCountIsZero();
     }
 
+    @Test
+    void estimateCounts_shouldBeEmptyOutsidePostgreSQL() {
+        givenThreePersistedUsers();
+        assertTrue(userDAO.estimateTotalCount().isEmpty());
+        assertTrue(userDAO.estimateCount(new UserSearchCriteria("Do", 18, null, null)).isEmpty());
+    }
+
     @Test
     void count_shouldReturnCorrectCount() {
         givenThreePersistedUsers();
@@ -162,6 +288,13 @@ class UserDAOTest {
         entityManager.flush();
     }
 
+    private void givenUsersInTwoDomains() {
+        entityManager.persist(new User(null, "John", "Doe", 30, "john@example.com"));
+        entityManager.persist(new User(null, "Jack", "Doe", 30, "jack@EXAMPLE.com"));
+        entityManager.persist(new User(null, "Jane", "Smith", 25, "jane@test.org"));
+        entityManager.flush();
+    }
+
     private void whenSavingUser() {
         savedUser = userDAO.save(testUser);
     }
@@ -191,6 +324,42 @@ class UserDAOTest {
         users = userDAO.findAll();
     }
 
+    private void whenStreamingAllUsers() {
+        try (Stream<UserDTO> stream = userDAO.streamAll()) {
+            streamedUsers = stream.toList();
+        }
+    }
+
+    private void whenFindingFieldsById() {
+        foundFields = userDAO.findFieldsById(userId, List.of(UserField.EMAIL, UserField.USER_ID));
+    }
+
+    private void whenFindingFieldsOfNonExistentUser() {
+        foundFields = userDAO.findFieldsById(999L, List.of(UserField.EMAIL));
+    }
+
+    private void whenFindingAllFields() {
+        allFields = userDAO.findAllFields(List.of(UserField.FIRST_NAME, UserField.AGE));
+    }
+
+    private void whenSearching(Specification<User> specification, Sort sort, int limit) {
+        window = userDAO.findBy(specification, query -> query.sortBy(sort).limit(limit).scroll(ScrollPosition.keyset()));
+    }
+
+    private void whenScrollingPastFirstPage() {
+        Sort sort = Sort.by("lastName", "firstName", "userId");
+        Window<User> first = userDAO.findBy(Specification.<User>allOf(List.of()),
+                query -> query.sortBy(sort).limit(1).scroll(ScrollPosition.keyset()));
+        assertTrue(first.hasNext());
+        assertEquals("Doe", first.getContent().get(0).getLastName());
+        window = userDAO.findBy(Specification.<User>allOf(List.of()),
+                query -> query.sortBy(sort).limit(1).scroll(first.positionAt(0)));
+    }
+
+    private void whenCountingByAgeAndDomain() {
+        ageDomainCounts = userDAO.countByAgeAndDomain();
+    }
+
     private void whenCheckingIfUserExists() {
         exists = userDAO.existsById(testUser.getUserId());
     }
@@ -271,6 +440,47 @@ class UserDAOTest {
         assertEquals(25, jane.getAge());
     }
 
+    private void thenStreamedUsersAreOrderedById() {
+        assertEquals(3, streamedUsers.size());
+        assertTrue(streamedUsers.get(0).userId() < streamedUsers.get(1).userId());
+        assertTrue(streamedUsers.get(1).userId() < streamedUsers.get(2).userId());
+        assertEquals("John", streamedUsers.get(0).firstName());
+    }
+
+    private void thenOnlyRequestedFieldsAreReturned() {
+        assertTrue(foundFields.isPresent());
+        assertEquals(List.of("email", "userId"), List.copyOf(foundFields.get().keySet()));
+        assertEquals("john@example.com", foundFields.get().get("email"));
+        assertEquals(userId, foundFields.get().get("userId"));
+    }
+
+    private void thenNoFieldsAreReturned() {
+        assertTrue(foundFields.isEmpty());
+    }
+
+    private void thenRequestedFieldsAreReturnedForEveryUser() {
+        assertEquals(3, allFields.size());
+        assertEquals(Map.of("firstName", "John", "age", 30), allFields.get(0));
+        assertEquals(Map.of("firstName", "Bob", "age", 35), allFields.get(2));
+    }
+
+    private void thenSearchReturns(String... firstNames) {
+        assertEquals(List.of(firstNames), window.getContent().stream().map(User::getFirstName).toList());
+    }
+
+    private void thenSecondPageStartsAfterFirst() {
+        assertEquals(1, window.size());
+        assertEquals("Smith", window.getContent().get(0).getLastName());
+        assertTrue(window.hasNext());
+    }
+
+    private void thenCountsAreGroupedByAgeAndDomain() {
+        assertEquals(2, ageDomainCounts.size());
+        AgeDomainCount example = ageDomainCounts.stream().filter(row -> row.getAge() == 30).findFirst().orElseThrow();
+        assertEquals("example.com", example.getDomain());
+        assertEquals(2L, example.getUsers());
+    }
+
     private void thenUserExists() {
         assertTrue(exists);
     }
@@ -279,6 +489,21 @@ class UserDAOTest {
         assertFalse(exists);
     }
 
+    private void thenTombstoneIsKeptButHidden() {
+        assertEquals(1, countRows());
+        assertTrue(userDAO.findById(userId).isEmpty());
+        assertTrue(userDAO.findByEmail("john@example.com").isEmpty());
+        assertFalse(userDAO.existsById(userId));
+        assertEquals(0, userDAO.count());
+        try (Stream<UserDTO> stream = userDAO.streamAll()) {
+            assertEquals(0, stream.count());
+        }
+    }
+
+    private long countRows() {
+        return ((Number) entityManager.createNativeQuery("select count(*) from users").getSingleResult()).longValue();
+    }
+
     private void thenUserIsRemoved() {
         User deletedUser = entityManager.find(User.class, userId);
         assertNull(deletedUser);
@@ -0,0 +1,187 @@
+package com.unstampedpages.dao;
+
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.service.UserService;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.postgresql.PostgreSQLContainer;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks on a real PostgreSQL, with its default (non-C) collation, that the search queries Hibernate
+ * generates from {@link UserSpecifications} and the keyset cursors, with the entity's
+ * {@code deleted_at is null} restriction, and the purge of deleted users are served by the indexes
+ * from the Flyway migrations. The search statements are captured as Hibernate prepares them, with
+ * criteria values inlined so that the planner sees them, and explained as they are. Skipped when
+ * Docker is unavailable.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "spring.jpa.database-platform=org.hibernate.dialect.PostgreSQLDialect",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "spring.jpa.properties.hibernate.default_schema=unstampedpages",
+        "spring.jpa.properties.hibernate.criteria.value_handling_mode=inline",
+        "users.sql-stats.enabled=false",
+        "users.purge.enabled=false"
+})
+class UserSearchQueryPlanTest {
+
+    private static final int ROWS = 200_000;
+    private static final int PAGE = 50;
+    private static final List<String> prepared = new CopyOnWriteArrayList<>();
+
+    @Container
+    private static final PostgreSQLContainer postgres = new PostgreSQLContainer("postgres:17-alpine");
+
+    @Autowired
+    private UserService userService;
+
+    private String explained;
+    private String plan;
+
+    @TestConfiguration
+    static class CapturedStatements {
+
+        @Bean
+        HibernatePropertiesCustomizer capturingStatementInspector() {
+            return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, (StatementInspector) sql -> {
+                prepared.add(sql);
+                return sql;
+            });
+        }
+    }
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", postgres::getJdbcUrl);
+        registry.add("spring.datasource.username", postgres::getUsername);
+        registry.add("spring.datasource.password", postgres::getPassword);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+    }
+
+    @BeforeAll
+    static void migrateAndLoad() throws SQLException {
+        Flyway.configure()
+                .dataSource(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword())
+                .schemas("unstampedpages")
+                .defaultSchema("unstampedpages")
+                .load()
+                .migrate();
+        try (Connection connection = connect(); Statement statement = connection.createStatement()) {
+            statement.execute("""
+                    insert into users (user_id, first_name, last_name, age, email)
+                    select i, 'First' || i, 'Last' || (i % 5000), 18 + (i % 80), 'user' || i || '@example.com'
+                    from generate_series(1, %d) as i
+                    """.formatted(ROWS));
+            statement.execute("update users set deleted_at = now() - interval '2 hours' where user_id % 100 = 0");
+            statement.execute("analyze users");
+        }
+    }
+
+    @Test
+    void lastNamePrefixSearch_shouldUsePatternOpsIndex() throws SQLException {
+        whenExplainingSearch(new UserSearchCriteria("Last123", null, null, UserSearchSort.NAME), null);
+        thenPlanUses("idx_users_last_first_pattern");
+    }
+
+    @Test
+    void nameSearch_shouldUseNameIndex() throws SQLException {
+        whenExplainingSearch(new UserSearchCriteria(null, null, null, UserSearchSort.NAME), null);
+        thenPlanUses("idx_users_last_first_user_id");
+    }
+
+    @Test
+    void nameKeysetContinuation_shouldUseNameIndex() throws SQLException {
+        UserSearchCriteria criteria = new UserSearchCriteria(null, null, null, UserSearchSort.NAME);
+        whenExplainingSearch(criteria, nextCursor(criteria));
+        thenPlanUses("idx_users_last_first_user_id");
+    }
+
+    @Test
+    void ageRangeSearch_shouldUseAgeIndex() throws SQLException {
+        whenExplainingSearch(new UserSearchCriteria(null, 30, 30, UserSearchSort.AGE), null);
+        thenPlanUses("idx_users_age_user_id");
+    }
+
+    @Test
+    void ageKeysetContinuation_shouldUseAgeIndex() throws SQLException {
+        UserSearchCriteria criteria = new UserSearchCriteria(null, 30, 40, UserSearchSort.AGE);
+        whenExplainingSearch(criteria, nextCursor(criteria));
+        thenPlanUses("idx_users_age_user_id");
+    }
+
+    @Test
+    void purgeBatch_shouldUseDeletedUsersIndex() throws SQLException {
+        // the native query of UserDAO.findDeletedIds, with its parameters filled in
+        whenExplaining("""
+                select user_id from users where deleted_at < now() - interval '1 hour' and user_id > 1000
+                order by user_id limit 500
+                """);
+        thenPlanUses("idx_users_deleted_user_id");
+    }
+
+    private String nextCursor(UserSearchCriteria criteria) {
+        String cursor = userService.searchUsers(criteria, null, PAGE).nextCursor();
+        assertNotNull(cursor);
+        return cursor;
+    }
+
+    private void whenExplainingSearch(UserSearchCriteria criteria, String cursor) throws SQLException {
+        prepared.clear();
+        userService.searchUsers(criteria, cursor, PAGE);
+        String sql = prepared.stream()
+                .filter(statement -> statement.startsWith("select") && statement.contains("order by"))
+                .reduce((first, second) -> second)
+                .orElseThrow(() -> new AssertionError("No search statement in " + prepared));
+        // criteria values are inlined; what is left bound is the page size (one row more, to detect a next page)
+        assertEquals(1, sql.chars().filter(c -> c == '?').count(), () -> "Expected only the limit bound: " + sql);
+        whenExplaining(sql.replace("?", String.valueOf(PAGE + 1)));
+    }
+
+    private void whenExplaining(String sql) throws SQLException {
+        StringBuilder lines = new StringBuilder();
+        try (Connection connection = connect(); Statement statement = connection.createStatement();
+             ResultSet result = statement.executeQuery("explain " + sql)) {
+            while (result.next()) {
+                lines.append(result.getString(1)).append('\n');
+            }
+        }
+        explained = sql;
+        plan = lines.toString();
+    }
+
+    private void thenPlanUses(String index) {
+        assertTrue(plan.contains(index), () -> "Expected " + index + " in plan of " + explained + ":\n" + plan);
+        assertFalse(plan.contains("Seq Scan"), () -> "Unexpected sequential scan in plan of " + explained + ":\n" + plan);
+    }
+
+    private static Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(postgres.getJdbcUrl(), postgres.getUsername(), postgres.getPassword());
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("set search_path to unstampedpages");
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,106 @@
+package com.unstampedpages.directory;
+
+import com.unstampedpages.dto.UserDTO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserDirectorySnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    private final List<UserDTO> users = new ArrayList<>();
+    private UserDirectorySnapshot snapshot;
+
+    @Test
+    void find_shouldReturnUsersById() throws IOException {
+        givenUsers(1_000);
+        whenSnapshotIsWrittenAndOpened();
+        thenEveryUserIsFoundById();
+    }
+
+    @Test
+    void findByEmail_shouldReturnUsersByEmail() throws IOException {
+        givenUsers(1_000);
+        whenSnapshotIsWrittenAndOpened();
+        thenEveryUserIsFoundByEmail();
+    }
+
+    @Test
+    void find_shouldReturnNullForUnknownUsers() throws IOException {
+        givenUsers(10);
+        whenSnapshotIsWrittenAndOpened();
+        assertNull(snapshot.find(999_999L));
+        assertNull(snapshot.findByEmail("nobody@example.com"));
+    }
+
+    @Test
+    void find_shouldRoundTripNonAsciiNames() throws IOException {
+        users.add(new UserDTO(7L, "Zoë", "Ōkubo 大久保", 41, "zoë@example.com"));
+        whenSnapshotIsWrittenAndOpened();
+        assertEquals(users.getFirst(), snapshot.find(7L));
+        assertEquals(users.getFirst(), snapshot.findByEmail("zoë@example.com"));
+    }
+
+    @Test
+    void write_shouldLeaveOutUsersWithNulInNames() throws IOException {
+        users.add(new UserDTO(1L, "Jo\0hn", "Doe", 30, "john@example.com"));
+        users.add(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com"));
+        whenSnapshotIsWrittenAndOpened();
+        assertEquals(1, snapshot.count());
+        assertNull(snapshot.find(1L));
+        assertEquals("Jane", snapshot.find(2L).firstName());
+    }
+
+    @Test
+    void write_shouldHandleNoUsers() throws IOException {
+        whenSnapshotIsWrittenAndOpened();
+        assertEquals(0, snapshot.count());
+        assertNull(snapshot.find(1L));
+    }
+
+    @Test
+    void open_shouldRejectTruncatedFile() throws IOException {
+        givenUsers(10);
+        whenSnapshotIsWrittenAndOpened();
+        Path truncated = directory.resolve("truncated");
+        byte[] bytes = Files.readAllBytes(directory.resolve("users.snapshot"));
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IllegalStateException.class, () -> UserDirectorySnapshot.open(truncated));
+    }
+
+    private void givenUsers(int count) {
+        for (long id = 1; id <= count; id++) {
+            // Snowflake-like ids: spread in the high bits, equal in the low ones
+            users.add(new UserDTO(id << 22, "First" + id, "Last" + id, (int) (id % 90), "user" + id + "@example.com"));
+        }
+    }
+
+    private void whenSnapshotIsWrittenAndOpened() throws IOException {
+        Path path = directory.resolve("users.snapshot");
+        UserDirectorySnapshot.write(path, consumer -> users.forEach(consumer));
+        snapshot = UserDirectorySnapshot.open(path);
+    }
+
+    private void thenEveryUserIsFoundById() {
+        assertEquals(users.size(), snapshot.count());
+        for (UserDTO user : users) {
+            assertEquals(user, snapshot.find(user.userId()));
+        }
+    }
+
+    private void thenEveryUserIsFoundByEmail() {
+        for (UserDTO user : users) {
+            assertEquals(user, snapshot.findByEmail(user.email()));
+        }
+    }
+}
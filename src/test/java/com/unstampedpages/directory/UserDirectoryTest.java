@@ -0,0 +1,144 @@
+package com.unstampedpages.directory;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.shard.UserShards;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserDirectoryTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+    private static final UserDTO JANE = new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com");
+
+    @Mock
+    private UserDAO userDAO;
+
+    @TempDir
+    private Path path;
+
+    private UserDirectory directory;
+
+    @Test
+    void load_shouldBuildSnapshotFromDatabase() throws IOException {
+        givenDatabaseHas(JOHN, JANE);
+        whenDirectoryIsLoaded();
+        thenUsersAreFound(JOHN, JANE);
+        assertTrue(Files.exists(path.resolve(UserDirectory.SNAPSHOT_FILE)));
+    }
+
+    @Test
+    void find_shouldReturnNullBeforeLoad() {
+        directory = newDirectory();
+        assertFalse(directory.isLoaded());
+        assertNull(directory.find(1L));
+        assertNull(directory.findByEmail("john@example.com"));
+    }
+
+    @Test
+    void onUserChanged_shouldServeCreatesUpdatesAndDeletes() throws IOException {
+        givenDatabaseHas(JOHN, JANE);
+        whenDirectoryIsLoaded();
+        UserDTO created = new UserDTO(3L, "Max", "Mustermann", 40, "max@example.com");
+        UserDTO renamed = new UserDTO(1L, "Johnny", "Doe", 31, "johnny@example.com");
+        whenUserChanges(3L, null, created);
+        whenUserChanges(1L, JOHN, renamed);
+        whenUserChanges(2L, JANE, null);
+        thenDirectoryReflectsChanges(created, renamed);
+    }
+
+    @Test
+    void load_shouldReplayLoggedChangesWithoutRebuilding() throws IOException {
+        givenDatabaseHas(JOHN, JANE);
+        whenDirectoryIsLoaded();
+        UserDTO renamed = new UserDTO(1L, "Johnny", "Doe", 31, "johnny@example.com");
+        whenUserChanges(1L, JOHN, renamed);
+        whenUserChanges(2L, JANE, null);
+        whenDirectoryIsRestarted();
+        assertEquals(renamed, directory.find(1L));
+        assertNull(directory.find(2L));
+        assertNull(directory.findByEmail("john@example.com"));
+        verify(userDAO, times(1)).streamAll();
+    }
+
+    @Test
+    void load_shouldTruncateIncompleteLogRecord() throws IOException {
+        givenDatabaseHas(JOHN);
+        whenDirectoryIsLoaded();
+        whenUserChanges(2L, null, JANE);
+        long complete = Files.size(path.resolve(UserDirectory.LOG_FILE));
+        Files.write(path.resolve(UserDirectory.LOG_FILE), new byte[]{0, 0, 0, 42, 1}, StandardOpenOption.APPEND);
+        whenDirectoryIsRestarted();
+        assertEquals(JANE, directory.find(2L));
+        assertEquals(complete, Files.size(path.resolve(UserDirectory.LOG_FILE)));
+    }
+
+    @Test
+    void rebuild_shouldFoldLogIntoSnapshot() throws IOException {
+        givenDatabaseHas(JOHN);
+        whenDirectoryIsLoaded();
+        whenUserChanges(2L, null, JANE);
+        givenDatabaseHas(JOHN, JANE);
+        directory.rebuild();
+        assertEquals(0, Files.size(path.resolve(UserDirectory.LOG_FILE)));
+        thenUsersAreFound(JOHN, JANE);
+    }
+
+    @Test
+    void load_shouldRebuildUnreadableSnapshot() throws IOException {
+        Files.write(path.resolve(UserDirectory.SNAPSHOT_FILE), new byte[]{1, 2, 3});
+        givenDatabaseHas(JOHN);
+        whenDirectoryIsLoaded();
+        thenUsersAreFound(JOHN);
+    }
+
+    private void givenDatabaseHas(UserDTO... users) {
+        when(userDAO.streamAll()).thenAnswer(invocation -> Stream.of(users));
+    }
+
+    private void whenDirectoryIsLoaded() throws IOException {
+        directory = newDirectory();
+        directory.load();
+    }
+
+    private void whenDirectoryIsRestarted() throws IOException {
+        whenDirectoryIsLoaded();
+    }
+
+    private void whenUserChanges(long userId, UserDTO previous, UserDTO current) {
+        directory.onUserChanged(new UserChangedEvent(userId, previous, current));
+    }
+
+    private void thenUsersAreFound(UserDTO... users) {
+        for (UserDTO user : users) {
+            assertEquals(user, directory.find(user.userId()));
+            assertEquals(user, directory.findByEmail(user.email()));
+        }
+    }
+
+    private void thenDirectoryReflectsChanges(UserDTO created, UserDTO renamed) {
+        thenUsersAreFound(created, renamed);
+        assertNull(directory.findByEmail("john@example.com"));
+        assertNull(directory.find(2L));
+        assertNull(directory.findByEmail("jane@example.com"));
+    }
+
+    private UserDirectory newDirectory() {
+        return new UserDirectory(userDAO, UserShards.unsharded(), TransactionOperations.withoutTransaction(), path);
+    }
+}
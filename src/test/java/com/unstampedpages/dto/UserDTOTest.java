@@ -1,6 +1,7 @@
 package com.unstampedpages.dto;
 
 import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -8,6 +9,7 @@ class UserDTOTest {
 
     private UserDTO userDTO;
     private UserDTO anotherUserDTO;
+    private String json;
 
     @Test
     void constructor_shouldSetAllFields() {
@@ -45,6 +47,13 @@ class UserDTOTest {
         thenHashCodesAreEqual();
     }
 
+    @Test
+    void json_shouldCarryUserIdAsStringBeyondJavaScriptPrecision() {
+        givenUserDTOWithSnowflakeId();
+        whenWritingJson();
+        thenJsonHasStringUserIdThatReadsBack();
+    }
+
     @Test
     void toString_shouldContainAllFields() {
         givenUserDTOWithAllArgs();
@@ -55,6 +64,19 @@ class UserDTOTest {
         userDTO = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
     }
 
+    private void givenUserDTOWithSnowflakeId() {
+        userDTO = new UserDTO((1L << 57) + 1, "John", "Doe", 30, "john@example.com");
+    }
+
+    private void whenWritingJson() {
+        json = JsonMapper.builder().build().writeValueAsString(userDTO);
+    }
+
+    private void thenJsonHasStringUserIdThatReadsBack() {
+        assertTrue(json.contains("\"userId\":\"144115188075855873\""), json);
+        assertEquals(userDTO, JsonMapper.builder().build().readValue(json, UserDTO.class));
+    }
+
     private void givenUserDTOWithNullUserId() {
         userDTO = new UserDTO(null, "John", "Doe", 30, "john@example.com");
     }
@@ -0,0 +1,49 @@
+package com.unstampedpages.dto;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserFieldTest {
+
+    private List<UserField> parsed;
+
+    @Test
+    void parseList_shouldKeepRequestedOrder() {
+        whenParsing("email,userId");
+        thenFieldsAre(UserField.EMAIL, UserField.USER_ID);
+    }
+
+    @Test
+    void parseList_shouldIgnoreWhitespaceAndDuplicates() {
+        whenParsing(" userId , email,userId,");
+        thenFieldsAre(UserField.USER_ID, UserField.EMAIL);
+    }
+
+    @Test
+    void parseList_shouldRejectUnknownField() {
+        assertThrows(IllegalArgumentException.class, () -> UserField.parseList("userId,password"));
+    }
+
+    @Test
+    void parseList_shouldRejectEmptyList() {
+        assertThrows(IllegalArgumentException.class, () -> UserField.parseList(" , "));
+    }
+
+    @Test
+    void propertyName_shouldMatchUserDTOComponents() {
+        assertEquals("firstName", UserField.FIRST_NAME.propertyName());
+        assertEquals("lastName", UserField.LAST_NAME.propertyName());
+        assertEquals("age", UserField.AGE.propertyName());
+    }
+
+    private void whenParsing(String fields) {
+        parsed = UserField.parseList(fields);
+    }
+
+    private void thenFieldsAre(UserField... expected) {
+        assertEquals(List.of(expected), parsed);
+    }
+}
@@ -0,0 +1,122 @@
+package com.unstampedpages.grpc;
+
+import com.unstampedpages.admission.AdmissionControl;
+import com.unstampedpages.admission.AdmissionProperties;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.grpc.v1.CreateUserRequest;
+import com.unstampedpages.grpc.v1.GetUserRequest;
+import com.unstampedpages.grpc.v1.UserServiceGrpc;
+import com.unstampedpages.service.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.ServerInterceptors;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class AdmissionControlInterceptorTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+    @Mock
+    private UserService userService;
+
+    private AdmissionControl admissionControl;
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+    private StatusRuntimeException statusException;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        AdmissionProperties properties = new AdmissionProperties(true,
+                new AdmissionProperties.Limits(1, 1, 4),
+                new AdmissionProperties.Limits(1, 1, 4),
+                Duration.ofSeconds(1), 0.5, Duration.ofSeconds(2));
+        admissionControl = new AdmissionControl(properties, () -> false);
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .addService(ServerInterceptors.intercept(new UserGrpcService(userService),
+                        new AdmissionControlInterceptor(admissionControl, properties.retryAfter())))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        executor.shutdownNow();
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void interceptCall_shouldShedReadsBeyondLimitWithUnavailableAndPushback() throws Exception {
+        givenReadInProgress();
+        whenGettingUserFails();
+        assertEquals(Status.Code.UNAVAILABLE, statusException.getStatus().getCode());
+        assertEquals("2000", statusException.getTrailers().get(AdmissionControlInterceptor.RETRY_PUSHBACK));
+        assertEquals(1, admissionControl.reads().rejected());
+    }
+
+    @Test
+    void interceptCall_shouldAdmitWritesWhileReadsAreSaturated() throws Exception {
+        givenReadInProgress();
+        when(userService.createUser("John", "Doe", 30, "john@example.com")).thenReturn(JOHN);
+        stub.createUser(CreateUserRequest.newBuilder()
+                .setFirstName("John").setLastName("Doe").setAge(30).setEmail("john@example.com").build());
+        assertEquals(0, admissionControl.writes().rejected());
+        assertEquals(0, admissionControl.writes().inFlight());
+    }
+
+    @Test
+    void interceptCall_shouldReleasePermitWhenCallCompletes() throws Exception {
+        Future<?> read = givenReadInProgress();
+        release.countDown();
+        read.get(5, TimeUnit.SECONDS);
+        assertEquals(0, admissionControl.reads().inFlight());
+        stub.getUser(GetUserRequest.newBuilder().setUserId(1L).build());
+        assertEquals(0, admissionControl.reads().rejected());
+    }
+
+    private Future<?> givenReadInProgress() throws InterruptedException {
+        when(userService.getUser(1L)).thenAnswer(invocation -> {
+            entered.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(JOHN);
+        });
+        Future<?> read = executor.submit(() -> stub.getUser(GetUserRequest.newBuilder().setUserId(1L).build()));
+        assertTrue(entered.await(5, TimeUnit.SECONDS));
+        return read;
+    }
+
+    private void whenGettingUserFails() {
+        statusException = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetUserRequest.newBuilder().setUserId(1L).build()));
+    }
+}
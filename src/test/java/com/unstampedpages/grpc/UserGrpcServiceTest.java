@@ -0,0 +1,258 @@
+package com.unstampedpages.grpc;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.grpc.v1.CreateUserRequest;
+import com.unstampedpages.grpc.v1.DeleteUserRequest;
+import com.unstampedpages.grpc.v1.GetManyUsersRequest;
+import com.unstampedpages.grpc.v1.GetManyUsersResponse;
+import com.unstampedpages.grpc.v1.GetUserRequest;
+import com.unstampedpages.grpc.v1.ListUsersRequest;
+import com.unstampedpages.grpc.v1.UpdateUserRequest;
+import com.unstampedpages.grpc.v1.UserMessage;
+import com.unstampedpages.grpc.v1.UserServiceGrpc;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.service.UserService;
+import io.grpc.ManagedChannel;
+import io.grpc.Server;
+import io.grpc.Status;
+import io.grpc.StatusRuntimeException;
+import io.grpc.inprocess.InProcessChannelBuilder;
+import io.grpc.inprocess.InProcessServerBuilder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserGrpcServiceTest {
+
+    private static final UserSearchCriteria ALL_USERS = new UserSearchCriteria(null, null, null, UserSearchSort.ID);
+
+    @Mock
+    private UserService userService;
+
+    private Server server;
+    private ManagedChannel channel;
+    private UserServiceGrpc.UserServiceBlockingStub stub;
+    private UserMessage resultMessage;
+    private GetManyUsersResponse manyResponse;
+    private List<UserMessage> streamedMessages;
+    private StatusRuntimeException statusException;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        String name = InProcessServerBuilder.generateName();
+        server = InProcessServerBuilder.forName(name)
+                .directExecutor()
+                .addService(new UserGrpcService(userService))
+                .build()
+                .start();
+        channel = InProcessChannelBuilder.forName(name).directExecutor().build();
+        stub = UserServiceGrpc.newBlockingStub(channel);
+    }
+
+    @AfterEach
+    void tearDown() {
+        channel.shutdownNow();
+        server.shutdownNow();
+    }
+
+    @Test
+    void getUser_shouldReturnUserWhenExists() {
+        givenUserExists();
+        whenGettingUser(1L);
+        thenJohnIsReturned();
+    }
+
+    @Test
+    void getUser_shouldFailWithNotFoundWhenNotExists() {
+        givenUserDoesNotExist();
+        whenGettingNonExistentUser();
+        thenNotFoundStatusIsReturned();
+    }
+
+    @Test
+    void getManyUsers_shouldReturnAllRequestedUsers() {
+        givenUsersExistForBatch();
+        whenGettingManyUsers();
+        thenAllRequestedUsersAreReturned();
+    }
+
+    @Test
+    void createUser_shouldReturnCreatedUser() {
+        givenUserWillBeCreated();
+        whenCreatingUser();
+        thenJohnIsReturned();
+    }
+
+    @Test
+    void updateUser_shouldFailWithNotFoundWhenNotExists() {
+        givenUserDoesNotExistForUpdate();
+        whenUpdatingNonExistentUser();
+        thenNotFoundStatusIsReturned();
+    }
+
+    @Test
+    void deleteUser_shouldFailWithNotFoundWhenNotExists() {
+        givenUserDoesNotExistForDeletion();
+        whenDeletingNonExistentUser();
+        thenNotFoundStatusIsReturned();
+    }
+
+    @Test
+    void createUser_shouldFailWithAlreadyExistsForDuplicateEmail() {
+        givenEmailIsTaken();
+        whenCreatingUserFails();
+        assertEquals(Status.Code.ALREADY_EXISTS, statusException.getStatus().getCode());
+    }
+
+    @Test
+    void getUser_shouldFailWithUnavailableWhileDatabaseIsDown() {
+        givenDatabaseIsDown();
+        whenGettingNonExistentUser();
+        assertEquals(Status.Code.UNAVAILABLE, statusException.getStatus().getCode());
+    }
+
+    @Test
+    void listUsers_shouldStreamEveryUser() {
+        givenUsersWillBeStreamed();
+        whenListingUsers();
+        thenEveryUserIsStreamed();
+    }
+
+    @Test
+    void listUsers_shouldContinueFromEachPageCursor() {
+        givenUsersAreListedInTwoPages();
+        whenListingUsers();
+        thenEveryUserIsStreamed();
+        verify(userService).searchUsers(ALL_USERS, "page-2", UserGrpcService.LIST_PAGE_SIZE);
+    }
+
+    private void givenUserExists() {
+        when(userService.getUser(1L)).thenReturn(Optional.of(new UserDTO(1L, "John", "Doe", 30, "john@example.com")));
+    }
+
+    private void givenUserDoesNotExist() {
+        when(userService.getUser(999L)).thenReturn(Optional.empty());
+    }
+
+    private void givenUsersExistForBatch() {
+        when(userService.getUsers(List.of(1L, 2L))).thenReturn(List.of(
+                new UserDTO(1L, "John", "Doe", 30, "john@example.com"),
+                new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com")));
+    }
+
+    private void givenUserWillBeCreated() {
+        when(userService.createUser("John", "Doe", 30, "john@example.com"))
+                .thenReturn(new UserDTO(1L, "John", "Doe", 30, "john@example.com"));
+    }
+
+    private void givenUserDoesNotExistForUpdate() {
+        when(userService.updateUser(999L, "Jane", "Smith", 25, "jane@example.com")).thenReturn(Optional.empty());
+    }
+
+    private void givenUserDoesNotExistForDeletion() {
+        when(userService.deleteUser(999L)).thenReturn(false);
+    }
+
+    private void givenEmailIsTaken() {
+        when(userService.createUser("John", "Doe", 30, "john@example.com"))
+                .thenThrow(new DataIntegrityViolationException("users_email_live_key"));
+    }
+
+    private void givenDatabaseIsDown() {
+        when(userService.getUser(999L))
+                .thenThrow(new DatabaseUnavailableException("Database circuit breaker is open", Duration.ofSeconds(1), null));
+    }
+
+    private void givenUsersWillBeStreamed() {
+        when(userService.searchUsers(ALL_USERS, null, UserGrpcService.LIST_PAGE_SIZE)).thenReturn(new UserSearchResult(List.of(
+                new UserDTO(1L, "John", "Doe", 30, "john@example.com"),
+                new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com")), null));
+    }
+
+    private void givenUsersAreListedInTwoPages() {
+        when(userService.searchUsers(ALL_USERS, null, UserGrpcService.LIST_PAGE_SIZE)).thenReturn(new UserSearchResult(
+                List.of(new UserDTO(1L, "John", "Doe", 30, "john@example.com")), "page-2"));
+        when(userService.searchUsers(ALL_USERS, "page-2", UserGrpcService.LIST_PAGE_SIZE)).thenReturn(new UserSearchResult(
+                List.of(new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com")), null));
+    }
+
+    private void whenGettingUser(long id) {
+        resultMessage = stub.getUser(GetUserRequest.newBuilder().setUserId(id).build());
+    }
+
+    private void whenGettingNonExistentUser() {
+        statusException = assertThrows(StatusRuntimeException.class,
+                () -> stub.getUser(GetUserRequest.newBuilder().setUserId(999L).build()));
+    }
+
+    private void whenCreatingUserFails() {
+        statusException = assertThrows(StatusRuntimeException.class, () -> stub.createUser(CreateUserRequest.newBuilder()
+                .setFirstName("John").setLastName("Doe").setAge(30).setEmail("john@example.com").build()));
+    }
+
+    private void whenGettingManyUsers() {
+        manyResponse = stub.getManyUsers(GetManyUsersRequest.newBuilder().addUserIds(1L).addUserIds(2L).build());
+    }
+
+    private void whenCreatingUser() {
+        resultMessage = stub.createUser(CreateUserRequest.newBuilder()
+                .setFirstName("John").setLastName("Doe").setAge(30).setEmail("john@example.com").build());
+    }
+
+    private void whenUpdatingNonExistentUser() {
+        statusException = assertThrows(StatusRuntimeException.class,
+                () -> stub.updateUser(UpdateUserRequest.newBuilder().setUserId(999L)
+                        .setFirstName("Jane").setLastName("Smith").setAge(25).setEmail("jane@example.com").build()));
+    }
+
+    private void whenDeletingNonExistentUser() {
+        statusException = assertThrows(StatusRuntimeException.class,
+                () -> stub.deleteUser(DeleteUserRequest.newBuilder().setUserId(999L).build()));
+    }
+
+    private void whenListingUsers() {
+        streamedMessages = new ArrayList<>();
+        stub.listUsers(ListUsersRequest.getDefaultInstance()).forEachRemaining(streamedMessages::add);
+    }
+
+    private void thenJohnIsReturned() {
+        assertEquals(1L, resultMessage.getUserId());
+        assertEquals("John", resultMessage.getFirstName());
+        assertEquals("Doe", resultMessage.getLastName());
+        assertEquals(30, resultMessage.getAge());
+        assertEquals("john@example.com", resultMessage.getEmail());
+    }
+
+    private void thenNotFoundStatusIsReturned() {
+        assertEquals(Status.Code.NOT_FOUND, statusException.getStatus().getCode());
+    }
+
+    private void thenAllRequestedUsersAreReturned() {
+        assertEquals(2, manyResponse.getUsersCount());
+        assertEquals("John", manyResponse.getUsers(0).getFirstName());
+        assertEquals("Jane", manyResponse.getUsers(1).getFirstName());
+        verify(userService, times(1)).getUsers(List.of(1L, 2L));
+    }
+
+    private void thenEveryUserIsStreamed() {
+        assertEquals(2, streamedMessages.size());
+        assertEquals(1L, streamedMessages.get(0).getUserId());
+        assertEquals(2L, streamedMessages.get(1).getUserId());
+    }
+}
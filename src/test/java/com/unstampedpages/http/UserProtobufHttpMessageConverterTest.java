@@ -0,0 +1,113 @@
+package com.unstampedpages.http;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.grpc.v1.UserList;
+import com.unstampedpages.grpc.v1.UserMessage;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.mock.http.MockHttpInputMessage;
+import org.springframework.mock.http.MockHttpOutputMessage;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.lang.reflect.Type;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserProtobufHttpMessageConverterTest {
+
+    private static final Type USER_LIST = new ParameterizedTypeReference<List<UserDTO>>() { }.getType();
+    private static final Type MAP_LIST = new ParameterizedTypeReference<List<Map<String, Object>>>() { }.getType();
+
+    private UserProtobufHttpMessageConverter converter;
+    private MockHttpOutputMessage outputMessage;
+    private UserDTO readUser;
+
+    @BeforeEach
+    void setUp() {
+        converter = new UserProtobufHttpMessageConverter();
+        outputMessage = new MockHttpOutputMessage();
+    }
+
+    @Test
+    void canWrite_shouldAcceptUserAndUserList() {
+        assertTrue(converter.canWrite(UserDTO.class, UserDTO.class, UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+        assertTrue(converter.canWrite(USER_LIST, List.class, UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+    }
+
+    @Test
+    void canWrite_shouldRejectOtherTypesAndMediaTypes() {
+        assertFalse(converter.canWrite(MAP_LIST, List.class, UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF));
+        assertFalse(converter.canWrite(UserDTO.class, UserDTO.class, MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void write_shouldEncodeSingleUser() throws Exception {
+        whenWritingUser();
+        thenSingleUserIsEncoded();
+    }
+
+    @Test
+    void write_shouldEncodeUserList() throws Exception {
+        whenWritingUserList();
+        thenUserListIsEncoded();
+    }
+
+    @Test
+    void write_shouldEncodeUserListSmallerThanJson() throws Exception {
+        List<UserDTO> users = LongStream.rangeClosed(1, 100)
+                .mapToObj(id -> new UserDTO(id, "First" + id, "Last" + id, 30, "user" + id + "@example.com"))
+                .toList();
+        converter.write(users, USER_LIST, UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF, outputMessage);
+        assertTrue(outputMessage.getBodyAsBytes().length < JsonMapper.builder().build().writeValueAsBytes(users).length);
+    }
+
+    @Test
+    void read_shouldDecodeUserWithoutId() throws Exception {
+        whenReadingUserWithoutId();
+        thenUserIsDecodedWithNullId();
+    }
+
+    private void whenWritingUser() throws Exception {
+        converter.write(new UserDTO(1L, "John", "Doe", 30, "john@example.com"), UserDTO.class,
+                UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF, outputMessage);
+    }
+
+    private void whenWritingUserList() throws Exception {
+        converter.write(List.of(
+                        new UserDTO(1L, "John", "Doe", 30, "john@example.com"),
+                        new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com")),
+                USER_LIST, UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF, outputMessage);
+    }
+
+    private void whenReadingUserWithoutId() throws Exception {
+        byte[] body = UserMessage.newBuilder()
+                .setFirstName("Jane").setLastName("Smith").setAge(25).setEmail("jane@example.com")
+                .build().toByteArray();
+        readUser = (UserDTO) converter.read(UserDTO.class, null, new MockHttpInputMessage(body));
+    }
+
+    private void thenSingleUserIsEncoded() throws Exception {
+        UserMessage message = UserMessage.parseFrom(outputMessage.getBodyAsBytes());
+        assertEquals(1L, message.getUserId());
+        assertEquals("John", message.getFirstName());
+        assertEquals(30, message.getAge());
+        assertEquals(UserProtobufHttpMessageConverter.APPLICATION_PROTOBUF, outputMessage.getHeaders().getContentType());
+    }
+
+    private void thenUserListIsEncoded() throws Exception {
+        UserList list = UserList.parseFrom(outputMessage.getBodyAsBytes());
+        assertEquals(2, list.getUsersCount());
+        assertEquals("jane@example.com", list.getUsers(1).getEmail());
+    }
+
+    private void thenUserIsDecodedWithNullId() {
+        assertNull(readUser.userId());
+        assertEquals("Jane", readUser.firstName());
+        assertEquals(25, readUser.age());
+    }
+}
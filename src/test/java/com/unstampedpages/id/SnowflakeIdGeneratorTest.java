@@ -0,0 +1,139 @@
+package com.unstampedpages.id;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final Instant NOW = Instant.parse("2026-03-01T12:00:00Z");
+
+    private final AtomicLong millis = new AtomicLong(NOW.toEpochMilli());
+    private SnowflakeIdGenerator generator;
+
+    @Test
+    void nextId_shouldEncodeTimestampNodeAndSequence() {
+        givenGeneratorForNode(7);
+        long first = generator.nextId();
+        long second = generator.nextId();
+        assertEquals(NOW, SnowflakeIdGenerator.timestampOf(first));
+        assertEquals(7, SnowflakeIdGenerator.nodeOf(first));
+        assertEquals(0, SnowflakeIdGenerator.sequenceOf(first));
+        assertEquals(1, SnowflakeIdGenerator.sequenceOf(second));
+    }
+
+    @Test
+    void nextId_shouldResetSequenceWhenClockAdvances() {
+        givenGeneratorForNode(1);
+        generator.nextId();
+        generator.nextId();
+        millis.incrementAndGet();
+        long id = generator.nextId();
+        assertEquals(NOW.plusMillis(1), SnowflakeIdGenerator.timestampOf(id));
+        assertEquals(0, SnowflakeIdGenerator.sequenceOf(id));
+    }
+
+    @Test
+    void nextId_shouldBorrowNextMillisecondWhenSequenceIsExhausted() {
+        givenGeneratorForNode(1);
+        long last = 0;
+        for (int i = 0; i <= 4096; i++) {
+            last = generator.nextId();
+        }
+        assertEquals(NOW.plusMillis(1), SnowflakeIdGenerator.timestampOf(last));
+        assertEquals(0, SnowflakeIdGenerator.sequenceOf(last));
+    }
+
+    @Test
+    void nextId_shouldStayMonotonicWhenClockStepsBack() {
+        givenGeneratorForNode(1);
+        long before = generator.nextId();
+        millis.addAndGet(-5_000);
+        long after = generator.nextId();
+        assertTrue(after > before);
+    }
+
+    @Test
+    void nextId_shouldBeUniqueAndIncreasingPerThreadUnderContention() throws Exception {
+        generator = new SnowflakeIdGenerator(3);
+        int threads = 16;
+        int idsPerThread = 50_000;
+        Set<Long> seen = ConcurrentHashMap.newKeySet();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                Callable<Boolean> task = () -> {
+                    long previous = Long.MIN_VALUE;
+                    for (int i = 0; i < idsPerThread; i++) {
+                        long id = generator.nextId();
+                        if (id <= previous || !seen.add(id)) {
+                            return false;
+                        }
+                        previous = id;
+                    }
+                    return true;
+                };
+                results.add(executor.submit(task));
+            }
+            for (Future<Boolean> result : results) {
+                assertTrue(result.get());
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(threads * idsPerThread, seen.size());
+    }
+
+    @Test
+    void constructor_shouldRejectNodeIdOutOfRange() {
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(-1));
+        assertThrows(IllegalArgumentException.class, () -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1));
+    }
+
+    @Test
+    void parseNodeId_shouldRequireNodeIdSetting() {
+        assertEquals(7, SnowflakeIdentifierGenerator.parseNodeId(" 7 "));
+        assertThrows(IllegalStateException.class, () -> SnowflakeIdentifierGenerator.parseNodeId(null));
+        assertThrows(IllegalStateException.class, () -> SnowflakeIdentifierGenerator.parseNodeId(""));
+    }
+
+    private void givenGeneratorForNode(int nodeId) {
+        Clock clock = new Clock() {
+            @Override
+            public ZoneOffset getZone() {
+                return ZoneOffset.UTC;
+            }
+
+            @Override
+            public Clock withZone(ZoneId zone) {
+                return this;
+            }
+
+            @Override
+            public Instant instant() {
+                return Instant.ofEpochMilli(millis.get());
+            }
+
+            @Override
+            public long millis() {
+                return millis.get();
+            }
+        };
+        generator = new SnowflakeIdGenerator(nodeId, clock);
+    }
+}
@@ -0,0 +1,172 @@
+package com.unstampedpages.idempotency;
+
+import com.unstampedpages.service.UserChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Creating a user takes at least 200 ms here, so that concurrent retries overlap the first request.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class IdempotencyFilterTest {
+
+    private static final int RETRIES = 8;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private CreatedUsers createdUsers;
+
+    private String key;
+    private String body;
+    private List<MockHttpServletResponse> responses;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public CreatedUsers createdUsers() {
+            return new CreatedUsers();
+        }
+    }
+
+    static class CreatedUsers {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @EventListener
+        public void onUserChanged(UserChangedEvent event) throws InterruptedException {
+            if (event.previous() == null) {
+                count.incrementAndGet();
+                Thread.sleep(200);
+            }
+        }
+    }
+
+    @BeforeEach
+    void setUp() {
+        String id = UUID.randomUUID().toString();
+        key = "key-" + id;
+        body = "{\"firstName\":\"Ida\",\"lastName\":\"Empotent\",\"age\":30,\"email\":\"" + id + "@example.com\"}";
+        createdUsers.count.set(0);
+    }
+
+    @Test
+    void post_shouldReplayFirstResponseForRetry() throws Exception {
+        String first = whenPosting(key, body).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER))
+                .andReturn().getResponse().getContentAsString();
+        whenPosting(key, body)
+                .andExpect(status().isOk())
+                .andExpect(header().string(IdempotencyFilter.REPLAYED_HEADER, "true"))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(content().string(first));
+        thenUserWasCreatedOnce();
+    }
+
+    @Test
+    void post_shouldRunConcurrentRetriesOnce() throws Exception {
+        whenPostingConcurrently();
+        thenEveryRetryGotTheSameUser();
+        thenUserWasCreatedOnce();
+    }
+
+    @Test
+    void post_shouldRejectKeyReusedForDifferentBody() throws Exception {
+        whenPosting(key, body).andExpect(status().isOk());
+        whenPosting(key, body.replace("Ida", "Other")).andExpect(status().isUnprocessableEntity());
+    }
+
+    @Test
+    void post_withoutKey_shouldConflictOnDuplicateEmail() throws Exception {
+        whenPosting(null, body).andExpect(status().isOk());
+        whenPosting(null, body).andExpect(status().isConflict());
+    }
+
+    @Test
+    void post_shouldScopeKeysToClient() throws Exception {
+        String otherBody = body.replace("@example.com", "@example.org");
+        whenPosting(key, body, "client-a").andExpect(status().isOk());
+        whenPosting(key, otherBody, "client-b")
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(IdempotencyFilter.REPLAYED_HEADER));
+        assertEquals(2, createdUsers.count.get());
+    }
+
+    @Test
+    void post_shouldRejectOverlongKey() throws Exception {
+        whenPosting("k".repeat(IdempotencyFilter.MAX_KEY_LENGTH + 1), body).andExpect(status().isBadRequest());
+        assertEquals(0, createdUsers.count.get());
+    }
+
+    @Test
+    void post_shouldRejectBodyOverLimit() throws Exception {
+        String padded = body.replace("{", "{" + " ".repeat(64 * 1024));
+        whenPosting(key, padded).andExpect(status().isContentTooLarge());
+        assertEquals(0, createdUsers.count.get());
+    }
+
+    private ResultActions whenPosting(String idempotencyKey, String content) throws Exception {
+        return whenPosting(idempotencyKey, content, null);
+    }
+
+    private ResultActions whenPosting(String idempotencyKey, String content, String apiKey) throws Exception {
+        MockHttpServletRequestBuilder request = post("/users").contentType(MediaType.APPLICATION_JSON).content(content);
+        if (idempotencyKey != null) {
+            request.header(IdempotencyFilter.IDEMPOTENCY_KEY_HEADER, idempotencyKey);
+        }
+        if (apiKey != null) {
+            request.header("X-API-Key", apiKey);
+        }
+        return mockMvc.perform(request);
+    }
+
+    private void whenPostingConcurrently() throws Exception {
+        List<Callable<MockHttpServletResponse>> calls = new ArrayList<>();
+        for (int i = 0; i < RETRIES; i++) {
+            calls.add(() -> whenPosting(key, body).andReturn().getResponse());
+        }
+        responses = new ArrayList<>();
+        try (ExecutorService executor = Executors.newFixedThreadPool(RETRIES)) {
+            for (Future<MockHttpServletResponse> future : executor.invokeAll(calls)) {
+                responses.add(future.get());
+            }
+        }
+    }
+
+    private void thenEveryRetryGotTheSameUser() throws Exception {
+        String first = responses.get(0).getContentAsString();
+        for (MockHttpServletResponse response : responses) {
+            assertEquals(200, response.getStatus());
+            assertEquals(first, response.getContentAsString());
+        }
+    }
+
+    private void thenUserWasCreatedOnce() {
+        assertEquals(1, createdUsers.count.get());
+    }
+}
@@ -0,0 +1,171 @@
+package com.unstampedpages.idempotency;
+
+import com.unstampedpages.dao.IdempotencyRecordDAO;
+import com.unstampedpages.model.IdempotencyRecord;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.shard.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyStoreTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+    private static final String KEY = "retry-1";
+    private static final String HASH = "hash-a";
+    private static final StoredResponse CREATED =
+            new StoredResponse(200, "application/json", "{\"userId\":1}".getBytes(StandardCharsets.UTF_8));
+
+    @Mock
+    private IdempotencyRecordDAO recordDAO;
+
+    private IdempotencyStore store;
+    private IdempotencyClaim claim;
+
+    @BeforeEach
+    void setUp() {
+        givenStore(Duration.ofSeconds(5), 64);
+    }
+
+    @Test
+    void claim_shouldAcquireUnusedKeyWithPendingRow() {
+        givenKeyIsFree();
+        whenClaiming(HASH);
+        assertInstanceOf(IdempotencyClaim.Acquired.class, claim);
+        verify(recordDAO).insertPending(KEY, HASH, NOW.plus(Duration.ofMinutes(2)));
+    }
+
+    @Test
+    void claim_shouldReplayCompletedResponseFromMemory() {
+        givenKeyIsFree();
+        whenClaiming(HASH);
+        store.complete(KEY, CREATED);
+        whenClaiming(HASH);
+        thenResponseIsReplayed();
+        verify(recordDAO, times(1)).insertPending(any(), any(), any());
+        verify(recordDAO).complete(KEY, 200, "application/json", CREATED.body(), NOW.plus(Duration.ofHours(24)));
+    }
+
+    @Test
+    void claim_shouldRejectKeyUsedForDifferentRequest() {
+        givenKeyIsFree();
+        whenClaiming(HASH);
+        whenClaiming("hash-b");
+        assertInstanceOf(IdempotencyClaim.Mismatch.class, claim);
+    }
+
+    @Test
+    void claim_shouldWaitForRequestRunningOnThisNode() throws Exception {
+        givenKeyIsFree();
+        whenClaiming(HASH);
+        CompletableFuture<IdempotencyClaim> retry = CompletableFuture.supplyAsync(() -> store.claim(KEY, HASH));
+        Thread.sleep(50);
+        assertFalse(retry.isDone());
+        store.complete(KEY, CREATED);
+        claim = retry.get(5, TimeUnit.SECONDS);
+        thenResponseIsReplayed();
+    }
+
+    @Test
+    void claim_shouldLetRetryRunAgainAfterRelease() {
+        givenKeyIsFree();
+        whenClaiming(HASH);
+        store.release(KEY);
+        whenClaiming(HASH);
+        assertInstanceOf(IdempotencyClaim.Acquired.class, claim);
+        verify(recordDAO).deletePending(KEY);
+    }
+
+    @Test
+    void claim_shouldReplayResponseRecordedByAnotherNode() {
+        givenKeyCompletedOnAnotherNode();
+        whenClaiming(HASH);
+        thenResponseIsReplayed();
+    }
+
+    @Test
+    void claim_shouldReportInProgressWhenAnotherNodeDoesNotFinish() {
+        givenStore(Duration.ofMillis(50), 64);
+        givenKeyHeldByAnotherNode();
+        whenClaiming(HASH);
+        assertInstanceOf(IdempotencyClaim.InProgress.class, claim);
+        assertEquals(0, store.size());
+    }
+
+    @Test
+    void claim_shouldNotWaitBeyondMaxWaiters() throws Exception {
+        givenStore(Duration.ofSeconds(5), 1);
+        givenKeyIsFree();
+        whenClaiming(HASH);
+        CompletableFuture<IdempotencyClaim> waiting = CompletableFuture.supplyAsync(() -> store.claim(KEY, HASH));
+        Thread.sleep(50);
+        whenClaiming(HASH);
+        assertInstanceOf(IdempotencyClaim.InProgress.class, claim);
+        store.complete(KEY, CREATED);
+        claim = waiting.get(5, TimeUnit.SECONDS);
+        thenResponseIsReplayed();
+    }
+
+    @Test
+    void claim_shouldNotPollBeyondMaxWaiters() {
+        givenStore(Duration.ofSeconds(5), 0);
+        givenKeyHeldByAnotherNode();
+        whenClaiming(HASH);
+        assertInstanceOf(IdempotencyClaim.InProgress.class, claim);
+        verify(recordDAO, times(1)).findById(KEY);
+    }
+
+    private void givenStore(Duration waitTimeout, int maxWaiters) {
+        IdempotencyProperties properties = new IdempotencyProperties(true, Duration.ofHours(24), 100, waitTimeout,
+                Duration.ofMinutes(2), Duration.ofMillis(10), Duration.ofMinutes(10), maxWaiters, "X-API-Key",
+                DataSize.ofKilobytes(64));
+        store = new IdempotencyStore(recordDAO, UserShards.unsharded(), new DatabaseCircuitBreaker(5, Duration.ofSeconds(10)),
+                properties, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    private void givenKeyIsFree() {
+        when(recordDAO.insertPending(eq(KEY), any(), any())).thenReturn(1);
+    }
+
+    private void givenKeyCompletedOnAnotherNode() {
+        when(recordDAO.insertPending(eq(KEY), any(), any())).thenThrow(new DuplicateKeyException(KEY));
+        when(recordDAO.findById(KEY)).thenReturn(Optional.of(new IdempotencyRecord(KEY, HASH, 200, "application/json",
+                CREATED.body(), NOW.plusSeconds(60))));
+    }
+
+    private void givenKeyHeldByAnotherNode() {
+        when(recordDAO.insertPending(eq(KEY), any(), any())).thenThrow(new DuplicateKeyException(KEY));
+        when(recordDAO.findById(KEY)).thenReturn(Optional.of(new IdempotencyRecord(KEY, HASH, null, null, null,
+                NOW.plusSeconds(60))));
+    }
+
+    private void whenClaiming(String requestHash) {
+        claim = store.claim(KEY, requestHash);
+    }
+
+    private void thenResponseIsReplayed() {
+        IdempotencyClaim.Completed completed = assertInstanceOf(IdempotencyClaim.Completed.class, claim);
+        assertEquals(200, completed.response().status());
+        assertArrayEquals(CREATED.body(), completed.response().body());
+    }
+}
@@ -0,0 +1,86 @@
+package com.unstampedpages.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyMetricsTest {
+
+    private LatencyMetrics metrics;
+    private String scrape;
+
+    @BeforeEach
+    void setUp() {
+        metrics = new LatencyMetrics(Duration.ofMinutes(1));
+    }
+
+    @Test
+    void scrape_shouldRenderHandlerSummaryAndStatusCounter() {
+        metrics.handler("getUser").record(2_000_000, 200);
+        metrics.handler("getUser").record(2_000_000, 404);
+        whenScraping();
+        assertTrue(scrape.contains("# TYPE users_http_request_duration_seconds summary\n"));
+        assertTrue(scrape.contains("users_http_request_duration_seconds{handler=\"getUser\",quantile=\"0.99\"} 0.002"));
+        assertTrue(scrape.contains("users_http_request_duration_seconds_count{handler=\"getUser\"} 2\n"));
+        assertTrue(scrape.contains("users_http_request_duration_seconds_sum{handler=\"getUser\"} 0.004\n"));
+        assertTrue(scrape.contains("# TYPE users_http_requests_total counter\n"));
+        assertTrue(scrape.contains("users_http_requests_total{handler=\"getUser\",status=\"200\"} 1\n"));
+        assertTrue(scrape.contains("users_http_requests_total{handler=\"getUser\",status=\"404\"} 1\n"));
+    }
+
+    @Test
+    void scrape_shouldRenderDaoOutcomes() {
+        metrics.daoMethod("findById").record(500_000, LatencyMetrics.DAO_SUCCESS);
+        metrics.daoMethod("findById").record(500_000, LatencyMetrics.DAO_ERROR);
+        whenScraping();
+        assertTrue(scrape.contains("users_dao_call_duration_seconds_count{method=\"findById\"} 2\n"));
+        assertTrue(scrape.contains("users_dao_calls_total{method=\"findById\",outcome=\"success\"} 1\n"));
+        assertTrue(scrape.contains("users_dao_calls_total{method=\"findById\",outcome=\"error\"} 1\n"));
+    }
+
+    @Test
+    void scrape_shouldRenderPoolGaugesAndAcquireTimes() {
+        metrics.pool("primary", new ConnectionPoolStats() {
+            @Override
+            public int active() {
+                return 3;
+            }
+
+            @Override
+            public int idle() {
+                return 7;
+            }
+
+            @Override
+            public int pending() {
+                return 2;
+            }
+
+            @Override
+            public int max() {
+                return 10;
+            }
+        });
+        metrics.poolAcquire("primary").record(100_000, 0);
+        whenScraping();
+        assertTrue(scrape.contains("users_db_pool_acquire_seconds_count{pool=\"primary\"} 1\n"));
+        assertTrue(scrape.contains("# TYPE users_db_pool_connections gauge\n"));
+        assertTrue(scrape.contains("users_db_pool_connections{pool=\"primary\",state=\"active\"} 3\n"));
+        assertTrue(scrape.contains("users_db_pool_connections{pool=\"primary\",state=\"idle\"} 7\n"));
+        assertTrue(scrape.contains("users_db_pool_connections{pool=\"primary\",state=\"max\"} 10\n"));
+        assertTrue(scrape.contains("users_db_pool_pending_threads{pool=\"primary\"} 2\n"));
+    }
+
+    @Test
+    void scrape_shouldBeEmptyBeforeAnyCall() {
+        whenScraping();
+        assertEquals("", scrape);
+    }
+
+    private void whenScraping() {
+        scrape = metrics.scrape();
+    }
+}
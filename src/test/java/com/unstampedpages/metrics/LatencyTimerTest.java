@@ -0,0 +1,83 @@
+package com.unstampedpages.metrics;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LatencyTimerTest {
+
+    private static final Duration WINDOW = Duration.ofMinutes(1);
+
+    private long now;
+    private LatencyTimer timer;
+    private LatencyTimer.Snapshot snapshot;
+
+    @BeforeEach
+    void setUp() {
+        timer = new LatencyTimer(LatencyMetrics.HTTP_STATUSES, WINDOW, () -> now);
+    }
+
+    @Test
+    void snapshot_shouldReportQuantilesInSeconds() {
+        givenLatenciesInMillis(1, 100);
+        whenScraping();
+        assertEquals(100, snapshot.count());
+        assertEquals(0.050, snapshot.quantileSeconds()[0], 0.001);
+        assertEquals(0.090, snapshot.quantileSeconds()[1], 0.001);
+        assertEquals(0.099, snapshot.quantileSeconds()[2], 0.001);
+        assertEquals(0.100, snapshot.quantileSeconds()[3], 0.001);
+        assertEquals(5.050, snapshot.sumSeconds(), 1e-9);
+    }
+
+    @Test
+    void snapshot_shouldCountOutcomes() {
+        timer.record(1_000, 200);
+        timer.record(1_000, 200);
+        timer.record(1_000, 404);
+        whenScraping();
+        assertEquals(2, snapshot.outcomeCounts()[200]);
+        assertEquals(1, snapshot.outcomeCounts()[404]);
+        assertEquals(0, snapshot.outcomeCounts()[500]);
+    }
+
+    @Test
+    void snapshot_shouldKeepCountsAcrossScrapes() {
+        givenLatenciesInMillis(1, 10);
+        whenScraping();
+        givenLatenciesInMillis(1, 10);
+        whenScraping();
+        assertEquals(20, snapshot.count());
+        assertEquals(20, snapshot.outcomeCounts()[200]);
+    }
+
+    @Test
+    void snapshot_shouldForgetLatenciesOlderThanTwoWindows() {
+        givenLatenciesInMillis(900, 1_000);
+        whenScraping();
+        now += WINDOW.toNanos();
+        givenLatenciesInMillis(1, 10);
+        whenScraping();
+        assertEquals(1.0, snapshot.quantileSeconds()[3], 0.01, "the previous window still counts");
+        now += WINDOW.toNanos();
+        whenScraping();
+        assertEquals(0.010, snapshot.quantileSeconds()[3], 0.001);
+        now += 2 * WINDOW.toNanos();
+        whenScraping();
+        assertEquals(0, snapshot.quantileSeconds()[3]);
+        assertEquals(111, snapshot.count());
+    }
+
+    private void givenLatenciesInMillis(int from, int to) {
+        for (int millis = from; millis <= to; millis++) {
+            timer.record(TimeUnit.MILLISECONDS.toNanos(millis), 200);
+        }
+    }
+
+    private void whenScraping() {
+        snapshot = timer.snapshot();
+    }
+}
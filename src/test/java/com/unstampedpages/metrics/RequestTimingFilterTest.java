@@ -0,0 +1,53 @@
+package com.unstampedpages.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class RequestTimingFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private String serverTiming;
+
+    @Test
+    void getAllUsers_shouldBreakDownTimeByPhase() throws Exception {
+        givenUser();
+        whenListingUsers();
+        assertTrue(serverTiming.contains("pool;dur="), serverTiming);
+        assertTrue(serverTiming.contains("db;dur="), serverTiming);
+        assertTrue(serverTiming.contains("map;dur="), serverTiming);
+        assertTrue(serverTiming.contains("total;dur="), serverTiming);
+        thenPhasesAreOnMetricsEndpoint();
+    }
+
+    private void givenUser() throws Exception {
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Phoebe\",\"lastName\":\"Phase\",\"age\":33,\"email\":\"phoebe@example.com\"}"))
+                .andExpect(status().isOk());
+    }
+
+    private void whenListingUsers() throws Exception {
+        serverTiming = mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(RequestTimingFilter.SERVER_TIMING_HEADER);
+        assertNotNull(serverTiming);
+    }
+
+    private void thenPhasesAreOnMetricsEndpoint() throws Exception {
+        String scrape = mockMvc.perform(get("/metrics")).andReturn().getResponse().getContentAsString();
+        assertTrue(scrape.contains("users_request_phase_duration_seconds_count{phase=\"map\"} "));
+        assertTrue(scrape.contains("users_request_phase_duration_seconds_count{phase=\"serialize\"} "));
+    }
+}
@@ -0,0 +1,65 @@
+package com.unstampedpages.metrics;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestTimingsTest {
+
+    private RequestTimings timings;
+
+    @BeforeEach
+    void setUp() {
+        timings = RequestTimings.begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestTimings.end();
+    }
+
+    @Test
+    void record_shouldAccumulatePerPhase() {
+        RequestTimings.record(RequestPhase.QUERY, 1_000_000);
+        RequestTimings.record(RequestPhase.QUERY, 500_000);
+        RequestTimings.record(RequestPhase.POOL, 250_000);
+        assertEquals(1_500_000, timings.nanos(RequestPhase.QUERY));
+        assertEquals(1_750_000, timings.databaseNanos());
+    }
+
+    @Test
+    void time_shouldRecordWorkAndReturnItsResult() {
+        assertEquals("mapped", RequestTimings.time(RequestPhase.MAPPING, () -> "mapped"));
+        assertTrue(timings.nanos(RequestPhase.MAPPING) > 0);
+    }
+
+    @Test
+    void record_shouldIgnoreCallsOutsideRequests() {
+        RequestTimings.end();
+        RequestTimings.record(RequestPhase.QUERY, 1_000_000);
+        assertEquals("x", RequestTimings.time(RequestPhase.MAPPING, () -> "x"));
+        assertEquals(0, timings.nanos(RequestPhase.QUERY));
+        assertEquals(0, timings.nanos(RequestPhase.MAPPING));
+    }
+
+    @Test
+    void serverTiming_shouldListPhasesThatTookTimeAndTotal() {
+        timings.add(RequestPhase.POOL, 20_000);
+        timings.add(RequestPhase.QUERY, 1_500_000);
+        timings.add(RequestPhase.MAPPING, 100_000);
+        String header = timings.serverTiming("3 statements, 20 rows");
+        assertTrue(header.startsWith("pool;dur=0.02, db;dur=1.50;desc=\"3 statements, 20 rows\", map;dur=0.10, total;dur="), header);
+        assertFalse(header.contains("hydrate"));
+    }
+
+    @Test
+    void serializationFinished_shouldRecordOnlyAfterStart() {
+        timings.serializationFinished();
+        assertEquals(0, timings.nanos(RequestPhase.SERIALIZATION));
+        timings.serializationStarted();
+        timings.serializationFinished();
+        assertTrue(timings.nanos(RequestPhase.SERIALIZATION) > 0);
+    }
+}
@@ -0,0 +1,149 @@
+package com.unstampedpages.purge;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.shard.UserShards;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserPurgerTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T12:00:00Z");
+    private static final Instant DELETED_BEFORE = NOW.minus(Duration.ofHours(1));
+
+    @Mock
+    private UserDAO userDAO;
+
+    private final DatabaseCircuitBreaker breaker = new DatabaseCircuitBreaker(1, Duration.ofMinutes(1));
+    private PurgeLock lock = () -> () -> {
+    };
+    private long purged;
+    private long elapsedNanos;
+
+    @Test
+    void run_shouldPurgeInKeysetOrderedBatches() {
+        givenDeletedUsers(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+        whenPurging(2, 1_000_000);
+        thenBatchesContinueFromLastId();
+        assertEquals(5, purged);
+    }
+
+    @Test
+    void run_shouldStopAtFirstPartialBatch() {
+        givenDeletedUsers(List.of(1L));
+        whenPurging(2, 1_000_000);
+        assertEquals(1, purged);
+        verify(userDAO, times(1)).findDeletedIds(any(), anyLong(), anyInt());
+    }
+
+    @Test
+    void run_shouldNotPurgeWithoutDeletedUsers() {
+        givenDeletedUsers(List.of());
+        whenPurging(2, 1_000_000);
+        assertEquals(0, purged);
+        verify(userDAO, never()).purgeDeleted(any());
+    }
+
+    @Test
+    void run_shouldStayUnderRowsPerSecond() {
+        givenDeletedUsers(List.of(1L, 2L), List.of(3L, 4L), List.of());
+        whenPurging(2, 50);
+        // two full batches of 2 rows at 50 rows/s: 40 ms each
+        assertTrue(elapsedNanos >= TimeUnit.MILLISECONDS.toNanos(80), "took " + elapsedNanos / 1_000_000 + " ms");
+    }
+
+    @Test
+    void run_shouldSkipWhileCircuitBreakerIsOpen() {
+        givenCircuitBreakerIsOpen();
+        whenPurging(2, 1_000_000);
+        assertEquals(0, purged);
+        verifyNoInteractions(userDAO);
+    }
+
+    @Test
+    void run_shouldStopAtFirstFailure() {
+        when(userDAO.findDeletedIds(DELETED_BEFORE, Long.MIN_VALUE, 2))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        whenPurging(2, 1_000_000);
+        assertEquals(0, purged);
+        verify(userDAO, never()).purgeDeleted(any());
+    }
+
+    @Test
+    void run_shouldSkipShardLockedByAnotherInstance() {
+        givenShardIsLockedElsewhere();
+        whenPurging(2, 1_000_000);
+        assertEquals(0, purged);
+        verifyNoInteractions(userDAO);
+    }
+
+    @Test
+    void run_shouldReleaseLockAfterPurging() {
+        givenDeletedUsers(List.of(1L));
+        boolean[] released = new boolean[1];
+        lock = () -> () -> released[0] = true;
+        whenPurging(2, 1_000_000);
+        assertTrue(released[0]);
+    }
+
+    @SafeVarargs
+    private void givenDeletedUsers(List<Long>... batches) {
+        long after = Long.MIN_VALUE;
+        for (List<Long> batch : batches) {
+            lenient().when(userDAO.findDeletedIds(eq(DELETED_BEFORE), eq(after), anyInt())).thenReturn(batch);
+            if (!batch.isEmpty()) {
+                after = batch.getLast();
+            }
+        }
+    }
+
+    private void givenCircuitBreakerIsOpen() {
+        assertThrows(DatabaseUnavailableException.class, () -> breaker.call(() -> {
+            throw new DataAccessResourceFailureException("Connection refused");
+        }));
+    }
+
+    private void givenShardIsLockedElsewhere() {
+        lock = () -> null;
+    }
+
+    private void whenPurging(int batchSize, int rowsPerSecond) {
+        PurgeProperties properties = new PurgeProperties(true, Duration.ofHours(1), batchSize, rowsPerSecond,
+                Duration.ofMinutes(5));
+        UserPurger purger = new UserPurger(userDAO, UserShards.unsharded(), TransactionOperations.withoutTransaction(),
+                breaker, properties, lock, Clock.fixed(NOW, ZoneOffset.UTC));
+        long start = System.nanoTime();
+        purged = purger.run();
+        elapsedNanos = System.nanoTime() - start;
+    }
+
+    private void thenBatchesContinueFromLastId() {
+        InOrder inOrder = inOrder(userDAO);
+        inOrder.verify(userDAO).findDeletedIds(DELETED_BEFORE, Long.MIN_VALUE, 2);
+        inOrder.verify(userDAO).purgeDeleted(List.of(1L, 2L));
+        inOrder.verify(userDAO).findDeletedIds(DELETED_BEFORE, 2L, 2);
+        inOrder.verify(userDAO).purgeDeleted(List.of(3L, 4L));
+        inOrder.verify(userDAO).findDeletedIds(DELETED_BEFORE, 4L, 2);
+        inOrder.verify(userDAO).purgeDeleted(List.of(5L));
+    }
+}
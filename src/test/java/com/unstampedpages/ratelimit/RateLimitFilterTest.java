@@ -0,0 +1,90 @@
+package com.unstampedpages.ratelimit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimitFilterTest {
+
+    private RateLimitFilter filter;
+    private MockHttpServletResponse response;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties(true, 20, 0.001, "X-API-Key",
+                Duration.ofMinutes(1), Map.of("list", 10, "by-id", 1), Set.of("integration-a"));
+        filter = new RateLimitFilter(new RateLimiter(properties.capacity(), properties.refillPerSecond()), properties);
+    }
+
+    @Test
+    void doFilter_shouldReportBucketInHeaders() throws Exception {
+        whenRequesting("GET", "/users/1", null);
+        assertEquals(200, response.getStatus());
+        assertEquals("20", response.getHeader("RateLimit-Limit"));
+        assertEquals("19", response.getHeader("RateLimit-Remaining"));
+        assertNotNull(response.getHeader("RateLimit-Reset"));
+    }
+
+    @Test
+    void doFilter_shouldChargeListsMoreThanLookups() throws Exception {
+        whenRequesting("GET", "/users", null);
+        assertEquals("10", response.getHeader("RateLimit-Remaining"));
+        whenRequesting("GET", "/users", null);
+        assertEquals("0", response.getHeader("RateLimit-Remaining"));
+        whenRequesting("GET", "/users", null);
+        assertEquals(429, response.getStatus());
+        assertNotNull(response.getHeader("Retry-After"));
+        assertNotNull(response.getHeader("RateLimit-Reset"));
+    }
+
+    @Test
+    void doFilter_shouldLimitApiKeysSeparatelyFromIp() throws Exception {
+        whenRequesting("GET", "/users", null);
+        whenRequesting("GET", "/users", null);
+        whenRequesting("GET", "/users", "integration-a");
+        assertEquals(200, response.getStatus());
+        assertEquals("10", response.getHeader("RateLimit-Remaining"));
+    }
+
+    @Test
+    void doFilter_shouldLimitUnknownApiKeysByIp() throws Exception {
+        whenRequesting("GET", "/users", "made-up-1");
+        whenRequesting("GET", "/users", "made-up-2");
+        whenRequesting("GET", "/users", null);
+        assertEquals(429, response.getStatus());
+    }
+
+    @Test
+    void route_shouldClassifyUsersEndpoints() {
+        assertEquals(RateLimitRoute.LIST, RateLimitRoute.of("GET", "/users"));
+        assertEquals(RateLimitRoute.SEARCH, RateLimitRoute.of("GET", "/users/search"));
+        assertEquals(RateLimitRoute.SUGGEST, RateLimitRoute.of("GET", "/users/suggest"));
+        assertEquals(RateLimitRoute.STATS, RateLimitRoute.of("GET", "/users/stats"));
+        assertEquals(RateLimitRoute.BY_ID, RateLimitRoute.of("GET", "/users/42"));
+        assertEquals(RateLimitRoute.WRITE, RateLimitRoute.of("DELETE", "/users/42"));
+    }
+
+    @Test
+    void constructor_shouldRejectCostAboveCapacity() {
+        RateLimitProperties properties = new RateLimitProperties(true, 5, 1, "X-API-Key",
+                Duration.ofMinutes(1), Map.of("list", 10), Set.of());
+        assertThrows(IllegalArgumentException.class, () -> new RateLimitFilter(new RateLimiter(5, 1), properties));
+    }
+
+    private void whenRequesting(String method, String uri, String apiKey) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, uri);
+        if (apiKey != null) {
+            request.addHeader("X-API-Key", apiKey);
+        }
+        response = new MockHttpServletResponse();
+        filter.doFilter(request, response, new MockFilterChain());
+    }
+}
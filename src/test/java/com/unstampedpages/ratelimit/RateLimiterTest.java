@@ -0,0 +1,107 @@
+package com.unstampedpages.ratelimit;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private static final long START = 1_000 * SECOND;
+
+    private final RateLimiter limiter = new RateLimiter(10, 5);
+    private RateLimiter.Decision decision;
+
+    @Test
+    void tryTake_shouldAllowBurstUpToCapacity() {
+        for (int i = 0; i < 10; i++) {
+            assertTrue(limiter.tryTake("a", 1, START).allowed());
+        }
+        whenTaking("a", 1, START);
+        assertFalse(decision.allowed());
+        assertEquals(0, decision.remaining());
+        assertEquals(SECOND / 5, decision.retryAfterNanos());
+        assertEquals(2 * SECOND, decision.resetNanos());
+    }
+
+    @Test
+    void tryTake_shouldRefillAtConfiguredRate() {
+        limiter.tryTake("a", 10, START);
+        whenTaking("a", 2, START + SECOND / 5);
+        assertFalse(decision.allowed());
+        whenTaking("a", 2, START + 2 * SECOND / 5);
+        assertTrue(decision.allowed());
+        assertEquals(0, decision.remaining());
+    }
+
+    @Test
+    void tryTake_shouldChargeRouteCost() {
+        whenTaking("a", 4, START);
+        assertTrue(decision.allowed());
+        assertEquals(6, decision.remaining());
+        assertEquals(4 * SECOND / 5, decision.resetNanos());
+    }
+
+    @Test
+    void tryTake_shouldKeepClientsIndependent() {
+        limiter.tryTake("greedy", 10, START);
+        assertFalse(limiter.tryTake("greedy", 1, START).allowed());
+        assertTrue(limiter.tryTake("polite", 1, START).allowed());
+    }
+
+    @Test
+    void evictIdle_shouldDropOnlyFullBuckets() {
+        limiter.tryTake("idle", 1, START);
+        limiter.tryTake("busy", 10, START + SECOND);
+        limiter.evictIdle(START + SECOND);
+        assertEquals(1, limiter.size());
+        whenTaking("busy", 1, START + SECOND);
+        assertFalse(decision.allowed(), "evicting must not reset a non-full bucket");
+    }
+
+    @Test
+    void tryTake_shouldNotBeLostToConcurrentEviction() throws InterruptedException {
+        RateLimiter slow = new RateLimiter(1_000, 0.001);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 20_000; i++) {
+            executor.execute(() -> {
+                if (slow.tryTake("shared", 1, START).allowed()) {
+                    admitted.incrementAndGet();
+                }
+            });
+            if (i % 10 == 0) {
+                executor.execute(() -> slow.evictIdle(START));
+            }
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(1_000, admitted.get());
+    }
+
+    @Test
+    void tryTake_shouldNeverAdmitMoreThanCapacityUnderContention() throws InterruptedException {
+        RateLimiter slow = new RateLimiter(1_000, 0.001);
+        AtomicInteger admitted = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 20_000; i++) {
+            executor.execute(() -> {
+                if (slow.tryTake("shared", 1, START).allowed()) {
+                    admitted.incrementAndGet();
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+        assertEquals(1_000, admitted.get());
+    }
+
+    private void whenTaking(String client, int cost, long now) {
+        decision = limiter.tryTake(client, cost, now);
+    }
+}
@@ -0,0 +1,93 @@
+package com.unstampedpages.replica;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReplicaRoutingDataSourceTest {
+
+    private long now;
+    private ReplicaLagMonitor lagMonitor;
+    private ReplicaRoutingDataSource routing;
+    private final List<Object> routed = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        lagMonitor = new ReplicaLagMonitor(List.of(mock(DataSource.class), mock(DataSource.class)), "select 0",
+                Duration.ofSeconds(5), Duration.ofSeconds(1), () -> now);
+        routing = new ReplicaRoutingDataSource(mock(DataSource.class), lagMonitor.dataSources(), lagMonitor);
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReadYourWrites.clear();
+    }
+
+    @Test
+    void route_shouldUsePrimaryBeforeFirstLagCheck() {
+        whenRouting(3);
+        thenRoutedTo(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void route_shouldAlternateBetweenHealthyReplicas() {
+        givenReplicaLags(Duration.ZERO, Duration.ofMillis(200));
+        whenRouting(4);
+        thenRoutedTo(0, 1, 0, 1);
+    }
+
+    @Test
+    void route_shouldSkipReplicaLaggingBeyondThreshold() {
+        givenReplicaLags(Duration.ofSeconds(30), Duration.ZERO);
+        whenRouting(3);
+        thenRoutedTo(1, 1, 1);
+    }
+
+    @Test
+    void route_shouldFallBackToPrimaryWhenAllReplicasLag() {
+        givenReplicaLags(Duration.ofSeconds(30), Duration.ofMinutes(2));
+        whenRouting(2);
+        thenRoutedTo(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    @Test
+    void route_shouldSkipReplicaWhoseLagSampleIsStale() {
+        givenReplicaLags(Duration.ZERO, Duration.ZERO);
+        now += Duration.ofSeconds(2).toNanos();
+        lagMonitor.recordLag(1, Duration.ZERO);
+        now += Duration.ofSeconds(2).toNanos();
+        whenRouting(2);
+        thenRoutedTo(1, 1);
+    }
+
+    @Test
+    void route_shouldUsePrimaryForReadYourWrites() {
+        givenReplicaLags(Duration.ZERO, Duration.ZERO);
+        ReadYourWrites.requirePrimary();
+        whenRouting(2);
+        thenRoutedTo(ReplicaRoutingDataSource.PRIMARY, ReplicaRoutingDataSource.PRIMARY);
+    }
+
+    private void givenReplicaLags(Duration first, Duration second) {
+        lagMonitor.recordLag(0, first);
+        lagMonitor.recordLag(1, second);
+    }
+
+    private void whenRouting(int times) {
+        for (int i = 0; i < times; i++) {
+            routed.add(routing.determineCurrentLookupKey());
+        }
+    }
+
+    private void thenRoutedTo(Object... expected) {
+        assertEquals(List.of(expected), routed);
+    }
+}
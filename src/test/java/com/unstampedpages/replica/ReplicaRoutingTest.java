@@ -0,0 +1,120 @@
+package com.unstampedpages.replica;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserService;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Two H2 databases stand in for primary and replica. Rows written only to the replica show which
+ * database served a read.
+ */
+@SpringBootTest(properties = {
+        "users.replicas.enabled=true",
+        "spring.datasource.url=jdbc:h2:mem:users_primary;DB_CLOSE_DELAY=-1",
+        "users.replicas.replicas[0].url=jdbc:h2:mem:users_replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:h2/users-schema.sql'",
+        "users.replicas.replicas[0].username=sa",
+        "users.replicas.lag-query=select 0",
+        "users.replicas.lag-check-interval=PT1H"
+})
+@AutoConfigureMockMvc
+class ReplicaRoutingTest {
+
+    private static final long REPLICA_ONLY_ID = 9_000L;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    private List<UserDTO> users;
+
+    @BeforeEach
+    void setUp() {
+        new JdbcTemplate(primaryDataSource).update("delete from users");
+        JdbcTemplate replica = new JdbcTemplate(lagMonitor.dataSources().get(0));
+        replica.update("delete from users");
+        replica.update("insert into users (user_id, first_name, last_name, age, email) values (?, 'Rita', 'Replica', 40, 'rita@example.com')",
+                REPLICA_ONLY_ID);
+        lagMonitor.recordLag(0, Duration.ZERO);
+    }
+
+    @Test
+    void readOnlyMethods_shouldBeServedByReplica() {
+        userService.createUser("Paul", "Primary", 30, "paul@example.com");
+        whenListingUsers();
+        thenOnlyReplicaRowIsSeen();
+        assertTrue(userService.getUser(REPLICA_ONLY_ID).isPresent());
+    }
+
+    @Test
+    void readOnlyMethods_shouldFallBackToPrimaryWhenReplicaLags() {
+        userService.createUser("Paul", "Primary", 30, "paul@example.com");
+        lagMonitor.recordLag(0, Duration.ofMinutes(1));
+        whenListingUsers();
+        assertEquals(List.of("Paul"), users.stream().map(UserDTO::firstName).toList());
+    }
+
+    @Test
+    void writeResponse_shouldPinClientReadsToPrimary() throws Exception {
+        MvcResult created = mockMvc.perform(post("/users")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Paul\",\"lastName\":\"Primary\",\"age\":30,\"email\":\"paul@example.com\"}"))
+                .andExpect(status().isOk())
+                .andExpect(cookie().exists(ReadYourWritesFilter.COOKIE_NAME))
+                .andReturn();
+        Cookie primaryUntil = created.getResponse().getCookie(ReadYourWritesFilter.COOKIE_NAME);
+
+        mockMvc.perform(get("/users").cookie(primaryUntil))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("Paul"));
+
+        mockMvc.perform(get("/users"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].firstName").value("Rita"));
+    }
+
+    @Test
+    void expiredReadYourWritesCookie_shouldAllowReplicaReads() throws Exception {
+        Cookie expired = new Cookie(ReadYourWritesFilter.COOKIE_NAME, Long.toString(System.currentTimeMillis() - 1));
+        mockMvc.perform(get("/users").cookie(expired))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].firstName").value("Rita"));
+    }
+
+    private void whenListingUsers() {
+        users = userService.getAllUsers();
+    }
+
+    private void thenOnlyReplicaRowIsSeen() {
+        assertEquals(List.of(REPLICA_ONLY_ID), users.stream().map(UserDTO::userId).toList());
+    }
+}
@@ -0,0 +1,121 @@
+package com.unstampedpages.resilience;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.sql.SQLNonTransientConnectionException;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseCircuitBreakerTest {
+
+    private static final Duration OPEN_DURATION = Duration.ofSeconds(10);
+
+    private long now;
+    private DatabaseCircuitBreaker breaker;
+    private final AtomicInteger attempts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        breaker = new DatabaseCircuitBreaker(3, OPEN_DURATION, () -> now);
+    }
+
+    @Test
+    void call_shouldOpenAfterConsecutiveConnectionFailures() {
+        givenFailures(3);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    void call_shouldResetFailureCountOnSuccess() {
+        givenFailures(2);
+        breaker.call(() -> "ok");
+        givenFailures(2);
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void call_shouldFailFastWithoutCallingWhileOpen() {
+        givenFailures(3);
+        DatabaseUnavailableException e = assertThrows(DatabaseUnavailableException.class, () -> breaker.call(this::attempt));
+        assertEquals(3, attempts.get());
+        assertEquals(1, breaker.rejected());
+        assertEquals(OPEN_DURATION, e.retryAfter());
+    }
+
+    @Test
+    void call_shouldCloseAfterSuccessfulProbe() {
+        givenFailures(3);
+        now += OPEN_DURATION.toNanos();
+        assertEquals("ok", breaker.call(() -> "ok"));
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+        assertEquals(0, breaker.consecutiveFailures());
+    }
+
+    @Test
+    void call_shouldReopenAfterFailedProbe() {
+        givenFailures(3);
+        now += OPEN_DURATION.toNanos();
+        givenFailures(1);
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        assertEquals(OPEN_DURATION, breaker.retryAfter());
+    }
+
+    @Test
+    void call_shouldReopenAfterProbeThrowsError() {
+        givenFailures(3);
+        now += OPEN_DURATION.toNanos();
+        assertThrows(StackOverflowError.class, () -> breaker.call(() -> {
+            throw new StackOverflowError();
+        }));
+        assertEquals(DatabaseCircuitBreaker.State.OPEN, breaker.state());
+        now += OPEN_DURATION.toNanos();
+        assertEquals("ok", breaker.call(() -> "ok"));
+    }
+
+    @Test
+    void call_shouldAdmitOnlyOneProbeWhileHalfOpen() {
+        givenFailures(3);
+        now += OPEN_DURATION.toNanos();
+        String result = breaker.call(() -> {
+            assertEquals(DatabaseCircuitBreaker.State.HALF_OPEN, breaker.state());
+            assertThrows(DatabaseUnavailableException.class, () -> breaker.call(() -> "second"));
+            return "probe";
+        });
+        assertEquals("probe", result);
+    }
+
+    @Test
+    void call_shouldPassThroughErrorsReportedByDatabase() {
+        for (int i = 0; i < 5; i++) {
+            assertThrows(DataIntegrityViolationException.class, () -> breaker.call(() -> {
+                throw new DataIntegrityViolationException("duplicate email");
+            }));
+        }
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+    }
+
+    @Test
+    void isDatabaseFailure_shouldRecognizeConnectionErrorsInCauseChain() {
+        assertTrue(DatabaseCircuitBreaker.isDatabaseFailure(
+                new RuntimeException(new SQLNonTransientConnectionException("connection broken", "08006"))));
+        assertTrue(DatabaseCircuitBreaker.isDatabaseFailure(new DataAccessResourceFailureException("down")));
+        assertFalse(DatabaseCircuitBreaker.isDatabaseFailure(new IllegalStateException("bug")));
+    }
+
+    private void givenFailures(int count) {
+        for (int i = 0; i < count; i++) {
+            assertThrows(DatabaseUnavailableException.class, () -> breaker.call(this::attempt));
+        }
+    }
+
+    private String attempt() {
+        attempts.incrementAndGet();
+        throw new DataAccessResourceFailureException("Connection refused");
+    }
+}
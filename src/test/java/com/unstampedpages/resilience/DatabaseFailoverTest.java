@@ -0,0 +1,145 @@
+package com.unstampedpages.resilience;
+
+import com.jayway.jsonpath.JsonPath;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * The application talks to an H2 TCP server, which the test stops and restarts to simulate a
+ * database failover.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.hikari.connection-timeout=250",
+        "spring.datasource.hikari.validation-timeout=250",
+        "users.circuit-breaker.failure-threshold=2",
+        "users.circuit-breaker.open-duration=PT2S"
+})
+@AutoConfigureMockMvc
+class DatabaseFailoverTest {
+
+    private static final String NEW_USER = "{\"firstName\":\"Nora\",\"lastName\":\"New\",\"age\":22,\"email\":\"nora@example.com\"}";
+    private static final long RECOVERY_TIMEOUT_MILLIS = 10_000;
+
+    private static int port;
+    private static Server database;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DatabaseCircuitBreaker breaker;
+
+    private long userId;
+
+    @DynamicPropertySource
+    static void databaseProperties(DynamicPropertyRegistry registry) throws IOException, SQLException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            port = socket.getLocalPort();
+        }
+        startDatabase();
+        registry.add("spring.datasource.url", () -> "jdbc:h2:tcp://localhost:" + port + "/mem:users_failover;DB_CLOSE_DELAY=-1");
+    }
+
+    @AfterAll
+    static void stopDatabase() {
+        database.stop();
+    }
+
+    @Test
+    void failover_shouldServeStaleReadsFailWritesFastAndRecover() throws Exception {
+        givenUserWasReadWhileDatabaseWasUp();
+        whenDatabaseStops();
+        thenUserIsServedStale();
+        thenBreakerIsOpen();
+        thenWritesFailFast();
+        thenUncachedUserIsUnavailable();
+        whenDatabaseRestarts();
+        thenUserIsServedFreshAgain();
+    }
+
+    private void givenUserWasReadWhileDatabaseWasUp() throws Exception {
+        MvcResult created = mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"firstName\":\"Stella\",\"lastName\":\"Stale\",\"age\":35,\"email\":\"stella@example.com\"}"))
+                .andExpect(status().isOk())
+                .andReturn();
+        userId = Long.parseLong(JsonPath.read(created.getResponse().getContentAsString(), "$.userId"));
+        mockMvc.perform(get("/users/{id}", userId))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("Warning"));
+    }
+
+    private void whenDatabaseStops() {
+        database.stop();
+    }
+
+    private void whenDatabaseRestarts() throws SQLException {
+        startDatabase();
+    }
+
+    private void thenUserIsServedStale() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            mockMvc.perform(get("/users/{id}", userId))
+                    .andExpect(status().isOk())
+                    .andExpect(header().string("Warning", "110 - \"Response is Stale\""))
+                    .andExpect(header().exists(HttpHeaders.AGE))
+                    .andExpect(jsonPath("$.firstName").value("Stella"));
+        }
+    }
+
+    private void thenBreakerIsOpen() throws Exception {
+        mockMvc.perform(get("/ops/circuit-breaker"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("OPEN"));
+    }
+
+    private void thenWritesFailFast() throws Exception {
+        long rejectedBefore = breaker.rejected();
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(NEW_USER))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().exists(HttpHeaders.RETRY_AFTER));
+        assertEquals(rejectedBefore + 1, breaker.rejected(), "the write must be rejected without trying the database");
+    }
+
+    private void thenUncachedUserIsUnavailable() throws Exception {
+        mockMvc.perform(get("/users/{id}", userId + 1))
+                .andExpect(status().isServiceUnavailable());
+    }
+
+    private void thenUserIsServedFreshAgain() throws Exception {
+        long deadline = System.currentTimeMillis() + RECOVERY_TIMEOUT_MILLIS;
+        while (true) {
+            MvcResult result = mockMvc.perform(get("/users/{id}", userId)).andReturn();
+            if (result.getResponse().getStatus() == 200 && result.getResponse().getHeader("Warning") == null) {
+                break;
+            }
+            assertTrue(System.currentTimeMillis() < deadline, "breaker did not close after the database came back");
+            Thread.sleep(100);
+        }
+        assertEquals(DatabaseCircuitBreaker.State.CLOSED, breaker.state());
+        mockMvc.perform(post("/users").contentType(MediaType.APPLICATION_JSON).content(NEW_USER))
+                .andExpect(status().isOk());
+    }
+
+    private static void startDatabase() throws SQLException {
+        database = Server.createTcpServer("-tcpPort", String.valueOf(port), "-ifNotExists").start();
+    }
+}
@@ -0,0 +1,183 @@
+package com.unstampedpages.search;
+
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserSuggestIndexTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+    private static final UserDTO JANE = new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com");
+    private static final UserDTO ZOE = new UserDTO(3L, "Zo\u00EB", "Jones", 41, "zoe@example.com");
+
+    @Mock
+    private UserService userService;
+
+    private UserSuggestIndex index;
+    private List<UserDTO> suggestions;
+
+    @BeforeEach
+    void setUp() {
+        index = new UserSuggestIndex(userService);
+    }
+
+    @Test
+    void rebuild_shouldIndexEveryStreamedUser() {
+        givenServiceStreamsUsers(JOHN, JANE);
+        index.rebuild();
+        assertEquals(2, index.size());
+    }
+
+    @Test
+    void suggest_shouldMatchAnyFieldPrefixIgnoringCase() {
+        givenIndexedUsers(JOHN, JANE, ZOE);
+        whenSuggesting("J", 10);
+        thenSuggestionsAre(JANE, JOHN, ZOE);
+    }
+
+    @Test
+    void suggest_shouldIgnoreAccents() {
+        givenIndexedUsers(JOHN, ZOE);
+        whenSuggesting("zoe", 10);
+        thenSuggestionsAre(ZOE);
+    }
+
+    @Test
+    void suggest_shouldMatchEmailPrefix() {
+        givenIndexedUsers(JOHN, JANE);
+        whenSuggesting("jane@", 10);
+        thenSuggestionsAre(JANE);
+    }
+
+    @Test
+    void suggest_shouldReturnEachUserOnceAndRespectLimit() {
+        givenIndexedUsers(new UserDTO(4L, "Smith", "Smith", 50, "smith@example.com"), JANE);
+        whenSuggesting("smith", 1);
+        assertEquals(1, suggestions.size());
+    }
+
+    @Test
+    void suggest_shouldReturnNothingForBlankQuery() {
+        givenIndexedUsers(JOHN);
+        whenSuggesting("  ", 10);
+        thenSuggestionsAre();
+    }
+
+    @Test
+    void onUserChanged_shouldReplaceTermsOfUpdatedUser() {
+        givenIndexedUsers(JOHN);
+        index.onUserChanged(new UserChangedEvent(1L, JOHN, new UserDTO(1L, "Jack", "Doe", 30, "jack@example.com")));
+        whenSuggesting("john", 10);
+        thenSuggestionsAre();
+    }
+
+    @Test
+    void onUserChanged_shouldRemoveDeletedUser() {
+        givenIndexedUsers(JOHN, JANE);
+        index.onUserChanged(new UserChangedEvent(2L, JANE, null));
+        whenSuggesting("j", 10);
+        thenSuggestionsAre(JOHN);
+    }
+
+    @Test
+    void rebuild_shouldDropUserDeletedThroughAnotherInstance() {
+        givenIndexedUsers(JOHN, JANE);
+        givenServiceStreamsUsers(JOHN);
+        index.rebuild();
+        whenSuggesting("j", 10);
+        thenSuggestionsAre(JOHN);
+    }
+
+    @Test
+    void rebuild_shouldPickUpUserUpdatedThroughAnotherInstance() {
+        UserDTO jack = new UserDTO(1L, "Jack", "Doe", 30, "jack@example.com");
+        givenIndexedUsers(JOHN);
+        givenServiceStreamsUsers(jack);
+        index.rebuild();
+        whenSuggesting("jo", 10);
+        thenSuggestionsAre();
+        assertEquals(3, index.termCount());
+    }
+
+    @Test
+    void rebuild_shouldNotOverwriteUserChangedDuringRebuild() {
+        UserDTO jack = new UserDTO(1L, "Jack", "Doe", 30, "jack@example.com");
+        givenUserChangesWhileRebuilding(new UserChangedEvent(1L, JOHN, jack), JOHN);
+        index.rebuild();
+        whenSuggesting("j", 10);
+        thenSuggestionsAre(jack);
+    }
+
+    @Test
+    void rebuild_shouldNotRestoreUserDeletedDuringRebuild() {
+        givenUserChangesWhileRebuilding(new UserChangedEvent(2L, JANE, null), JOHN, JANE);
+        index.rebuild();
+        whenSuggesting("j", 10);
+        thenSuggestionsAre(JOHN);
+    }
+
+    @Test
+    void index_shouldKeepOneSetOfTermsUnderConcurrentUpdates() throws Exception {
+        try (ExecutorService executor = Executors.newFixedThreadPool(8)) {
+            for (int i = 0; i < 1_000; i++) {
+                String name = "Name" + i;
+                executor.execute(() -> index.index(new UserDTO(1L, name, "Doe", 30, name + "@example.com")));
+            }
+        }
+        whenSuggesting("name", 10);
+        assertEquals(1, suggestions.size());
+        assertEquals(3, index.termCount());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenUserChangesWhileRebuilding(UserChangedEvent event, UserDTO... streamed) {
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(0);
+            index.onUserChanged(event);
+            for (UserDTO user : streamed) {
+                consumer.accept(user);
+            }
+            return null;
+        }).when(userService).streamAllUsers(any(Consumer.class));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenServiceStreamsUsers(UserDTO... users) {
+        doAnswer(invocation -> {
+            Consumer<UserDTO> consumer = invocation.getArgument(0);
+            for (UserDTO user : users) {
+                consumer.accept(user);
+            }
+            return null;
+        }).when(userService).streamAllUsers(any(Consumer.class));
+    }
+
+    private void givenIndexedUsers(UserDTO... users) {
+        for (UserDTO user : users) {
+            index.index(user);
+        }
+    }
+
+    private void whenSuggesting(String query, int limit) {
+        suggestions = index.suggest(query, limit);
+    }
+
+    private void thenSuggestionsAre(UserDTO... expected) {
+        assertEquals(List.of(expected), suggestions);
+    }
+}
@@ -0,0 +1,114 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dto.CountMode;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.shard.UserShards;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.time.Duration;
+import java.util.OptionalLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserCountServiceTest {
+
+    private static final UserSearchCriteria DOE_ADULTS = new UserSearchCriteria("Do", 18, null, UserSearchSort.NAME);
+
+    @Mock
+    private UserDAO userDAO;
+
+    private UserCountService countService;
+    private long count;
+
+    @Test
+    void countUsers_shouldRunExactCountWhenRequested() {
+        givenCountServiceWithTtl(Duration.ofMinutes(1));
+        when(userDAO.count()).thenReturn(42L);
+        whenCountingAll(CountMode.EXACT);
+        thenCountIs(42L);
+        verify(userDAO, never()).estimateTotalCount();
+    }
+
+    @Test
+    void countUsers_shouldServeEstimateFromCacheWithinTtl() {
+        givenCountServiceWithTtl(Duration.ofMinutes(1));
+        when(userDAO.estimateTotalCount()).thenReturn(OptionalLong.of(1_000_000L));
+        whenCountingAll(CountMode.ESTIMATED);
+        whenCountingAll(CountMode.ESTIMATED);
+        thenCountIs(1_000_000L);
+        verify(userDAO, times(1)).estimateTotalCount();
+        verify(userDAO, never()).count();
+    }
+
+    @Test
+    void countUsers_shouldRefreshEstimateAfterTtl() {
+        givenCountServiceWithTtl(Duration.ZERO);
+        when(userDAO.estimateTotalCount()).thenReturn(OptionalLong.of(10L), OptionalLong.of(11L));
+        whenCountingAll(CountMode.ESTIMATED);
+        whenCountingAll(CountMode.ESTIMATED);
+        thenCountIs(11L);
+    }
+
+    @Test
+    void countUsers_shouldFallBackToExactCountWithoutEstimate() {
+        givenCountServiceWithTtl(Duration.ofMinutes(1));
+        when(userDAO.estimateTotalCount()).thenReturn(OptionalLong.empty());
+        when(userDAO.count()).thenReturn(7L);
+        whenCountingAll(CountMode.ESTIMATED);
+        thenCountIs(7L);
+    }
+
+    @Test
+    void countUsers_shouldUsePlannerEstimateForFilters() {
+        givenCountServiceWithTtl(Duration.ofMinutes(1));
+        when(userDAO.estimateCount(new UserSearchCriteria("Do", 18, null, null))).thenReturn(OptionalLong.of(350L));
+        whenCountingMatches(DOE_ADULTS, CountMode.ESTIMATED);
+        whenCountingMatches(new UserSearchCriteria("Do", 18, null, UserSearchSort.AGE), CountMode.ESTIMATED);
+        thenCountIs(350L);
+        verify(userDAO, times(1)).estimateCount(any());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countUsers_shouldRunExactFilteredCountWhenRequested() {
+        givenCountServiceWithTtl(Duration.ofMinutes(1));
+        when(userDAO.count(any(Specification.class))).thenReturn(3L);
+        whenCountingMatches(DOE_ADULTS, CountMode.EXACT);
+        thenCountIs(3L);
+        verify(userDAO, never()).estimateCount(any());
+    }
+
+    @Test
+    void countUsers_shouldTreatEmptyCriteriaAsTableCount() {
+        givenCountServiceWithTtl(Duration.ofMinutes(1));
+        when(userDAO.estimateTotalCount()).thenReturn(OptionalLong.of(99L));
+        whenCountingMatches(new UserSearchCriteria("", null, null, UserSearchSort.ID), CountMode.ESTIMATED);
+        thenCountIs(99L);
+        verify(userDAO, never()).estimateCount(any());
+    }
+
+    private void givenCountServiceWithTtl(Duration ttl) {
+        countService = new UserCountService(userDAO, UserShards.unsharded(), ttl);
+    }
+
+    private void whenCountingAll(CountMode mode) {
+        count = countService.countUsers(mode);
+    }
+
+    private void whenCountingMatches(UserSearchCriteria criteria, CountMode mode) {
+        count = countService.countUsers(criteria, mode);
+    }
+
+    private void thenCountIs(long expected) {
+        assertEquals(expected, count);
+    }
+}
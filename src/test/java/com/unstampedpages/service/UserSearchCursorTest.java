@@ -0,0 +1,54 @@
+package com.unstampedpages.service;
+
+import com.unstampedpages.dto.UserSearchSort;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.KeysetScrollPosition;
+import org.springframework.data.domain.ScrollPosition;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UserSearchCursorTest {
+
+    private String cursor;
+    private KeysetScrollPosition decoded;
+
+    @Test
+    void decode_shouldRestoreTypedKeysOfEncodedCursor() {
+        givenCursorFor(UserSearchSort.NAME, Map.of("lastName", "O'Brien.Smith", "firstName", "Zo\u00EB", "userId", 42L));
+        whenDecodingFor(UserSearchSort.NAME);
+        thenKeysAre(Map.of("lastName", "O'Brien.Smith", "firstName", "Zo\u00EB", "userId", 42L));
+    }
+
+    @Test
+    void decode_shouldRestoreIntegerAge() {
+        givenCursorFor(UserSearchSort.AGE, Map.of("age", 30, "userId", 7L));
+        whenDecodingFor(UserSearchSort.AGE);
+        thenKeysAre(Map.of("age", 30, "userId", 7L));
+    }
+
+    @Test
+    void decode_shouldRejectCursorIssuedForAnotherSort() {
+        givenCursorFor(UserSearchSort.AGE, Map.of("age", 30, "userId", 7L));
+        assertThrows(IllegalArgumentException.class, () -> UserSearchCursor.decode(cursor, UserSearchSort.NAME));
+    }
+
+    @Test
+    void decode_shouldRejectGarbage() {
+        assertThrows(IllegalArgumentException.class, () -> UserSearchCursor.decode("not-a-cursor", UserSearchSort.ID));
+    }
+
+    private void givenCursorFor(UserSearchSort sort, Map<String, Object> keys) {
+        cursor = UserSearchCursor.encode(sort, ScrollPosition.forward(keys));
+    }
+
+    private void whenDecodingFor(UserSearchSort sort) {
+        decoded = (KeysetScrollPosition) UserSearchCursor.decode(cursor, sort);
+    }
+
+    private void thenKeysAre(Map<String, Object> expected) {
+        assertEquals(expected, decoded.getKeys());
+        assertTrue(decoded.scrollsForward());
+    }
+}
@@ -1,8 +1,20 @@
 package com.unstampedpages.service;
 
+import com.unstampedpages.cache.HotKeyProperties;
+import com.unstampedpages.cache.HotKeyTracker;
+import com.unstampedpages.cache.UserCache;
 import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.directory.UserDirectory;
 import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserField;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserSearchSort;
 import com.unstampedpages.model.User;
+import com.unstampedpages.replica.ReadYourWritesFilter;
+import com.unstampedpages.resilience.DatabaseCircuitBreaker;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import com.unstampedpages.shard.UserShards;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -10,15 +22,31 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
-
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
 import static org.mockito.Mockito.*;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,18 +55,31 @@ class UserServiceTest {
     @Mock
     private UserDAO userDAO;
 
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
     @Captor
     private ArgumentCaptor<User> userCaptor;
 
+    @Captor
+    private ArgumentCaptor<UserChangedEvent> eventCaptor;
+
     private UserService userService;
+    private UserCache userCache;
     private UserDTO resultUserDTO;
     private Optional<UserDTO> optionalResult;
     private List<UserDTO> userDTOList;
     private boolean booleanResult;
+    private Optional<Map<String, Object>> fieldsResult;
+    private UserSearchResult searchResult;
+    private Optional<UserRead> readResult;
 
     @BeforeEach
     void setUp() {
-        userService = new UserService(userDAO);
+        userCache = new UserCache(100, Duration.ofHours(1));
+        userService = new UserService(userDAO, eventPublisher, UserShards.unsharded(),
+                new DatabaseCircuitBreaker(1, Duration.ofMinutes(1)), userCache,
+                TransactionOperations.withoutTransaction(), Optional.empty(), Optional.empty());
     }
 
     @Test
@@ -62,6 +103,20 @@ class UserServiceTest {
         thenDAOSaveWasInvokedExactlyOnce();
     }
 
+    @Test
+    void createUser_shouldPublishCreatedEvent() {
+        givenDAOWillSaveUser();
+        whenCreatingUser();
+        thenCreatedEventIsPublished();
+    }
+
+    @Test
+    void getUserByEmail_shouldQueryByEmailWhenUnsharded() {
+        givenUserExistsWithEmail();
+        whenGettingUserByEmail();
+        thenUserIsReturnedByEmail();
+    }
+
     @Test
     void getUser_shouldReturnUserWhenExists() {
         givenUserExists();
@@ -83,6 +138,72 @@ class UserServiceTest {
         thenDAOFindByIdWasInvokedOnlyOnce(42L);
     }
 
+    @Test
+    void readUser_shouldServeCachedCopyWhileDatabaseIsDown() {
+        givenUserIsReadBeforeDatabaseGoesDown();
+        whenReadingUser();
+        thenStaleUserIsReturned();
+    }
+
+    @Test
+    void readUser_shouldServeUserFromDirectoryWithoutDatabaseCall() {
+        givenDirectoryHasUser();
+        whenReadingUser();
+        thenDirectoryUserIsRead();
+    }
+
+    @Test
+    void getUserByEmail_shouldServeUserFromDirectoryWithoutDatabaseCall() {
+        givenDirectoryHasUser();
+        whenGettingUserByEmail();
+        thenDirectoryUserIsReturnedByEmail();
+    }
+
+    @Test
+    void readUser_shouldFallBackToDatabaseWhenDirectoryMisses() {
+        givenDirectoryMissesUser();
+        whenReadingUser();
+        thenUserIsReadFromDatabase();
+    }
+
+    @Test
+    void readUser_shouldServePinnedHotUserFromCache() {
+        givenHotUserIsPinned();
+        whenReadingUser();
+        thenPinnedUserIsRead();
+    }
+
+    @Test
+    void readUser_shouldSkipPinnedCopyForClientThatWroteRecently() throws Exception {
+        givenHotUserIsPinned();
+        givenUserExists();
+        whenReadingUserAfterWrite();
+        thenUserIsReadFromDatabase();
+        assertNull(readResult.orElseThrow().age());
+    }
+
+    @Test
+    void refreshCachedUser_shouldReloadUserWithoutCountingRead() {
+        givenUserExists();
+        userService.refreshCachedUser(1L);
+        verify(userDAO).findById(1L);
+        assertEquals("John", userCache.lookup(1L).orElseThrow().user().firstName());
+    }
+
+    @Test
+    void readUser_shouldFailWhenDatabaseIsDownAndUserIsNotCached() {
+        givenDatabaseIsDown();
+        assertThrows(DatabaseUnavailableException.class, this::whenReadingUser);
+    }
+
+    @Test
+    void updateUser_shouldFailFastWithoutDatabaseCallWhileCircuitIsOpen() {
+        givenDatabaseIsDown();
+        assertThrows(DatabaseUnavailableException.class, this::whenReadingUser);
+        assertThrows(DatabaseUnavailableException.class, this::whenUpdatingUser);
+        thenDAOFindByIdWasInvokedOnlyOnce(1L);
+    }
+
     @Test
     void getAllUsers_shouldReturnEmptyListWhenNoUsers() {
         givenNoUsersExist();
@@ -104,6 +225,40 @@ class UserServiceTest {
         thenDAOFindAllWasInvokedExactlyOnce();
     }
 
+    @Test
+    void getUserFields_shouldDelegateProjectionToDAO() {
+        givenUserFieldsExist();
+        whenGettingUserFields();
+        thenUserFieldsAreReturned();
+    }
+
+    @Test
+    void searchUsers_shouldReturnNextCursorWhenMoreResultsExist() {
+        givenSearchWindowWithMoreResults();
+        whenSearchingUsers(null);
+        thenPageAndNextCursorAreReturned();
+    }
+
+    @Test
+    void searchUsers_shouldRejectCursorOfAnotherSort() {
+        assertThrows(IllegalArgumentException.class, () -> whenSearchingUsers("AGE.MzA.Nw"));
+        verifyNoInteractions(userDAO);
+    }
+
+    @Test
+    void getUsers_shouldReturnRequestedUsers() {
+        givenRequestedUsersExist();
+        whenGettingUsersByIds();
+        thenRequestedUsersAreReturned();
+    }
+
+    @Test
+    void streamAllUsers_shouldPassEveryUserToConsumer() {
+        givenUsersCanBeStreamed();
+        whenStreamingAllUsers();
+        thenEveryUserIsConsumed();
+    }
+
     @Test
     void updateUser_shouldUpdateExistingUser() {
         givenExistingUserForUpdate();
@@ -118,6 +273,21 @@ class UserServiceTest {
         thenUpdatedUserWasPassedToDAO();
     }
 
+    @Test
+    void updateUser_shouldPublishEventWithPreviousAndCurrentState() {
+        givenExistingUserForUpdate();
+        whenUpdatingUser();
+        thenUpdatedEventIsPublished();
+    }
+
+    @Test
+    void updateUser_shouldNotPublishEventWhenCommitFails() {
+        givenExistingUserForUpdate();
+        givenCommitWillFail();
+        assertThrows(TransactionSystemException.class, this::whenUpdatingUser);
+        verifyNoInteractions(eventPublisher);
+    }
+
     @Test
     void updateUser_shouldReturnEmptyWhenUserNotExists() {
         givenUserDoesNotExistForUpdate();
@@ -147,10 +317,25 @@ class UserServiceTest {
     }
 
     @Test
-    void deleteUser_shouldInvokeDAOExistsByIdThenDeleteById() {
+    void deleteUser_shouldPublishDeletedEventOnlyWhenUserExisted() {
         givenUserExistsForDeletion();
         whenDeletingUser();
-        thenDAOExistsByIdAndDeleteByIdWereCalledInOrder();
+        thenDeletedEventIsPublished();
+    }
+
+    @Test
+    void deleteUser_shouldNotPublishEventWhenCommitFails() {
+        givenUserExistsForDeletion();
+        givenCommitWillFail();
+        assertThrows(TransactionSystemException.class, this::whenDeletingUser);
+        verifyNoInteractions(eventPublisher);
+    }
+
+    @Test
+    void deleteUser_shouldInvokeDAOFindByIdThenDelete() {
+        givenUserExistsForDeletion();
+        whenDeletingUser();
+        thenDAOFindByIdAndDeleteWereCalledInOrder();
     }
 
     @Test
@@ -170,11 +355,57 @@ class UserServiceTest {
         when(userDAO.save(userCaptor.capture())).thenReturn(savedUser);
     }
 
+    private void givenUserExistsWithEmail() {
+        User user = new User(1L, "John", "Doe", 30, "john@example.com");
+        when(userDAO.findByEmail("john@example.com")).thenReturn(Optional.of(user));
+    }
+
     private void givenUserExists() {
         User user = new User(1L, "John", "Doe", 30, "john@example.com");
         when(userDAO.findById(1L)).thenReturn(Optional.of(user));
     }
 
+    private void givenDirectoryHasUser() {
+        UserDirectory directory = mock(UserDirectory.class);
+        UserDTO user = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+        lenient().when(directory.find(1L)).thenReturn(user);
+        lenient().when(directory.findByEmail("john@example.com")).thenReturn(user);
+        userServiceWithDirectory(directory);
+    }
+
+    private void givenDirectoryMissesUser() {
+        userServiceWithDirectory(mock(UserDirectory.class));
+        givenUserExists();
+    }
+
+    private void userServiceWithDirectory(UserDirectory directory) {
+        userService = new UserService(userDAO, eventPublisher, UserShards.unsharded(),
+                new DatabaseCircuitBreaker(1, Duration.ofMinutes(1)), new UserCache(100, Duration.ofHours(1)),
+                TransactionOperations.withoutTransaction(), Optional.of(directory), Optional.empty());
+    }
+
+    private void givenHotUserIsPinned() {
+        HotKeyTracker tracker = new HotKeyTracker(new HotKeyProperties(true, 10, 1, 1024, 4,
+                Duration.ofMinutes(1), Duration.ofSeconds(10), Duration.ofSeconds(2)));
+        userService = new UserService(userDAO, eventPublisher, UserShards.unsharded(),
+                new DatabaseCircuitBreaker(1, Duration.ofMinutes(1)), userCache,
+                TransactionOperations.withoutTransaction(), Optional.empty(), Optional.of(tracker));
+        userCache.put(new UserDTO(1L, "John", "Doe", 30, "john@example.com"));
+        userCache.pin(Set.of(1L), Duration.ofSeconds(10));
+    }
+
+    private void givenUserIsReadBeforeDatabaseGoesDown() {
+        User user = new User(1L, "John", "Doe", 30, "john@example.com");
+        when(userDAO.findById(1L))
+                .thenReturn(Optional.of(user))
+                .thenThrow(new DataAccessResourceFailureException("Connection refused"));
+        userService.getUser(1L);
+    }
+
+    private void givenDatabaseIsDown() {
+        when(userDAO.findById(1L)).thenThrow(new DataAccessResourceFailureException("Connection refused"));
+    }
+
     private void givenUserDoesNotExist() {
         when(userDAO.findById(999L)).thenReturn(Optional.empty());
     }
@@ -193,6 +424,31 @@ class UserServiceTest {
         when(userDAO.findAll()).thenReturn(Arrays.asList(user1, user2));
     }
 
+    private void givenUserFieldsExist() {
+        when(userDAO.findFieldsById(1L, List.of(UserField.USER_ID, UserField.EMAIL)))
+                .thenReturn(Optional.of(Map.of("userId", 1L, "email", "john@example.com")));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void givenSearchWindowWithMoreResults() {
+        User user = new User(1L, "John", "Doe", 30, "john@example.com");
+        Window<User> window = Window.from(List.of(user),
+                index -> ScrollPosition.forward(Map.of("lastName", "Doe", "firstName", "John", "userId", 1L)), true);
+        when(userDAO.findBy(any(Specification.class), any())).thenReturn(window);
+    }
+
+    private void givenRequestedUsersExist() {
+        User user1 = new User(1L, "John", "Doe", 30, "john@example.com");
+        User user2 = new User(2L, "Jane", "Smith", 25, "jane@example.com");
+        when(userDAO.findAllById(List.of(1L, 2L))).thenReturn(Arrays.asList(user1, user2));
+    }
+
+    private void givenUsersCanBeStreamed() {
+        when(userDAO.streamAll()).thenReturn(Stream.of(
+                new UserDTO(1L, "John", "Doe", 30, "john@example.com"),
+                new UserDTO(2L, "Jane", "Smith", 25, "jane@example.com")));
+    }
+
     private void givenExistingUserForUpdate() {
         User existingUser = new User(1L, "John", "Doe", 30, "john@example.com");
         User updatedUser = new User(1L, "Jane", "Smith", 25, "jane@example.com");
@@ -216,28 +472,54 @@ class UserServiceTest {
         when(userDAO.save(any(User.class))).thenReturn(existingUser);
     }
 
+    private void givenCommitWillFail() {
+        TransactionOperations failingCommit = new TransactionOperations() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                action.doInTransaction(new SimpleTransactionStatus());
+                throw new TransactionSystemException("Could not commit");
+            }
+        };
+        userService = new UserService(userDAO, eventPublisher, UserShards.unsharded(),
+                new DatabaseCircuitBreaker(1, Duration.ofMinutes(1)), userCache, failingCommit,
+                Optional.empty(), Optional.empty());
+    }
+
     private void givenUserExistsForDeletion() {
-        when(userDAO.existsById(1L)).thenReturn(true);
-        doNothing().when(userDAO).deleteById(1L);
+        givenUserExistsForDeletionWithId(1L);
     }
 
     private void givenUserDoesNotExistForDeletion() {
-        when(userDAO.existsById(999L)).thenReturn(false);
+        when(userDAO.findById(999L)).thenReturn(Optional.empty());
     }
 
     private void givenUserExistsForDeletionWithId(Long id) {
-        when(userDAO.existsById(id)).thenReturn(true);
-        doNothing().when(userDAO).deleteById(id);
+        User existingUser = new User(id, "John", "Doe", 30, "john@example.com");
+        when(userDAO.findById(id)).thenReturn(Optional.of(existingUser));
+        doNothing().when(userDAO).delete(existingUser);
     }
 
     private void whenCreatingUser() {
         resultUserDTO = userService.createUser("John", "Doe", 30, "john@example.com");
     }
 
+    private void whenGettingUserByEmail() {
+        optionalResult = userService.getUserByEmail("john@example.com");
+    }
+
     private void whenGettingUser() {
         optionalResult = userService.getUser(1L);
     }
 
+    private void whenReadingUser() {
+        readResult = userService.readUser(1L);
+    }
+
+    private void whenReadingUserAfterWrite() throws Exception {
+        new ReadYourWritesFilter(Duration.ofSeconds(5)).doFilter(new MockHttpServletRequest("PUT", "/users/1"),
+                new MockHttpServletResponse(), (request, response) -> readResult = userService.readUser(1L));
+    }
+
     private void whenGettingNonExistentUser() {
         optionalResult = userService.getUser(999L);
     }
@@ -250,6 +532,23 @@ class UserServiceTest {
         userDTOList = userService.getAllUsers();
     }
 
+    private void whenGettingUserFields() {
+        fieldsResult = userService.getUserFields(1L, List.of(UserField.USER_ID, UserField.EMAIL));
+    }
+
+    private void whenSearchingUsers(String cursor) {
+        searchResult = userService.searchUsers(new UserSearchCriteria("D", null, null, UserSearchSort.NAME), cursor, 1);
+    }
+
+    private void whenGettingUsersByIds() {
+        userDTOList = userService.getUsers(List.of(1L, 2L));
+    }
+
+    private void whenStreamingAllUsers() {
+        userDTOList = new ArrayList<>();
+        userService.streamAllUsers(userDTOList::add);
+    }
+
     private void whenUpdatingUser() {
         optionalResult = userService.updateUser(1L, "Jane", "Smith", 25, "jane@example.com");
     }
@@ -294,12 +593,59 @@ class UserServiceTest {
         verifyNoMoreInteractions(userDAO);
     }
 
+    private void thenCreatedEventIsPublished() {
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        UserChangedEvent event = eventCaptor.getValue();
+        assertEquals(1L, event.userId());
+        assertNull(event.previous());
+        assertEquals(resultUserDTO, event.current());
+    }
+
+    private void thenUserIsReturnedByEmail() {
+        assertTrue(optionalResult.isPresent());
+        assertEquals(1L, optionalResult.get().userId());
+        verify(userDAO).findByEmail("john@example.com");
+        verify(userDAO, never()).findById(any());
+    }
+
     private void thenUserIsReturned() {
         assertTrue(optionalResult.isPresent());
         assertEquals("John", optionalResult.get().firstName());
         verify(userDAO).findById(1L);
     }
 
+    private void thenPinnedUserIsRead() {
+        UserRead read = readResult.orElseThrow();
+        assertFalse(read.isStale());
+        assertNotNull(read.age());
+        assertEquals("John", read.user().firstName());
+        verifyNoInteractions(userDAO);
+    }
+
+    private void thenDirectoryUserIsRead() {
+        UserRead read = readResult.orElseThrow();
+        assertFalse(read.isStale());
+        assertEquals("John", read.user().firstName());
+        verifyNoInteractions(userDAO);
+    }
+
+    private void thenDirectoryUserIsReturnedByEmail() {
+        assertEquals(1L, optionalResult.orElseThrow().userId());
+        verifyNoInteractions(userDAO);
+    }
+
+    private void thenUserIsReadFromDatabase() {
+        assertEquals("John", readResult.orElseThrow().user().firstName());
+        verify(userDAO).findById(1L);
+    }
+
+    private void thenStaleUserIsReturned() {
+        UserRead read = readResult.orElseThrow();
+        assertTrue(read.isStale());
+        assertEquals("John", read.user().firstName());
+        verify(userDAO, times(2)).findById(1L);
+    }
+
     private void thenEmptyOptionalIsReturned() {
         assertTrue(optionalResult.isEmpty());
         verify(userDAO).findById(999L);
@@ -326,6 +672,34 @@ class UserServiceTest {
         verifyNoMoreInteractions(userDAO);
     }
 
+    private void thenUserFieldsAreReturned() {
+        assertTrue(fieldsResult.isPresent());
+        assertEquals("john@example.com", fieldsResult.get().get("email"));
+        verify(userDAO).findFieldsById(1L, List.of(UserField.USER_ID, UserField.EMAIL));
+        verifyNoMoreInteractions(userDAO);
+    }
+
+    private void thenPageAndNextCursorAreReturned() {
+        assertEquals(1, searchResult.users().size());
+        assertEquals("John", searchResult.users().get(0).firstName());
+        assertNotNull(searchResult.nextCursor());
+        assertTrue(searchResult.nextCursor().startsWith("NAME."));
+    }
+
+    private void thenRequestedUsersAreReturned() {
+        assertEquals(2, userDTOList.size());
+        assertEquals("John", userDTOList.get(0).firstName());
+        assertEquals("Jane", userDTOList.get(1).firstName());
+        verify(userDAO).findAllById(List.of(1L, 2L));
+    }
+
+    private void thenEveryUserIsConsumed() {
+        assertEquals(2, userDTOList.size());
+        assertEquals(1L, userDTOList.get(0).userId());
+        assertEquals(2L, userDTOList.get(1).userId());
+        verify(userDAO).streamAll();
+    }
+
     private void thenUserIsUpdated() {
         assertTrue(optionalResult.isPresent());
         assertEquals("Jane", optionalResult.get().firstName());
@@ -336,6 +710,14 @@ class UserServiceTest {
         verify(userDAO).save(any(User.class));
     }
 
+    private void thenUpdatedEventIsPublished() {
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        UserChangedEvent event = eventCaptor.getValue();
+        assertEquals(1L, event.userId());
+        assertEquals("John", event.previous().firstName());
+        assertEquals("Jane", event.current().firstName());
+    }
+
     private void thenUpdatedUserWasPassedToDAO() {
         User capturedUser = userCaptor.getValue();
         assertEquals(1L, capturedUser.getUserId());
@@ -360,25 +742,34 @@ class UserServiceTest {
 
     private void thenTrueIsReturnedAndUserDeleted() {
         assertTrue(booleanResult);
-        verify(userDAO).existsById(1L);
-        verify(userDAO).deleteById(1L);
+        verify(userDAO).findById(1L);
+        verify(userDAO).delete(any(User.class));
+    }
+
+    private void thenDeletedEventIsPublished() {
+        verify(eventPublisher).publishEvent(eventCaptor.capture());
+        UserChangedEvent event = eventCaptor.getValue();
+        assertEquals(1L, event.userId());
+        assertEquals("john@example.com", event.previous().email());
+        assertNull(event.current());
     }
 
     private void thenFalseIsReturnedAndDeleteNotCalled() {
         assertFalse(booleanResult);
-        verify(userDAO).existsById(999L);
-        verify(userDAO, never()).deleteById(anyLong());
+        verifyNoInteractions(eventPublisher);
+        verify(userDAO).findById(999L);
+        verify(userDAO, never()).delete(any(User.class));
     }
 
-    private void thenDAOExistsByIdAndDeleteByIdWereCalledInOrder() {
+    private void thenDAOFindByIdAndDeleteWereCalledInOrder() {
         var inOrder = inOrder(userDAO);
-        inOrder.verify(userDAO).existsById(1L);
-        inOrder.verify(userDAO).deleteById(1L);
+        inOrder.verify(userDAO).findById(1L);
+        inOrder.verify(userDAO).delete(any(User.class));
         verifyNoMoreInteractions(userDAO);
     }
 
     private void thenDAOWasInvokedWithCorrectId(Long id) {
-        verify(userDAO).existsById(id);
-        verify(userDAO).deleteById(id);
+        verify(userDAO).findById(id);
+        verify(userDAO).delete(argThat(user -> id.equals(user.getUserId())));
     }
 }
@@ -0,0 +1,49 @@
+package com.unstampedpages.shard;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConsistentHashRingTest {
+
+    private static final int KEYS = 100_000;
+
+    @Test
+    void shardFor_shouldSpreadKeysEvenly() {
+        ConsistentHashRing ring = new ConsistentHashRing(4, 128);
+        int[] counts = new int[4];
+        for (long key = 0; key < KEYS; key++) {
+            counts[ring.shardFor(key)]++;
+        }
+        for (int count : counts) {
+            assertEquals(KEYS / 4.0, count, KEYS / 4.0 * 0.2);
+        }
+    }
+
+    @Test
+    void shardFor_shouldOnlyMoveKeysToNewShardWhenGrowing() {
+        ConsistentHashRing before = new ConsistentHashRing(4, 128);
+        ConsistentHashRing after = new ConsistentHashRing(5, 128);
+        int moved = 0;
+        for (long key = 0; key < KEYS; key++) {
+            int from = before.shardFor(key);
+            int to = after.shardFor(key);
+            if (from != to) {
+                assertEquals(4, to, "keys may only move to the added shard");
+                moved++;
+            }
+        }
+        assertEquals(KEYS / 5.0, moved, KEYS / 5.0 * 0.25);
+    }
+
+    @Test
+    void shardFor_shouldBeStableForSameKey() {
+        ConsistentHashRing ring = new ConsistentHashRing(3, 64);
+        assertEquals(ring.shardFor(123_456_789L), new ConsistentHashRing(3, 64).shardFor(123_456_789L));
+    }
+
+    @Test
+    void constructor_shouldRejectEmptyRing() {
+        assertThrows(IllegalArgumentException.class, () -> new ConsistentHashRing(0, 128));
+    }
+}
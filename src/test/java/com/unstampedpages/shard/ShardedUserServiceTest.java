@@ -0,0 +1,197 @@
+package com.unstampedpages.shard;
+
+import com.unstampedpages.dto.CountMode;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchCriteria;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserSearchSort;
+import com.unstampedpages.service.UserCountService;
+import com.unstampedpages.service.UserService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the real service stack against three in-memory H2 databases acting as shards.
+ */
+@SpringBootTest(properties = {
+        "users.sharding.enabled=true",
+        "users.sharding.shards[0].url=jdbc:h2:mem:users_shard0;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:h2/users-schema.sql'",
+        "users.sharding.shards[0].username=sa",
+        "users.sharding.shards[1].url=jdbc:h2:mem:users_shard1;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:h2/users-schema.sql'",
+        "users.sharding.shards[1].username=sa",
+        "users.sharding.shards[2].url=jdbc:h2:mem:users_shard2;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:h2/users-schema.sql'",
+        "users.sharding.shards[2].username=sa",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+class ShardedUserServiceTest {
+
+    private static final int USERS = 30;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserCountService userCountService;
+
+    @Autowired
+    private UserShards shards;
+
+    @Autowired
+    private ShardRoutingDataSource shardRoutingDataSource;
+
+    private final List<UserDTO> created = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        for (int shard = 0; shard < shards.count(); shard++) {
+            JdbcTemplate jdbc = shardJdbc(shard);
+            jdbc.update("delete from users");
+            jdbc.update("delete from user_email_routes");
+        }
+    }
+
+    @Test
+    void createUser_shouldStoreEachUserOnlyOnItsHashedShard() {
+        givenUsers();
+        int[] perShard = new int[shards.count()];
+        for (UserDTO user : created) {
+            int owner = shards.shardOf(user.userId());
+            perShard[owner]++;
+            for (int shard = 0; shard < shards.count(); shard++) {
+                Integer rows = shardJdbc(shard).queryForObject("select count(*) from users where user_id = ?", Integer.class, user.userId());
+                assertEquals(shard == owner ? 1 : 0, rows);
+            }
+        }
+        for (int count : perShard) {
+            assertTrue(count > 0, "every shard should receive users");
+        }
+    }
+
+    @Test
+    void getUser_shouldReadFromOwningShard() {
+        givenUsers();
+        UserDTO expected = created.get(17);
+        assertEquals(expected, userService.getUser(expected.userId()).orElseThrow());
+    }
+
+    @Test
+    void getAllUsers_shouldMergeShardsInIdOrder() {
+        givenUsers();
+        assertEquals(created, userService.getAllUsers());
+    }
+
+    @Test
+    void getUsers_shouldFetchIdsFromSeveralShards() {
+        givenUsers();
+        List<Long> ids = List.of(created.get(0).userId(), created.get(11).userId(), created.get(29).userId());
+        assertEquals(3, userService.getUsers(ids).size());
+    }
+
+    @Test
+    void searchUsers_shouldPageAcrossShardsInGlobalOrder() {
+        givenUsers();
+        UserSearchCriteria criteria = new UserSearchCriteria(null, 20, null, UserSearchSort.AGE);
+        List<UserDTO> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            UserSearchResult page = userService.searchUsers(criteria, cursor, 4);
+            assertTrue(page.users().size() <= 4);
+            paged.addAll(page.users());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        List<UserDTO> expected = created.stream()
+                .filter(user -> user.age() >= 20)
+                .sorted(UserSearchSort.AGE.comparator())
+                .toList();
+        assertEquals(expected, paged);
+    }
+
+    @Test
+    void getUserByEmail_shouldResolveThroughRoutingTable() {
+        givenUsers();
+        UserDTO expected = created.get(5);
+        assertEquals(expected, userService.getUserByEmail(expected.email()).orElseThrow());
+        assertTrue(userService.getUserByEmail("nobody@example.com").isEmpty());
+    }
+
+    @Test
+    void createUser_shouldRejectEmailAlreadyUsedOnAnyShard() {
+        givenUsers();
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userService.createUser("Other", "Person", 40, created.get(3).email()));
+        assertEquals(USERS, userService.getAllUsers().size());
+    }
+
+    @Test
+    void deleteUser_shouldReleaseEmail() {
+        givenUsers();
+        UserDTO deleted = created.get(8);
+        assertTrue(userService.deleteUser(deleted.userId()));
+        assertTrue(userService.getUserByEmail(deleted.email()).isEmpty());
+        assertNotNull(userService.createUser("New", "Owner", 33, deleted.email()).userId());
+    }
+
+    @Test
+    void updateUser_shouldMoveEmailRoute() {
+        givenUsers();
+        UserDTO user = created.get(2);
+        userService.updateUser(user.userId(), user.firstName(), user.lastName(), user.age(), "renamed@example.com");
+        assertTrue(userService.getUserByEmail(user.email()).isEmpty());
+        assertEquals(user.userId(), userService.getUserByEmail("renamed@example.com").orElseThrow().userId());
+    }
+
+    @Test
+    void createUser_shouldReclaimEmailRouteLeftByUnfinishedWrite() {
+        givenRouteToMissingUser("orphan@example.com", Instant.now().minus(Duration.ofHours(1)));
+        UserDTO user = userService.createUser("New", "Owner", 33, "orphan@example.com");
+        assertEquals(user, userService.getUserByEmail("orphan@example.com").orElseThrow());
+    }
+
+    @Test
+    void createUser_shouldLeaveRecentRouteToItsWrite() {
+        givenRouteToMissingUser("pending@example.com", Instant.now());
+        assertThrows(DataIntegrityViolationException.class,
+                () -> userService.createUser("New", "Owner", 33, "pending@example.com"));
+    }
+
+    @Test
+    void getUserByEmail_shouldIgnoreRouteToUserWithAnotherEmail() {
+        givenUsers();
+        UserDTO user = created.get(4);
+        shardJdbc(0).update("insert into user_email_routes (email, user_id) values (?, ?)", "stale@example.com", user.userId());
+        assertTrue(userService.getUserByEmail("stale@example.com").isEmpty());
+    }
+
+    @Test
+    void countUsers_shouldSumShards() {
+        givenUsers();
+        assertEquals(USERS, userCountService.countUsers(CountMode.EXACT));
+    }
+
+    private void givenUsers() {
+        for (int i = 0; i < USERS; i++) {
+            created.add(userService.createUser("First" + i, "Last" + (i % 7), 18 + (i % 9), "user" + i + "@example.com"));
+        }
+    }
+
+    private void givenRouteToMissingUser(String email, Instant claimedAt) {
+        shardJdbc(0).update("insert into user_email_routes (email, user_id, claimed_at) values (?, ?, ?)",
+                email, 42L, Timestamp.from(claimedAt));
+    }
+
+    private JdbcTemplate shardJdbc(int shard) {
+        return new JdbcTemplate(shardRoutingDataSource.shards().get(shard));
+    }
+}
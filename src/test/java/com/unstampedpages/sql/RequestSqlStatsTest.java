@@ -0,0 +1,65 @@
+package com.unstampedpages.sql;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RequestSqlStatsTest {
+
+    private static final String SELECT_BY_ID = "select u1_0.user_id from users u1_0 where u1_0.user_id=?";
+
+    private final RequestStatementInspector inspector = new RequestStatementInspector();
+    private RequestSqlStats stats;
+
+    @BeforeEach
+    void setUp() {
+        stats = RequestSqlStats.begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestSqlStats.end();
+    }
+
+    @Test
+    void description_shouldReportStatementsAndRows() {
+        stats.executed(1_250_000, 1);
+        stats.executed(250_000, 0);
+        stats.fetched();
+        stats.fetched();
+        assertEquals("2 statements, 3 rows", stats.description());
+        assertEquals(1_500_000, stats.databaseNanos());
+    }
+
+    @Test
+    void mostRepeated_shouldFlagStatementPreparedOverThreshold() {
+        givenPrepared(SELECT_BY_ID, 5);
+        givenPrepared("select count(*) from users", 1);
+        Map.Entry<String, Integer> repeated = stats.mostRepeated(5).orElseThrow();
+        assertEquals(SELECT_BY_ID, repeated.getKey());
+        assertEquals(5, repeated.getValue());
+    }
+
+    @Test
+    void mostRepeated_shouldBeEmptyUnderThreshold() {
+        givenPrepared(SELECT_BY_ID, 4);
+        assertTrue(stats.mostRepeated(5).isEmpty());
+    }
+
+    @Test
+    void inspect_shouldIgnoreStatementsOutsideRequests() {
+        RequestSqlStats.end();
+        assertEquals(SELECT_BY_ID, inspector.inspect(SELECT_BY_ID));
+        assertNull(RequestSqlStats.current());
+    }
+
+    private void givenPrepared(String sql, int times) {
+        for (int i = 0; i < times; i++) {
+            assertEquals(sql, inspector.inspect(sql));
+        }
+    }
+}
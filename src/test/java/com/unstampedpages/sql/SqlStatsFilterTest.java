@@ -0,0 +1,39 @@
+package com.unstampedpages.sql;
+
+import com.unstampedpages.metrics.RequestTimingFilter;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "users.sql-stats.statement-budget=1")
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+class SqlStatsFilterTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void get_shouldReportStatementsInServerTimingHeader() throws Exception {
+        String serverTiming = mockMvc.perform(get("/users/search").param("lastNamePrefix", "Do"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(RequestTimingFilter.SERVER_TIMING_HEADER);
+        assertNotNull(serverTiming);
+        assertTrue(serverTiming.matches(".*db;dur=\\d+\\.\\d{2};desc=\"[1-9]\\d* statements, \\d+ rows\".*"), serverTiming);
+    }
+
+    @Test
+    void get_shouldWarnAboutRequestOverStatementBudget(CapturedOutput output) throws Exception {
+        mockMvc.perform(get("/users/search").param("count", "exact")).andExpect(status().isOk());
+        assertTrue(output.getOut().contains("SQL statements, over the budget of 1"), output.getOut());
+    }
+}
@@ -0,0 +1,92 @@
+package com.unstampedpages.sql;
+
+import org.h2.jdbc.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StatementTimingDataSourceTest {
+
+    private StatementTimingDataSource dataSource;
+    private RequestSqlStats stats;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:statement_timing;DB_CLOSE_DELAY=-1");
+        dataSource = new StatementTimingDataSource(h2, Duration.ofSeconds(1));
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            statement.execute("create table if not exists items (id int primary key)");
+            statement.execute("delete from items");
+        }
+        stats = RequestSqlStats.begin();
+    }
+
+    @AfterEach
+    void tearDown() {
+        RequestSqlStats.end();
+    }
+
+    @Test
+    void executeBatch_shouldCountStatementAndAffectedRows() throws SQLException {
+        givenItems(3);
+        assertEquals(1, stats.statements());
+        assertEquals(3, stats.rows());
+        assertTrue(stats.databaseNanos() > 0);
+    }
+
+    @Test
+    void executeQuery_shouldCountFetchedRows() throws SQLException {
+        givenItems(3);
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement select = connection.prepareStatement("select id from items where id < ?")) {
+            select.setInt(1, 2);
+            try (ResultSet rows = select.executeQuery()) {
+                while (rows.next()) {
+                    rows.getInt(1);
+                }
+            }
+        }
+        assertEquals(2, stats.statements());
+        assertEquals(5, stats.rows());
+    }
+
+    @Test
+    void connection_shouldKeepProxyIdentityAndUnwrap() throws SQLException {
+        try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+            assertEquals(connection, connection);
+            assertSame(connection, statement.getConnection());
+            assertTrue(connection.isWrapperFor(JdbcConnection.class));
+        }
+    }
+
+    @Test
+    void execute_shouldPropagateSqlException() {
+        assertThrows(SQLException.class, () -> {
+            try (Connection connection = dataSource.getConnection(); Statement statement = connection.createStatement()) {
+                statement.execute("select * from missing_table");
+            }
+        });
+    }
+
+    private void givenItems(int count) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement insert = connection.prepareStatement("insert into items (id) values (?)")) {
+            for (int id = 0; id < count; id++) {
+                insert.setInt(1, id);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+    }
+}
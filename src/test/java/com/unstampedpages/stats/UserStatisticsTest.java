@@ -0,0 +1,160 @@
+package com.unstampedpages.stats;
+
+import com.unstampedpages.dao.AgeDomainCount;
+import com.unstampedpages.dao.UserDAO;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserStatsDTO;
+import com.unstampedpages.service.UserChangedEvent;
+import com.unstampedpages.shard.UserShards;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserStatisticsTest {
+
+    private static final UserDTO JOHN = new UserDTO(1L, "John", "Doe", 30, "john@example.com");
+    private static final UserDTO JANE = new UserDTO(2L, "Jane", "Smith", 25, "jane@Example.com");
+
+    @Mock
+    private UserDAO userDAO;
+
+    private UserStatistics statistics;
+    private UserStatsDTO stats;
+
+    @BeforeEach
+    void setUp() {
+        statistics = new UserStatistics(userDAO, UserShards.unsharded());
+    }
+
+    @Test
+    void reconcile_shouldSeedCountersFromAggregateQuery() {
+        givenDatabaseCounts(row(34, "example.com", 5), row(35, "example.com", 2), row(102, "test.org", 1));
+        whenReconcilingAndSnapshotting();
+        thenTotalIs(8);
+        assertEquals(7L, stats.ageHistogram().get("30-39"));
+        assertEquals(1L, stats.ageHistogram().get("100+"));
+        assertEquals(Map.of("example.com", 7L, "test.org", 1L), stats.emailDomains());
+    }
+
+    @Test
+    void onUserChanged_shouldCountCreatesAndDeletes() {
+        statistics.onUserChanged(new UserChangedEvent(1L, null, JOHN));
+        statistics.onUserChanged(new UserChangedEvent(2L, null, JANE));
+        statistics.onUserChanged(new UserChangedEvent(1L, JOHN, null));
+        stats = statistics.snapshot(10);
+        thenTotalIs(1);
+        assertEquals(1L, stats.ageHistogram().get("20-29"));
+        assertEquals(0L, stats.ageHistogram().get("30-39"));
+        assertEquals(Map.of("example.com", 1L), stats.emailDomains());
+    }
+
+    @Test
+    void onUserChanged_shouldMoveUpdatedUserBetweenBuckets() {
+        statistics.onUserChanged(new UserChangedEvent(1L, null, JOHN));
+        statistics.onUserChanged(new UserChangedEvent(1L, JOHN, new UserDTO(1L, "John", "Doe", 41, "john@test.org")));
+        stats = statistics.snapshot(10);
+        thenTotalIs(1);
+        assertEquals(0L, stats.ageHistogram().get("30-39"));
+        assertEquals(1L, stats.ageHistogram().get("40-49"));
+        assertEquals(Map.of("test.org", 1L), stats.emailDomains());
+    }
+
+    @Test
+    void onUserChanged_shouldNotLoseConcurrentUpdates() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 10_000; i++) {
+            long id = i;
+            executor.execute(() -> statistics.onUserChanged(
+                    new UserChangedEvent(id, null, new UserDTO(id, "F", "L", (int) (id % 90), "u" + id + "@example.com"))));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        stats = statistics.snapshot(10);
+        thenTotalIs(10_000);
+        assertEquals(10_000L, stats.emailDomains().get("example.com"));
+    }
+
+    @Test
+    void reconcile_shouldReplayEventsThatArriveDuringRebuild() {
+        givenUserIsCreatedWhileCountsAreQueried(JANE, row(30, "example.com", 1));
+        whenReconcilingAndSnapshotting();
+        thenTotalIs(2);
+        assertEquals(1L, stats.ageHistogram().get("20-29"));
+        assertEquals(Map.of("example.com", 2L), stats.emailDomains());
+    }
+
+    @Test
+    void onUserChanged_shouldApplyToRebuiltCountersAfterReconcile() {
+        givenDatabaseCounts(row(30, "example.com", 1));
+        statistics.reconcile();
+        statistics.onUserChanged(new UserChangedEvent(2L, null, JANE));
+        stats = statistics.snapshot(10);
+        thenTotalIs(2);
+    }
+
+    @Test
+    void snapshot_shouldLimitDomainsToTheLargest() {
+        givenDatabaseCounts(row(20, "a.com", 1), row(20, "b.com", 3), row(20, "c.com", 2));
+        statistics.reconcile();
+        stats = statistics.snapshot(2);
+        assertEquals(List.of("b.com", "c.com"), List.copyOf(stats.emailDomains().keySet()));
+    }
+
+    @Test
+    void bucketLabel_shouldDescribeDecades() {
+        assertEquals("0-9", UserStatistics.bucketLabel(0));
+        assertEquals("90-99", UserStatistics.bucketLabel(9));
+        assertEquals("100+", UserStatistics.bucketLabel(10));
+    }
+
+    private void givenDatabaseCounts(AgeDomainCount... rows) {
+        when(userDAO.countByAgeAndDomain()).thenReturn(List.of(rows));
+    }
+
+    private void givenUserIsCreatedWhileCountsAreQueried(UserDTO created, AgeDomainCount... rows) {
+        when(userDAO.countByAgeAndDomain()).thenAnswer(invocation -> {
+            statistics.onUserChanged(new UserChangedEvent(created.userId(), null, created));
+            return List.of(rows);
+        });
+    }
+
+    private void whenReconcilingAndSnapshotting() {
+        statistics.reconcile();
+        stats = statistics.snapshot(10);
+    }
+
+    private void thenTotalIs(long expected) {
+        assertEquals(expected, stats.total());
+    }
+
+    private static AgeDomainCount row(int age, String domain, long users) {
+        return new AgeDomainCount() {
+            @Override
+            public Integer getAge() {
+                return age;
+            }
+
+            @Override
+            public String getDomain() {
+                return domain;
+            }
+
+            @Override
+            public Long getUsers() {
+                return users;
+            }
+        };
+    }
+}
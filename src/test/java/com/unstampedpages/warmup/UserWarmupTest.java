@@ -0,0 +1,99 @@
+package com.unstampedpages.warmup;
+
+import com.unstampedpages.controller.UserController;
+import com.unstampedpages.dto.UserDTO;
+import com.unstampedpages.dto.UserSearchResult;
+import com.unstampedpages.dto.UserStatsDTO;
+import com.unstampedpages.resilience.DatabaseUnavailableException;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.ResponseEntity;
+import tools.jackson.databind.json.JsonMapper;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Every clock reading advances by one microsecond, so every round of iterations takes equally long.
+ */
+@ExtendWith(MockitoExtension.class)
+class UserWarmupTest {
+
+    private static final UserDTO USER = new UserDTO(1L, "Wanda", "Warm", 30, "wanda@example.com");
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    @Mock
+    private UserController userController;
+
+    private final AtomicLong clock = new AtomicLong();
+    private UserWarmup.Result result;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(dataSource.isWrapperFor(any())).thenReturn(false);
+        when(dataSource.getConnection()).thenReturn(connection);
+    }
+
+    @Test
+    void run_shouldStopOnceRoundsNoLongerGetFaster() throws Exception {
+        givenUsersCanBeRead();
+        whenWarmingUp(0.1);
+        assertTrue(result.converged());
+        assertEquals(UserWarmup.MIN_ROUNDS, result.rounds());
+        assertEquals(UserWarmup.MIN_ROUNDS * 10, result.iterations());
+        assertEquals(1, result.connections());
+        verify(connection).close();
+        verify(userController, times(result.iterations())).getUser(USER.userId());
+    }
+
+    @Test
+    void run_shouldStopAtMaxIterationsWhenNotConverging() {
+        givenUsersCanBeRead();
+        whenWarmingUp(0);
+        assertFalse(result.converged());
+        assertEquals(100, result.iterations());
+        assertEquals(10, result.rounds());
+    }
+
+    @Test
+    void run_shouldEndEarlyWhenDatabaseIsUnavailable() {
+        when(userController.searchUsers(any(), any(), any(), any(), any(), anyInt(), any()))
+                .thenThrow(new DatabaseUnavailableException("Database is unavailable", Duration.ofSeconds(5), null));
+        whenWarmingUp(0.1);
+        assertFalse(result.converged());
+        assertEquals(0, result.iterations());
+    }
+
+    private void givenUsersCanBeRead() {
+        ResponseEntity<UserSearchResult> page = ResponseEntity.ok(new UserSearchResult(List.of(USER), null));
+        when(userController.searchUsers(any(), any(), any(), any(), any(), anyInt(), any())).thenReturn(page);
+        when(userController.getUser(USER.userId())).thenReturn(ResponseEntity.ok(USER));
+        when(userController.getUserByEmail(USER.email())).thenReturn(ResponseEntity.ok(USER));
+        when(userController.suggestUsers(eq("W"), anyInt())).thenReturn(List.of(USER));
+        when(userController.getStats(anyInt())).thenReturn(new UserStatsDTO(1, Map.of(), Map.of()));
+    }
+
+    private void whenWarmingUp(double convergence) {
+        WarmupProperties properties = new WarmupProperties(true, 10, 100, convergence, Duration.ofMinutes(1));
+        UserWarmup warmup = new UserWarmup(dataSource, userController, JsonMapper.builder().build(), properties,
+                () -> clock.addAndGet(1_000));
+        result = warmup.run();
+        assertSame(result, warmup.result());
+    }
+}
@@ -0,0 +1,72 @@
+package com.unstampedpages.warmup;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = "users.warmup.enabled=true")
+@AutoConfigureMockMvc
+class WarmupReadinessTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private UserWarmup userWarmup;
+
+    @Autowired
+    private ReadinessRecorder readinessRecorder;
+
+    @TestConfiguration
+    static class TestConfig {
+        @Bean
+        public ReadinessRecorder readinessRecorder(UserWarmup userWarmup) {
+            return new ReadinessRecorder(userWarmup);
+        }
+    }
+
+    /**
+     * Whether warm-up had finished when readiness changed to accepting traffic.
+     */
+    static class ReadinessRecorder {
+        private final UserWarmup userWarmup;
+        private volatile Boolean warmedUpWhenAccepting;
+
+        ReadinessRecorder(UserWarmup userWarmup) {
+            this.userWarmup = userWarmup;
+        }
+
+        @EventListener
+        public void onReadinessChanged(AvailabilityChangeEvent<ReadinessState> event) {
+            if (event.getState() == ReadinessState.ACCEPTING_TRAFFIC) {
+                warmedUpWhenAccepting = userWarmup.result() != null;
+            }
+        }
+    }
+
+    @Test
+    void ready_shouldAcceptTrafficOnlyAfterWarmUp() throws Exception {
+        mockMvc.perform(get("/ops/ready"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.state").value("ACCEPTING_TRAFFIC"));
+        assertEquals(Boolean.TRUE, readinessRecorder.warmedUpWhenAccepting);
+    }
+
+    @Test
+    void warmUp_shouldFillPoolAndRunIterations() {
+        UserWarmup.Result result = userWarmup.result();
+        assertEquals(10, result.connections());
+        assertTrue(result.iterations() > 0);
+    }
+}
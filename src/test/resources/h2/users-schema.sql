@@ -0,0 +1,26 @@
+create table if not exists users (
+    user_id    bigint       primary key,
+    first_name varchar(255) not null,
+    last_name  varchar(255) not null,
+    age        integer      not null,
+    email      varchar(255) not null,
+    deleted_at timestamp with time zone
+);
+
+-- Email unique among live users, like the partial index in PostgreSQL (V7)
+create unique nulls not distinct index if not exists users_email_live_key on users (email, deleted_at);
+
+create table if not exists user_email_routes (
+    email      varchar(255)             primary key,
+    user_id    bigint                   not null,
+    claimed_at timestamp with time zone default current_timestamp not null
+);
+
+create table if not exists idempotency_keys (
+    idempotency_key varchar(255)             primary key,
+    request_hash    varchar(64)              not null,
+    status          integer,
+    content_type    varchar(255),
+    body            varbinary,
+    expires_at      timestamp with time zone not null
+);